@@ -0,0 +1,76 @@
+package tasktracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasktracker.backend.controller.groupers.DateTaskGrouper;
+import tasktracker.backend.controller.groupers.Frequency;
+import tasktracker.backend.model.Task;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task counts of the dashboard by hour, day and month of three months of a big project,
+ * the current grouper against the legacy one.
+ * <p>
+ * {@code java -jar target/benchmarks.jar DateTaskGrouperBenchmark -prof gc} shows the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class DateTaskGrouperBenchmark {
+    @Param({"1000000"})
+    public int tasks;
+    @Param({"HOUR", "DAY", "MONTH"})
+    public Frequency frequency;
+
+    private List<Task> history;
+    private Date start;
+    private Date end;
+
+    @Setup
+    public void setUp() {
+        final TaskHistory taskHistory = new TaskHistory(ZoneId.systemDefault(), LocalDate.of(2020, 3, 1), 90);
+        history = taskHistory.tasks(tasks, 300, 42);
+        start = taskHistory.start();
+        end = taskHistory.end();
+    }
+
+    @Benchmark
+    public Map<Date, Integer> group() {
+        return new DateTaskGrouper.DateTaskGrouperBuilder()
+                .start(start)
+                .end(end)
+                .frequency(frequency)
+                .dateType(Task.DateType.START_DATE)
+                .build()
+                .group(history);
+    }
+
+    @Benchmark
+    public Map<Date, Integer> legacyGroup() {
+        return new tasktracker.benchmarks.legacy.DateTaskGrouper.DateTaskGrouperBuilder()
+                .start(start)
+                .end(end)
+                .frequency(frequency)
+                .dateType(Task.DateType.START_DATE)
+                .build()
+                .group(history);
+    }
+}
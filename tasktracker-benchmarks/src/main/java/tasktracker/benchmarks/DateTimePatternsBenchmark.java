@@ -0,0 +1,91 @@
+package tasktracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasktracker.backend.controller.DateTimePatterns;
+import tasktracker.backend.model.Task;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the dates of the requests and formatting of the dates of the responses. A date parsed by
+ * {@link DateTimePatterns#getDateFromFormattedDateString(String)} is tried with the patterns in turn, so a day
+ * and a month fail one and two patterns first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateTimePatternsBenchmark {
+    private static final int DATES = 1024;
+
+    private Date[] dates;
+    private String[] dateTimes;
+    private String[] days;
+    private String[] months;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<Task> tasks = new TaskHistory(ZoneId.systemDefault(), LocalDate.of(2020, 3, 1), 90).tasks(DATES, 300, 42);
+        dates = new Date[DATES];
+        dateTimes = new String[DATES];
+        days = new String[DATES];
+        months = new String[DATES];
+        for (int i = 0; i < DATES; i++) {
+            dates[i] = tasks.get(i).getStartDate();
+            dateTimes[i] = DateTimePatterns.getFormattedDateTimeString(dates[i]);
+            days[i] = DateTimePatterns.toYyyyMmDd(dates[i]);
+            months[i] = days[i].substring(0, 7);
+        }
+    }
+
+    private int next() {
+        next = (next + 1) & (DATES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Date parseDateTime() {
+        return DateTimePatterns.getDateTimeFromFormattedString(dateTimes[next()]);
+    }
+
+    @Benchmark
+    public Date parseAnyDateTime() {
+        return DateTimePatterns.getDateFromFormattedDateString(dateTimes[next()]);
+    }
+
+    @Benchmark
+    public Date parseAnyDay() {
+        return DateTimePatterns.getDateFromFormattedDateString(days[next()]);
+    }
+
+    @Benchmark
+    public Date parseAnyMonth() {
+        return DateTimePatterns.getDateFromFormattedDateString(months[next()]);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return DateTimePatterns.getFormattedDateTimeString(dates[next()]);
+    }
+
+    @Benchmark
+    public String formatDay() {
+        return DateTimePatterns.toYyyyMmDd(dates[next()]);
+    }
+}
@@ -0,0 +1,116 @@
+package tasktracker.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasktracker.backend.dq.DataQualityFunction;
+import tasktracker.backend.dq.ExpressionsEvaluator;
+import tasktracker.backend.dq.ExpressionsEvaluator.ExpressionEvaluatorResponse;
+import tasktracker.backend.dq.StatsWindowCache;
+import tasktracker.backend.model.DataQualityCondition;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskStats;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a data quality condition with every built-in function on the row counts of daily runs.
+ * The statistics window of {@code confidence_interval_sigma} is served from memory, as the warm
+ * {@link StatsWindowCache} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionsEvaluatorBenchmark {
+    private static final int STATS = 1024;
+    private static final int WINDOW_DAYS = 60;
+
+    private static final Map<String, String> EXPRESSIONS = ImmutableMap.<String, String>builder()
+            .put("is_above", "is_above(3000000)")
+            .put("is_below", "is_below(3000000)")
+            .put("is_within_range", "is_within_range(2800000, 3200000)")
+            .put("is_outside_range", "is_outside_range(2800000, 3200000)")
+            .put("confidence_interval_sigma", "confidence_interval_sigma('mean', 3, 20, false)")
+            .put("confidence_interval_sigma_delta", "confidence_interval_sigma('median', 2, 20, true)")
+            .build();
+
+    @Param({
+            "is_above",
+            "is_below",
+            "is_within_range",
+            "is_outside_range",
+            "confidence_interval_sigma",
+            "confidence_interval_sigma_delta"
+    })
+    public String function;
+
+    private ExpressionsEvaluator evaluator;
+    private DataQualityCondition condition;
+    private Project project;
+    private Task task;
+    private TaskStats[] stats;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final StatsHistory history = new StatsHistory(42);
+        final List<Double> window = history.values(WINDOW_DAYS);
+        final StatsWindowCache statsWindowCache = new StatsWindowCache(null, null, null, WINDOW_DAYS, Long.MAX_VALUE) {
+            @Override
+            public List<Double> lastValues(
+                    final Project project,
+                    final Task task,
+                    final String column,
+                    final DataQualityCondition.Metric metric,
+                    final int days
+            ) {
+                return window.subList(0, Math.min(days, window.size()));
+            }
+        };
+        evaluator = new ExpressionsEvaluator(null, statsWindowCache);
+
+        // a new built-in function has to get its expression here
+        for (final DataQualityFunction builtIn : evaluator.getFunctions()) {
+            if (!EXPRESSIONS.containsKey(builtIn.getName())) {
+                throw new IllegalStateException("No benchmark of the function " + builtIn.getName());
+            }
+        }
+
+        condition = new DataQualityCondition();
+        condition.setId(1L);
+        condition.setExpression(EXPRESSIONS.get(function));
+        condition.setMetric(DataQualityCondition.Metric.count);
+
+        final TaskHistory taskHistory = new TaskHistory(ZoneId.systemDefault(), LocalDate.of(2020, 3, 1), 1);
+        project = taskHistory.project();
+        task = taskHistory.tasks(1, 1, 42).get(0);
+        stats = new TaskStats[STATS];
+        for (int i = 0; i < STATS; i++) {
+            stats[i] = history.stats("id", TaskStats.ColumnType.NUMERIC);
+            stats[i].setId((long) i);
+        }
+    }
+
+    @Benchmark
+    public ExpressionEvaluatorResponse isFullfilled() {
+        next = (next + 1) & (STATS - 1);
+        return evaluator.isFullfilled(project, task, stats[next], condition);
+    }
+}
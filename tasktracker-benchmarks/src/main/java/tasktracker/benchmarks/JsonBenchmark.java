@@ -0,0 +1,109 @@
+package tasktracker.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tasktracker.backend.controller.DateTimePatterns;
+import tasktracker.backend.controller.mappers.TaskStatsMapper;
+import tasktracker.backend.controller.model.DailyTasksModel;
+import tasktracker.backend.controller.model.TaskModel;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskStats;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON of the task responses with the object mapper Spring Boot builds: a task with the statistics of its
+ * columns, and the tasks of a month by day and name as {@code /projects/{project_id}/tasksInRange} returns them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    private static final int TASK_MODELS = 256;
+    private static final int COLUMNS = 20;
+
+    @Param({"12000"})
+    public int tasks;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<Task> history;
+    private TaskModel[] taskModels;
+    private DailyTasksModel dailyTasks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        history = new TaskHistory(ZoneId.systemDefault(), LocalDate.of(2020, 3, 1), 30).tasks(tasks, 300, 42);
+
+        final StatsHistory statsHistory = new StatsHistory(42);
+        final TaskStatsMapper mapper = new TaskStatsMapper();
+        taskModels = new TaskModel[TASK_MODELS];
+        for (int i = 0; i < TASK_MODELS; i++) {
+            final List<TaskStats> stats = new ArrayList<>(COLUMNS);
+            for (int j = 0; j < COLUMNS; j++) {
+                stats.add(statsHistory.stats("column_" + j, j % 3 == 0 ? TaskStats.ColumnType.STRING : TaskStats.ColumnType.NUMERIC));
+            }
+            taskModels[i] = new TaskModel(history.get(i));
+            taskModels[i].setStatistics(mapper.to(stats).getStats());
+        }
+
+        dailyTasks = dailyTasks(history);
+    }
+
+    /**
+     * Tasks by nominal day and name, as {@code TaskTrackerService.getTasksInRange} groups them.
+     */
+    private static DailyTasksModel dailyTasks(final List<Task> tasks) {
+        final SimpleDateFormat dateFormat = DateTimePatterns.getDefault();
+        final SimpleDateFormat dateTimeFormat = DateTimePatterns.getDateTimeFormat();
+        final Map<String, Map<String, List<TaskModel>>> dateToTasks = new HashMap<>();
+        for (final Task task : tasks) {
+            dateToTasks
+                    .computeIfAbsent(dateFormat.format(task.getNominalDate()), date -> new HashMap<>())
+                    .computeIfAbsent(task.getName(), name -> new ArrayList<>())
+                    .add(new TaskModel(dateTimeFormat, task));
+        }
+        return new DailyTasksModel(dateToTasks);
+    }
+
+    @Benchmark
+    public byte[] writeTask() throws JsonProcessingException {
+        next = (next + 1) & (TASK_MODELS - 1);
+        return objectMapper.writeValueAsBytes(taskModels[next]);
+    }
+
+    @Benchmark
+    public byte[] writeDailyTasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dailyTasks);
+    }
+
+    /**
+     * Response models of the tasks built and written, the whole response apart from the query.
+     */
+    @Benchmark
+    public byte[] buildAndWriteDailyTasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dailyTasks(history));
+    }
+}
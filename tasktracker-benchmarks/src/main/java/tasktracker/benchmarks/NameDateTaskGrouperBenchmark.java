@@ -0,0 +1,75 @@
+package tasktracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasktracker.backend.controller.groupers.NameDateTaskGrouper;
+import tasktracker.backend.model.Task;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily tasks of every name of three months of a big project, as grouped for the daily report,
+ * the current grouper against the legacy one.
+ * <p>
+ * {@code java -jar target/benchmarks.jar NameDateTaskGrouperBenchmark -prof gc} shows the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class NameDateTaskGrouperBenchmark {
+    @Param({"1000000"})
+    public int tasks;
+    @Param({"false", "true"})
+    public boolean lastTaskOnly;
+
+    private List<Task> history;
+    private Date start;
+    private Date end;
+
+    @Setup
+    public void setUp() {
+        final TaskHistory taskHistory = new TaskHistory(ZoneId.systemDefault(), LocalDate.of(2020, 3, 1), 90);
+        history = taskHistory.tasks(tasks, 300, 42);
+        start = taskHistory.start();
+        end = taskHistory.end();
+    }
+
+    @Benchmark
+    public Map<String, Map<Date, List<Task>>> group() {
+        return NameDateTaskGrouper.builder()
+                .start(start)
+                .end(end)
+                .daily()
+                .lastTaskOnly(lastTaskOnly)
+                .build()
+                .group(history);
+    }
+
+    @Benchmark
+    public Map<String, Map<Date, List<Task>>> legacyGroup() {
+        return tasktracker.benchmarks.legacy.NameDateTaskGrouper.builder()
+                .start(start)
+                .end(end)
+                .daily()
+                .lastTaskOnly(lastTaskOnly)
+                .build()
+                .group(history);
+    }
+}
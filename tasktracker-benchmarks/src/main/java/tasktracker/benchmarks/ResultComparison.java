@@ -0,0 +1,118 @@
+package tasktracker.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of two benchmark runs, the baseline and the current one, and exits with 1 if
+ * a benchmark regressed: its score got worse by more than the threshold and the confidence intervals of
+ * the runs don't overlap. The benchmarks are matched by name and parameters.
+ * <pre>
+ * java -jar target/benchmarks.jar -rf json -rff baseline.json
+ * ... change ...
+ * java -jar target/benchmarks.jar -rf json -rff current.json
+ * java -cp target/benchmarks.jar tasktracker.benchmarks.ResultComparison baseline.json current.json [threshold %, 10 by default]
+ * </pre>
+ * The data of the benchmarks is generated with fixed seeds, so the runs on the same machine are comparable.
+ */
+public final class ResultComparison {
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    private ResultComparison() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparison <baseline.json> <current.json> [threshold %]");
+            System.exit(2);
+        }
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        final Map<String, Score> baseline = read(new File(args[0]));
+        final Map<String, Score> current = read(new File(args[1]));
+
+        final List<String> regressions = new ArrayList<>();
+        System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+        current.forEach((key, score) -> {
+            final Score base = baseline.get(key);
+            if (Objects.isNull(base)) {
+                System.out.println(String.format("%-90s %14s %14.3f %9s  %s", key, "-", score.value, "new", score.unit));
+                return;
+            }
+            final double change = score.change(base);
+            final boolean regressed = change > threshold && !score.overlaps(base);
+            System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%  %s%s",
+                    key, base.value, score.value, change, score.unit, regressed ? "  REGRESSION" : ""));
+            if (regressed) {
+                regressions.add(key);
+            }
+        });
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.println(String.format("%-90s %14.3f %14s %9s", key, baseline.get(key).value, "-", "removed")));
+
+        if (!regressions.isEmpty()) {
+            System.out.println(regressions.size() + " benchmarks regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    static Map<String, Score> read(final File file) throws IOException {
+        final Map<String, Score> scores = new TreeMap<>();
+        for (final JsonNode result : new ObjectMapper().readTree(file)) {
+            final Map<String, String> params = new LinkedHashMap<>();
+            final Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            final String benchmark = result.path("benchmark").asText().replace("tasktracker.benchmarks.", "");
+            final JsonNode metric = result.path("primaryMetric");
+            scores.put(
+                    params.isEmpty() ? benchmark : benchmark + params,
+                    new Score(
+                            metric.path("score").asDouble(),
+                            metric.path("scoreError").asDouble(0),
+                            metric.path("scoreUnit").asText(),
+                            "thrpt".equals(result.path("mode").asText())
+                    )
+            );
+        }
+        return scores;
+    }
+
+    static final class Score {
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        Score(final double value, final double error, final String unit, final boolean higherIsBetter) {
+            this.value = value;
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        /**
+         * Change against the baseline in percent, positive if the score got worse.
+         */
+        double change(final Score baseline) {
+            final double change = (value - baseline.value) / baseline.value * 100;
+            return higherIsBetter ? -change : change;
+        }
+
+        boolean overlaps(final Score baseline) {
+            return Math.abs(value - baseline.value) <= error + baseline.error;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package tasktracker.benchmarks;
+
+import tasktracker.backend.controller.body.TaskStatsBody;
+import tasktracker.backend.model.TaskStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic column statistics of daily runs: the row count of a table grows slowly with noise, the numeric
+ * columns have their mean and spread and consistent quantiles. The same seed gives the same statistics.
+ */
+public final class StatsHistory {
+    private static final double LEVEL = 3_000_000;
+    private static final double DAILY_GROWTH = 0.002;
+    private static final double NOISE = 0.05;
+
+    private final Random random;
+
+    public StatsHistory(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Row counts of the last days, newest first, as the statistics window of a column returns them.
+     */
+    public List<Double> values(final int days) {
+        final List<Double> values = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            values.add(count(days - i));
+        }
+        return values;
+    }
+
+    public TaskStats stats(final String column, final TaskStats.ColumnType columnType) {
+        final TaskStats stats = new TaskStats();
+        final TaskStatsBody body = body(column, columnType);
+        stats.setColumn(body.getColumn());
+        stats.setColumnType(columnType);
+        stats.setCount(body.getCount());
+        stats.setTotalCount(body.getTotalCount());
+        stats.setUniqueCount(body.getUniqueCount());
+        stats.setMean(body.getMean());
+        stats.setStdDev(body.getStdDev());
+        stats.setMin(body.getMin());
+        stats.setMax(body.getMax());
+        stats.setQuantile5(body.getQuantile5());
+        stats.setQuantile15(body.getQuantile15());
+        stats.setQuantile25(body.getQuantile25());
+        stats.setQuantile50(body.getQuantile50());
+        stats.setQuantile75(body.getQuantile75());
+        stats.setQuantile90(body.getQuantile90());
+        stats.setQuantile95(body.getQuantile95());
+        return stats;
+    }
+
+    /**
+     * Statistics of a column as a client uploads them.
+     */
+    public TaskStatsBody body(final String column, final TaskStats.ColumnType columnType) {
+        final long totalCount = (long) count(0);
+        final long count = (long) (totalCount * (1 - 0.05 * random.nextDouble()));
+
+        final TaskStatsBody body = new TaskStatsBody();
+        body.setColumn(column);
+        body.setColumnType(columnType.name());
+        body.setTotalCount(totalCount);
+        body.setCount(count);
+        body.setUniqueCount((long) (count * random.nextDouble()));
+        if (columnType == TaskStats.ColumnType.NUMERIC) {
+            final double mean = 1000 * random.nextDouble();
+            final double stdDev = mean * (0.1 + 0.5 * random.nextDouble());
+            body.setMean(mean);
+            body.setStdDev(stdDev);
+            body.setMin(mean - 4 * stdDev);
+            body.setMax(mean + 4 * stdDev);
+            body.setQuantile5(mean - 1.645 * stdDev);
+            body.setQuantile15(mean - 1.036 * stdDev);
+            body.setQuantile25(mean - 0.674 * stdDev);
+            body.setQuantile50(mean);
+            body.setQuantile75(mean + 0.674 * stdDev);
+            body.setQuantile90(mean + 1.282 * stdDev);
+            body.setQuantile95(mean + 1.645 * stdDev);
+        }
+        return body;
+    }
+
+    private double count(final int daysAgo) {
+        return LEVEL * Math.pow(1 + DAILY_GROWTH, -daysAgo) * (1 + NOISE * random.nextGaussian());
+    }
+}
@@ -0,0 +1,131 @@
+package tasktracker.benchmarks;
+
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic task history of a project, shaped like the production ones: every task name has its hour of the day,
+ * a typical duration and a failure rate. A task starts on its nominal day at the hour of its name with some delay
+ * and runs for about the typical duration, most tasks succeed, some fail or get canceled, a few are still running
+ * or scheduled. A few nominal days fall out of the range on both sides. Tasks are ordered by the start date and
+ * numbered in that order, as they come from the database.
+ * <p>
+ * The same seed gives the same history, so the results of the runs are comparable.
+ */
+public final class TaskHistory {
+    private static final String[] USERS = {"etl", "reports", "analytics", "ml"};
+    private static final long MAX_DELAY = TimeUnit.DAYS.toMillis(2);
+
+    private final ZoneId zone;
+    private final LocalDate firstDay;
+    private final int days;
+    private final Project project;
+
+    public TaskHistory(final ZoneId zone, final LocalDate firstDay, final int days) {
+        this.zone = zone;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.project = new Project();
+        this.project.setId(1L);
+        this.project.setName("benchmarks");
+    }
+
+    public Project project() {
+        return project;
+    }
+
+    public Date start() {
+        return Date.from(firstDay.atStartOfDay(zone).toInstant());
+    }
+
+    /**
+     * Last millisecond of the last day.
+     */
+    public Date end() {
+        return Date.from(firstDay.plusDays(days).atStartOfDay(zone).toInstant().minusMillis(1));
+    }
+
+    public List<Task> tasks(final int count, final int names, final long seed) {
+        final Random random = new Random(seed);
+        final List<Schedule> schedules = new ArrayList<>(names);
+        for (int i = 0; i < names; i++) {
+            schedules.add(new Schedule(
+                    TaskName.of("workflow-" + i),
+                    random.nextInt(24),
+                    // the median is about 20 minutes, a few names run for hours
+                    (long) (TimeUnit.MINUTES.toMillis(20) * Math.exp(random.nextGaussian())),
+                    0.02 + 0.1 * random.nextDouble()
+            ));
+        }
+
+        final List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Schedule schedule = schedules.get(random.nextInt(names));
+            final Date nominalDate = Date.from(firstDay.plusDays(random.nextInt(days + 10) - 5).atStartOfDay(zone).toInstant());
+            final long delay = Math.min((long) (-TimeUnit.MINUTES.toMillis(30) * Math.log(1 - random.nextDouble())), MAX_DELAY);
+            final long startTime = nominalDate.getTime() + TimeUnit.HOURS.toMillis(schedule.hour) + delay;
+            final long duration = (long) (schedule.duration * Math.exp(0.3 * random.nextGaussian()));
+
+            final Task task = new Task();
+            task.setProject(project);
+            task.setTaskName(schedule.name);
+            task.setApplicationId(String.format("application_%d_%07d", seed, i));
+            task.setUser(USERS[random.nextInt(USERS.length)]);
+            task.setNominalDate(nominalDate);
+            task.setStartDate(new Date(startTime));
+            task.setTimestamp(startTime);
+            task.setOozieWorkflowName(schedule.name.getName());
+            task.setOozieWorkflowId(String.format("%07d-%d-oozie-oozi-W", i, seed));
+            task.setState(state(random, schedule.failureRate));
+            if (task.getState() != Task.State.RUNNING && task.getState() != Task.State.SCHEDULED) {
+                task.setEndDate(new Date(startTime + duration));
+            }
+            tasks.add(task);
+        }
+        tasks.sort((a, b) -> a.getStartDate().compareTo(b.getStartDate()));
+        for (int i = 0; i < count; i++) {
+            tasks.get(i).setId((long) i + 1);
+        }
+        return tasks;
+    }
+
+    private static Task.State state(final Random random, final double failureRate) {
+        final double value = random.nextDouble();
+        if (value < failureRate) {
+            return Task.State.FAILED;
+        }
+        if (value < failureRate + 0.01) {
+            return Task.State.CANCELED;
+        }
+        if (value < failureRate + 0.03) {
+            return Task.State.RUNNING;
+        }
+        if (value < failureRate + 0.04) {
+            return Task.State.SCHEDULED;
+        }
+        return Task.State.SUCCEEDED;
+    }
+
+    private static final class Schedule {
+        private final TaskName name;
+        private final int hour;
+        private final long duration;
+        private final double failureRate;
+
+        private Schedule(final TaskName name, final int hour, final long duration, final double failureRate) {
+            this.name = name;
+            this.hour = hour;
+            this.duration = duration;
+            this.failureRate = failureRate;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package tasktracker.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasktracker.backend.controller.body.TaskStatsBody;
+import tasktracker.backend.controller.mappers.TaskStatsMapper;
+import tasktracker.backend.controller.model.TaskStatsCollectionResponse;
+import tasktracker.backend.model.TaskStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the statistics of a task: the columns uploaded by a client to the entities, and the entities to
+ * the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskStatsMapperBenchmark {
+    @Param({"50"})
+    public int columns;
+
+    private final TaskStatsMapper mapper = new TaskStatsMapper();
+    private List<TaskStatsBody> bodies;
+    private List<TaskStats> stats;
+
+    @Setup
+    public void setUp() {
+        final StatsHistory history = new StatsHistory(42);
+        bodies = new ArrayList<>(columns);
+        stats = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            // a third of the columns are strings, without the numeric metrics
+            final TaskStats.ColumnType columnType = i % 3 == 0 ? TaskStats.ColumnType.STRING : TaskStats.ColumnType.NUMERIC;
+            bodies.add(history.body("column_" + i, columnType));
+            stats.add(history.stats("column_" + i, columnType));
+        }
+    }
+
+    @Benchmark
+    public List<TaskStats> fromBodies() {
+        final List<TaskStats> result = new ArrayList<>(bodies.size());
+        for (final TaskStatsBody body : bodies) {
+            result.add(mapper.to(body));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public TaskStatsCollectionResponse toResponse() {
+        return mapper.to(stats);
+    }
+}
@@ -0,0 +1,400 @@
+package tasktracker.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import tasktracker.client.models.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Buffers metrics, errors, warnings and statistics of tasks and sends them to the bulk ingestion endpoint,
+ * once {@code maxRecords} records are buffered, every {@code maxDelay} and on {@link #close()}.
+ * <p>
+ * A failed request is retried with exponentially growing, randomized delays. A batch that still can't be sent is
+ * written to the spill directory if there is one and sent again, oldest first, before the records of the next flush,
+ * otherwise it is dropped. Failures are logged, adding a record never blocks on the network.
+ * <p>
+ * Every batch is sent with its own idempotency key, kept over retries and spills, so a batch the server saved
+ * before its response was lost isn't saved twice when it is sent again.
+ * <p>
+ * Buffers are closed with the client that created them.
+ */
+public final class RecordBuffer implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(RecordBuffer.class);
+    private static final String SPILL_SUFFIX = ".json";
+
+    private final TaskTrackerClient client;
+    private final int maxRecords;
+    private final int maxRetries;
+    private final long backoff;
+    private final long maxBackoff;
+    private final Path spillDirectory;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object sendLock = new Object();
+    private final AtomicLong spillSequence = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Map<Long, List<IngestRecord>> buffered = new LinkedHashMap<>();
+    private int size = 0;
+    private boolean flushScheduled = false;
+    private boolean closed = false;
+
+    private RecordBuffer(final Builder builder) {
+        Preconditions.checkArgument(builder.maxRecords > 0, "'maxRecords' must be positive!");
+        Preconditions.checkArgument(builder.maxDelay > 0, "'maxDelay' must be positive!");
+        Preconditions.checkArgument(builder.maxRetries >= 0, "'maxRetries' must not be negative!");
+        this.client = builder.client;
+        this.maxRecords = builder.maxRecords;
+        this.maxRetries = builder.maxRetries;
+        this.backoff = builder.backoff;
+        this.maxBackoff = Math.max(builder.backoff, builder.maxBackoff);
+        this.spillDirectory = builder.spillDirectory;
+        if (Objects.nonNull(spillDirectory)) {
+            try {
+                Files.createDirectories(spillDirectory);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can't create spill directory " + spillDirectory, e);
+            }
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("tasktracker-buffer-%d").setDaemon(true).build()
+        );
+        // batches spilled by an earlier run go first
+        scheduler.execute(this::resendSpilled);
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, builder.maxDelay, builder.maxDelay, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(final TaskTrackerClient client) {
+        return new Builder(client);
+    }
+
+    public RecordBuffer metric(final Project project, final Task task, final TaskMetric metric) {
+        return add(project, task, taskId -> IngestRecord.metric(taskId, metric));
+    }
+
+    public RecordBuffer error(final Project project, final Task task, final TaskError error) {
+        return add(project, task, taskId -> IngestRecord.error(taskId, error));
+    }
+
+    public RecordBuffer warning(final Project project, final Task task, final Warning warning) {
+        return add(project, task, taskId -> IngestRecord.warning(taskId, warning));
+    }
+
+    public RecordBuffer statistics(final Project project, final Task task, final List<TaskStats> statistics) {
+        return add(project, task, taskId -> IngestRecord.statistics(taskId, statistics));
+    }
+
+    /**
+     * Sends the buffered records, blocks until they are sent, spilled or dropped.
+     */
+    public void flush() {
+        final Map<Long, List<IngestRecord>> batches;
+        synchronized (this) {
+            batches = buffered;
+            buffered = new LinkedHashMap<>();
+            size = 0;
+            flushScheduled = false;
+        }
+
+        synchronized (sendLock) {
+            resendSpilled();
+            for (final Map.Entry<Long, List<IngestRecord>> batch : batches.entrySet()) {
+                final String idempotencyKey = UUID.randomUUID().toString();
+                if (!send(batch.getKey(), idempotencyKey, batch.getValue(), maxRetries)) {
+                    spill(batch.getKey(), idempotencyKey, batch.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(maxBackoff * (maxRetries + 1), TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Records sent, requests retried, records spilled to disk and records dropped so far.
+     */
+    public Map<String, Long> counters() {
+        final Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("sent", sent.get());
+        counters.put("retried", retried.get());
+        counters.put("spilled", spilled.get());
+        counters.put("dropped", dropped.get());
+        return counters;
+    }
+
+    private RecordBuffer add(final Project project, final Task task, final LongFunction<IngestRecord> record) {
+        if (Objects.isNull(project) || Objects.isNull(project.getId()) || Objects.isNull(task) || Objects.isNull(task.getId())) {
+            logger.warn("Skip a record of an unknown project or task, project={}, task={}", project, task);
+            dropped.incrementAndGet();
+            return this;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                logger.warn("Skip a record of task {}, the buffer is closed", task.getId());
+                dropped.incrementAndGet();
+                return this;
+            }
+            buffered.computeIfAbsent(project.getId(), id -> new ArrayList<>()).add(record.apply(task.getId()));
+            if (++size >= maxRecords && !flushScheduled) {
+                flushScheduled = true;
+                scheduler.execute(this::flushQuietly);
+            }
+        }
+        return this;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("An error occurred while flush", e);
+        }
+    }
+
+    /**
+     * @return false if the server couldn't be reached, records rejected by the server are dropped
+     */
+    private boolean send(final long projectId, final String idempotencyKey, final List<IngestRecord> records, final int retries) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                final Response<IngestResult> response = client.v1().ingest(projectId, idempotencyKey, records);
+                if (response.isSuccess()) {
+                    sent.addAndGet(records.size());
+                    return true;
+                }
+                if (!retryable(response.getStatusCode())) {
+                    logger.error("Drop {} records of project {}, server answered {}: {}",
+                            records.size(), projectId, response.getStatusCode(), response.getErrors());
+                    dropped.addAndGet(records.size());
+                    return true;
+                }
+                logger.warn("Ingestion of project {} failed with status {}", projectId, response.getStatusCode());
+            } catch (ClientException e) {
+                logger.warn("Ingestion of project " + projectId + " failed", e);
+            }
+
+            if (attempt >= retries || !sleep(attempt)) {
+                return false;
+            }
+            retried.incrementAndGet();
+        }
+    }
+
+    private static boolean retryable(final int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Full jitter, a random delay up to the exponentially growing backoff.
+     */
+    private boolean sleep(final int attempt) {
+        final long ceiling = Math.min(maxBackoff, backoff << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void spill(final long projectId, final String idempotencyKey, final List<IngestRecord> records) {
+        if (Objects.isNull(spillDirectory)) {
+            logger.error("Drop {} records of project {}, the server can't be reached", records.size(), projectId);
+            dropped.addAndGet(records.size());
+            return;
+        }
+
+        // names sort in the order the batches were spilled
+        final String name = String.format("%019d-%06d-%d", System.currentTimeMillis(), spillSequence.incrementAndGet() % 1_000_000, projectId);
+        final Path file = spillDirectory.resolve(name + SPILL_SUFFIX);
+        final Path temporary = spillDirectory.resolve(name + ".tmp");
+        try {
+            Files.write(temporary, client.objectMapper().writeValueAsBytes(new SpilledBatch(projectId, idempotencyKey, records)));
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            spilled.addAndGet(records.size());
+        } catch (IOException e) {
+            logger.error("Drop " + records.size() + " records of project " + projectId + ", can't spill them to " + file, e);
+            dropped.addAndGet(records.size());
+        }
+    }
+
+    /**
+     * Sends spilled batches oldest first, once each, and stops at the first one that can't be sent.
+     */
+    private void resendSpilled() {
+        if (Objects.isNull(spillDirectory)) {
+            return;
+        }
+
+        synchronized (sendLock) {
+            final List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDirectory, "*" + SPILL_SUFFIX)) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                logger.error("Can't list spilled batches in " + spillDirectory, e);
+                return;
+            }
+            Collections.sort(files);
+
+            for (final Path file : files) {
+                final SpilledBatch batch;
+                try {
+                    batch = client.objectMapper().readValue(file.toFile(), SpilledBatch.class);
+                } catch (IOException e) {
+                    logger.error("Skip unreadable spilled batch " + file, e);
+                    continue;
+                }
+                if (Objects.isNull(batch.getIdempotencyKey())) {
+                    batch.setIdempotencyKey(UUID.randomUUID().toString());
+                    keep(file, batch);
+                }
+                if (!send(batch.getProjectId(), batch.getIdempotencyKey(), batch.getRecords(), 0)) {
+                    return;
+                }
+                try {
+                    Files.delete(file);
+                    spilled.addAndGet(-batch.getRecords().size());
+                } catch (IOException e) {
+                    logger.error("Can't delete sent spilled batch " + file, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the batch back, so it is resent with the same idempotency key after a failed resend.
+     */
+    private void keep(final Path file, final SpilledBatch batch) {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, client.objectMapper().writeValueAsBytes(batch));
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Can't write the idempotency key of spilled batch " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RecordBuffer{" +
+                "maxRecords=" + maxRecords +
+                ", spillDirectory=" + spillDirectory +
+                ", counters=" + counters() +
+                '}';
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class SpilledBatch {
+        @JsonProperty("project_id")
+        private long projectId;
+        @JsonProperty("idempotency_key")
+        private String idempotencyKey;
+        @JsonProperty("records")
+        private List<IngestRecord> records;
+    }
+
+    /**
+     * Settings of the buffer, delays in milliseconds.
+     */
+    public static class Builder {
+        private final TaskTrackerClient client;
+        private int maxRecords = 500;
+        private long maxDelay = 1000;
+        private int maxRetries = 3;
+        private long backoff = 200;
+        private long maxBackoff = 5000;
+        private Path spillDirectory = null;
+
+        private Builder(final TaskTrackerClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Number of buffered records that triggers a flush.
+         */
+        public Builder maxRecords(final int maxRecords) {
+            this.maxRecords = maxRecords;
+            return this;
+        }
+
+        /**
+         * Longest time a record stays in the buffer.
+         */
+        public Builder maxDelay(final long maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder maxRetries(final int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Base and cap of the delay between retries.
+         */
+        public Builder backoff(final long backoff, final long maxBackoff) {
+            this.backoff = backoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Directory for batches the server couldn't take, nothing is spilled if not set.
+         */
+        public Builder spillDirectory(final Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        public RecordBuffer build() {
+            return client.register(new RecordBuffer(this));
+        }
+    }
+}
@@ -4,27 +4,38 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import org.apache.commons.io.IOUtils;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import tasktracker.client.models.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
 
 public final class TaskTrackerClient implements AutoCloseable {
     private static final int DEFAULT_TIMEOUT = 5;
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_KEEP_ALIVE = 30;
     private static final String DEFAULT_PRODUCTION_URL = "http://tasktracker.dmp.vimpelcom.ru/api";
     private static final String DEFAULT_DEVELOPMENT_URL = "http://tasktracker-dev.dmp.vimpelcom.ru/api";
     private final TypeReference<Response<Project>> projectTypeReference = new TypeReference<Response<Project>>() {
@@ -47,30 +58,61 @@ public final class TaskTrackerClient implements AutoCloseable {
     };
     private final TypeReference<Response<Warning>> warningTypeReference = new TypeReference<Response<Warning>>() {
     };
+    private final TypeReference<Response<IngestResult>> ingestTypeReference = new TypeReference<Response<IngestResult>>() {
+    };
+    private final TypeReference<Response<ProjectSettings>> settingsTypeReference = new TypeReference<Response<ProjectSettings>>() {
+    };
+    private final TypeReference<DataQualityRule> ruleTypeReference = new TypeReference<DataQualityRule>() {
+    };
+    private final TypeReference<List<Warning>> warningsTypeReference = new TypeReference<List<Warning>>() {
+    };
+    private final TypeReference<TasksReport> tasksReportTypeReference = new TypeReference<TasksReport>() {
+    };
+    private final TypeReference<Response<DailyTasks>> dailyTasksTypeReference = new TypeReference<Response<DailyTasks>>() {
+    };
     private final String url;
     private final ObjectMapper objectMapper;
     private final CloseableHttpClient httpClient;
+    private final ExecutorService executor;
+    private final List<RecordBuffer> buffers = new CopyOnWriteArrayList<>();
 
-    private TaskTrackerClient(final String url, final long connectionTimeout, final long socketTimeout, final long connectionRequestTimeout) {
-        Preconditions.checkArgument(url != null && !url.isEmpty(), "'url' must not be null or empty!");
-        this.url = url;
+    private TaskTrackerClient(final Builder builder) {
+        Preconditions.checkArgument(builder.url != null && !builder.url.isEmpty(), "'url' must not be null or empty!");
+        Preconditions.checkArgument(builder.maxConnections > 0, "'maxConnections' must be positive!");
+        this.url = builder.url;
         final RequestConfig requestConfig = RequestConfig
                 .custom()
-                .setConnectTimeout((int) (connectionTimeout * 1000))
-                .setSocketTimeout((int) (socketTimeout * 1000))
-                .setConnectionRequestTimeout((int) (connectionRequestTimeout * 1000))
+                .setConnectTimeout((int) (builder.connectionTimeout * 1000))
+                .setSocketTimeout((int) (builder.socketTimeout * 1000))
+                .setConnectionRequestTimeout((int) (builder.connectionRequestTimeout * 1000))
                 .build();
 
+        // all requests go to one server, so a route may use the whole pool
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(builder.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(builder.maxConnections);
+        connectionManager.setValidateAfterInactivity(1000);
+
+        final HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                .setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(builder.keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(builder.keepAlive, TimeUnit.SECONDS);
+        if (!builder.compression) {
+            httpClientBuilder.disableContentCompression();
+        }
+
         this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
+        this.httpClient = httpClientBuilder.build();
+        this.executor = Executors.newFixedThreadPool(
+                builder.maxConnections,
+                new ThreadFactoryBuilder().setNameFormat("tasktracker-client-%d").setDaemon(true).build()
+        );
     }
 
     private TaskTrackerClient(final String url) {
-        this(url, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT);
-    }
-
-    private TaskTrackerClient() {
-        this(DEFAULT_PRODUCTION_URL, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT);
+        this(builder(url));
     }
 
     public static TaskTrackerClient production() {
@@ -81,12 +123,34 @@ public final class TaskTrackerClient implements AutoCloseable {
         return new TaskTrackerClient(DEFAULT_DEVELOPMENT_URL);
     }
 
+    public static Builder builder(final String url) {
+        return new Builder(url);
+    }
+
+    /**
+     * Keeps a connection for the time the server allows in its {@code Keep-Alive} header, but not longer than {@code keepAlive}.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(final long keepAlive) {
+        return (httpResponse, context) -> {
+            final BasicHeaderElementIterator iterator = new BasicHeaderElementIterator(httpResponse.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (iterator.hasNext()) {
+                final HeaderElement element = iterator.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && Objects.nonNull(element.getValue())) {
+                    try {
+                        return Math.min(Long.parseLong(element.getValue()), keepAlive) * 1000;
+                    } catch (NumberFormatException ignored) {
+                        // the default is used
+                    }
+                }
+            }
+            return keepAlive * 1000;
+        };
+    }
+
     private static <R> ResponseHandler<Response<R>> responseHandler(final ObjectMapper objectMapper,
                                                                     final TypeReference<Response<R>> typeReference) {
         return httpResponse -> {
-            final InputStream is = httpResponse.getEntity().getContent();
-            final String json = IOUtils.toString(is, StandardCharsets.UTF_8);
-            final Response<R> response = objectMapper.readValue(json, typeReference);
+            final Response<R> response = read(objectMapper, httpResponse.getEntity(), typeReference);
             response.setStatusCode(httpResponse.getStatusLine().getStatusCode());
 
             return response;
@@ -95,27 +159,67 @@ public final class TaskTrackerClient implements AutoCloseable {
 
     private static <R> ResponseHandler<R> handler(final ObjectMapper objectMapper,
                                                   final TypeReference<R> typeReference) {
-        return httpResponse -> {
-            final InputStream is = httpResponse.getEntity().getContent();
-            final String json = IOUtils.toString(is, StandardCharsets.UTF_8);
-            System.out.println(json);
-            return objectMapper.readValue(json, typeReference);
-        };
+        return httpResponse -> read(objectMapper, httpResponse.getEntity(), typeReference);
+    }
+
+    /**
+     * Parses the body as it is read from the connection, the connection goes back to the pool once the body is consumed.
+     */
+    private static <R> R read(final ObjectMapper objectMapper, final HttpEntity entity, final TypeReference<R> typeReference) throws IOException {
+        try (InputStream is = entity.getContent()) {
+            return objectMapper.readValue(is, typeReference);
+        } finally {
+            EntityUtils.consumeQuietly(entity);
+        }
     }
 
     @Override
     public void close() throws IOException {
+        this.buffers.forEach(RecordBuffer::close);
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(DEFAULT_TIMEOUT, TimeUnit.SECONDS)) {
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
         this.httpClient.close();
     }
 
     public ProjectContext projectContext(final String name) {
-        return new ProjectContext(this, name);
+        return new ProjectContext(this, name, null);
+    }
+
+    /**
+     * Project context that sends metrics through the buffer instead of a request per metric.
+     */
+    public ProjectContext projectContext(final String name, final RecordBuffer buffer) {
+        return new ProjectContext(this, name, buffer);
+    }
+
+    public AsyncProjectContext asyncProjectContext(final String name) {
+        return new AsyncProjectContext(this, name);
     }
 
     public V1 v1() {
         return new V1(this);
     }
 
+    public V1Async v1Async() {
+        return new V1Async(this);
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    RecordBuffer register(final RecordBuffer buffer) {
+        buffers.add(buffer);
+        return buffer;
+    }
+
     @Override
     public String toString() {
         return "TaskTrackerClient{" +
@@ -472,17 +576,122 @@ public final class TaskTrackerClient implements AutoCloseable {
                 throw new ClientException(ex);
             }
         }
+
+        /**
+         * Saves the records in one request, see {@link RecordBuffer} to collect them.
+         */
+        public Response<IngestResult> ingest(final Project project, final List<IngestRecord> records) throws ClientException {
+            return ingest(project.getId(), null, records);
+        }
+
+        /**
+         * Saves the records in one request. The server writes the records of a key once, so a request that may
+         * have been saved before its response was lost can be sent again with the same key.
+         */
+        public Response<IngestResult> ingest(final Project project, final String idempotencyKey, final List<IngestRecord> records) throws ClientException {
+            return ingest(project.getId(), idempotencyKey, records);
+        }
+
+        Response<IngestResult> ingest(final long projectId, final String idempotencyKey, final List<IngestRecord> records) throws ClientException {
+            try {
+                final HttpPost postRequest = new HttpPost(new URIBuilder(client.url + "/v1/projects/" + projectId + "/ingest").build());
+                postRequest.setHeader("Content-type", "application/json");
+                if (idempotencyKey != null) {
+                    postRequest.setHeader("Idempotency-Key", idempotencyKey);
+                }
+                final ByteArrayEntity recordsEntity = new ByteArrayEntity(client.objectMapper.writeValueAsBytes(records));
+                postRequest.setEntity(recordsEntity);
+                return client.httpClient.execute(postRequest, responseHandler(client.objectMapper, client.ingestTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
+
+        public Response<ProjectSettings> updateSettings(final Project project, final ProjectSettings settings) throws ClientException {
+            try {
+                final HttpPost postRequest = new HttpPost(new URIBuilder(client.url + "/v1/projects/" + project.getId() + "/settings").build());
+                postRequest.setHeader("Content-type", "application/json");
+                final StringEntity settingsEntity = new StringEntity(client.objectMapper.writeValueAsString(settings));
+                postRequest.setEntity(settingsEntity);
+                return client.httpClient.execute(postRequest, responseHandler(client.objectMapper, client.settingsTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
+
+        public DataQualityRule createRule(final Project project, final DataQualityRule rule) throws ClientException {
+            try {
+                final HttpPost postRequest = new HttpPost(new URIBuilder(client.url + "/v2/projects/" + project.getId() + "/dataquality/rules").build());
+                postRequest.setHeader("Content-type", "application/json");
+                final StringEntity ruleEntity = new StringEntity(client.objectMapper.writeValueAsString(rule));
+                postRequest.setEntity(ruleEntity);
+                return client.httpClient.execute(postRequest, handler(client.objectMapper, client.ruleTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
+
+        /**
+         * Warnings of the data quality rules created between the days, {@code yyyy-MM-dd}.
+         */
+        public List<Warning> getWarnings(final Project project, final String from, final String to) throws ClientException {
+            try {
+                final URIBuilder builder = new URIBuilder(client.url + "/v2/projects/" + project.getId() + "/warnings");
+                builder.setParameter("start_date", from);
+                builder.setParameter("end_date", to);
+                final HttpGet getRequest = new HttpGet(builder.build());
+                return client.httpClient.execute(getRequest, handler(client.objectMapper, client.warningsTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
+
+        /**
+         * Tasks by name and nominal day between the days, {@code yyyy-MM-dd}.
+         */
+        public TasksReport getTasksReport(final Project project, final String from, final String to, final boolean lastTaskOnly) throws ClientException {
+            try {
+                final URIBuilder builder = new URIBuilder(client.url + "/v2/projects/" + project.getId() + "/tasks/report");
+                builder.setParameter("startDate", from);
+                builder.setParameter("endDate", to);
+                builder.setParameter("dateType", "NOMINAL_DATE");
+                builder.setParameter("lastTaskOnly", String.valueOf(lastTaskOnly));
+                final HttpGet getRequest = new HttpGet(builder.build());
+                return client.httpClient.execute(getRequest, handler(client.objectMapper, client.tasksReportTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
+
+        /**
+         * Tasks by nominal day and name between the days, {@code yyyy-MM-dd}.
+         */
+        public Response<DailyTasks> getTasksInRange(final Project project, final String from, final String to, final boolean lastOnly) throws ClientException {
+            try {
+                final URIBuilder builder = new URIBuilder(client.url + "/v1/projects/" + project.getId() + "/tasksInRange");
+                builder.setParameter("from", from);
+                builder.setParameter("to", to);
+                builder.setParameter("date_type", "NOMINAL_DATE");
+                builder.setParameter("last_only", String.valueOf(lastOnly));
+                final HttpGet getRequest = new HttpGet(builder.build());
+                return client.httpClient.execute(getRequest, responseHandler(client.objectMapper, client.dailyTasksTypeReference));
+            } catch (Exception ex) {
+                throw new ClientException(ex);
+            }
+        }
     }
 
     public static class ProjectContext {
         private static final Logger logger = LogManager.getLogger(ProjectContext.class);
         private final TaskTrackerClient client;
         private final Project project;
+        private final RecordBuffer buffer;
 
         private Task task = null;
 
-        private ProjectContext(final TaskTrackerClient client, final String projectName) {
+        private ProjectContext(final TaskTrackerClient client, final String projectName, final RecordBuffer buffer) {
             this.client = client;
+            this.buffer = buffer;
             Project project = null;
             try {
                 project = client.v1().getOrCreateProject(projectName).orElse(Project.of().setName(projectName));
@@ -567,6 +776,10 @@ public final class TaskTrackerClient implements AutoCloseable {
         }
 
         public synchronized ProjectContext newMetric(final TaskMetric metric) {
+            if (Objects.nonNull(buffer)) {
+                buffer.metric(this.project, this.task, metric);
+                return this;
+            }
             try {
                 client.v1().createMetric(this.project, this.task, metric);
             } catch (ClientException e) {
@@ -577,7 +790,9 @@ public final class TaskTrackerClient implements AutoCloseable {
         }
 
         public void dispose() {
-            // does nothing
+            if (Objects.nonNull(buffer)) {
+                buffer.flush();
+            }
         }
 
         @Override
@@ -588,4 +803,281 @@ public final class TaskTrackerClient implements AutoCloseable {
                     '}';
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Settings of the client, timeouts and keep-alive in seconds.
+     */
+    public static class Builder {
+        private final String url;
+        private long connectionTimeout = DEFAULT_TIMEOUT;
+        private long socketTimeout = DEFAULT_TIMEOUT;
+        private long connectionRequestTimeout = DEFAULT_TIMEOUT;
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private long keepAlive = DEFAULT_KEEP_ALIVE;
+        private boolean compression = true;
+
+        private Builder(final String url) {
+            this.url = url;
+        }
+
+        public Builder connectionTimeout(final long connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+            return this;
+        }
+
+        public Builder socketTimeout(final long socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        public Builder connectionRequestTimeout(final long connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            return this;
+        }
+
+        /**
+         * Size of the connection pool, also the number of asynchronous requests in flight.
+         */
+        public Builder maxConnections(final int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder keepAlive(final long keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Asks the server for gzip compressed responses, enabled by default.
+         */
+        public Builder compression(final boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public TaskTrackerClient build() {
+            return new TaskTrackerClient(this);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<R> {
+        R call() throws ClientException;
+    }
+
+    /**
+     * Requests of {@link V1} run on the pool of the client. Futures fail with {@link CompletionException}
+     * caused by {@link ClientException}.
+     */
+    public static class V1Async {
+        private final TaskTrackerClient client;
+        private final V1 v1;
+
+        public V1Async(final TaskTrackerClient client) {
+            this.client = client;
+            this.v1 = client.v1();
+        }
+
+        public CompletableFuture<Response<List<Project>>> getProjects() {
+            return async(v1::getProjects);
+        }
+
+        public CompletableFuture<Response<List<Project>>> getProjectByName(final String name) {
+            return async(() -> v1.getProjectByName(name));
+        }
+
+        public CompletableFuture<Response<Project>> getProject(final String name) {
+            return async(() -> v1.getProject(name));
+        }
+
+        public CompletableFuture<Response<Project>> getOrCreateProject(final String name) {
+            return async(() -> v1.getOrCreateProject(name));
+        }
+
+        public CompletableFuture<Response<Project>> createProject(final Project project) {
+            return async(() -> v1.createProject(project));
+        }
+
+        public CompletableFuture<Response<List<Task>>> getTasks(final Project project) {
+            return async(() -> v1.getTasks(project));
+        }
+
+        public CompletableFuture<Response<Task>> createTask(final Project project, final Task task) {
+            return async(() -> v1.createTask(project, task));
+        }
+
+        public CompletableFuture<Response<Task>> getTask(final Project project, final Task task) {
+            return async(() -> v1.getTask(project, task));
+        }
+
+        public CompletableFuture<Response<Task>> updateTask(final Project project, final Task task) {
+            return async(() -> v1.updateTask(project, task));
+        }
+
+        public CompletableFuture<Response<List<TaskMetric>>> getMetrics(final Project project, final Task task) {
+            return async(() -> v1.getMetrics(project, task));
+        }
+
+        public CompletableFuture<Response<TaskMetric>> createMetric(final Project project, final Task task, final TaskMetric taskMetric) {
+            return async(() -> v1.createMetric(project, task, taskMetric));
+        }
+
+        public CompletableFuture<Response<List<TaskError>>> getErrors(final Project project, final Task task) {
+            return async(() -> v1.getErrors(project, task));
+        }
+
+        public CompletableFuture<Response<TaskError>> createError(final Project project, final Task task, final TaskError taskError) {
+            return async(() -> v1.createError(project, task, taskError));
+        }
+
+        public CompletableFuture<List<TaskStats>> createStats(final Project project, final Task task, final List<TaskStats> stats) {
+            return async(() -> v1.createStats(project, task, stats));
+        }
+
+        public CompletableFuture<Response<Warning>> createWarning(final Project project, final Task task, final Warning warning) {
+            return async(() -> v1.createWarning(project, task, warning));
+        }
+
+        private <R> CompletableFuture<R> async(final Call<R> call) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.call();
+                } catch (ClientException e) {
+                    throw new CompletionException(e);
+                }
+            }, client.executor);
+        }
+    }
+
+    /**
+     * Non-blocking {@link ProjectContext}. Task operations are applied in the order they are called,
+     * metrics of the task are sent concurrently once the task is created. Failures are logged.
+     */
+    public static class AsyncProjectContext {
+        private static final Logger logger = LogManager.getLogger(AsyncProjectContext.class);
+        private final V1Async v1;
+        private final CompletableFuture<Project> project;
+        private final List<CompletableFuture<?>> pending = new ArrayList<>();
+
+        private CompletableFuture<Task> task;
+
+        private AsyncProjectContext(final TaskTrackerClient client, final String projectName) {
+            this.v1 = client.v1Async();
+            this.project = v1.getOrCreateProject(projectName)
+                    .thenApply(response -> response.orElse(Project.of().setName(projectName)))
+                    .exceptionally(e -> {
+                        logger.error("An error occurred while getOrCreateProject", e);
+                        return null;
+                    });
+            this.task = project.thenApply(ignored -> null);
+        }
+
+        public CompletableFuture<Project> getProject() {
+            return project;
+        }
+
+        public synchronized CompletableFuture<Task> getTask() {
+            return task;
+        }
+
+        public synchronized AsyncProjectContext getTask(final long id) {
+            return apply("getTask", (project, current) -> v1.getTask(project, Task.of(id)).thenApply(response -> {
+                final Task found = response.orElse(null);
+                if (Objects.isNull(found)) {
+                    logger.warn("Project task not found by id='{}'", id);
+                }
+                return found;
+            }));
+        }
+
+        public synchronized AsyncProjectContext newTask(final Task task) {
+            return apply("newTask", (project, current) -> {
+                if (Objects.nonNull(current)) {
+                    return CompletableFuture.completedFuture(current);
+                }
+                if (Objects.isNull(task.getStatus())) {
+                    task.setStatus(Task.Status.DISABLE);
+                }
+                if (Objects.isNull(task.getStartDate())) {
+                    task.setStartDate(new Date());
+                }
+                if (Objects.isNull(task.getUser())) {
+                    task.setUser("unknown");
+                }
+                return v1.createTask(project, task).thenApply(response -> response.orElse(null));
+            });
+        }
+
+        public synchronized AsyncProjectContext runTask() {
+            return update("runTask", Task.Status.RUNNING);
+        }
+
+        public synchronized AsyncProjectContext finishedTask() {
+            return update("finishedTask", Task.Status.SUCCEEDED);
+        }
+
+        public synchronized AsyncProjectContext failedTask() {
+            return update("failedTask", Task.Status.FAILED);
+        }
+
+        public synchronized AsyncProjectContext newMetric(final TaskMetric metric) {
+            pending.add(task.thenCompose(current -> v1.createMetric(project.join(), current, metric))
+                    .exceptionally(e -> {
+                        logger.error("An error occurred while newMetric", e);
+                        return null;
+                    }));
+            return this;
+        }
+
+        /**
+         * Completes once every operation called so far is done.
+         */
+        public synchronized CompletableFuture<Void> flush() {
+            final List<CompletableFuture<?>> futures = new ArrayList<>(pending);
+            futures.add(task);
+            pending.clear();
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        }
+
+        public void dispose() {
+            flush().join();
+        }
+
+        private AsyncProjectContext update(final String operation, final Task.Status status) {
+            return apply(operation, (project, current) ->
+                    v1.updateTask(project, current.setStatus(status).setEndDate(new Date())).thenApply(response -> response.orElse(null)));
+        }
+
+        /**
+         * Chains the operation after the previous ones, the task is left as it was if the operation fails.
+         */
+        private AsyncProjectContext apply(
+                final String operation,
+                final BiFunction<Project, Task, CompletableFuture<Task>> function
+        ) {
+            task = task.thenCompose(current -> {
+                CompletableFuture<Task> result;
+                try {
+                    result = function.apply(project.join(), current);
+                } catch (RuntimeException e) {
+                    result = new CompletableFuture<>();
+                    result.completeExceptionally(e);
+                }
+                return result.exceptionally(e -> {
+                    logger.error("An error occurred while " + operation, e);
+                    return current;
+                });
+            });
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "AsyncProjectContext{" +
+                    "project=" + project.getNow(null) +
+                    ", task=" + task.getNow(null) +
+                    '}';
+        }
+    }
+}
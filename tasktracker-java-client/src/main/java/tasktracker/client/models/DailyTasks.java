@@ -0,0 +1,18 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tasks by day (yyyy-MM-dd) and name.
+ */
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DailyTasks {
+    @JsonProperty("tasks")
+    private Map<String, Map<String, List<Task>>> tasks;
+}
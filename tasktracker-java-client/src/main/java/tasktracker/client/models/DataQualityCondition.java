@@ -0,0 +1,31 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Condition of a metric of a column, e.g. {@code is_above(3000000)} of {@code count}.
+ */
+@NoArgsConstructor
+@Data
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataQualityCondition {
+    @JsonProperty("id")
+    private Long id;
+    @JsonProperty("column_name")
+    private String columnName;
+    @JsonProperty("metric")
+    private String metric;
+    @JsonProperty("expression")
+    private String expression;
+
+    public static DataQualityCondition of() {
+        return new DataQualityCondition();
+    }
+}
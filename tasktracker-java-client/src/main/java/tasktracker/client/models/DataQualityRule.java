@@ -0,0 +1,36 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data quality rule of the statistics of a table written by a task, see {@link DataQualityCondition}.
+ */
+@NoArgsConstructor
+@Data
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataQualityRule {
+    @JsonProperty("id")
+    private Long id;
+    @JsonProperty("task_name")
+    private String taskName;
+    @JsonProperty("table_name")
+    private String tableName;
+    @JsonProperty("caption")
+    private String caption;
+    @JsonProperty("conditions")
+    private List<DataQualityCondition> conditions = new ArrayList<>();
+
+    public static DataQualityRule of() {
+        return new DataQualityRule();
+    }
+}
@@ -0,0 +1,70 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One record of a bulk ingestion request, see {@code POST /v1/projects/{project_id}/ingest}.
+ */
+@NoArgsConstructor
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestRecord {
+    @JsonProperty("type")
+    private Type type;
+    @JsonProperty("task_id")
+    private Long taskId;
+    @JsonProperty("metric")
+    private TaskMetric metric;
+    @JsonProperty("error")
+    private TaskError error;
+    @JsonProperty("warning")
+    private Warning warning;
+    @JsonProperty("statistics")
+    private List<TaskStats> statistics;
+
+    public static IngestRecord metric(final long taskId, final TaskMetric metric) {
+        final IngestRecord record = of(Type.METRIC, taskId);
+        record.setMetric(metric);
+        return record;
+    }
+
+    public static IngestRecord error(final long taskId, final TaskError error) {
+        final IngestRecord record = of(Type.ERROR, taskId);
+        record.setError(error);
+        return record;
+    }
+
+    public static IngestRecord warning(final long taskId, final Warning warning) {
+        final IngestRecord record = of(Type.WARNING, taskId);
+        record.setWarning(warning);
+        return record;
+    }
+
+    public static IngestRecord statistics(final long taskId, final List<TaskStats> statistics) {
+        final IngestRecord record = of(Type.STATISTICS, taskId);
+        record.setStatistics(statistics);
+        return record;
+    }
+
+    private static IngestRecord of(final Type type, final long taskId) {
+        final IngestRecord record = new IngestRecord();
+        record.setType(type);
+        record.setTaskId(taskId);
+        return record;
+    }
+
+    public enum Type {
+        TASK,
+        METRIC,
+        ERROR,
+        WARNING,
+        STATISTICS
+    }
+}
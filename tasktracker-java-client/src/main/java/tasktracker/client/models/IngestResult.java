@@ -0,0 +1,30 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts of the records saved by a bulk ingestion request, or accepted for writing if the server writes them asynchronously.
+ */
+@NoArgsConstructor
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IngestResult {
+    @JsonProperty("task_count")
+    private int taskCount;
+    @JsonProperty("metric_count")
+    private int metricCount;
+    @JsonProperty("error_count")
+    private int errorCount;
+    @JsonProperty("warning_count")
+    private int warningCount;
+    @JsonProperty("statistics_count")
+    private int statisticsCount;
+    /**
+     * The records of the idempotency key were saved by an earlier request, nothing was saved again.
+     */
+    @JsonProperty("duplicate")
+    private boolean duplicate;
+}
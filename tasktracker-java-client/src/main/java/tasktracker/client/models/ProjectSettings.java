@@ -0,0 +1,32 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+@NoArgsConstructor
+@Data
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectSettings {
+    @JsonProperty("auto_status_update")
+    private Boolean autoStatusUpdate;
+    @JsonProperty("auto_status_update_frequency")
+    private Long autoStatusUpdateFrequency;
+    @JsonProperty("incident_generation_allowed")
+    private Boolean incidentGenerationAllowed;
+    @JsonProperty("task_synchronization_allowed")
+    private Boolean taskSynchronizationAllowed;
+    @JsonProperty("task_data_quality_allowed")
+    private Boolean taskDataQualityAllowed;
+    @JsonProperty("retention_months")
+    private Integer retentionMonths;
+
+    public static ProjectSettings of() {
+        return new ProjectSettings();
+    }
+}
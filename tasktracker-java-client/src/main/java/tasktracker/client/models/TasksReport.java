@@ -0,0 +1,35 @@
+package tasktracker.client.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Tasks by name and day (yyyy-MM-dd).
+ */
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TasksReport {
+    @JsonProperty("tasks")
+    private List<NameTasks> tasks;
+
+    @Getter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class NameTasks {
+        @JsonProperty("name")
+        private String name;
+        @JsonProperty("dates")
+        private List<DateTasks> dates;
+    }
+
+    @Getter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class DateTasks {
+        @JsonProperty("date")
+        private String date;
+        @JsonProperty("tasks")
+        private List<Task> tasks;
+    }
+}
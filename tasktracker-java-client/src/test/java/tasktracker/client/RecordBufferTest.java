@@ -0,0 +1,175 @@
+package tasktracker.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tasktracker.client.models.Project;
+import tasktracker.client.models.Task;
+import tasktracker.client.models.TaskMetric;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Buffered records against a local bulk ingestion endpoint.
+ */
+public class RecordBufferTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> idempotencyKeys = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean unavailable = new AtomicBoolean(false);
+    private HttpServer server;
+    private TaskTrackerClient client;
+    private final Project project = Project.of().setName("TestProject");
+    private final Task task = Task.of(2L);
+
+    @Before
+    public void setUp() throws Exception {
+        project.setId(1L);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/projects/1/ingest", exchange -> {
+            final byte[] body;
+            final int status;
+            idempotencyKeys.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            if (unavailable.get()) {
+                status = 503;
+                body = "Service Unavailable".getBytes(StandardCharsets.UTF_8);
+            } else {
+                final JsonNode records = objectMapper.readTree(exchange.getRequestBody());
+                requests.add(records);
+                status = 200;
+                body = ("{\"success\":true,\"response\":{\"metric_count\":" + records.size() + "}}").getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        client = TaskTrackerClient.builder("http://localhost:" + server.getAddress().getPort() + "/api").build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void sendsRecordsInOneRequestOnceSizeIsReached() throws Exception {
+        final RecordBuffer buffer = RecordBuffer.builder(client).maxRecords(10).maxDelay(60_000).build();
+
+        for (int i = 0; i < 10; i++) {
+            buffer.metric(project, task, new TaskMetric("metric", i));
+        }
+        waitFor(() -> buffer.counters().get("sent") == 10);
+
+        Assert.assertEquals(1, requests.size());
+        final JsonNode records = requests.get(0);
+        Assert.assertEquals(10, records.size());
+        Assert.assertEquals("METRIC", records.get(0).get("type").asText());
+        Assert.assertEquals(2L, records.get(0).get("task_id").asLong());
+        Assert.assertEquals("9", records.get(9).get("metric").get("value").asText());
+    }
+
+    @Test
+    public void sendsTheRestOnClose() {
+        final RecordBuffer buffer = RecordBuffer.builder(client).maxRecords(100).maxDelay(60_000).build();
+
+        buffer.metric(project, task, new TaskMetric("metric", 1));
+        buffer.metric(project, Task.of(), new TaskMetric("metric", 2));
+        Assert.assertTrue(requests.isEmpty());
+        buffer.close();
+
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(1, requests.get(0).size());
+        Assert.assertEquals(Long.valueOf(1), buffer.counters().get("dropped"));
+    }
+
+    @Test
+    public void spillsWhileServerIsUnavailableAndResendsLater() throws Exception {
+        final File spillDirectory = folder.newFolder("spill");
+        final RecordBuffer buffer = RecordBuffer.builder(client)
+                .maxRecords(100)
+                .maxDelay(60_000)
+                .maxRetries(2)
+                .backoff(1, 5)
+                .spillDirectory(spillDirectory.toPath())
+                .build();
+
+        unavailable.set(true);
+        buffer.metric(project, task, new TaskMetric("metric", 1));
+        buffer.flush();
+        Assert.assertEquals(1, spillDirectory.listFiles().length);
+        Assert.assertEquals(Long.valueOf(2), buffer.counters().get("retried"));
+        Assert.assertEquals(Long.valueOf(1), buffer.counters().get("spilled"));
+
+        unavailable.set(false);
+        buffer.metric(project, task, new TaskMetric("metric", 2));
+        buffer.flush();
+
+        Assert.assertEquals(0, spillDirectory.listFiles().length);
+        Assert.assertEquals(2, requests.size());
+        Assert.assertEquals("1", requests.get(0).get(0).get("metric").get("value").asText());
+        Assert.assertEquals("2", requests.get(1).get(0).get("metric").get("value").asText());
+        Assert.assertEquals(Long.valueOf(0), buffer.counters().get("spilled"));
+        Assert.assertEquals(Long.valueOf(2), buffer.counters().get("sent"));
+
+        // the retries and the resend of the spilled batch are sent with the key of the first attempt
+        Assert.assertEquals(5, idempotencyKeys.size());
+        Assert.assertNotNull(idempotencyKeys.get(0));
+        Assert.assertEquals(Collections.nCopies(4, idempotencyKeys.get(0)), idempotencyKeys.subList(0, 4));
+        Assert.assertNotEquals(idempotencyKeys.get(0), idempotencyKeys.get(4));
+    }
+
+    @Test
+    public void resendsSpilledBatchWithoutKeyUnderAKeyOfItsOwn() throws Exception {
+        final File spillDirectory = folder.newFolder("spill");
+        final File spilled = new File(spillDirectory, "0000000000000000001-000001-1.json");
+        Files.write(spilled.toPath(), ("{\"project_id\":1,\"records\":[" +
+                "{\"type\":\"METRIC\",\"task_id\":2,\"metric\":{\"name\":\"metric\",\"value\":1}}]}").getBytes(StandardCharsets.UTF_8));
+        final RecordBuffer buffer = RecordBuffer.builder(client)
+                .maxRecords(100)
+                .maxDelay(60_000)
+                .spillDirectory(spillDirectory.toPath())
+                .build();
+
+        unavailable.set(true);
+        buffer.flush();
+        unavailable.set(false);
+        buffer.flush();
+
+        Assert.assertEquals(0, spillDirectory.listFiles().length);
+        Assert.assertEquals(1, requests.size());
+        // the key generated for the failed resend is kept for the next one
+        Assert.assertNotNull(idempotencyKeys.get(0));
+        Assert.assertEquals(Collections.nCopies(idempotencyKeys.size(), idempotencyKeys.get(0)), idempotencyKeys);
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,79 @@
+package tasktracker.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import tasktracker.client.models.Project;
+import tasktracker.client.models.Response;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Asynchronous requests against a local server answering with gzip compressed JSON.
+ */
+public class TaskTrackerClientAsyncTest {
+    private HttpServer server;
+    private TaskTrackerClient client;
+    private final List<String> acceptEncodings = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/projects", exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            final byte[] body = "{\"success\":true,\"response\":[{\"id\":1,\"name\":\"TestProject\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = new GZIPOutputStream(exchange.getResponseBody())) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        client = TaskTrackerClient.builder("http://localhost:" + server.getAddress().getPort() + "/api")
+                .maxConnections(4)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void completesConcurrentRequestsOverThePool() throws Exception {
+        final List<CompletableFuture<Response<Project>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.v1Async().getProject("TestProject"));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for (final CompletableFuture<Response<Project>> future : futures) {
+            final Response<Project> response = future.get();
+            Assert.assertEquals(200, response.getStatusCode());
+            Assert.assertEquals("TestProject", response.get().getName());
+        }
+        Assert.assertEquals(20, acceptEncodings.size());
+        acceptEncodings.forEach(encoding -> Assert.assertTrue(encoding.contains("gzip")));
+    }
+
+    @Test
+    public void projectContextResolvesProjectWithoutBlocking() throws Exception {
+        final TaskTrackerClient.AsyncProjectContext context = client.asyncProjectContext("TestProject");
+
+        Assert.assertEquals(Long.valueOf(1), context.getProject().get(10, TimeUnit.SECONDS).getId());
+        context.flush().get(10, TimeUnit.SECONDS);
+    }
+}
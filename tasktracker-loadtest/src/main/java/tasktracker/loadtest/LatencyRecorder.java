@@ -0,0 +1,64 @@
+package tasktracker.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies of the requests of one client thread by endpoint. Every thread records into its own recorder,
+ * so recording doesn't contend with the other threads, and the recorders are merged by {@link LatencyReport}
+ * once the threads are done.
+ */
+final class LatencyRecorder {
+    private final Map<String, Samples> samples = new LinkedHashMap<>();
+
+    void record(final String endpoint, final long nanos, final boolean succeeded) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, succeeded);
+    }
+
+    Map<String, Samples> samples() {
+        return samples;
+    }
+
+    static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(final long value, final boolean succeeded) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (!succeeded) {
+                errors++;
+            }
+        }
+
+        void addAll(final Samples other) {
+            if (size + other.size > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        /**
+         * Sorted latencies, in nanoseconds.
+         */
+        long[] sorted() {
+            final long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package tasktracker.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Throughput and latency percentiles of the endpoints over the measured part of a run. Failed requests count
+ * in the latencies as well, a request failing fast would otherwise hide in the errors.
+ */
+final class LatencyReport {
+    private final Map<String, LatencyRecorder.Samples> samples = new TreeMap<>();
+    private final double seconds;
+
+    LatencyReport(final List<LatencyRecorder> recorders, final double seconds) {
+        for (final LatencyRecorder recorder : recorders) {
+            recorder.samples().forEach((endpoint, endpointSamples) ->
+                    samples.computeIfAbsent(endpoint, key -> new LatencyRecorder.Samples()).addAll(endpointSamples));
+        }
+        this.seconds = seconds;
+    }
+
+    long requests() {
+        return samples.values().stream().mapToLong(LatencyRecorder.Samples::size).sum();
+    }
+
+    long errors() {
+        return samples.values().stream().mapToLong(LatencyRecorder.Samples::errors).sum();
+    }
+
+    void print(final PrintStream out) {
+        out.println(String.format("%-48s %9s %7s %9s %9s %9s %9s %9s %9s",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        samples.forEach((endpoint, endpointSamples) -> {
+            final long[] sorted = endpointSamples.sorted();
+            out.println(String.format("%-48s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    endpoint,
+                    sorted.length,
+                    endpointSamples.errors(),
+                    sorted.length / seconds,
+                    millis(percentile(sorted, 0.5)),
+                    millis(percentile(sorted, 0.9)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)),
+                    millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1])));
+        });
+        out.println(String.format("%-48s %9d %7d %9.1f", "Total", requests(), errors(), requests() / seconds));
+    }
+
+    /**
+     * Nearest-rank percentile of the sorted latencies.
+     */
+    static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,228 @@
+package tasktracker.loadtest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import tasktracker.backend.Application;
+import tasktracker.backend.dq.DataQualityScheduler;
+import tasktracker.backend.oozie.OozieTaskStateSynchronizerScheduler;
+import tasktracker.backend.repository.WarningRepository;
+import tasktracker.client.ClientException;
+import tasktracker.client.TaskTrackerClient;
+import tasktracker.client.models.DataQualityCondition;
+import tasktracker.client.models.DataQualityRule;
+import tasktracker.client.models.Project;
+import tasktracker.client.models.ProjectSettings;
+import tasktracker.client.models.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * End-to-end load test: starts the server on a random port against an embedded database and an Oozie stand-in,
+ * replays a synthetic workload from many threads with {@link TaskTrackerClient}, see {@link Workload}, and prints
+ * the throughput and the latency percentiles of every endpoint. Data quality runs every few seconds meanwhile and
+ * the Oozie synchronization follows the change feed, as they do in production, so the requests compete with them
+ * for the database.
+ * <pre>
+ * mvn install -DskipTests
+ * mvn -pl tasktracker-loadtest exec:java -Dloadtest.threads=64 -Dloadtest.duration-seconds=120
+ * </pre>
+ * Exits with 1 if a request failed. See {@link LoadTestOptions} for the options.
+ */
+public final class LoadTest {
+    static final String DATA_QUALITY_RUN = "DataQualityScheduler.analyze()";
+
+    private LoadTest() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadTestOptions options = new LoadTestOptions();
+        System.out.println("Load test: " + options);
+
+        final LatencyReport report;
+        try (OozieStandIn oozie = new OozieStandIn(options.threads)) {
+            oozie.createSchema();
+            try (ConfigurableApplicationContext context = start(options);
+                 TaskTrackerClient client = TaskTrackerClient
+                         .builder("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api")
+                         .maxConnections(options.threads)
+                         .socketTimeout(60)
+                         .build()) {
+                final List<Project> projects = setUp(client.v1(), options);
+                report = run(context, client.v1(), oozie, projects, options);
+
+                System.out.println();
+                report.print(System.out);
+                System.out.println();
+                System.out.println("Warnings raised: " + context.getBean(WarningRepository.class).count());
+                System.out.println("Tasks synchronized from Oozie: " + synchronizedTasks(context));
+            }
+        }
+
+        if (report.errors() > 0) {
+            System.out.println(report.errors() + " requests failed");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext start(final LoadTestOptions options) {
+        // arguments, the application.properties of the server take precedence over the default properties
+        return new SpringApplication(Application.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + options.datasourceUrl,
+                "--spring.datasource.username=" + options.datasourceUsername,
+                "--spring.datasource.password=" + options.datasourcePassword,
+                "--spring.datasource.driver-class-name=" + options.datasourceDriverClassName,
+                "--oozie.datasource.url=" + OozieStandIn.URL,
+                "--oozie.datasource.username=" + OozieStandIn.USERNAME,
+                "--oozie.datasource.password=" + OozieStandIn.PASSWORD,
+                "--oozie.datasource.driver-class-name=" + OozieStandIn.DRIVER_CLASS_NAME,
+                "--oozie.sync.incremental.period-ms=5000",
+                "--oozie.sync.incremental.overlap-ms=5000",
+                // the API is called without credentials, as behind the gateway
+                "--spring.autoconfigure.exclude=" + SecurityAutoConfiguration.class.getName()
+                        + "," + UserDetailsServiceAutoConfiguration.class.getName()
+        );
+    }
+
+    /**
+     * Projects allowing the synchronization and the data quality checks, with the rules of the table the workload
+     * uploads the statistics of.
+     */
+    private static List<Project> setUp(final TaskTrackerClient.V1 client, final LoadTestOptions options) throws ClientException {
+        final List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < options.projects; i++) {
+            final Project project = client.getOrCreateProject("loadtest-" + i).get();
+
+            final Response<ProjectSettings> settings = client.updateSettings(project, ProjectSettings.of()
+                    .setAutoStatusUpdate(false)
+                    .setAutoStatusUpdateFrequency(TimeUnit.HOURS.toMinutes(1))
+                    .setIncidentGenerationAllowed(false)
+                    .setTaskSynchronizationAllowed(true)
+                    .setTaskDataQualityAllowed(true));
+            if (!settings.isSuccess()) {
+                throw new IllegalStateException("Settings of " + project + " are not saved: " + settings.getErrors());
+            }
+
+            // the rules of a project apply to the statistics of the table, whichever task uploads them
+            final DataQualityRule rule = client.createRule(project, DataQualityRule.of()
+                    .setTaskName("task_0")
+                    .setTableName(Workload.TABLE)
+                    .setCaption("Rows and amounts of the events")
+                    .setConditions(Arrays.asList(
+                            DataQualityCondition.of()
+                                    .setColumnName("id")
+                                    .setMetric("count")
+                                    .setExpression("is_within_range(2500000, 3500000)"),
+                            DataQualityCondition.of()
+                                    .setColumnName("id")
+                                    .setMetric("count")
+                                    .setExpression("confidence_interval_sigma('mean', 3, 20, false)"),
+                            DataQualityCondition.of()
+                                    .setColumnName("amount")
+                                    .setMetric("mean")
+                                    .setExpression("is_within_range(200, 300)")
+                    )));
+            if (Objects.isNull(rule.getId())) {
+                throw new IllegalStateException("Data quality rule of " + project + " is not created");
+            }
+
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    private static LatencyReport run(
+            final ConfigurableApplicationContext context,
+            final TaskTrackerClient.V1 client,
+            final OozieStandIn oozie,
+            final List<Project> projects,
+            final LoadTestOptions options
+    ) throws InterruptedException {
+        final AtomicBoolean measuring = new AtomicBoolean();
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        final DataQualityScheduler dataQualityScheduler = context.getBean(DataQualityScheduler.class);
+        final LatencyRecorder dataQualityRecorder = new LatencyRecorder();
+        final ScheduledExecutorService dataQuality = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("loadtest-dq-%d").build()
+        );
+        dataQuality.scheduleWithFixedDelay(() -> {
+            final long start = System.nanoTime();
+            boolean succeeded = true;
+            try {
+                dataQualityScheduler.analyze();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                succeeded = false;
+            }
+            if (measuring.get()) {
+                dataQualityRecorder.record(DATA_QUALITY_RUN, System.nanoTime() - start, succeeded);
+            }
+        }, options.dqPeriodSeconds, options.dqPeriodSeconds, TimeUnit.SECONDS);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                options.threads,
+                new ThreadFactoryBuilder().setNameFormat("loadtest-client-%d").build()
+        );
+        final List<Workload> workloads = new ArrayList<>();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < options.threads; i++) {
+            final Workload workload = new Workload(i, client, oozie, projects, options, measuring, stopped);
+            workloads.add(workload);
+            futures.add(executor.submit(workload));
+        }
+
+        System.out.println("Warming up for " + options.warmupSeconds + " s");
+        TimeUnit.SECONDS.sleep(options.warmupSeconds);
+        measuring.set(true);
+        final long start = System.nanoTime();
+        System.out.println("Measuring for " + options.durationSeconds + " s");
+        TimeUnit.SECONDS.sleep(options.durationSeconds);
+        measuring.set(false);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        stopped.set(true);
+
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Client thread failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            dataQuality.shutdown();
+            dataQuality.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        final List<LatencyRecorder> recorders = new ArrayList<>();
+        workloads.forEach(workload -> recorders.add(workload.recorder()));
+        recorders.add(dataQualityRecorder);
+        return new LatencyReport(recorders, seconds);
+    }
+
+    private static long synchronizedTasks(final ConfigurableApplicationContext context) {
+        return context.getBean(OozieTaskStateSynchronizerScheduler.class)
+                .metrics()
+                .entrySet()
+                .stream()
+                .filter(metric -> metric.getKey().endsWith(".synchronized"))
+                .mapToLong(metric -> metric.getValue().longValue())
+                .sum();
+    }
+}
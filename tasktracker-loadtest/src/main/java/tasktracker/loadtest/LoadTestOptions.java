@@ -0,0 +1,38 @@
+package tasktracker.loadtest;
+
+/**
+ * Options of a run, from the system properties:
+ * <pre>
+ * loadtest.threads            client threads, 32 by default
+ * loadtest.warmup-seconds     warm-up before the latencies are recorded, 15 by default
+ * loadtest.duration-seconds   measured run, 60 by default
+ * loadtest.projects           projects the threads share, 4 by default
+ * loadtest.task-names         task names of a project, 100 by default
+ * loadtest.days               nominal days the tasks and the queries spread over, 30 by default
+ * loadtest.dq-period-seconds  period of the data quality runs, 5 by default
+ * loadtest.seed               seed of the workload, 42 by default
+ * loadtest.datasource.url     database of the server, an in-memory H2 by default; the username, password and
+ *                             driver-class-name properties go with it, e.g. for a PostgreSQL to test against
+ * </pre>
+ */
+final class LoadTestOptions {
+    final int threads = Integer.getInteger("loadtest.threads", 32);
+    final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 15);
+    final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+    final int projects = Integer.getInteger("loadtest.projects", 4);
+    final int taskNames = Integer.getInteger("loadtest.task-names", 100);
+    final int days = Integer.getInteger("loadtest.days", 30);
+    final int dqPeriodSeconds = Integer.getInteger("loadtest.dq-period-seconds", 5);
+    final long seed = Long.getLong("loadtest.seed", 42L);
+    final String datasourceUrl = System.getProperty("loadtest.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+    final String datasourceUsername = System.getProperty("loadtest.datasource.username", "sa");
+    final String datasourcePassword = System.getProperty("loadtest.datasource.password", "");
+    final String datasourceDriverClassName = System.getProperty("loadtest.datasource.driver-class-name", "org.h2.Driver");
+
+    @Override
+    public String toString() {
+        return threads + " threads, " + warmupSeconds + " s warm-up, " + durationSeconds + " s run, "
+                + projects + " projects of " + taskNames + " task names over " + days + " days, "
+                + "data quality every " + dqPeriodSeconds + " s, " + datasourceUrl;
+    }
+}
@@ -0,0 +1,86 @@
+package tasktracker.loadtest;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Oozie database the server synchronizes the task states from: the tables and columns of {@code WF_JOBS},
+ * {@code COORD_JOBS} and {@code COORD_ACTIONS} the server reads, in an in-memory H2.
+ * <p>
+ * Every task started by the workload gets a running workflow job of a coordinator action, finishing the task
+ * finishes its job, so the change feed of {@code WF_JOBS.last_modified_time} moves at the rate of the workload.
+ */
+final class OozieStandIn implements AutoCloseable {
+    static final String URL = "jdbc:h2:mem:oozie;DB_CLOSE_DELAY=-1";
+    static final String USERNAME = "sa";
+    static final String PASSWORD = "";
+    static final String DRIVER_CLASS_NAME = "org.h2.Driver";
+
+    private static final String COORDINATOR_JOB_ID = "0000000-000000000000000-oozie-oozi-C";
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong nextId = new AtomicLong();
+
+    OozieStandIn(final int maxConnections) {
+        final HikariConfig config = new HikariConfig();
+        config.setDriverClassName(DRIVER_CLASS_NAME);
+        config.setJdbcUrl(URL);
+        config.setUsername(USERNAME);
+        config.setPassword(PASSWORD);
+        config.setMaximumPoolSize(maxConnections);
+        this.dataSource = new HikariDataSource(config);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE WF_JOBS (id VARCHAR(255) PRIMARY KEY, app_name VARCHAR(255), app_path VARCHAR(255), " +
+                "conf CLOB, created_time TIMESTAMP, end_time TIMESTAMP, external_id VARCHAR(255), group_name VARCHAR(255), " +
+                "last_modified_time TIMESTAMP, log_token VARCHAR(255), parent_id VARCHAR(255), proto_action_conf CLOB, " +
+                "run INT, start_time TIMESTAMP, status VARCHAR(255), user_name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX WF_JOBS_LAST_MODIFIED_TIME ON WF_JOBS (last_modified_time, id)");
+        jdbcTemplate.execute("CREATE TABLE COORD_JOBS (id VARCHAR(255) PRIMARY KEY, app_name VARCHAR(255), next_matd_time TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE COORD_ACTIONS (id VARCHAR(255) PRIMARY KEY, job_id VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO COORD_JOBS VALUES (?, ?, ?)",
+                COORDINATOR_JOB_ID, "loadtest-coordinator", new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Starts a workflow job of the task.
+     *
+     * @return id of the workflow job
+     */
+    String start(final String appName, final String user) {
+        final long id = nextId.incrementAndGet();
+        final String workflowId = String.format("%07d-000000000000000-oozie-oozi-W", id);
+        final String actionId = COORDINATOR_JOB_ID + "@" + id;
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO COORD_ACTIONS VALUES (?, ?)", actionId, COORDINATOR_JOB_ID);
+        jdbcTemplate.update(
+                "INSERT INTO WF_JOBS (id, app_name, created_time, last_modified_time, parent_id, run, start_time, status, user_name) " +
+                        "VALUES (?, ?, ?, ?, ?, 0, ?, 'RUNNING', ?)",
+                workflowId, appName, now, now, actionId, now, user
+        );
+        return workflowId;
+    }
+
+    /**
+     * Finishes the workflow job with {@code SUCCEEDED} or {@code KILLED}.
+     */
+    void finish(final String workflowId, final boolean succeeded) {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(
+                "UPDATE WF_JOBS SET status = ?, end_time = ?, last_modified_time = ? WHERE id = ?",
+                succeeded ? "SUCCEEDED" : "KILLED", now, now, workflowId
+        );
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,298 @@
+package tasktracker.loadtest;
+
+import tasktracker.client.ClientException;
+import tasktracker.client.TaskTrackerClient;
+import tasktracker.client.models.Project;
+import tasktracker.client.models.Response;
+import tasktracker.client.models.Task;
+import tasktracker.client.models.TaskStats;
+import tasktracker.client.models.TasksReport;
+import tasktracker.client.models.Warning;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Requests of one client thread: tasks started and finished the way a scheduled job reports them, with the
+ * statistics of its output table uploaded before it succeeds, and the queries of the UI over the same days.
+ * <p>
+ * A quarter of the finished tasks are finished only in Oozie, as when a job dies before it reports, and are left
+ * to the synchronization of the server. One in thirty uploads has half of the usual rows, so the data quality
+ * rules raise warnings.
+ */
+final class Workload implements Runnable {
+    static final String START = "POST /v1/projects/{id}/tasks";
+    static final String FINISH = "POST /v1/projects/{id}/tasks/{id}";
+    static final String STATISTICS = "POST /v2/projects/{id}/tasks/{id}/statistics";
+    static final String REPORT = "GET /v2/projects/{id}/tasks/report";
+    static final String TASKS_IN_RANGE = "GET /v1/projects/{id}/tasksInRange";
+    static final String WARNINGS = "GET /v2/projects/{id}/warnings";
+
+    static final String TABLE = "loadtest.events";
+
+    private static final double FAILURE_RATE = 0.1;
+    private static final double UNREPORTED_RATE = 0.25;
+    private static final double ANOMALY_RATE = 1.0 / 30;
+    private static final long ROWS = 3_000_000;
+    private static final int QUERY_DAYS = 7;
+
+    private enum Operation {
+        START(30),
+        FINISH(30),
+        REPORT(12),
+        TASKS_IN_RANGE(12),
+        WARNINGS(6);
+
+        private final int weight;
+
+        Operation(final int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = operations();
+
+    private final TaskTrackerClient.V1 client;
+    private final OozieStandIn oozie;
+    private final List<Project> projects;
+    private final LoadTestOptions options;
+    private final AtomicBoolean measuring;
+    private final AtomicBoolean stopped;
+    private final Random random;
+    private final String name;
+    private final LocalDate firstDay;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Deque<StartedTask> started = new ArrayDeque<>();
+    private long tasks;
+
+    Workload(
+            final int index,
+            final TaskTrackerClient.V1 client,
+            final OozieStandIn oozie,
+            final List<Project> projects,
+            final LoadTestOptions options,
+            final AtomicBoolean measuring,
+            final AtomicBoolean stopped
+    ) {
+        this.client = client;
+        this.oozie = oozie;
+        this.projects = projects;
+        this.options = options;
+        this.measuring = measuring;
+        this.stopped = stopped;
+        this.random = new Random(options.seed + index);
+        this.name = "client-" + index;
+        this.firstDay = firstDay(options);
+    }
+
+    /**
+     * First of the nominal days of the tasks, the last one is today.
+     */
+    static LocalDate firstDay(final LoadTestOptions options) {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(options.days - 1);
+    }
+
+    LatencyRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped.get()) {
+            final Operation operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+            final Project project = projects.get(random.nextInt(projects.size()));
+            switch (operation) {
+                case START:
+                    start(project);
+                    break;
+                case FINISH:
+                    if (started.isEmpty()) {
+                        start(project);
+                    } else {
+                        finish(started.pollFirst());
+                    }
+                    break;
+                case REPORT:
+                    report(project);
+                    break;
+                case TASKS_IN_RANGE:
+                    tasksInRange(project);
+                    break;
+                case WARNINGS:
+                    warnings(project);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        }
+    }
+
+    private void start(final Project project) {
+        final String taskName = "task_" + random.nextInt(options.taskNames);
+        final String workflowId = oozie.start(taskName, name);
+        final Date now = new Date();
+        final Task task = Task.of()
+                .setName(taskName)
+                .setStatus(Task.Status.RUNNING)
+                .setApplicationId("application_" + now.getTime() + "_" + name + "_" + tasks++)
+                .setUser(name)
+                .setStartDate(now)
+                .setNominalDate(day(random.nextInt(options.days)))
+                .setOozieWorkflowName(taskName)
+                .setOozieWorkflowId(workflowId);
+
+        final Response<Task> response = timed(START, () -> client.createTask(project, task), Response::isSuccess);
+        if (Objects.nonNull(response) && response.isSuccess()) {
+            started.addLast(new StartedTask(project, response.get(), workflowId));
+        }
+    }
+
+    private void finish(final StartedTask startedTask) {
+        final boolean succeeded = random.nextDouble() >= FAILURE_RATE;
+        if (succeeded) {
+            timed(STATISTICS, () -> client.createStats(startedTask.project, startedTask.task, statistics()), Objects::nonNull);
+        }
+        oozie.finish(startedTask.workflowId, succeeded);
+        if (random.nextDouble() < UNREPORTED_RATE) {
+            return;
+        }
+
+        final Task task = startedTask.task
+                .setStatus(succeeded ? Task.Status.SUCCEEDED : Task.Status.FAILED)
+                .setEndDate(new Date());
+        timed(FINISH, () -> client.updateTask(startedTask.project, task), Response::isSuccess);
+    }
+
+    private void report(final Project project) {
+        final int from = random.nextInt(Math.max(1, options.days - QUERY_DAYS + 1));
+        timed(
+                REPORT,
+                () -> client.getTasksReport(project, formatDay(from), formatDay(from + QUERY_DAYS - 1), random.nextBoolean()),
+                report -> Objects.nonNull(report.getTasks())
+        );
+    }
+
+    private void tasksInRange(final Project project) {
+        final int from = random.nextInt(Math.max(1, options.days - QUERY_DAYS + 1));
+        timed(
+                TASKS_IN_RANGE,
+                () -> client.getTasksInRange(project, formatDay(from), formatDay(from + QUERY_DAYS - 1), random.nextBoolean()),
+                Response::isSuccess
+        );
+    }
+
+    private void warnings(final Project project) {
+        final Predicate<List<Warning>> succeeded = Objects::nonNull;
+        timed(WARNINGS, () -> client.getWarnings(project, formatDay(0), formatDay(options.days)), succeeded);
+    }
+
+    private List<TaskStats> statistics() {
+        final boolean anomaly = random.nextDouble() < ANOMALY_RATE;
+        final long rows = (long) ((anomaly ? ROWS / 2 : ROWS) * (1 + random.nextGaussian() * 0.02));
+
+        final List<TaskStats> statistics = new ArrayList<>();
+        final TaskStats id = new TaskStats()
+                .setColumn(TABLE + ".id")
+                .setCount(rows)
+                .setTotalCount(rows)
+                .setUniqueCount(rows);
+        id.setColumnType(TaskStats.ColumnType.NUMERIC);
+        statistics.add(id);
+
+        final double mean = 250 + random.nextGaussian() * 5;
+        final TaskStats amount = new TaskStats()
+                .setColumn(TABLE + ".amount")
+                .setCount(rows - rows / 100)
+                .setTotalCount(rows)
+                .setUniqueCount(rows / 10)
+                .setMean(mean)
+                .setStdDev(80.0)
+                .setMin(0.0)
+                .setMax(mean * 20)
+                .setQuantile5(mean * 0.2)
+                .setQuantile15(mean * 0.4)
+                .setQuantile25(mean * 0.6)
+                .setQuantile50(mean * 0.9)
+                .setQuantile75(mean * 1.3)
+                .setQuantile90(mean * 1.8)
+                .setQuantile95(mean * 2.4);
+        amount.setColumnType(TaskStats.ColumnType.NUMERIC);
+        statistics.add(amount);
+
+        final TaskStats country = new TaskStats()
+                .setColumn(TABLE + ".country")
+                .setCount(rows)
+                .setTotalCount(rows)
+                .setUniqueCount(180L);
+        country.setColumnType(TaskStats.ColumnType.STRING);
+        statistics.add(country);
+
+        return statistics;
+    }
+
+    private Date day(final int day) {
+        return Date.from(firstDay.plusDays(day).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    private String formatDay(final int day) {
+        return firstDay.plusDays(day).toString();
+    }
+
+    /**
+     * Sends the request and records its latency once the warm-up is over.
+     *
+     * @return response of the request, null if it failed
+     */
+    private <T> T timed(final String endpoint, final Request<T> request, final Predicate<T> succeeded) {
+        final long start = System.nanoTime();
+        T response = null;
+        boolean success;
+        try {
+            response = request.send();
+            success = Objects.nonNull(response) && succeeded.test(response);
+        } catch (ClientException | RuntimeException e) {
+            success = false;
+        }
+        final long nanos = System.nanoTime() - start;
+        if (measuring.get()) {
+            recorder.record(endpoint, nanos, success);
+        }
+        return response;
+    }
+
+    private static Operation[] operations() {
+        final List<Operation> operations = new ArrayList<>();
+        for (final Operation operation : Operation.values()) {
+            for (int i = 0; i < operation.weight; i++) {
+                operations.add(operation);
+            }
+        }
+        return operations.toArray(new Operation[0]);
+    }
+
+    @FunctionalInterface
+    private interface Request<T> {
+        T send() throws ClientException;
+    }
+
+    private static final class StartedTask {
+        private final Project project;
+        private final Task task;
+        private final String workflowId;
+
+        private StartedTask(final Project project, final Task task, final String workflowId) {
+            this.project = project;
+            this.task = task;
+            this.workflowId = workflowId;
+        }
+    }
+}
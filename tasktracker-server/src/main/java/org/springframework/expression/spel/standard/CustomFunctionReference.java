@@ -33,6 +33,10 @@ public class CustomFunctionReference extends SpelNodeImpl {
     @Nullable
     private volatile Method method;
 
+    // Set once the function was invoked as a BiFunction of the root object and the arguments,
+    // such a call is compiled to a lookup of the function variable and its invocation
+    private volatile boolean contextual;
+
 
     public CustomFunctionReference(String functionName, int pos, SpelNodeImpl... arguments) {
         super(pos, arguments);
@@ -48,11 +52,22 @@ public class CustomFunctionReference extends SpelNodeImpl {
         }
 
         if (!(value.getValue() instanceof Function)
+                && !(value.getValue() instanceof BiFunction)
                 && !(value.getValue() instanceof Method) ) {
             throw new SpelEvaluationException(
                     SpelMessage.FUNCTION_REFERENCE_CANNOT_BE_INVOKED, this.name, value.getClass());
         }
 
+        if (value.getValue() instanceof BiFunction) {
+            try {
+                return executeFunctionJLRMethod(state, (BiFunction) value.getValue());
+            }
+            catch (SpelEvaluationException ex) {
+                ex.setPosition(getStartPosition());
+                throw ex;
+            }
+        }
+
         if (value.getValue() instanceof Function) {
             try {
                 return executeFunctionJLRMethod(state, (Function) value.getValue());
@@ -123,6 +138,7 @@ public class CustomFunctionReference extends SpelNodeImpl {
                 this.exitTypeDescriptor = null;
                 this.method = null;
             }
+            this.contextual = false;
         }
     }
 
@@ -157,9 +173,13 @@ public class CustomFunctionReference extends SpelNodeImpl {
                 this.exitTypeDescriptor = null;
                 this.method = null;
             }
+            this.contextual = false;
         }
     }
 
+    /**
+     * Execute a function receiving the root object of the evaluation and the arguments.
+     */
     private TypedValue executeFunctionJLRMethod(ExpressionState state, BiFunction method) throws EvaluationException {
         Object[] functionArgs = getArguments(state);
 
@@ -169,7 +189,8 @@ public class CustomFunctionReference extends SpelNodeImpl {
         boolean compilable = false;
 
         try {
-            Object result = method.apply(functionArgs[0], functionArgs[1]);
+            Object result = method.apply(state.getRootContextObject().getValue(), functionArgs);
+            compilable = true;
             return new TypedValue(result);
         }
         catch (Exception ex) {
@@ -177,11 +198,14 @@ public class CustomFunctionReference extends SpelNodeImpl {
                     this.name, ex.getMessage());
         }
         finally {
+            this.method = null;
             if (compilable) {
+                this.exitTypeDescriptor = "Ljava/lang/Object";
+                this.contextual = true;
             }
             else {
                 this.exitTypeDescriptor = null;
-                this.method = null;
+                this.contextual = false;
             }
         }
     }
@@ -215,6 +239,14 @@ public class CustomFunctionReference extends SpelNodeImpl {
 
     @Override
     public boolean isCompilable() {
+        if (this.contextual) {
+            for (SpelNodeImpl child : this.children) {
+                if (!child.isCompilable()) {
+                    return false;
+                }
+            }
+            return true;
+        }
         Method method = this.method;
         if (method == null) {
             return false;
@@ -234,6 +266,10 @@ public class CustomFunctionReference extends SpelNodeImpl {
 
     @Override
     public void generateCode(MethodVisitor mv, CodeFlow cf) {
+        if (this.contextual) {
+            generateContextualCode(mv, cf);
+            return;
+        }
         Method method = this.method;
         Assert.state(method != null, "No method handle");
         String classDesc = method.getDeclaringClass().getName().replace('.', '/');
@@ -243,4 +279,31 @@ public class CustomFunctionReference extends SpelNodeImpl {
         cf.pushDescriptor(this.exitTypeDescriptor);
     }
 
-}
\ No newline at end of file
+    /**
+     * {@code ((BiFunction) context.lookupVariable(name)).apply(root, new Object[] {args...})}
+     */
+    private void generateContextualCode(MethodVisitor mv, CodeFlow cf) {
+        cf.loadEvaluationContext(mv);
+        mv.visitLdcInsn(this.name);
+        mv.visitMethodInsn(INVOKEINTERFACE, "org/springframework/expression/EvaluationContext", "lookupVariable",
+                "(Ljava/lang/String;)Ljava/lang/Object;", true);
+        mv.visitTypeInsn(CHECKCAST, "java/util/function/BiFunction");
+        cf.loadTarget(mv);
+        CodeFlow.insertOptimalLoad(mv, this.children.length);
+        mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+        for (int i = 0; i < this.children.length; i++) {
+            mv.visitInsn(DUP);
+            CodeFlow.insertOptimalLoad(mv, i);
+            cf.enterCompilationScope();
+            this.children[i].generateCode(mv, cf);
+            String argDescriptor = cf.lastDescriptor();
+            cf.exitCompilationScope();
+            CodeFlow.insertBoxIfNecessary(mv, argDescriptor);
+            mv.visitInsn(AASTORE);
+        }
+        mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/BiFunction", "apply",
+                "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+        cf.pushDescriptor(this.exitTypeDescriptor);
+    }
+
+}
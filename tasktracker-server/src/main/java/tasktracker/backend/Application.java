@@ -8,11 +8,6 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import tasktracker.backend.eventbus.DefaultEventBus;
-import tasktracker.backend.eventbus.TaskTrackerEventBus;
-import tasktracker.backend.eventbus.TaskTrackerEventConsumer;
-
-import java.util.Collection;
 
 @SpringBootApplication
 @EnableScheduling
@@ -28,15 +23,6 @@ public class Application {
 		logger.info("TaskTracker server started");
 	}
 
-	@Bean
-	public TaskTrackerEventBus eventBus(final Collection<TaskTrackerEventConsumer> consumers) {
-		final TaskTrackerEventBus eventBus = new DefaultEventBus();
-
-		consumers.forEach(eventBus::register);
-
-		return eventBus;
-	}
-
 	@Bean
 	public ThreadPoolTaskExecutor commonThreadPool() {
 		final ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
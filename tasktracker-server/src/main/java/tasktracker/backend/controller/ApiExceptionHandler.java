@@ -78,6 +78,21 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
         );
     }
 
+    @ExceptionHandler(value = {
+            IngestionQueueFull.class
+    })
+    protected ResponseEntity<Object> queueFull(final IngestionQueueFull ex, final WebRequest request) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return handleExceptionInternal(
+                ex,
+                Response.fail(new Response.Error(429, ex.getMessage(), "")),
+                headers,
+                HttpStatus.TOO_MANY_REQUESTS,
+                request
+        );
+    }
+
     @ExceptionHandler(value = {
             InvalidDataQualityRuleException.class,
             InvalidDataQualityConditionException.class,
@@ -6,13 +6,19 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import tasktracker.backend.controller.model.HeartbeatModel;
+import tasktracker.backend.metrics.MetricsSource;
 import tasktracker.backend.service.InfoService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping(path = "/api")
 public class MainController {
     private final InfoService infoService;
+    private final List<MetricsSource> metricsSources;
 
     @RequestMapping(path = "/heartbeat", method = RequestMethod.GET, produces = "application/json")
     @ResponseBody
@@ -20,5 +26,12 @@ public class MainController {
         return new HeartbeatModel(infoService.uptime(), infoService.version());
     }
 
+    @RequestMapping(path = "/metrics", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public Map<String, Number> metrics() {
+        final Map<String, Number> metrics = new TreeMap<>();
+        metricsSources.forEach(source -> metrics.putAll(source.metrics()));
+        return metrics;
+    }
 
 }
@@ -71,6 +71,11 @@ public class ProjectDashboardController {
         return ResponseEntity.ok(topChart);
     }
 
+    /**
+     * Names with the longest median run time of their succeeded runs, in whole seconds. For a period ending today
+     * or later the medians are of the last runs of the names that ran in the period, which may have started before it;
+     * for an earlier period they are of the runs started in the period.
+     */
     @GetMapping(path = "/projects/{project_id}/dashboard/topLongTasks")
     public ResponseEntity<?> topLongTasks(
             @PathVariable(name = "project_id") final Long projectId,
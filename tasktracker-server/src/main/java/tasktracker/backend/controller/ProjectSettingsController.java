@@ -41,6 +41,9 @@ public class ProjectSettingsController {
         if (Objects.isNull(model)) {
             return Response.fail(new Response.Error(666, "BAD PARAM", "settings"));
         }
+        if (Objects.nonNull(model.getRetentionMonths()) && model.getRetentionMonths() < 1) {
+            return Response.fail(new Response.Error(666, "BAD PARAM", "retention_months"));
+        }
 
         return Response.success(new ProjectSettingsModel(taskTrackerService.saveProjectSettings(project, model.to())));
     }
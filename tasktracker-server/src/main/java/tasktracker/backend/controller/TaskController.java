@@ -1,11 +1,16 @@
 package tasktracker.backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tasktracker.backend.controller.body.ChangeTasksNameBody;
 import tasktracker.backend.controller.body.TaskStatsCollectionBody;
 import tasktracker.backend.controller.exception.ApiException;
@@ -14,11 +19,16 @@ import tasktracker.backend.controller.model.*;
 import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.TaskStats;
+import tasktracker.backend.repository.TaskOrder;
 import tasktracker.backend.service.TaskFilter;
+import tasktracker.backend.service.TaskReportWriter;
 import tasktracker.backend.service.TaskTrackerService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -33,6 +43,8 @@ public class TaskController {
     private final TaskTrackerService taskTrackerService;
     private final TaskStatsMapper taskStatsMapper;
     private final WarningMapper warningMapper;
+    private final ObjectMapper objectMapper;
+    private final TaskReportWriter taskReportWriter;
 
     @PatchMapping(path = "/projects/{project_id}/tasks/rename")
     public ResponseEntity<?> changeTasksNames(
@@ -57,13 +69,17 @@ public class TaskController {
             return ResponseEntity.badRequest().body(builder.build());
         }
 
-        taskTrackerService.renameTasks(body.getOriginalName(), body.getNewName());
+        taskTrackerService.renameTasks(project, body.getOriginalName(), body.getNewName());
 
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Streams the tasks as a JSON array.
+     *
+     * @param afterId - id of the last task of the previous page, tasks are continued after it in the same order
+     */
     @GetMapping(path = "/projects/{project_id}/tasks")
-    @ResponseBody
     public ResponseEntity<?> getTasks(
             @PathVariable(name = "project_id") final Long projectId,
             @RequestParam(name = "startDate") final String from,
@@ -72,7 +88,9 @@ public class TaskController {
             @RequestParam(name = "statuses", required = false, defaultValue = "") final Set<String> statuses,
             @RequestParam(name = "dateType") final Task.DateType dateType,
             @RequestParam(name = "limit", required = false, defaultValue = "0") final int limit,
-            @RequestParam(name = "fields", required = false) final Set<String> fields
+            @RequestParam(name = "fields", required = false) final Set<String> fields,
+            @RequestParam(name = "orderBy", required = false) final String orderBy,
+            @RequestParam(name = "afterId", required = false) final Long afterId
     ) {
         final ErrorResponse.ErrorResponseBuilder builder = ErrorResponse.builder();
 
@@ -81,6 +99,13 @@ public class TaskController {
             return new ResponseEntity<>(builder.projectNotFound(projectId).build(), HttpStatus.NOT_FOUND);
         }
 
+        final Task after = Objects.isNull(afterId) ? null : taskTrackerService.findTaskById(afterId)
+                .filter(task -> project.equals(task.getProject()))
+                .orElse(null);
+        if (Objects.nonNull(afterId) && Objects.isNull(after)) {
+            return new ResponseEntity<>(builder.taskNotFound(afterId).build(), HttpStatus.NOT_FOUND);
+        }
+
         final Date startDate = getDateFromFormattedDateStringOrNull(from);
         final Date endDate = getDateFromFormattedDateStringOrNull(to);
         final Set<String> includeFields = fields == null ?
@@ -98,26 +123,33 @@ public class TaskController {
                 .setWithStatistics(includeFields.contains("statistics"))
                 .setWithErrors(includeFields.contains("errors"))
                 .setWithMetrics(includeFields.contains("metrics"));
-        final List<Task> tasks = taskTrackerService.findTasks(project, filter);
-
-        return ResponseEntity.ok(
-                tasks
-                        .stream()
-                        .map(task -> {
-                            final TaskModel model = new TaskModel(task);
-                            if (filter.isWithMetrics()) {
-                                model.setMetrics(taskTrackerService.findMetrics(task).stream().map(TaskMetricModel::new).collect(Collectors.toList()));
-                            }
-                            if (filter.isWithStatistics()) {
-                                model.setStatistics(taskTrackerService.findStatistics(task).stream().map(taskStatsMapper::to).collect(Collectors.toList()));
-                            }
-                            if (filter.isWithErrors()) {
-                                model.setErrors(taskTrackerService.findErrors(task).stream().map(TaskErrorModel::new).collect(Collectors.toList()));
-                            }
-                            return model;
-                        })
-                        .collect(Collectors.toList())
-        );
+        final Specification<Task> specification = taskTrackerService.taskSpecification(project, filter);
+
+        final StreamingResponseBody body = outputStream -> {
+            // a stream failed midway is left unclosed, so it never parses as a complete response
+            try (final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                generator.writeStartArray();
+                taskTrackerService.forEachTaskPage(specification, TaskOrder.of(orderBy), after, filter.getLimit(), tasks -> {
+                    try {
+                        writeTasks(generator, filter, tasks);
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+    }
+
+    private void writeTasks(final JsonGenerator generator, final TaskFilter filter, final List<Task> tasks) throws IOException {
+        final Map<Task, TaskModel> models = taskTrackerService.toTaskModels(tasks, filter);
+        for (final Task task : tasks) {
+            generator.writeObject(models.get(task));
+        }
     }
 
     @GetMapping(path = "/projects/{project_id}/tasks/report")
@@ -166,12 +198,15 @@ public class TaskController {
                 .setWithMetrics(includeFields.contains("metrics"))
                 .setWithWarnings(includeFields.contains("warnings"));
 
-        List<TasksReportModel> result = taskTrackerService.groupTasksByNameAndDate(project, filter, taskStatuses, lastTaskOnly);
-
-        final TasksReportResponse response = new TasksReportResponse();
-        response.setTasks(result);
+        final StreamingResponseBody body = outputStream -> {
+            // a stream failed midway is left unclosed, so it never parses as a complete response
+            try (final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                taskReportWriter.write(project, filter, taskStatuses, lastTaskOnly, generator);
+            }
+        };
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
     }
 
     @GetMapping(path = "/projects/{project_id}/tasks/{task_id}/statistics")
@@ -265,6 +300,19 @@ public class TaskController {
         return ResponseEntity.ok(taskStatsMapper.to(result));
     }
 
+    @GetMapping(path = "/projects/{project_id}/tasks/eta")
+    public ResponseEntity<?> getRunningTasksEta(
+            @PathVariable(name = "project_id") final Long projectId
+    ) {
+        final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ApiException.ProjectNotFound(projectId));
+        final List<TaskEtaModel> etas = taskTrackerService.predictRunningTasks(project)
+                .stream()
+                .map(TaskEtaModel::new)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(etas);
+    }
+
     @GetMapping(path = "/projects/{project_id}/tasksNames")
     @ResponseBody
     public ResponseEntity<?> getAllTaskNames(
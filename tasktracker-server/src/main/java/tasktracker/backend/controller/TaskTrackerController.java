@@ -1,13 +1,29 @@
 package tasktracker.backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tasktracker.backend.ApplicationConfiguration;
+import tasktracker.backend.controller.body.IngestRecordBody;
 import tasktracker.backend.controller.model.*;
+import tasktracker.backend.ingestion.IngestionQueue;
 import tasktracker.backend.model.*;
+import tasktracker.backend.repository.TaskOrder;
+import tasktracker.backend.service.TaskIngestionService;
 import tasktracker.backend.service.TaskTrackerService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -23,6 +39,24 @@ import static tasktracker.backend.controller.exception.ApiException.*;
 public class TaskTrackerController {
     private final TaskTrackerService taskTrackerService;
     private final ApplicationConfiguration backendConfiguration;
+    private final ObjectMapper objectMapper;
+    private final TaskIngestionService taskIngestionService;
+    private final IngestionQueue ingestionQueue;
+
+    private static IngestRecordBody record(final IngestRecordBody.Type type, final Long taskId) {
+        final IngestRecordBody record = new IngestRecordBody();
+        record.setType(type);
+        record.setTaskId(taskId);
+        return record;
+    }
+
+    /**
+     * Response of a write accepted by the ingestion queue, the body is what the write is going to save.
+     */
+    private <T> ResponseEntity<Response<T>> accepted(final Project project, final IngestRecordBody record, final T model) {
+        ingestionQueue.submit(project, Collections.singletonList(record));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Response.success(model));
+    }
 
     private static Date toDate(final String formatted, final Date defaultDate) {
         if (Objects.isNull(formatted) || formatted.isEmpty()) {
@@ -146,9 +180,13 @@ public class TaskTrackerController {
         return Response.success(tasks);
     }
 
+    /**
+     * Streams the tasks in the same envelope as {@link Response}.
+     *
+     * @param afterId - id of the last task of the previous page, tasks are continued after it in the same order
+     */
     @GetMapping(path = "/projects/{project_id}/tasks")
-    @ResponseBody
-    public Response<List<TaskModel>> getTaskStates(
+    public ResponseEntity<StreamingResponseBody> getTaskStates(
             @PathVariable(name = "project_id") final Long projectId,
             @RequestParam(name = "name", required = false) final String name,
             @RequestParam(name = "status", required = false) final String status,
@@ -156,19 +194,44 @@ public class TaskTrackerController {
             @RequestParam(name = "nominalDate", required = false) final String formattedNominalDate,
             @RequestParam(name = "endDate", required = false) final String formattedEndDate,
             @RequestParam(name = "orderBy", required = false) final String orderBy,
-            @RequestParam(name = "limit", required = false) final Integer limit
+            @RequestParam(name = "limit", required = false) final Integer limit,
+            @RequestParam(name = "afterId", required = false) final Long afterId
     ) {
         final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ProjectNotFound(projectId));
+        final Task after = Objects.isNull(afterId) ? null : taskTrackerService.findTaskById(afterId)
+                .filter(task -> project.equals(task.getProject()))
+                .orElseThrow(() -> new TaskStateNotFound(afterId));
 
         final Date startDate = Objects.isNull(formattedStartDate) ? null : getDateFromFormattedDateString(formattedStartDate);
         final Date nominalDate = Objects.isNull(formattedNominalDate) ? null : getDateFromFormattedDateString(formattedNominalDate);
         final Date endDate = Objects.isNull(formattedEndDate) ? null : getDateFromFormattedDateString(formattedEndDate);
 
-        return Response.success(taskTrackerService
-                .filterTasks(projectId, name, status, startDate, nominalDate, endDate, orderBy, limit)
-                .stream()
-                .map(TaskModel::new)
-                .collect(Collectors.toList()));
+        final Specification<Task> specification = taskTrackerService
+                .taskSpecification(projectId, name, status, startDate, nominalDate, endDate);
+
+        final StreamingResponseBody body = outputStream -> {
+            // a stream failed midway is left unclosed, so it never parses as a complete response
+            try (final JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                generator.writeStartObject();
+                generator.writeBooleanField("success", true);
+                generator.writeArrayFieldStart("response");
+                taskTrackerService.forEachTaskPage(specification, TaskOrder.of(orderBy), after, Objects.isNull(limit) ? 0 : limit, page -> {
+                    try {
+                        for (final Task task : page) {
+                            generator.writeObject(new TaskModel(task));
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
     }
 
     /**
@@ -248,7 +311,7 @@ public class TaskTrackerController {
 
     @PostMapping(path = "/projects/{project_id}/tasks/{task_id}")
     @ResponseBody
-    public Response<TaskModel> updateTaskState(
+    public ResponseEntity<Response<TaskModel>> updateTaskState(
             @PathVariable(name = "project_id") final Long projectId,
             @PathVariable(name = "task_id") final Long taskId,
             @RequestBody final TaskModel model
@@ -258,15 +321,26 @@ public class TaskTrackerController {
 
         final Task newTaskState = model.toTaskState();
 
+        if (ingestionQueue.isEnabled()) {
+            final IngestRecordBody record = record(IngestRecordBody.Type.TASK, taskId);
+            record.setTask(model);
+
+            final TaskModel result = new TaskModel(task);
+            result.setStatus(newTaskState.getState().name());
+            result.setEndDate(Objects.isNull(newTaskState.getEndDate()) ? null : DateTimePatterns.getDateTimeFormat().format(newTaskState.getEndDate()));
+            result.setTimestamp(newTaskState.getTimestamp());
+            return accepted(project, record, result);
+        }
+
         task.setEndDate(newTaskState.getEndDate());
         task.setState(newTaskState.getState());
         task.setTimestamp(newTaskState.getTimestamp());
 
-        return Response.success(new TaskModel(taskTrackerService.update(project, task)));
+        return ResponseEntity.ok(Response.success(new TaskModel(taskTrackerService.update(project, task))));
     }
 
     @PostMapping(path = "/projects/{project_id}/tasks/{task_id}/metrics")
-    public Response<TaskMetricModel> saveTaskMetric(
+    public ResponseEntity<Response<TaskMetricModel>> saveTaskMetric(
             @PathVariable(name = "project_id") final Long projectId,
             @PathVariable(name = "task_id") final Long taskId,
             @RequestBody final TaskMetricModel model
@@ -274,9 +348,15 @@ public class TaskTrackerController {
         final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ProjectNotFound(projectId));
         final Task task = taskTrackerService.findTaskById(taskId).orElseThrow(() -> new TaskStateNotFound(taskId));
 
+        if (ingestionQueue.isEnabled()) {
+            final IngestRecordBody record = record(IngestRecordBody.Type.METRIC, taskId);
+            record.setMetric(model);
+            return accepted(project, record, model);
+        }
+
         final TaskMetric metric = model.toTaskMetric();
 
-        return Response.success(new TaskMetricModel(taskTrackerService.save(task, metric)));
+        return ResponseEntity.ok(Response.success(new TaskMetricModel(taskTrackerService.save(task, metric))));
     }
 
     @GetMapping(path = "/projects/{project_id}/tasks/{task_id}/metrics")
@@ -323,7 +403,7 @@ public class TaskTrackerController {
     }
 
     @PostMapping(path = "/projects/{project_id}/tasks/{task_id}/errors")
-    public Response<TaskErrorModel> saveTaskError(
+    public ResponseEntity<Response<TaskErrorModel>> saveTaskError(
             @PathVariable(name = "project_id") final Long projectId,
             @PathVariable(name = "task_id") final Long taskId,
             @RequestBody final TaskErrorModel model
@@ -332,9 +412,15 @@ public class TaskTrackerController {
         final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ProjectNotFound(projectId));
         final Task task = taskTrackerService.findTaskById(taskId).orElseThrow(() -> new TaskStateNotFound(taskId));
 
+        if (ingestionQueue.isEnabled()) {
+            final IngestRecordBody record = record(IngestRecordBody.Type.ERROR, taskId);
+            record.setError(model);
+            return accepted(project, record, model);
+        }
+
         final TaskError taskError = model.toTaskError();
 
-        return Response.success(new TaskErrorModel(taskTrackerService.save(task, taskError)));
+        return ResponseEntity.ok(Response.success(new TaskErrorModel(taskTrackerService.save(task, taskError))));
     }
 
     @GetMapping(path = "/projects/{project_id}/tasks/{task_id}/errors/{error_id}")
@@ -371,7 +457,7 @@ public class TaskTrackerController {
     }
 
     @PostMapping(path = "/projects/{project_id}/tasks/{task_id}/warnings")
-    public Response<WarningModel> saveWarning(
+    public ResponseEntity<Response<WarningModel>> saveWarning(
             @PathVariable(name = "project_id") final Long projectId,
             @PathVariable(name = "task_id") final Long taskId,
             @RequestBody final WarningModel model
@@ -379,9 +465,46 @@ public class TaskTrackerController {
         final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ProjectNotFound(projectId));
         final Task task = taskTrackerService.findTaskById(taskId).orElseThrow(() -> new TaskStateNotFound(taskId));
 
+        if (ingestionQueue.isEnabled()) {
+            final IngestRecordBody record = record(IngestRecordBody.Type.WARNING, taskId);
+            record.setWarning(model);
+            return accepted(project, record, model);
+        }
+
         final Warning warning = model.toWarning();
 
-        return Response.success(new WarningModel(taskTrackerService.save(task, warning)));
+        return ResponseEntity.ok(Response.success(new WarningModel(taskTrackerService.save(task, warning))));
+    }
+
+    /**
+     * Saves tasks with their metrics, errors, warnings and statistics in one go.
+     * The body is either a JSON array or newline delimited JSON of {@link IngestRecordBody} records.
+     * With the ingestion queue enabled the records are written asynchronously, ids of the new tasks aren't returned then.
+     * The records of an {@code Idempotency-Key} are written once, a request sent again with the key writes nothing.
+     */
+    @PostMapping(path = "/projects/{project_id}/ingest")
+    public ResponseEntity<Response<IngestResultModel>> ingest(
+            @PathVariable(name = "project_id") final Long projectId,
+            @RequestHeader(name = "Idempotency-Key", required = false) final String idempotencyKey,
+            final InputStream body
+    ) throws IOException {
+        final Project project = taskTrackerService.findProjectById(projectId).orElseThrow(() -> new ProjectNotFound(projectId));
+
+        final List<IngestRecordBody> records;
+        try (MappingIterator<IngestRecordBody> iterator = objectMapper.readerFor(IngestRecordBody.class).readValues(body)) {
+            records = iterator.readAll();
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputData(e.getOriginalMessage());
+        }
+
+        if (ingestionQueue.isEnabled()) {
+            if (!ingestionQueue.submit(project, idempotencyKey, records)) {
+                return ResponseEntity.ok(Response.success(IngestResultModel.duplicate()));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Response.success(IngestResultModel.of(records)));
+        }
+
+        return ResponseEntity.ok(Response.success(taskIngestionService.ingest(project, idempotencyKey, records)));
     }
 
 }
@@ -0,0 +1,49 @@
+package tasktracker.backend.controller.body;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import tasktracker.backend.controller.model.TaskErrorModel;
+import tasktracker.backend.controller.model.TaskMetricModel;
+import tasktracker.backend.controller.model.TaskModel;
+import tasktracker.backend.controller.model.WarningModel;
+
+import java.util.List;
+
+/**
+ * One record of a bulk ingestion envelope. Records refer to their task either by the id of
+ * an existing task or by the {@code task_ref} of a task record earlier in the same envelope.
+ */
+@Getter
+@Setter
+@ToString
+public class IngestRecordBody {
+    @JsonProperty("type")
+    private Type type;
+    @JsonProperty("task_id")
+    private Long taskId;
+    @JsonProperty("task_ref")
+    private String taskRef;
+    @JsonProperty("task")
+    private TaskModel task;
+    @JsonProperty("metric")
+    private TaskMetricModel metric;
+    @JsonProperty("error")
+    private TaskErrorModel error;
+    @JsonProperty("warning")
+    private WarningModel warning;
+    @JsonProperty("statistics")
+    private List<TaskStatsBody> statistics;
+
+    public enum Type {
+        /**
+         * New task, or an update of the task {@code task_id}.
+         */
+        TASK,
+        METRIC,
+        ERROR,
+        WARNING,
+        STATISTICS
+    }
+}
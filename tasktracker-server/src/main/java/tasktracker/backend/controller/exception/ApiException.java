@@ -89,4 +89,17 @@ public abstract class ApiException extends RuntimeException {
             super(message);
         }
     }
+
+    public static class IngestionQueueFull extends ApiException {
+        private final int retryAfterSeconds;
+
+        public IngestionQueueFull(final int retryAfterSeconds) {
+            super("INGESTION QUEUE IS FULL");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
 }
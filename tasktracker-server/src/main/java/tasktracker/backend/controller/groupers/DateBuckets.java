@@ -0,0 +1,126 @@
+package tasktracker.backend.controller.groupers;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets of the dates from start to end inclusive, stepped by the frequency in a fixed zone and truncated,
+ * as epoch millis. The bucket of a date is found arithmetically from the average bucket length and corrected
+ * against the bucket starts, one or two steps at most, so grouping doesn't create a date per task.
+ */
+final class DateBuckets {
+    private final ZoneId zone;
+    private final long[] starts;
+    private final long averageLength;
+
+    private DateBuckets(final ZoneId zone, final long[] starts, final long averageLength) {
+        this.zone = zone;
+        this.starts = starts;
+        this.averageLength = averageLength;
+    }
+
+    /**
+     * @param truncation - unit the bucket starts are truncated to, hours or days
+     */
+    static DateBuckets of(final Date start, final Date end, final Frequency frequency, final ZoneId zone, final ChronoUnit truncation) {
+        final List<Long> starts = new ArrayList<>();
+        final long endMillis = end.getTime();
+        for (ZonedDateTime date = start.toInstant().atZone(zone); date.toInstant().toEpochMilli() <= endMillis; date = next(date, frequency)) {
+            starts.add(date.truncatedTo(truncation).toInstant().toEpochMilli());
+        }
+
+        final long[] result = starts.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(result);
+        return new DateBuckets(zone, result, averageLength(frequency));
+    }
+
+    private static ZonedDateTime next(final ZonedDateTime date, final Frequency frequency) {
+        switch (frequency) {
+            case HOUR:
+                return date.plusHours(1);
+            case DAY:
+                return date.plusDays(1);
+            case WEEK:
+                return date.plusWeeks(1);
+            case MONTH:
+                return date.plusMonths(1);
+            case YEAR:
+                return date.plusYears(1);
+            default:
+                throw new IllegalArgumentException("Unsupported frequency " + frequency);
+        }
+    }
+
+    private static long averageLength(final Frequency frequency) {
+        switch (frequency) {
+            case HOUR:
+                return TimeUnit.HOURS.toMillis(1);
+            case DAY:
+                return TimeUnit.DAYS.toMillis(1);
+            case WEEK:
+                return TimeUnit.DAYS.toMillis(7);
+            case MONTH:
+                return ChronoUnit.MONTHS.getDuration().toMillis();
+            default:
+                return ChronoUnit.YEARS.getDuration().toMillis();
+        }
+    }
+
+    int size() {
+        return starts.length;
+    }
+
+    long start(final int index) {
+        return starts[index];
+    }
+
+    Date date(final int index) {
+        return new Date(starts[index]);
+    }
+
+    List<Date> dates() {
+        final List<Date> dates = new ArrayList<>(starts.length);
+        for (final long start : starts) {
+            dates.add(new Date(start));
+        }
+        return dates;
+    }
+
+    /**
+     * Index of the last bucket starting at or before the date, -1 if there is none.
+     */
+    int floor(final long millis) {
+        if (starts.length == 0 || millis < starts[0]) {
+            return -1;
+        }
+        int index = (int) Math.min((millis - starts[0]) / averageLength, starts.length - 1);
+        while (starts[index] > millis) {
+            index--;
+        }
+        while (index + 1 < starts.length && starts[index + 1] <= millis) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Start of the hour or day of the date in the zone of the buckets.
+     */
+    long truncate(final long millis, final ChronoUnit unit) {
+        return Instant.ofEpochMilli(millis).atZone(zone).truncatedTo(unit).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Start of the hour or day after the hour or day of the date in the zone of the buckets.
+     */
+    long next(final long millis, final ChronoUnit unit) {
+        return Instant.ofEpochMilli(millis).atZone(zone).truncatedTo(unit).plus(1, unit).toInstant().toEpochMilli();
+    }
+}
@@ -3,16 +3,22 @@ package tasktracker.backend.controller.groupers;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import org.apache.commons.lang3.time.DateUtils;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.Task.DateType;
 import tasktracker.backend.model.Task.State;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.function.Function;
+import java.util.stream.Collector;
 
+/**
+ * Tasks of the names by the buckets of a date range, all of them or the last one of every bucket.
+ * <p>
+ * {@code NameDateTaskGrouperBenchmark} of tasktracker-benchmarks compares it with the grouper it replaced.
+ */
 public final class NameDateTaskGrouper {
     private final Date start;
     private final Date end;
@@ -20,7 +26,8 @@ public final class NameDateTaskGrouper {
     private final DateType dateType;
     private final Set<String> taskNames;
     private final Set<State> statuses;
-    private final Boolean lastTaskOnly;
+    private final boolean lastTaskOnly;
+    private final ZoneId zone;
 
     private NameDateTaskGrouper(
             final Date start,
@@ -29,7 +36,8 @@ public final class NameDateTaskGrouper {
             final DateType dateType,
             final Set<String> taskNames,
             final Set<State> statuses,
-            final Boolean lastTaskOnly
+            final Boolean lastTaskOnly,
+            final ZoneId zone
     ) {
         this.start = start;
         this.end = end;
@@ -37,7 +45,8 @@ public final class NameDateTaskGrouper {
         this.dateType = dateType;
         this.taskNames = taskNames;
         this.statuses = statuses;
-        this.lastTaskOnly = lastTaskOnly;
+        this.lastTaskOnly = Boolean.TRUE.equals(lastTaskOnly);
+        this.zone = zone;
     }
 
     public static NameDateTaskGrouperBuilder builder() {
@@ -139,112 +148,131 @@ public final class NameDateTaskGrouper {
         }
     }
 
-    private Function<String, Map<Date, List<Task>>> populate(final List<Date> dates) {
-        final Comparator<Task> cmp = Comparator.comparing(Task::getStartDate);
-        return (name) -> {
-            final TreeMap<Date, List<Task>> dateToTasks = new TreeMap<>();
-            dates.forEach(date -> dateToTasks.put(date, new SortedList<>(cmp)));
-            return dateToTasks;
-        };
-    }
-
     public Map<String, Map<Date, List<Task>>> group(final List<Task> tasks) {
-        final Function<Task, Date> dateExtractor = task -> {
-            if (dateType == DateType.NOMINAL_DATE) {
-                return task.getNominalDate();
-            }
-            return task.getStartDate();
-        };
-
-        // Task name is a key of map
-        final Map<String, Map<Date, List<Task>>> result = Maps.newHashMap();
-        final List<Date> dates = datesRange();
+        return tasks.stream().collect(collector());
+    }
 
-        for (final String taskName : taskNames) {
-            result.computeIfAbsent(taskName, populate(dates));
+    /**
+     * Groups the tasks by name and day in one pass. Each bucket keeps the last task by start date, and the
+     * other tasks only if {@code lastTaskOnly} is off. A task counts if its day is one of the buckets.
+     * <p>
+     * The result has every given name and every name of the tasks. A name has all buckets, the empty ones
+     * with no tasks. If statuses are given, a name keeps only the buckets whose last task has one of them,
+     * and a name without such buckets is left out.
+     */
+    public Collector<Task, ?, Map<String, Map<Date, List<Task>>>> collector() {
+        final DateBuckets buckets = DateBuckets.of(start, end, frequency, zone, ChronoUnit.DAYS);
+        final long from = buckets.truncate(start.getTime(), ChronoUnit.DAYS);
+        final long to = buckets.next(end.getTime(), ChronoUnit.DAYS);
+        final long[] nextDays = new long[buckets.size()];
+        for (int i = 0; i < nextDays.length; i++) {
+            nextDays[i] = buckets.next(buckets.start(i), ChronoUnit.DAYS);
         }
-
-        final long truncatedStart = DateUtils.truncate(start, Calendar.DAY_OF_MONTH).getTime();
-        final long truncatedEnd = DateUtils.truncate(end, Calendar.DAY_OF_MONTH).getTime();
-
-        for (final Task task : tasks) {
-            final Date truncatedTaskDate = DateUtils.truncate(dateExtractor.apply(task), Calendar.DAY_OF_MONTH);
-            result
-                    .computeIfAbsent(task.getName(), populate(dates))
-                    .computeIfPresent(truncatedTaskDate, (date, taskList) -> {
-                        final long taskDate = truncatedTaskDate.getTime();
-                        if (taskDate >= truncatedStart && taskDate <= truncatedEnd) {
-                            taskList.add(task);
+        final boolean nominal = dateType == DateType.NOMINAL_DATE;
+
+        return Collector.<Task, Map<String, NameBuckets>, Map<String, Map<Date, List<Task>>>>of(
+                HashMap::new,
+                (names, task) -> {
+                    final NameBuckets nameBuckets = names.computeIfAbsent(task.getName(), name -> new NameBuckets(buckets.size(), lastTaskOnly));
+                    final Date date = nominal ? task.getNominalDate() : task.getStartDate();
+                    if (Objects.isNull(date) || date.getTime() < from || date.getTime() >= to) {
+                        return;
+                    }
+                    final int index = buckets.floor(date.getTime());
+                    if (index >= 0 && date.getTime() < nextDays[index]) {
+                        nameBuckets.add(index, task);
+                    }
+                },
+                (left, right) -> {
+                    right.forEach((name, nameBuckets) -> left.merge(name, nameBuckets, NameBuckets::merge));
+                    return left;
+                },
+                names -> {
+                    for (final String taskName : taskNames) {
+                        names.computeIfAbsent(taskName, name -> new NameBuckets(buckets.size(), lastTaskOnly));
+                    }
+                    final Map<String, Map<Date, List<Task>>> result = Maps.newHashMap();
+                    names.forEach((name, nameBuckets) -> {
+                        final Map<Date, List<Task>> dates = nameBuckets.toMap(buckets, statuses);
+                        if (Objects.nonNull(dates)) {
+                            result.put(name, dates);
                         }
-                        return taskList;
                     });
-        }
-
-        if (lastTaskOnly) {
-            result.forEach((taskName, dateToTasks) -> {
-                dateToTasks.forEach((date, tasksList) -> {
-                    if (!tasksList.isEmpty()) {
-                        dateToTasks.replace(date, Lists.newArrayList(tasksList.get(tasksList.size() - 1)));
-                    }
-                });
-            });
-        }
+                    return result;
+                }
+        );
+    }
 
-        if (!statuses.isEmpty()) {
-            final Map<String, Map<Date, List<Task>>> statusesFilteredResult = Maps.newHashMap();
+    public List<Date> datesRange() {
+        return DateBuckets.of(start, end, frequency, zone, ChronoUnit.DAYS).dates();
+    }
 
-            result.forEach((taskName, dateToTasksList) -> {
-                Map<Date, List<Task>> dateToStatusMatchTasksList = Maps.newHashMap();
+    /**
+     * Tasks of a name by bucket index: the last task of every bucket, and all tasks in the order they came
+     * unless only the last ones are needed.
+     */
+    private static final class NameBuckets {
+        private static final Comparator<Task> START_DATE = Comparator.comparing(Task::getStartDate, Comparator.nullsFirst(Comparator.naturalOrder()));
 
-                dateToTasksList.forEach((date, tasksList) -> {
-                    if (!tasksList.isEmpty()) {
-                        final Task lastTask = tasksList.get(tasksList.size() - 1);
-                        if (statuses.contains(lastTask.getState())) {
-                            dateToStatusMatchTasksList.put(date, tasksList);
-                        }
-                    }
-                });
-                if (!dateToStatusMatchTasksList.isEmpty()) {
-                    statusesFilteredResult
-                            .computeIfAbsent(taskName, populate(dates))
-                            .putAll(dateToStatusMatchTasksList);
-                }
-            });
+        private final Task[] last;
+        private final List<Task>[] tasks;
 
-            return statusesFilteredResult;
+        @SuppressWarnings("unchecked")
+        NameBuckets(final int size, final boolean lastTaskOnly) {
+            this.last = new Task[size];
+            this.tasks = lastTaskOnly ? null : new List[size];
         }
 
-        return result;
-    }
-
-    public List<Date> datesRange() {
-        final List<Date> result = Lists.newArrayList();
-        final Function<Date, Date> generator = date -> {
-            if (frequency == Frequency.HOUR) {
-                return DateUtils.addHours(date, 1);
-            }
-            if (frequency == Frequency.DAY) {
-                return DateUtils.addDays(date, 1);
+        void add(final int index, final Task task) {
+            // a later task wins a tie, like the last of a stable sort
+            if (Objects.isNull(last[index]) || START_DATE.compare(task, last[index]) >= 0) {
+                last[index] = task;
             }
-            if (frequency == Frequency.WEEK) {
-                return DateUtils.addWeeks(date, 1);
-            }
-            if (frequency == Frequency.MONTH) {
-                return DateUtils.addMonths(date, 1);
-            }
-            if (frequency == Frequency.YEAR) {
-                return DateUtils.addYears(date, 1);
+            if (Objects.nonNull(tasks)) {
+                if (Objects.isNull(tasks[index])) {
+                    tasks[index] = new ArrayList<>(1);
+                }
+                tasks[index].add(task);
             }
-            throw new RuntimeException();
-        };
-
-        for (Date date = start; date.before(end) || date.equals(end); date = generator.apply(date)) {
-            result.add(DateUtils.truncate(date, Calendar.DAY_OF_MONTH));
         }
 
-        result.sort(Date::compareTo);
+        NameBuckets merge(final NameBuckets other) {
+            for (int i = 0; i < last.length; i++) {
+                if (Objects.nonNull(other.last[i]) && (Objects.isNull(last[i]) || START_DATE.compare(other.last[i], last[i]) >= 0)) {
+                    last[i] = other.last[i];
+                }
+                if (Objects.nonNull(tasks) && Objects.nonNull(other.tasks[i])) {
+                    if (Objects.isNull(tasks[i])) {
+                        tasks[i] = other.tasks[i];
+                    } else {
+                        tasks[i].addAll(other.tasks[i]);
+                    }
+                }
+            }
+            return this;
+        }
 
-        return result;
+        /**
+         * Tasks by bucket date, null if statuses are given and no bucket matches them.
+         */
+        Map<Date, List<Task>> toMap(final DateBuckets buckets, final Set<State> statuses) {
+            final TreeMap<Date, List<Task>> result = new TreeMap<>();
+            boolean matched = statuses.isEmpty();
+            for (int i = 0; i < last.length; i++) {
+                List<Task> bucketTasks = Collections.emptyList();
+                if (Objects.nonNull(last[i]) && (statuses.isEmpty() || statuses.contains(last[i].getState()))) {
+                    matched = true;
+                    if (Objects.isNull(tasks)) {
+                        bucketTasks = Lists.newArrayList(last[i]);
+                    } else {
+                        bucketTasks = tasks[i];
+                        bucketTasks.sort(START_DATE);
+                    }
+                }
+                result.put(buckets.date(i), bucketTasks);
+            }
+            return matched ? result : null;
+        }
     }
 
     public static class NameDateTaskGrouperBuilder {
@@ -255,6 +283,7 @@ public final class NameDateTaskGrouper {
         private Set<String> taskNames = Collections.emptySet();
         private Set<State> statuses = Sets.newHashSet(State.values());
         private Boolean lastTaskOnly = Boolean.FALSE;
+        private ZoneId zone = ZoneId.systemDefault();
 
         public NameDateTaskGrouper build() {
             return new NameDateTaskGrouper(
@@ -264,7 +293,8 @@ public final class NameDateTaskGrouper {
                     dateType,
                     taskNames,
                     statuses,
-                    lastTaskOnly
+                    lastTaskOnly,
+                    zone
             );
         }
 
@@ -312,20 +342,13 @@ public final class NameDateTaskGrouper {
             this.lastTaskOnly = lastTaskOnly;
             return this;
         }
-    }
-
-    public static class SortedList<E> extends ArrayList<E> {
-        private final Comparator<E> comparator;
 
-        public SortedList(final Comparator<E> comparator) {
-            this.comparator = comparator;
-        }
-
-        @Override
-        public boolean add(E e) {
-            final boolean result = super.add(e);
-            sort(comparator);
-            return result;
+        /**
+         * Zone the buckets are stepped and truncated in, the default time zone by default.
+         */
+        public NameDateTaskGrouperBuilder zone(final ZoneId zone) {
+            this.zone = zone;
+            return this;
         }
     }
 }
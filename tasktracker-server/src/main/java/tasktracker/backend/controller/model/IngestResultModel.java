@@ -0,0 +1,64 @@
+package tasktracker.backend.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tasktracker.backend.controller.body.IngestRecordBody;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class IngestResultModel {
+    /**
+     * Ids of the created tasks by their {@code task_ref}.
+     */
+    @JsonProperty("tasks")
+    private Map<String, Long> tasks;
+    @JsonProperty("task_count")
+    private int taskCount;
+    @JsonProperty("metric_count")
+    private int metricCount;
+    @JsonProperty("error_count")
+    private int errorCount;
+    @JsonProperty("warning_count")
+    private int warningCount;
+    @JsonProperty("statistics_count")
+    private int statisticsCount;
+    /**
+     * The records of the idempotency key were written by an earlier request, nothing was written again.
+     */
+    @JsonProperty("duplicate")
+    private boolean duplicate;
+
+    public static IngestResultModel duplicate() {
+        final IngestResultModel result = new IngestResultModel();
+        result.setTasks(Collections.emptyMap());
+        result.setDuplicate(true);
+        return result;
+    }
+
+    /**
+     * Counts of the records accepted for asynchronous writing.
+     */
+    public static IngestResultModel of(final List<IngestRecordBody> records) {
+        final IngestResultModel result = new IngestResultModel();
+        result.setTasks(Collections.emptyMap());
+        for (final IngestRecordBody record : records) {
+            if (record.getType() == IngestRecordBody.Type.TASK) {
+                result.taskCount++;
+            } else if (record.getType() == IngestRecordBody.Type.METRIC) {
+                result.metricCount++;
+            } else if (record.getType() == IngestRecordBody.Type.ERROR) {
+                result.errorCount++;
+            } else if (record.getType() == IngestRecordBody.Type.WARNING) {
+                result.warningCount++;
+            } else if (record.getType() == IngestRecordBody.Type.STATISTICS && record.getStatistics() != null) {
+                result.statisticsCount += record.getStatistics().size();
+            }
+        }
+        return result;
+    }
+}
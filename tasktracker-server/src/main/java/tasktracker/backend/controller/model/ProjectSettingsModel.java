@@ -18,6 +18,8 @@ public class ProjectSettingsModel {
     private Boolean taskSynchronizationAllowed;
     @JsonProperty("task_data_quality_allowed")
     private Boolean taskDataQualityAllowed;
+    @JsonProperty("retention_months")
+    private Integer retentionMonths;
 
     public ProjectSettingsModel() {
         // NO OP
@@ -29,6 +31,7 @@ public class ProjectSettingsModel {
         this.incidentGenerationAllowed = settings.getIncidentGenerationAllowed();
         this.taskDataQualityAllowed = settings.getTaskDataQualityAllowed();
         this.taskSynchronizationAllowed = settings.getTaskSynchronizationAllowed();
+        this.retentionMonths = settings.getRetentionMonths();
     }
 
     public ProjectSettings to() {
@@ -38,6 +41,7 @@ public class ProjectSettingsModel {
         settings.setIncidentGenerationAllowed(incidentGenerationAllowed);
         settings.setTaskDataQualityAllowed(taskDataQualityAllowed);
         settings.setTaskSynchronizationAllowed(taskSynchronizationAllowed);
+        settings.setRetentionMonths(retentionMonths);
 
         return settings;
     }
@@ -0,0 +1,61 @@
+package tasktracker.backend.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.service.TaskEta;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Objects;
+
+import static tasktracker.backend.controller.DateTimePatterns.getDateTimeFormat;
+
+/**
+ * Predicted end of a running task, durations in seconds. Dates are null if the task has no baseline yet
+ * or has run longer than the recent runs of its name.
+ */
+@ToString
+@NoArgsConstructor
+public class TaskEtaModel {
+    @JsonProperty("task_id")
+    private Long taskId;
+    @JsonProperty("name")
+    private String name;
+    @JsonProperty("start_date")
+    private String startDate;
+    @JsonProperty("expected_end_date")
+    private String expectedEndDate;
+    @JsonProperty("latest_end_date")
+    private String latestEndDate;
+    @JsonProperty("baseline_runs")
+    private Integer baselineRuns;
+    @JsonProperty("baseline_hour_of_week")
+    private Integer baselineHourOfWeek;
+    @JsonProperty("median_duration")
+    private Long medianDuration;
+    @JsonProperty("std_dev_duration")
+    private Long stdDevDuration;
+
+    public TaskEtaModel(final TaskEta eta) {
+        final SimpleDateFormat dateTimeFormat = getDateTimeFormat();
+        this.taskId = eta.getTask().getId();
+        this.name = eta.getTask().getName();
+        this.startDate = format(dateTimeFormat, eta.getTask().getStartDate());
+        this.expectedEndDate = format(dateTimeFormat, eta.getExpectedEndDate());
+        this.latestEndDate = format(dateTimeFormat, eta.getLatestEndDate());
+
+        final TaskRuntimeBaseline baseline = eta.getBaseline();
+        if (Objects.nonNull(baseline)) {
+            this.baselineRuns = baseline.getRuns();
+            this.baselineHourOfWeek = baseline.getBucket() == TaskRuntimeBaseline.ALL_HOURS ? null : baseline.getBucket();
+            this.medianDuration = Math.round(baseline.getMedian() / 1000);
+            this.stdDevDuration = Math.round(baseline.getStdDev() / 1000);
+        }
+    }
+
+    private static String format(final SimpleDateFormat dateTimeFormat, final Date date) {
+        return Objects.isNull(date) ? null : dateTimeFormat.format(date);
+    }
+}
@@ -2,11 +2,13 @@ package tasktracker.backend.controller.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 import tasktracker.backend.model.TaskMetric;
 
 import java.util.Date;
 
+@NoArgsConstructor
 @ToString(of = {"id", "name", "value", "label", "taskId"})
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class TaskMetricModel {
@@ -4,6 +4,9 @@ import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import tasktracker.backend.eventbus.TaskTrackerEvent;
+import tasktracker.backend.eventbus.TaskTrackerEventBus;
+import tasktracker.backend.eventbus.WarningRaised;
 import tasktracker.backend.model.*;
 import tasktracker.backend.repository.WarningRepository;
 import tasktracker.backend.service.RuleService;
@@ -21,6 +24,7 @@ public class DataQualityChecker {
     private final WarningRepository warningRepository;
     private final RuleService ruleService;
     private final ExpressionsEvaluator expressionsEvaluator;
+    private final TaskTrackerEventBus eventBus;
 
     public void applyBasicChecks(final Task task, final List<TaskStats> statistics) {
         if (task.getAnalyzed()) {
@@ -45,7 +49,7 @@ public class DataQualityChecker {
             checkNullCount(task, stats).ifPresent(warnings::add);
         });
 
-        warnings.forEach(warningRepository::save);
+        warningRepository.saveAll(warnings).forEach(warning -> eventBus.post(TaskTrackerEvent.of(WarningRaised.of(warning))));
     }
 
     public Optional<Warning> checkTotalCount(final Task task, final TaskStats stats) {
@@ -131,7 +135,7 @@ public class DataQualityChecker {
 
             });
         });
-        warnings.forEach(warningRepository::save);
+        warningRepository.saveAll(warnings).forEach(warning -> eventBus.post(TaskTrackerEvent.of(WarningRaised.of(warning))));
     }
 
 }
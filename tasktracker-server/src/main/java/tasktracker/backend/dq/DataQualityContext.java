@@ -0,0 +1,18 @@
+package tasktracker.backend.dq;
+
+import lombok.Value;
+import tasktracker.backend.model.DataQualityCondition;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskStats;
+
+/**
+ * Stats checked by one evaluation of a condition expression, passed to the functions as the root object of the evaluation.
+ */
+@Value
+public class DataQualityContext {
+    Project project;
+    Task task;
+    TaskStats taskStats;
+    DataQualityCondition.Metric metric;
+}
@@ -4,29 +4,22 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import tasktracker.backend.controller.exception.ApiException;
-import tasktracker.backend.model.DataQualityCondition;
-import tasktracker.backend.model.Project;
-import tasktracker.backend.model.Task;
-import tasktracker.backend.model.TaskStats;
 
 import java.util.List;
+import java.util.function.BiFunction;
 
+/**
+ * Function of the condition expressions. Functions are shared by concurrent evaluations, everything
+ * specific to one evaluation comes in the {@link DataQualityContext} argument.
+ */
 @Getter
 @Setter
-public abstract class DataQualityFunction {
+public abstract class DataQualityFunction implements BiFunction<DataQualityContext, Object[], ExpressionsEvaluator.ExpressionEvaluatorResponse> {
     private String name;
     private String description;
     private int argsNum;
     private List<DataQualityFunctionArgument> arguments;
 
-    abstract void setProject(final Project project);
-
-    abstract void setTask(final Task task);
-
-    abstract void setTaskStats(final TaskStats taskStats);
-
-    abstract void setMetric(final DataQualityCondition.Metric metric);
-
     void argumentsCheck(List<String> args) throws ApiException.InvalidDataQualityConditionException {
 
     }
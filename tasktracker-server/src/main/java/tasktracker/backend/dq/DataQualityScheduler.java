@@ -1,29 +1,73 @@
 package tasktracker.backend.dq;
 
 
-import lombok.RequiredArgsConstructor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.TaskStats;
 import tasktracker.backend.service.TaskTrackerService;
 
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+/**
+ * Analyzes finished tasks of the projects allowing data quality checks.
+ * <p>
+ * A pool of workers drains the backlog: every worker claims batches of unanalyzed tasks with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} and analyzes them in the claiming transaction, so workers of this
+ * and other server nodes never get the same tasks. A run lasts until no project has unclaimed tasks left.
+ */
 @Slf4j
-@RequiredArgsConstructor
 @Component
 public class DataQualityScheduler {
     private final long ANALYZE_TASKS_PERIOD_IN_MINUTES = 1;
 
     private final TaskTrackerService taskTrackerService;
     private final DataQualityChecker dataQualityChecker;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public DataQualityScheduler(
+            final TaskTrackerService taskTrackerService,
+            final DataQualityChecker dataQualityChecker,
+            final PlatformTransactionManager transactionManager,
+            @Value("${dq.workers:4}") final int workers,
+            @Value("${dq.batch-size:50}") final int batchSize
+    ) {
+        this.taskTrackerService = taskTrackerService;
+        this.dataQualityChecker = dataQualityChecker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.executor = Executors.newFixedThreadPool(
+                workers,
+                new ThreadFactoryBuilder().setNameFormat("tt-dq-worker-%d").build()
+        );
+    }
 
-    @Scheduled(fixedRate = 1000 * 60 * ANALYZE_TASKS_PERIOD_IN_MINUTES)
-    public void analyze() {
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelay = 1000 * 60 * ANALYZE_TASKS_PERIOD_IN_MINUTES)
+    public void analyze() throws InterruptedException {
         log.info("Tasks analyze process started");
 
         final List<Project> projects = taskTrackerService.findProjects()
@@ -34,37 +78,73 @@ public class DataQualityScheduler {
 
         if (projects.isEmpty()) {
             log.info("No projects allow analyzing data quality");
+            return;
         }
 
-        for (final Project project : projects) {
-
-            final List<Task> unanalyzedTasks = taskTrackerService.findUnanalyzedTasks(project);
+        final long start = System.currentTimeMillis();
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> drain(projects)));
+        }
 
-            if (unanalyzedTasks.isEmpty()) {
-                log.info("{} project has no tasks to analyze", project);
-                continue;
+        int analyzedTasksCount = 0;
+        for (final Future<Integer> future : futures) {
+            try {
+                analyzedTasksCount += future.get();
+            } catch (ExecutionException e) {
+                log.error("Data quality worker failed", e.getCause());
             }
-
-            log.info("{} has total non-analyzed tasks {}", project, unanalyzedTasks.size());
-
-            final long analyzedTasksCount = unanalyzedTasks
-                    .stream()
-                    .map(task -> {
-                        final List<TaskStats> statistics = taskTrackerService.findTaskStats(task);
-                        return analyze(project, task, statistics);
-                    })
-                    .filter(Boolean::booleanValue)
-                    .count();
-
-            log.info("{} tasks were analyzed", analyzedTasksCount);
         }
 
         log.info(
-                "Tasks analyze process completed. Next start in {} minutes",
+                "Tasks analyze process completed, {} tasks were analyzed in {} ms. Next start in {} minutes",
+                analyzedTasksCount,
+                System.currentTimeMillis() - start,
                 ANALYZE_TASKS_PERIOD_IN_MINUTES
         );
     }
 
+    /**
+     * Claims batches of the projects in turn until none of them has unclaimed tasks.
+     */
+    private int drain(final List<Project> projects) {
+        final List<Project> pending = new ArrayList<>(projects);
+        int analyzedTasksCount = 0;
+
+        while (!pending.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            final Iterator<Project> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                final int count = analyzeBatch(iterator.next());
+                if (count == 0) {
+                    iterator.remove();
+                }
+                analyzedTasksCount += count;
+            }
+        }
+
+        return analyzedTasksCount;
+    }
+
+    /**
+     * @return number of the analyzed tasks, 0 when the project has no unclaimed tasks or the batch failed
+     */
+    private int analyzeBatch(final Project project) {
+        try {
+            final Integer count = transactionTemplate.execute(status -> {
+                final List<Task> tasks = taskTrackerService.claimUnanalyzedTasks(project, batchSize);
+                for (final Task task : tasks) {
+                    analyze(project, task, taskTrackerService.findTaskStats(task));
+                }
+                return tasks.size();
+            });
+            return Objects.isNull(count) ? 0 : count;
+        } catch (RuntimeException e) {
+            // the batch is rolled back and claimed again by the next run
+            log.error("Failed to analyze tasks of {}", project, e);
+            return 0;
+        }
+    }
+
     public boolean analyze(final Project project, final Task task, final List<TaskStats> statistics) {
 //        There is no need to check quality of FAILED tasks
         if (!task.getState().equals(Task.State.FAILED)) {
@@ -10,6 +10,8 @@ import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
@@ -21,119 +23,70 @@ import tasktracker.backend.model.TaskStats;
 import tasktracker.backend.service.TaskTrackerService;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.lang.Math.sqrt;
 
 
+/**
+ * Evaluates condition expressions like {@code is_above(3000000)} against task stats.
+ * <p>
+ * Parsed expressions are cached by condition id and text and compiled by SpEL after a few interpreted runs
+ * ({@link SpelCompilerMode#MIXED}). The functions are stateless, each evaluation gets its own evaluation context
+ * with the checked stats as the root object, so conditions are evaluated concurrently.
+ */
 @Component
 public class ExpressionsEvaluator {
     public final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final StandardEvaluationContext evaluationContext;
     private final ExpressionParser expressionParser;
     private final List<DataQualityFunction> functions;
+    private final Map<String, Object> functionVariables;
+    private final Map<ExpressionKey, Expression> expressions = new ConcurrentHashMap<>();
 
     private final TaskTrackerService taskTrackerService;
 
     @Autowired
-    public ExpressionsEvaluator(final TaskTrackerService taskTrackerService) {
+    public ExpressionsEvaluator(final TaskTrackerService taskTrackerService, final StatsWindowCache statsWindowCache) {
         this.taskTrackerService = taskTrackerService;
 
-        this.evaluationContext = new StandardEvaluationContext();
-        this.expressionParser = new SpelExpressionParser();
-        this.functions = new ArrayList<>();
-
-        try {
-            initFunctions();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public static void main(String[] args) {
-        DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics();
-        descriptiveStatistics.addValue(40L);
-        descriptiveStatistics.addValue(60L);
-        descriptiveStatistics.addValue(50L);
-
-        double mean = descriptiveStatistics.getMean();
-        double median = descriptiveStatistics.getPercentile(50);
-
-        System.out.println("mean = " + mean);
-        System.out.println("median = " + median);
-
-        Boolean calculateDelta = Boolean.valueOf("false");
-        System.out.println("calculateDelta = " + calculateDelta);
-    }
-
-    private void setProject(final Project project) {
-        for (DataQualityFunction dataQualityFunction : functions) {
-            dataQualityFunction.setProject(project);
-        }
-    }
-
-    private void setTask(final Task task) {
-        for (DataQualityFunction dataQualityFunction : functions) {
-            dataQualityFunction.setTask(task);
-        }
-    }
-
-    private void setTaskStats(final TaskStats taskStats) {
-        for (DataQualityFunction dataQualityFunction : functions) {
-            dataQualityFunction.setTaskStats(taskStats);
-        }
-    }
-
-    private void setMetric(final DataQualityCondition.Metric metric) {
-        for (DataQualityFunction dataQualityFunction : functions) {
-            dataQualityFunction.setMetric(metric);
-        }
-    }
-
-    private void initFunctions() throws NoSuchMethodException {
-        IsAboveFunction isAboveFunction = new IsAboveFunction(taskTrackerService);
-        evaluationContext.setVariable("is_above", isAboveFunction);
-        functions.add(isAboveFunction);
-
-        IsBelowFunction isBelowFunction = new IsBelowFunction(taskTrackerService);
-        evaluationContext.setVariable("is_below", isBelowFunction);
-        functions.add(isBelowFunction);
-
-        WithinRangeFunction withinRangeFunction = new WithinRangeFunction(taskTrackerService);
-        evaluationContext.setVariable("is_within_range", withinRangeFunction);
-        functions.add(withinRangeFunction);
-
-        OutsideRangeFunction outsideRangeFunction = new OutsideRangeFunction(taskTrackerService);
-        evaluationContext.setVariable("is_outside_range", outsideRangeFunction);
-        functions.add(outsideRangeFunction);
-
-        ConfidenceIntervalSigm confidenceIntervalSigm = new ConfidenceIntervalSigm(taskTrackerService);
-        evaluationContext.setVariable("confidence_interval_sigma", confidenceIntervalSigm);
-        functions.add(confidenceIntervalSigm);
+        this.expressionParser = new SpelExpressionParser(
+                new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+        this.functions = Collections.unmodifiableList(Arrays.asList(
+                new IsAboveFunction(taskTrackerService),
+                new IsBelowFunction(taskTrackerService),
+                new WithinRangeFunction(taskTrackerService),
+                new OutsideRangeFunction(taskTrackerService),
+                new ConfidenceIntervalSigm(statsWindowCache)
+        ));
+        final Map<String, Object> variables = new HashMap<>();
+        functions.forEach(function -> variables.put(function.getName(), function));
+        this.functionVariables = Collections.unmodifiableMap(variables);
     }
 
     public List<DataQualityFunction> getFunctions() {
         return functions;
     }
 
-    public synchronized ExpressionEvaluatorResponse isFullfilled(
+    public ExpressionEvaluatorResponse isFullfilled(
             final Project project,
             final Task task,
             final TaskStats taskStats,
             final DataQualityCondition condition
     ) throws ParseException, EvaluationException {
-        setProject(project);
-        setTask(task);
-        setTaskStats(taskStats);
-        setMetric(condition.getMetric());
-        String expression = "#" + condition.getExpression();
-        ExpressionEvaluatorResponse result = (ExpressionEvaluatorResponse) expressionParser.parseExpression(expression).getValue(evaluationContext);
-        return result;
+        final Expression expression = expressions.computeIfAbsent(
+                new ExpressionKey(condition.getId(), condition.getExpression()),
+                key -> expressionParser.parseExpression("#" + key.getExpression())
+        );
+
+        final StandardEvaluationContext evaluationContext =
+                new StandardEvaluationContext(new DataQualityContext(project, task, taskStats, condition.getMetric()));
+        evaluationContext.setVariables(functionVariables);
+
+        return expression.getValue(evaluationContext, ExpressionEvaluatorResponse.class);
     }
 
-    public synchronized void tryParse(
+    public void tryParse(
             final String expr
     ) throws ParseException {
         String expression = "#" + expr;
@@ -141,12 +94,17 @@ public class ExpressionsEvaluator {
 
     }
 
-    public static class IsAboveFunction extends DataQualityFunction implements Function<Object[], ExpressionEvaluatorResponse> {
+    /**
+     * Condition ids are reused when a rule is edited, the expression text tells the versions apart.
+     */
+    @lombok.Value
+    private static class ExpressionKey {
+        Long conditionId;
+        String expression;
+    }
+
+    public static class IsAboveFunction extends DataQualityFunction {
         private final TaskTrackerService taskTrackerService;
-        private Project project;
-        private Task task;
-        private TaskStats taskStats;
-        private DataQualityCondition.Metric metric;
 
         public IsAboveFunction(TaskTrackerService taskTrackerService) {
             this.taskTrackerService = taskTrackerService;
@@ -164,30 +122,12 @@ public class ExpressionsEvaluator {
         }
 
         @Override
-        public void setProject(Project project) {
-            this.project = project;
-        }
-
-        @Override
-        public void setTask(Task task) {
-            this.task = task;
-        }
-
-        @Override
-        public void setTaskStats(TaskStats taskStats) {
-            this.taskStats = taskStats;
-        }
-
-        @Override
-        public void setMetric(DataQualityCondition.Metric metric) {
-            this.metric = metric;
-        }
-
-        @Override
-        public ExpressionEvaluatorResponse apply(Object[] args) {
+        public ExpressionEvaluatorResponse apply(DataQualityContext context, Object[] args) {
             if (args.length != 1) {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function is_above takes only 1 parameter, not %i", args.length));
             }
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             Double metricValue = taskStats.getMetric(metric);
             if (Objects.isNull(metricValue)) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("Metric %s for TaskStats %s is null", metric.name(), taskStats.getId()));
@@ -202,12 +142,8 @@ public class ExpressionsEvaluator {
         }
     }
 
-    static class IsBelowFunction extends DataQualityFunction implements Function<Object[], ExpressionEvaluatorResponse> {
+    static class IsBelowFunction extends DataQualityFunction {
         private final TaskTrackerService taskTrackerService;
-        private Project project;
-        private Task task;
-        private TaskStats taskStats;
-        private DataQualityCondition.Metric metric;
 
         public IsBelowFunction(TaskTrackerService taskTrackerService) {
             this.taskTrackerService = taskTrackerService;
@@ -226,30 +162,12 @@ public class ExpressionsEvaluator {
         }
 
         @Override
-        public void setProject(Project project) {
-            this.project = project;
-        }
-
-        @Override
-        public void setTask(Task task) {
-            this.task = task;
-        }
-
-        @Override
-        public void setTaskStats(TaskStats taskStats) {
-            this.taskStats = taskStats;
-        }
-
-        @Override
-        public void setMetric(DataQualityCondition.Metric metric) {
-            this.metric = metric;
-        }
-
-        @Override
-        public ExpressionEvaluatorResponse apply(Object[] args) {
+        public ExpressionEvaluatorResponse apply(DataQualityContext context, Object[] args) {
             if (args.length != 1) {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function is_below takes only 1 parameter, not %i", args.length));
             }
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             Double metricValue = taskStats.getMetric(metric);
             if (Objects.isNull(metricValue)) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("Metric %s for TaskStats %s is null", metric.name(), taskStats.getId()));
@@ -264,12 +182,8 @@ public class ExpressionsEvaluator {
         }
     }
 
-    static class WithinRangeFunction extends DataQualityFunction implements Function<Object[], ExpressionEvaluatorResponse> {
+    static class WithinRangeFunction extends DataQualityFunction {
         private final TaskTrackerService taskTrackerService;
-        private Project project;
-        private Task task;
-        private TaskStats taskStats;
-        private DataQualityCondition.Metric metric;
 
         public WithinRangeFunction(TaskTrackerService taskTrackerService) {
             this.taskTrackerService = taskTrackerService;
@@ -293,30 +207,12 @@ public class ExpressionsEvaluator {
         }
 
         @Override
-        public void setProject(Project project) {
-            this.project = project;
-        }
-
-        @Override
-        public void setTask(Task task) {
-            this.task = task;
-        }
-
-        @Override
-        public void setTaskStats(TaskStats taskStats) {
-            this.taskStats = taskStats;
-        }
-
-        @Override
-        public void setMetric(DataQualityCondition.Metric metric) {
-            this.metric = metric;
-        }
-
-        @Override
-        public ExpressionEvaluatorResponse apply(Object[] args) {
+        public ExpressionEvaluatorResponse apply(DataQualityContext context, Object[] args) {
             if (args.length != 2) {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function is_within_range takes 2 parameters, not %i", args.length));
             }
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             Double metricValue = taskStats.getMetric(metric);
             if (Objects.isNull(metricValue)) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("Metric %s for TaskStats %s is null", metric.name(), taskStats.getId()));
@@ -332,12 +228,8 @@ public class ExpressionsEvaluator {
         }
     }
 
-    static class OutsideRangeFunction extends DataQualityFunction implements Function<Object[], ExpressionEvaluatorResponse> {
+    static class OutsideRangeFunction extends DataQualityFunction {
         private final TaskTrackerService taskTrackerService;
-        private Project project;
-        private Task task;
-        private TaskStats taskStats;
-        private DataQualityCondition.Metric metric;
 
         public OutsideRangeFunction(TaskTrackerService taskTrackerService) {
             this.taskTrackerService = taskTrackerService;
@@ -361,30 +253,12 @@ public class ExpressionsEvaluator {
         }
 
         @Override
-        public void setProject(Project project) {
-            this.project = project;
-        }
-
-        @Override
-        public void setTask(Task task) {
-            this.task = task;
-        }
-
-        @Override
-        public void setTaskStats(TaskStats taskStats) {
-            this.taskStats = taskStats;
-        }
-
-        @Override
-        public void setMetric(DataQualityCondition.Metric metric) {
-            this.metric = metric;
-        }
-
-        @Override
-        public ExpressionEvaluatorResponse apply(Object[] args) {
+        public ExpressionEvaluatorResponse apply(DataQualityContext context, Object[] args) {
             if (args.length != 2) {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function is_outside_range takes 2 parameters, not %i", args.length));
             }
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             Double metricValue = taskStats.getMetric(metric);
             if (Objects.isNull(metricValue)) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("Metric %s for TaskStats %s is null", metric.name(), taskStats.getId()));
@@ -404,15 +278,13 @@ public class ExpressionsEvaluator {
         }
     }
 
-    static class ConfidenceIntervalSigm extends DataQualityFunction implements Function<Object[], ExpressionEvaluatorResponse> {
-        private final TaskTrackerService taskTrackerService;
-        private Project project;
-        private Task task;
-        private TaskStats taskStats;
-        private DataQualityCondition.Metric metric;
+    static class ConfidenceIntervalSigm extends DataQualityFunction {
+        private static final Logger logger = LoggerFactory.getLogger(ConfidenceIntervalSigm.class);
 
-        public ConfidenceIntervalSigm(TaskTrackerService taskTrackerService) {
-            this.taskTrackerService = taskTrackerService;
+        private final StatsWindowCache statsWindowCache;
+
+        public ConfidenceIntervalSigm(StatsWindowCache statsWindowCache) {
+            this.statsWindowCache = statsWindowCache;
 
             setName("confidence_interval_sigma");
             setArgsNum(4);
@@ -446,30 +318,12 @@ public class ExpressionsEvaluator {
         }
 
         @Override
-        public void setProject(Project project) {
-            this.project = project;
-        }
-
-        @Override
-        public void setTask(Task task) {
-            this.task = task;
-        }
-
-        @Override
-        public void setTaskStats(TaskStats taskStats) {
-            this.taskStats = taskStats;
-        }
-
-        @Override
-        public void setMetric(DataQualityCondition.Metric metric) {
-            this.metric = metric;
-        }
-
-        @Override
-        public ExpressionEvaluatorResponse apply(Object[] args) {
+        public ExpressionEvaluatorResponse apply(DataQualityContext context, Object[] args) {
             if (args.length != 4) {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function confidence_interval_sigma takes only 4 parameters, not %i", args.length));
             }
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             Double currentMetricValue = taskStats.getMetric(metric);
 //            TODO какой warning
             if (Objects.isNull(currentMetricValue)) {
@@ -492,25 +346,24 @@ public class ExpressionsEvaluator {
                 throw new ApiException.InvalidDataQualityConditionException(String.format("Function confidence_interval_sigma 2nd parameter should be {1, 2, 3}, not %d", k));
             }
 
-            return calculateDelta ? applyWithDelta(currentMetricValue, functionName, k, statsNumber) : applyWithoutDelta(currentMetricValue, functionName, k, statsNumber);
+            return calculateDelta ? applyWithDelta(context, currentMetricValue, functionName, k, statsNumber) : applyWithoutDelta(context, currentMetricValue, functionName, k, statsNumber);
         }
 
         private ExpressionEvaluatorResponse applyWithoutDelta(
+                final DataQualityContext context,
                 final Double validatingValue,
                 final String functionName,
                 final Integer k,
                 final Integer statsNumber
         ) {
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics();
-            List<Double> metricValues = taskTrackerService.findLastNSucceededTasksStats(project, task, taskStats.getColumn(), statsNumber)
-                    .stream()
-                    .map(stat -> stat.getMetric(metric))
-                    .filter(Objects::nonNull)
-                    .peek(v -> descriptiveStatistics.addValue(v))
-                    .collect(Collectors.toList());
+            List<Double> metricValues = statsWindowCache.lastValues(context.getProject(), context.getTask(), taskStats.getColumn(), metric, statsNumber);
+            metricValues.forEach(descriptiveStatistics::addValue);
 
             if (metricValues.isEmpty() || metricValues.size() <= 1) {
-                System.out.println("TaskStats list is empty or don't have enough metrics");
+                logger.debug("TaskStats list is empty or don't have enough metrics");
                 return new ExpressionEvaluatorResponse(Boolean.TRUE, "");
             }
 
@@ -520,7 +373,8 @@ public class ExpressionsEvaluator {
             Double from = centralFuncValue - k * stdDev;
             Double to = centralFuncValue + k * stdDev;
 
-            printDetails(validatingValue, metricValues, centralFuncValue, stdDev, k, from, to);
+            logger.debug("validatingValue = [{}], previousMetricValues = [{}], centralFuncValue = [{}], standardDeviation = [{}], k = [{}], from = [{}], to = [{}]",
+                    validatingValue, metricValues, centralFuncValue, stdDev, k, from, to);
 
             if (validatingValue < from || to < validatingValue) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("TaskStats [%d], %s.%s = %f, interval = [%f ; %f]", taskStats.getId(), taskStats.getColumn(), metric.name(), validatingValue, from, to));
@@ -529,36 +383,22 @@ public class ExpressionsEvaluator {
 
         }
 
-        private void printDetails(
-                final Double validatingValue,
-                final List<Double> previousMetricValues,
-                final Double centralFuncValue,
-                final Double standardDeviation,
-                final Integer k,
-                final Double from,
-                final Double to
-        ) {
-            System.out.println("validatingValue = [" + validatingValue + "], previousMetricValues = [" + previousMetricValues + "], centralFuncValue = [" + centralFuncValue + "], standardDeviation = [" + standardDeviation + "], k = [" + k + "], from = [" + from + "], to = [" + to + "]");
-        }
-
         private ExpressionEvaluatorResponse applyWithDelta(
+                final DataQualityContext context,
                 final Double validatingValue,
                 final String functionName,
                 final Integer k,
                 final Integer statsNumber
         ) {
+            TaskStats taskStats = context.getTaskStats();
+            DataQualityCondition.Metric metric = context.getMetric();
             DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics();
 
-//            Порядок нужен для того, чтобы получить корректные значения дельт
-            List<Double> metricValues = taskTrackerService.findLastNSucceededTasksStats(project, task, taskStats.getColumn(), statsNumber + 1)
-                    .stream()
-                    .sorted(Comparator.comparing(TaskStats::getTask, Comparator.comparing(Task::getNominalDate).reversed()))
-                    .map(stat -> stat.getMetric(metric))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+//            Значения идут от новых к старым, порядок нужен для того, чтобы получить корректные значения дельт
+            List<Double> metricValues = statsWindowCache.lastValues(context.getProject(), context.getTask(), taskStats.getColumn(), metric, statsNumber + 1);
 
             if (metricValues.isEmpty() || metricValues.size() <= 2) {
-                System.out.println("TaskStats list is empty or don't have enough metrics");
+                logger.debug("TaskStats list is empty or don't have enough metrics");
                 return new ExpressionEvaluatorResponse(Boolean.TRUE, "");
             }
 
@@ -576,7 +416,8 @@ public class ExpressionsEvaluator {
             Double from = centralFuncValue - k * stdDev;
             Double to = centralFuncValue + k * stdDev;
 
-            printDetails(validatingDeltaValue, deltaMetricValues, centralFuncValue, stdDev, k, from, to);
+            logger.debug("validatingValue = [{}], previousMetricValues = [{}], centralFuncValue = [{}], standardDeviation = [{}], k = [{}], from = [{}], to = [{}]",
+                    validatingDeltaValue, deltaMetricValues, centralFuncValue, stdDev, k, from, to);
 
             if (validatingDeltaValue < from || to < validatingDeltaValue) {
                 return new ExpressionEvaluatorResponse(Boolean.FALSE, String.format("TaskStats [%d], %s.%s = %f, delta = %f, interval = [%f ; %f]", taskStats.getId(), taskStats.getColumn(), metric.name(), validatingValue, validatingDeltaValue, from, to));
@@ -0,0 +1,324 @@
+package tasktracker.backend.dq;
+
+import com.google.common.collect.Lists;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tasktracker.backend.eventbus.*;
+import tasktracker.backend.model.*;
+import tasktracker.backend.repository.TaskRepository;
+import tasktracker.backend.repository.TaskStatsRepository;
+import tasktracker.backend.repository.WarningRepository;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Recent statistics of succeeded tasks by (project, task name), the history {@code confidence_interval_sigma}
+ * compares new statistics with.
+ * <p>
+ * A window is loaded from the database the first time it is needed and then kept up to date by the
+ * task, statistics and warning events, so evaluations don't query the database. A window keeps at most
+ * {@code dq.stats-window.max-days} nominal days, requests for older history load the window again.
+ * Events of other nodes don't reach the cache, so a window is loaded again after {@code dq.stats-window.ttl-ms}.
+ * <p>
+ * The cache reads the repositories directly: as an event consumer it is created before the event bus,
+ * which the services depend on.
+ */
+@Slf4j
+@Component
+public class StatsWindowCache implements TaskTrackerEventConsumer {
+    private static final int TASK_IDS_CHUNK_SIZE = 500;
+
+    private final TaskRepository taskRepository;
+    private final WarningRepository warningRepository;
+    private final TaskStatsRepository statsRepository;
+    private final int maxDays;
+    private final long ttlMillis;
+
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatsWindowCache(
+            final TaskRepository taskRepository,
+            final WarningRepository warningRepository,
+            final TaskStatsRepository statsRepository,
+            @org.springframework.beans.factory.annotation.Value("${dq.stats-window.max-days:120}") final int maxDays,
+            @org.springframework.beans.factory.annotation.Value("${dq.stats-window.ttl-ms:60000}") final long ttlMillis
+    ) {
+        this.taskRepository = taskRepository;
+        this.warningRepository = warningRepository;
+        this.statsRepository = statsRepository;
+        this.maxDays = maxDays;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Metric values of the column in the last {@code days} nominal days before the nominal day of the task, newest first.
+     * A day counts with its latest succeeded run, and is skipped if that run has warnings.
+     */
+    public List<Double> lastValues(
+            final Project project,
+            final Task task,
+            final String column,
+            final DataQualityCondition.Metric metric,
+            final int days
+    ) {
+        final Date day = truncate(task.getNominalDate());
+        final WindowKey key = new WindowKey(project.getId(), task.getName());
+
+        final Window cached = windows.get(key);
+        if (Objects.nonNull(cached) && !cached.expired(ttlMillis)) {
+            final List<Double> values = cached.values(day, column, metric, days);
+            if (Objects.nonNull(values)) {
+                return values;
+            }
+        }
+
+        // the placeholder keeps the events consumed while loading and replays them onto the loaded runs
+        final Window window = Window.loading();
+        windows.put(key, window);
+        try {
+            window.install(load(project, Objects.isNull(task.getTaskName()) ? null : task.getTaskName().getId(), day, days));
+        } catch (RuntimeException e) {
+            windows.remove(key, window);
+            throw e;
+        }
+
+        final List<Double> values = window.values(day, column, metric, days);
+        return Objects.isNull(values) ? Collections.emptyList() : values;
+    }
+
+    @Override
+    public void onEvent(final TaskTrackerEvent event) {
+        final Object object = event.getObject();
+        if (object instanceof TaskCreated || object instanceof TaskStateChanged) {
+            final TaskSnapshot task = ((TaskEvent) object).getTask();
+            window(task).ifPresent(window -> window.apply(loaded -> {
+                loaded.update(task);
+                loaded.trim(maxDays);
+            }));
+        } else if (object instanceof StatsIngested) {
+            final StatsIngested stats = (StatsIngested) object;
+            window(stats.getTask()).ifPresent(window -> window.apply(loaded -> {
+                loaded.update(stats);
+                loaded.trim(maxDays);
+            }));
+        } else if (object instanceof WarningRaised) {
+            final TaskSnapshot task = ((WarningRaised) object).getTask();
+            window(task).ifPresent(window -> window.apply(loaded -> loaded.warn(task)));
+        } else if (object instanceof WarningsDeleted) {
+            // other warnings of the task may be left, the window is loaded again when needed
+            final TaskSnapshot task = ((WarningsDeleted) object).getTask();
+            window(task).ifPresent(window -> windows.remove(new WindowKey(task.getProjectId(), task.getName()), window));
+        }
+    }
+
+    private Optional<Window> window(final TaskSnapshot task) {
+        if (Objects.isNull(task) || Objects.isNull(task.getId()) || Objects.isNull(task.getProjectId())
+                || Objects.isNull(task.getNominalDate())) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(windows.get(new WindowKey(task.getProjectId(), task.getName())));
+    }
+
+    /**
+     * Succeeded tasks from the nominal day on and enough days before it, with their warnings and statistics.
+     */
+    private Window load(final Project project, final Integer nameId, final Date day, final int days) {
+        final int limit = 2 * Math.max(days, maxDays);
+        final List<Task> older = taskRepository.findLastNTasksByProjectAndNominalDateAndState(
+                project.getId(), nameId, Task.State.SUCCEEDED.name(), day, limit);
+
+        // runs of the oldest day may be cut by the limit, the day is left out
+        final Date coveredFrom = older.size() < limit ? null : DateUtils.addDays(
+                older.stream().map(task -> truncate(task.getNominalDate())).min(Date::compareTo).orElse(day), 1);
+
+        final List<Task> tasks = new ArrayList<>(older);
+        tasks.addAll(taskRepository.findTasksByProjectAndNameAndStateFromNominalDate(
+                project.getId(), nameId, Task.State.SUCCEEDED.name(), day));
+
+        final List<Long> taskIds = tasks.stream().map(Task::getId).distinct().collect(Collectors.toList());
+        final Set<Long> warned = new HashSet<>();
+        final Map<Long, List<StatsIngested>> statistics = new HashMap<>();
+        for (final List<Long> chunk : Lists.partition(taskIds, TASK_IDS_CHUNK_SIZE)) {
+            warningRepository.findByTaskIds(chunk).forEach(warning -> warned.add(warning.getTask().getId()));
+            statsRepository.findByTaskIds(chunk).forEach(stats ->
+                    statistics.computeIfAbsent(stats.getTask().getId(), id -> new ArrayList<>()).add(StatsIngested.of(stats)));
+        }
+
+        final Window window = new Window(coveredFrom);
+        for (final Task task : tasks) {
+            if (Objects.nonNull(coveredFrom) && truncate(task.getNominalDate()).before(coveredFrom)) {
+                continue;
+            }
+            final TaskSnapshot snapshot = TaskSnapshot.of(task);
+            window.update(snapshot);
+            statistics.getOrDefault(task.getId(), Collections.emptyList()).forEach(window::update);
+            if (warned.contains(task.getId())) {
+                window.warn(snapshot);
+            }
+        }
+
+        log.debug("Loaded statistics window of {} name {} with {} tasks", project, nameId, tasks.size());
+
+        return window;
+    }
+
+    private static Date truncate(final Date date) {
+        return DateUtils.truncate(date, Calendar.DAY_OF_MONTH);
+    }
+
+    private static Date truncate(final Instant instant) {
+        return truncate(Date.from(instant));
+    }
+
+    @Value
+    private static class WindowKey {
+        Long projectId;
+        String taskName;
+    }
+
+    private static class Run {
+        private Instant startDate;
+        private boolean succeeded;
+        private boolean warned;
+        private final Map<String, Map<DataQualityCondition.Metric, Double>> columns = new HashMap<>();
+    }
+
+    /**
+     * Runs by nominal day. The window has every run of the days from {@code coveredFrom} on,
+     * a null {@code coveredFrom} means the whole history.
+     * <p>
+     * A window being loaded has no runs yet, it keeps the changes applied until the loaded runs are installed.
+     */
+    private static class Window {
+        private final TreeMap<Date, Map<Long, Run>> days = new TreeMap<>();
+        private Date coveredFrom;
+        private List<Consumer<Window>> pending;
+        private long loadedAt = System.currentTimeMillis();
+
+        Window(final Date coveredFrom) {
+            this.coveredFrom = coveredFrom;
+        }
+
+        static Window loading() {
+            final Window window = new Window(null);
+            window.pending = new ArrayList<>();
+            return window;
+        }
+
+        /**
+         * Takes the runs of the loaded window and replays the changes applied while loading.
+         */
+        synchronized void install(final Window loaded) {
+            days.putAll(loaded.days);
+            coveredFrom = loaded.coveredFrom;
+            loadedAt = System.currentTimeMillis();
+            final List<Consumer<Window>> changes = pending;
+            pending = null;
+            changes.forEach(change -> change.accept(this));
+        }
+
+        /**
+         * Applies the change now or, while loading, once the loaded runs are installed.
+         */
+        synchronized void apply(final Consumer<Window> change) {
+            if (Objects.nonNull(pending)) {
+                pending.add(change);
+            } else {
+                change.accept(this);
+            }
+        }
+
+        synchronized boolean expired(final long ttlMillis) {
+            return Objects.isNull(pending) && System.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+
+        /**
+         * @return values or null if the window doesn't reach back far enough or is being loaded
+         */
+        synchronized List<Double> values(final Date day, final String column, final DataQualityCondition.Metric metric, final int count) {
+            if (Objects.nonNull(pending)) {
+                return null;
+            }
+            final String columnKey = column.toLowerCase();
+            final List<Double> values = new ArrayList<>();
+            int counted = 0;
+
+            for (final Map<Long, Run> runs : days.headMap(day, false).descendingMap().values()) {
+                if (counted == count) {
+                    break;
+                }
+                final Run run = runs.values().stream()
+                        .filter(candidate -> candidate.succeeded)
+                        .max(Comparator.comparing(candidate -> candidate.startDate, Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .orElse(null);
+                if (Objects.isNull(run) || run.warned) {
+                    continue;
+                }
+                counted++;
+                final Double value = run.columns.getOrDefault(columnKey, Collections.emptyMap()).get(metric);
+                if (Objects.nonNull(value)) {
+                    values.add(value);
+                }
+            }
+
+            return counted == count || Objects.isNull(coveredFrom) ? values : null;
+        }
+
+        synchronized void update(final TaskSnapshot task) {
+            final Run run = run(task);
+            if (Objects.nonNull(run)) {
+                run.startDate = task.getStartDate();
+                run.succeeded = task.getState() == Task.State.SUCCEEDED;
+            }
+        }
+
+        synchronized void update(final StatsIngested stats) {
+            final Run run = run(stats.getTask());
+            if (Objects.nonNull(run) && Objects.nonNull(stats.getColumn())) {
+                run.columns.put(stats.getColumn().toLowerCase(), stats.getValues());
+            }
+        }
+
+        synchronized void warn(final TaskSnapshot task) {
+            final Run run = run(task);
+            if (Objects.nonNull(run)) {
+                run.warned = true;
+            }
+        }
+
+        /**
+         * Run of the task, created if missing. Null for days the window doesn't cover.
+         */
+        private Run run(final TaskSnapshot task) {
+            final Date day = truncate(task.getNominalDate());
+            if (Objects.nonNull(coveredFrom) && day.before(coveredFrom)) {
+                return null;
+            }
+
+            return days.computeIfAbsent(day, key -> new HashMap<>()).computeIfAbsent(task.getId(), key -> {
+                final Run created = new Run();
+                created.startDate = task.getStartDate();
+                created.succeeded = task.getState() == Task.State.SUCCEEDED;
+                return created;
+            });
+        }
+
+        /**
+         * Drops the oldest days over the limit, the window covers the days left.
+         */
+        synchronized void trim(final int maxDays) {
+            while (days.size() > maxDays) {
+                days.pollFirstEntry();
+                coveredFrom = days.firstKey();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package tasktracker.backend.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import tasktracker.backend.model.EventOutboxEntry;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskStats;
+import tasktracker.backend.model.Warning;
+import tasktracker.backend.repository.EventOutboxRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent outbox of the event bus. Events are written to {@code event_outbox} in the transaction that posts them
+ * and deleted once consumed, so the events left after a restart can be consumed again.
+ * <p>
+ * Events are kept as the type and the id of the entity they were taken from, task events are replayed with
+ * a snapshot of the task as it is when the event is replayed. Other event objects are not kept.
+ * <p>
+ * Entries are kept with the node that posted them ({@code eventbus.outbox.node-id}, the host name by default),
+ * a node replays only its own entries. The node id has to be unique among the live nodes and the same after a restart.
+ */
+@Slf4j
+@Component
+public class EventOutbox {
+    private final EventOutboxRepository outboxRepository;
+    private final String nodeId;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EventOutbox(
+            final EventOutboxRepository outboxRepository,
+            @Value("${eventbus.outbox.node-id:}") final String nodeId
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.nodeId = nodeId.trim().isEmpty() ? hostName() : nodeId.trim();
+        log.info("Event outbox node id {}", this.nodeId);
+    }
+
+    /**
+     * @return id of the outbox entry, empty if the event object can't be kept
+     */
+    public Optional<Long> append(final Object object) {
+        return encode(object, nodeId).map(entry -> outboxRepository.save(entry).getId());
+    }
+
+    /**
+     * Entries of this node after the given id, oldest first.
+     */
+    public List<EventOutboxEntry> pending(final long afterId, final int limit) {
+        return outboxRepository.findPending(nodeId, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Entries with the given ids that aren't consumed yet, oldest first.
+     */
+    public List<EventOutboxEntry> findAll(final Collection<Long> ids) {
+        return outboxRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(EventOutboxEntry::getId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Event object of the entry, empty if the entity doesn't exist anymore.
+     */
+    public Optional<Object> decode(final EventOutboxEntry entry) {
+        final Long id = Long.valueOf(entry.getPayload());
+        switch (entry.getType()) {
+            case "TaskCreated":
+                return find(Task.class, id).<Object>map(TaskCreated::of);
+            case "TaskStateChanged":
+                return find(Task.class, id).<Object>map(TaskStateChanged::of);
+            case "WarningsDeleted":
+                return find(Task.class, id).<Object>map(WarningsDeleted::of);
+            case "StatsIngested":
+                return find(TaskStats.class, id).<Object>map(StatsIngested::of);
+            case "WarningRaised":
+                return find(Warning.class, id).<Object>map(WarningRaised::of);
+            default:
+                log.warn("Skip outbox entry {} of unknown type {}", entry.getId(), entry.getType());
+                return Optional.empty();
+        }
+    }
+
+    public void ack(final Collection<Long> ids) {
+        outboxRepository.deleteByIds(ids);
+    }
+
+    private <T> Optional<T> find(final Class<T> type, final Long id) {
+        return Optional.ofNullable(entityManager.find(type, id));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Could not resolve the host name, set eventbus.outbox.node-id", e);
+        }
+    }
+
+    private static Optional<EventOutboxEntry> encode(final Object object, final String nodeId) {
+        final Long id;
+        if (object instanceof StatsIngested) {
+            id = ((StatsIngested) object).getStatsId();
+        } else if (object instanceof WarningRaised) {
+            id = ((WarningRaised) object).getWarningId();
+        } else if (object instanceof TaskCreated || object instanceof TaskStateChanged || object instanceof WarningsDeleted) {
+            id = ((TaskEvent) object).getTask().getId();
+        } else {
+            id = null;
+        }
+        return Objects.isNull(id) ?
+                Optional.empty() :
+                Optional.of(new EventOutboxEntry(object.getClass().getSimpleName(), id.toString(), nodeId));
+    }
+}
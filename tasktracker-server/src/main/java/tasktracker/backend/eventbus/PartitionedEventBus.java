@@ -0,0 +1,406 @@
+package tasktracker.backend.eventbus;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tasktracker.backend.metrics.MetricsSource;
+import tasktracker.backend.model.EventOutboxEntry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event bus with a bounded buffer and a consumer thread per partition. Events are partitioned by task,
+ * so the events of one task are consumed in the order they were posted. When a buffer is full the
+ * poster waits ({@code BLOCK}) or the event is dropped ({@code DROP}).
+ * <p>
+ * A consumer thread takes the events buffered in its partition, waiting up to {@code eventbus.coalesce-window-ms}
+ * for more, and coalesces the {@link TaskCreated} and {@link TaskStateChanged} events of a task into the last one,
+ * so consumers see the latest snapshot of a task once instead of every intermediate update.
+ * <p>
+ * Events posted in a transaction are buffered once the transaction commits and discarded if it rolls back.
+ * With {@code eventbus.outbox.enabled} the events are also written to the outbox in the posting transaction.
+ * Those not consumed before a shutdown are consumed after the next start, those dropped are replayed periodically.
+ */
+@Slf4j
+@Component
+public class PartitionedEventBus implements TaskTrackerEventBus, MetricsSource {
+    private static final int ACK_BATCH_SIZE = 100;
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    private static final long REPLAY_DROPPED_PERIOD_IN_MINUTES = 1;
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    private final CopyOnWriteArraySet<TaskTrackerEventConsumer> consumers = new CopyOnWriteArraySet<>();
+    private final EventOutbox outbox;
+    private final OverflowPolicy overflowPolicy;
+    private final long coalesceWindowMillis;
+    private final int batchSize;
+    private final boolean outboxEnabled;
+
+    private final List<Partition> partitions = new ArrayList<>();
+    private final Set<Thread> partitionThreads = ConcurrentHashMap.newKeySet();
+    private final Set<Long> droppedOutboxIds = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private volatile boolean running;
+
+    public PartitionedEventBus(
+            final Collection<TaskTrackerEventConsumer> consumers,
+            final EventOutbox outbox,
+            @Value("${eventbus.partitions:8}") final int partitions,
+            @Value("${eventbus.buffer-size:1024}") final int bufferSize,
+            @Value("${eventbus.overflow-policy:BLOCK}") final OverflowPolicy overflowPolicy,
+            @Value("${eventbus.coalesce-window-ms:100}") final long coalesceWindowMillis,
+            @Value("${eventbus.outbox.enabled:false}") final boolean outboxEnabled
+    ) {
+        Preconditions.checkArgument(partitions > 0, "eventbus.partitions must be positive");
+        Preconditions.checkArgument(bufferSize > 0, "eventbus.buffer-size must be positive");
+        this.outbox = outbox;
+        this.overflowPolicy = overflowPolicy;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.batchSize = bufferSize;
+        this.outboxEnabled = outboxEnabled;
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new Partition(new ArrayBlockingQueue<>(bufferSize)));
+        }
+        this.executor = Executors.newFixedThreadPool(
+                partitions,
+                new ThreadFactoryBuilder().setNameFormat("tt-event-bus-partition-%d").build()
+        );
+        consumers.forEach(this::register);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        partitions.forEach(partition -> executor.execute(() -> consume(partition)));
+        log.info("Event bus started: {} partitions, overflow policy {}", partitions.size(), overflowPolicy);
+
+        if (outboxEnabled) {
+            replay();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Event bus consumers didn't finish in time, {} events left", partitions.stream().mapToInt(p -> p.queue.size()).sum());
+        }
+    }
+
+    @Override
+    public void post(final TaskTrackerEvent event) {
+        Preconditions.checkNotNull(event);
+        final Object object = event.getObject();
+        final Long outboxId = outboxEnabled ? outbox.append(object).orElse(null) : null;
+        final Envelope envelope = new Envelope(object, outboxId, System.currentTimeMillis());
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            enqueue(envelope);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Envelope> pending = (List<Envelope>) TransactionSynchronizationManager.getResource(this);
+        if (Objects.isNull(pending)) {
+            final List<Envelope> envelopes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, envelopes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    envelopes.forEach(PartitionedEventBus.this::enqueue);
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PartitionedEventBus.this);
+                }
+            });
+            pending = envelopes;
+        }
+        pending.add(envelope);
+    }
+
+    @Override
+    public void register(final TaskTrackerEventConsumer consumer) {
+        Preconditions.checkNotNull(consumer);
+        log.info("Register consumer {}", consumer);
+        consumers.add(consumer);
+    }
+
+    @Override
+    public void unregister(final TaskTrackerEventConsumer consumer) {
+        Preconditions.checkNotNull(consumer);
+        log.info("Unregister consumer {}", consumer);
+        consumers.remove(consumer);
+    }
+
+    @Override
+    public Map<String, Number> metrics() {
+        final Map<String, Number> metrics = new LinkedHashMap<>();
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < partitions.size(); i++) {
+            final Partition partition = partitions.get(i);
+            final Envelope head = partition.queue.peek();
+            final String prefix = "eventbus.partition." + i + ".";
+            metrics.put(prefix + "depth", partition.queue.size());
+            metrics.put(prefix + "lag.ms", Objects.isNull(head) ? 0 : Math.max(0, now - head.postedAt));
+            metrics.put(prefix + "latency.last.ms", partition.lastLatencyMillis.get());
+            metrics.put(prefix + "latency.max.ms", partition.maxLatencyMillis.get());
+            metrics.put(prefix + "processed", partition.processed.get());
+            metrics.put(prefix + "dropped", partition.dropped.get());
+            metrics.put(prefix + "coalesced", partition.coalesced.get());
+        }
+        return metrics;
+    }
+
+    /**
+     * Partition key of the event object: the task of task events, the class of other objects.
+     */
+    static long partitionKey(final Object object) {
+        final Long taskId = taskId(object);
+        if (Objects.nonNull(taskId)) {
+            return taskId;
+        }
+        return Objects.isNull(object) ? 0 : object.getClass().getName().hashCode();
+    }
+
+    private static Long taskId(final Object object) {
+        return object instanceof TaskEvent && Objects.nonNull(((TaskEvent) object).getTask()) ?
+                ((TaskEvent) object).getTask().getId() :
+                null;
+    }
+
+    private Partition partition(final Object object) {
+        return partitions.get((int) Math.floorMod(partitionKey(object), (long) partitions.size()));
+    }
+
+    private void enqueue(final Envelope envelope) {
+        final Partition partition = partition(envelope.object);
+        // a consumer waiting for room in a partition it may itself have to drain would never wake up
+        if (overflowPolicy == OverflowPolicy.BLOCK && !partitionThreads.contains(Thread.currentThread())) {
+            try {
+                partition.queue.put(envelope);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (partition.queue.offer(envelope)) {
+            return;
+        }
+
+        if (Objects.nonNull(envelope.outboxId)) {
+            droppedOutboxIds.add(envelope.outboxId);
+        }
+        final long dropped = partition.dropped.incrementAndGet();
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("Event bus partition full, {} events dropped so far", dropped);
+        }
+    }
+
+    /**
+     * Buffers the outbox entries of the events dropped since the previous replay again.
+     */
+    @Scheduled(fixedDelay = 1000 * 60 * REPLAY_DROPPED_PERIOD_IN_MINUTES, initialDelay = 1000 * 60 * REPLAY_DROPPED_PERIOD_IN_MINUTES)
+    public void replayDropped() {
+        if (!outboxEnabled || !running || droppedOutboxIds.isEmpty()) {
+            return;
+        }
+
+        final List<Long> ids = new ArrayList<>(droppedOutboxIds);
+        droppedOutboxIds.removeAll(ids);
+        long replayed = 0;
+        for (final List<Long> page : Lists.partition(ids, REPLAY_PAGE_SIZE)) {
+            for (final EventOutboxEntry entry : outbox.findAll(page)) {
+                replayed += replay(entry) ? 1 : 0;
+            }
+        }
+        log.info("Replayed {} dropped events of the outbox", replayed);
+    }
+
+    /**
+     * Buffers the outbox entries this node left in the previous run. The bus isn't handed out before it is started,
+     * so nothing posted in this run is in the outbox yet.
+     */
+    private void replay() {
+        long lastId = 0;
+        long replayed = 0;
+        List<EventOutboxEntry> entries;
+        do {
+            entries = outbox.pending(lastId, REPLAY_PAGE_SIZE);
+            for (final EventOutboxEntry entry : entries) {
+                replayed += replay(entry) ? 1 : 0;
+            }
+            if (!entries.isEmpty()) {
+                lastId = entries.get(entries.size() - 1).getId();
+            }
+        } while (entries.size() == REPLAY_PAGE_SIZE);
+
+        if (replayed > 0) {
+            log.info("Replayed {} events of the outbox", replayed);
+        }
+    }
+
+    /**
+     * @return false if the entity of the entry doesn't exist anymore, the entry is acknowledged
+     */
+    private boolean replay(final EventOutboxEntry entry) {
+        final Object object = outbox.decode(entry).orElse(null);
+        if (Objects.isNull(object)) {
+            outbox.ack(Collections.singleton(entry.getId()));
+            return false;
+        }
+        enqueue(new Envelope(object, entry.getId(), entry.getCreatedAt().getTime()));
+        return true;
+    }
+
+    private void consume(final Partition partition) {
+        partitionThreads.add(Thread.currentThread());
+        final List<Envelope> batch = new ArrayList<>();
+        final List<Long> acks = new ArrayList<>();
+        while (running || !partition.queue.isEmpty()) {
+            try {
+                final Envelope first = partition.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (Objects.nonNull(first)) {
+                    batch.add(first);
+                    take(partition, batch);
+                    batch.stream().map(envelope -> envelope.outboxId).filter(Objects::nonNull).forEach(acks::add);
+                    coalesce(partition, batch).forEach(envelope -> dispatch(partition, envelope));
+                }
+                if (!acks.isEmpty() && (acks.size() >= ACK_BATCH_SIZE || partition.queue.isEmpty())) {
+                    outbox.ack(acks);
+                    acks.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Event bus partition failure", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        if (!acks.isEmpty()) {
+            try {
+                outbox.ack(acks);
+            } catch (RuntimeException e) {
+                log.warn("Could not acknowledge {} outbox entries, they will be consumed again after a restart", acks.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Adds the buffered events to the batch, waiting for more until the coalescing window ends.
+     */
+    private void take(final Partition partition, final List<Envelope> batch) throws InterruptedException {
+        if (coalesceWindowMillis <= 0) {
+            partition.queue.drainTo(batch, batchSize - batch.size());
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceWindowMillis);
+        while (batch.size() < batchSize) {
+            final Envelope next = partition.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (Objects.isNull(next)) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Replaces the task updates of the batch with the last update of each task, in the place of the last one.
+     * The merged update is a {@link TaskCreated} if the task was created in the batch.
+     */
+    private static List<Envelope> coalesce(final Partition partition, final List<Envelope> batch) {
+        final Map<Long, Integer> lastUpdates = new HashMap<>();
+        final Set<Long> created = new HashSet<>();
+        int updates = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            final Object object = batch.get(i).object;
+            final Long taskId = taskId(object);
+            if (isTaskUpdate(object) && Objects.nonNull(taskId)) {
+                updates++;
+                lastUpdates.put(taskId, i);
+                if (object instanceof TaskCreated) {
+                    created.add(taskId);
+                }
+            }
+        }
+        if (updates == lastUpdates.size()) {
+            return batch;
+        }
+
+        final List<Envelope> result = new ArrayList<>(batch.size() - updates + lastUpdates.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final Envelope envelope = batch.get(i);
+            final Long taskId = taskId(envelope.object);
+            if (!isTaskUpdate(envelope.object) || Objects.isNull(taskId)) {
+                result.add(envelope);
+            } else if (lastUpdates.get(taskId) == i) {
+                result.add(created.contains(taskId) && envelope.object instanceof TaskStateChanged ?
+                        new Envelope(new TaskCreated(((TaskStateChanged) envelope.object).getTask()), envelope.outboxId, envelope.postedAt) :
+                        envelope);
+            }
+        }
+        partition.coalesced.addAndGet(batch.size() - result.size());
+        return result;
+    }
+
+    private static boolean isTaskUpdate(final Object object) {
+        return object instanceof TaskCreated || object instanceof TaskStateChanged;
+    }
+
+    private void dispatch(final Partition partition, final Envelope envelope) {
+        final long start = System.currentTimeMillis();
+        final TaskTrackerEvent event = TaskTrackerEvent.of(envelope.object);
+        for (final TaskTrackerEventConsumer consumer : consumers) {
+            try {
+                consumer.onEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Consumer {} failed on {}", consumer, envelope.object, e);
+            }
+        }
+        final long latency = System.currentTimeMillis() - start;
+        partition.processed.incrementAndGet();
+        partition.lastLatencyMillis.set(latency);
+        partition.maxLatencyMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    private static class Partition {
+        private final BlockingQueue<Envelope> queue;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong lastLatencyMillis = new AtomicLong();
+        private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+        Partition(final BlockingQueue<Envelope> queue) {
+            this.queue = queue;
+        }
+    }
+
+    private static class Envelope {
+        private final Object object;
+        private final Long outboxId;
+        private final long postedAt;
+
+        Envelope(final Object object, final Long outboxId, final long postedAt) {
+            this.object = object;
+            this.outboxId = outboxId;
+            this.postedAt = postedAt;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.DataQualityCondition;
+import tasktracker.backend.model.TaskStats;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Event object posted when statistics of a column were saved.
+ */
+@Value
+public class StatsIngested implements TaskEvent {
+    TaskSnapshot task;
+    Long statsId;
+    String column;
+    Map<DataQualityCondition.Metric, Double> values;
+
+    public static StatsIngested of(final TaskStats stats) {
+        final Map<DataQualityCondition.Metric, Double> values = new EnumMap<>(DataQualityCondition.Metric.class);
+        for (final DataQualityCondition.Metric metric : DataQualityCondition.Metric.values()) {
+            final Double value = stats.getMetric(metric);
+            if (Objects.nonNull(value)) {
+                values.put(metric, value);
+            }
+        }
+        return new StatsIngested(TaskSnapshot.of(stats.getTask()), stats.getId(), stats.getColumn(), Collections.unmodifiableMap(values));
+    }
+}
@@ -0,0 +1,16 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.Task;
+
+/**
+ * Event object posted when a task was created.
+ */
+@Value
+public class TaskCreated implements TaskEvent {
+    TaskSnapshot task;
+
+    public static TaskCreated of(final Task task) {
+        return new TaskCreated(TaskSnapshot.of(task));
+    }
+}
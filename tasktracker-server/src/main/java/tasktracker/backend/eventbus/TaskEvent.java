@@ -0,0 +1,10 @@
+package tasktracker.backend.eventbus;
+
+/**
+ * Event object about a task. Events of one task are consumed in the order they were posted.
+ */
+public interface TaskEvent {
+
+    TaskSnapshot getTask();
+
+}
@@ -0,0 +1,38 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.Task;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the task fields consumers need, taken when the event is posted.
+ */
+@Value
+public class TaskSnapshot {
+    Long id;
+    Long projectId;
+    String name;
+    Task.State state;
+    Instant nominalDate;
+    Instant startDate;
+    Instant endDate;
+
+    public static TaskSnapshot of(final Task task) {
+        return new TaskSnapshot(
+                task.getId(),
+                Objects.isNull(task.getProject()) ? null : task.getProject().getId(),
+                task.getName(),
+                task.getState(),
+                instant(task.getNominalDate()),
+                instant(task.getStartDate()),
+                instant(task.getEndDate())
+        );
+    }
+
+    private static Instant instant(final Date date) {
+        return Objects.isNull(date) ? null : date.toInstant();
+    }
+}
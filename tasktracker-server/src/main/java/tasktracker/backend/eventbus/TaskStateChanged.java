@@ -0,0 +1,17 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.Task;
+
+/**
+ * Event object posted when a task was updated: its state, dates or Oozie references.
+ * Pending events of one task may be coalesced into the last one.
+ */
+@Value
+public class TaskStateChanged implements TaskEvent {
+    TaskSnapshot task;
+
+    public static TaskStateChanged of(final Task task) {
+        return new TaskStateChanged(TaskSnapshot.of(task));
+    }
+}
@@ -0,0 +1,18 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.Warning;
+
+/**
+ * Event object posted when a warning was saved.
+ */
+@Value
+public class WarningRaised implements TaskEvent {
+    TaskSnapshot task;
+    Long warningId;
+    String message;
+
+    public static WarningRaised of(final Warning warning) {
+        return new WarningRaised(TaskSnapshot.of(warning.getTask()), warning.getId(), warning.getMessage());
+    }
+}
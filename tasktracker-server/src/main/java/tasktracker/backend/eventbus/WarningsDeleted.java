@@ -0,0 +1,16 @@
+package tasktracker.backend.eventbus;
+
+import lombok.Value;
+import tasktracker.backend.model.Task;
+
+/**
+ * Event object posted when warnings of the task were deleted.
+ */
+@Value
+public class WarningsDeleted implements TaskEvent {
+    TaskSnapshot task;
+
+    public static WarningsDeleted of(final Task task) {
+        return new WarningsDeleted(TaskSnapshot.of(task));
+    }
+}
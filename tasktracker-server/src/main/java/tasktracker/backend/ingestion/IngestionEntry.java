@@ -0,0 +1,25 @@
+package tasktracker.backend.ingestion;
+
+import lombok.Value;
+import tasktracker.backend.controller.body.IngestRecordBody;
+import tasktracker.backend.model.Project;
+
+import java.util.List;
+
+/**
+ * Records accepted by one request, written together by the same writer.
+ */
+@Value
+class IngestionEntry {
+    /**
+     * Journal sequence number, 0 when the journal is disabled.
+     */
+    long seq;
+    Project project;
+    /**
+     * Null if the records may be written more than once.
+     */
+    String idempotencyKey;
+    List<IngestRecordBody> records;
+    long acceptedAt;
+}
@@ -0,0 +1,137 @@
+package tasktracker.backend.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import tasktracker.backend.controller.body.IngestRecordBody;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Local append-only journal of the ingestion entries accepted but not written to the database yet.
+ * Accepted entries are appended to {@code entries.ndjson}, sequence numbers of the written ones to
+ * {@code acks.log}. Both files are truncated whenever every journaled entry is written, and the
+ * entries left after a crash of the server are recovered on the next start. The journal has to be
+ * {@link #recover() recovered} before it is appended to.
+ */
+@Slf4j
+class IngestionJournal implements Closeable {
+    private static final String ENTRIES_FILE = "entries.ndjson";
+    private static final String ACKS_FILE = "acks.log";
+
+    private final ObjectMapper objectMapper;
+    private final Path entriesPath;
+    private final Path acksPath;
+    private Writer entries;
+    private Writer acks;
+    private long nextSeq = 1;
+    private long pending;
+
+    IngestionJournal(final Path directory, final ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.entriesPath = directory.resolve(ENTRIES_FILE);
+        this.acksPath = directory.resolve(ACKS_FILE);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Entries not written before the last shutdown. They are kept in the journal under new sequence numbers,
+     * the journal is rewritten atomically so a crash during the recovery loses nothing.
+     */
+    synchronized List<JournalEntry> recover() throws IOException {
+        final Set<Long> acked = new HashSet<>();
+        if (Files.exists(acksPath)) {
+            for (final String line : Files.readAllLines(acksPath, StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) {
+                    acked.add(Long.parseLong(line.trim()));
+                }
+            }
+        }
+
+        final List<JournalEntry> result = new ArrayList<>();
+        if (Files.exists(entriesPath)) {
+            for (final String line : Files.readAllLines(entriesPath, StandardCharsets.UTF_8)) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    final JournalEntry entry = objectMapper.readValue(line, JournalEntry.class);
+                    // stale acks of a previous recovery must not match the renumbered entries
+                    nextSeq = Math.max(nextSeq, entry.getSeq() + 1);
+                    if (!acked.contains(entry.getSeq())) {
+                        result.add(entry);
+                    }
+                } catch (IOException e) {
+                    // the last line may be cut by a crash in the middle of an append
+                    log.warn("Skip unreadable journal line: {}", line, e);
+                }
+            }
+        }
+
+        final Path recoveredPath = entriesPath.resolveSibling(ENTRIES_FILE + ".recovered");
+        try (Writer recovered = open(recoveredPath)) {
+            for (final JournalEntry entry : result) {
+                entry.setSeq(nextSeq++);
+                recovered.write(objectMapper.writeValueAsString(entry));
+                recovered.write('\n');
+            }
+        }
+        Files.move(recoveredPath, entriesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        entries = Files.newBufferedWriter(entriesPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        acks = open(acksPath);
+        pending = result.size();
+
+        return result;
+    }
+
+    synchronized long append(final long projectId, final String idempotencyKey, final List<IngestRecordBody> records) throws IOException {
+        final long seq = nextSeq++;
+        entries.write(objectMapper.writeValueAsString(new JournalEntry(seq, projectId, idempotencyKey, records)));
+        entries.write('\n');
+        entries.flush();
+        pending++;
+        return seq;
+    }
+
+    synchronized void ack(final Collection<Long> seqs) throws IOException {
+        for (final Long seq : seqs) {
+            acks.write(String.valueOf(seq));
+            acks.write('\n');
+        }
+        acks.flush();
+        pending -= seqs.size();
+        if (pending == 0) {
+            reset();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (Objects.nonNull(entries)) {
+            entries.close();
+        }
+        if (Objects.nonNull(acks)) {
+            acks.close();
+        }
+    }
+
+    private void reset() throws IOException {
+        close();
+        entries = open(entriesPath);
+        acks = open(acksPath);
+        pending = 0;
+    }
+
+    private static Writer open(final Path path) throws IOException {
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,415 @@
+package tasktracker.backend.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import tasktracker.backend.controller.body.IngestRecordBody;
+import tasktracker.backend.metrics.MetricsSource;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.service.TaskIngestionService;
+import tasktracker.backend.service.TaskTrackerService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static tasktracker.backend.controller.exception.ApiException.IngestionQueueFull;
+import static tasktracker.backend.controller.exception.ApiException.InvalidInputData;
+
+/**
+ * Write-behind mode of the ingestion endpoints. Requests are acknowledged as soon as their records are
+ * accepted into a bounded in-memory queue (and the optional journal), a pool of writers groups the queued
+ * records into multi-row transactions of {@link TaskIngestionService}.
+ * <p>
+ * Entries are partitioned between the writers by task, so the writes of one task keep their order.
+ * Envelopes with records of several tasks are partitioned by project.
+ * <p>
+ * An envelope with the idempotency key of a queued or written envelope is not accepted again.
+ * <p>
+ * Entries rejected by the database are dropped. Entries failed by a transient error, like an unreachable
+ * database, stay queued and journaled and are written again with a growing backoff before the later entries.
+ */
+@Slf4j
+@Component
+public class IngestionQueue implements MetricsSource {
+    private static final long MIN_RETRY_BACKOFF_MILLIS = 500;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+
+    private final TaskIngestionService taskIngestionService;
+    private final TaskTrackerService taskTrackerService;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final int retryAfterSeconds;
+    private final String journalPath;
+
+    private final Semaphore permits;
+    private final List<BlockingQueue<IngestionEntry>> partitions = new ArrayList<>();
+    private final Set<String> queuedKeys = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers;
+    private IngestionJournal journal;
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRecords = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong flushMillis = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    public IngestionQueue(
+            final TaskIngestionService taskIngestionService,
+            final TaskTrackerService taskTrackerService,
+            final ObjectMapper objectMapper,
+            @Value("${ingestion.async.enabled:false}") final boolean enabled,
+            @Value("${ingestion.async.queue-capacity:10000}") final int capacity,
+            @Value("${ingestion.async.writers:4}") final int writers,
+            @Value("${ingestion.async.batch-size:500}") final int batchSize,
+            @Value("${ingestion.async.linger-ms:50}") final long lingerMillis,
+            @Value("${ingestion.async.retry-after-seconds:5}") final int retryAfterSeconds,
+            @Value("${ingestion.async.journal-path:}") final String journalPath
+    ) {
+        this.taskIngestionService = taskIngestionService;
+        this.taskTrackerService = taskTrackerService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.journalPath = journalPath;
+        this.permits = new Semaphore(capacity);
+        for (int i = 0; i < writers; i++) {
+            partitions.add(new LinkedBlockingQueue<>());
+        }
+        this.writers = Executors.newFixedThreadPool(
+                writers,
+                new ThreadFactoryBuilder().setNameFormat("tt-ingestion-writer-%d").build()
+        );
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        if (!journalPath.trim().isEmpty()) {
+            journal = new IngestionJournal(Paths.get(journalPath.trim()), objectMapper);
+            final List<JournalEntry> recovered = journal.recover();
+            for (final JournalEntry entry : recovered) {
+                final Project project = taskTrackerService.findProjectById(entry.getProjectId()).orElse(null);
+                if (Objects.isNull(project)) {
+                    log.warn("Drop {} journaled records of missing project {}", entry.getRecords().size(), entry.getProjectId());
+                    journal.ack(Collections.singleton(entry.getSeq()));
+                    continue;
+                }
+                permits.acquireUninterruptibly(Math.min(entry.getRecords().size(), capacity));
+                if (Objects.nonNull(entry.getIdempotencyKey())) {
+                    queuedKeys.add(queuedKey(project, entry.getIdempotencyKey()));
+                }
+                enqueue(new IngestionEntry(entry.getSeq(), project, entry.getIdempotencyKey(), entry.getRecords(), System.currentTimeMillis()));
+            }
+            log.info("Recovered {} journaled ingestion entries", recovered.size());
+        }
+
+        running = true;
+        partitions.forEach(partition -> writers.execute(() -> write(partition)));
+        log.info("Asynchronous ingestion started: {} writers, queue capacity {}", partitions.size(), capacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Ingestion writers didn't finish in time, {} records left in the queue", depth());
+        }
+        if (Objects.nonNull(journal)) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(final Project project, final List<IngestRecordBody> records) {
+        submit(project, null, records);
+    }
+
+    /**
+     * Accepts the records for writing.
+     *
+     * @param idempotencyKey key of the records, may be null
+     * @return false if the records of the key are queued or written already
+     * @throws IngestionQueueFull if there is no room for the records
+     */
+    public boolean submit(final Project project, final String idempotencyKey, final List<IngestRecordBody> records) {
+        if (records.size() > capacity) {
+            throw new InvalidInputData("more than " + capacity + " records");
+        }
+        final String queuedKey = Objects.isNull(idempotencyKey) ? null : queuedKey(project, idempotencyKey);
+        if (Objects.nonNull(queuedKey)
+                && (!queuedKeys.add(queuedKey) || isWritten(project, idempotencyKey, queuedKey))) {
+            return false;
+        }
+        if (!permits.tryAcquire(records.size())) {
+            forget(queuedKey);
+            rejected.addAndGet(records.size());
+            throw new IngestionQueueFull(retryAfterSeconds);
+        }
+
+        final long seq;
+        try {
+            seq = Objects.isNull(journal) ? 0 : journal.append(project.getId(), idempotencyKey, records);
+        } catch (IOException e) {
+            forget(queuedKey);
+            permits.release(records.size());
+            throw new UncheckedIOException(e);
+        }
+
+        accepted.addAndGet(records.size());
+        enqueue(new IngestionEntry(seq, project, idempotencyKey, records, System.currentTimeMillis()));
+        return true;
+    }
+
+    @Override
+    public Map<String, Number> metrics() {
+        final Map<String, Number> metrics = new LinkedHashMap<>();
+        final long batchCount = batches.get();
+        metrics.put("ingestion.queue.depth", depth());
+        metrics.put("ingestion.queue.capacity", capacity);
+        metrics.put("ingestion.records.accepted", accepted.get());
+        metrics.put("ingestion.records.rejected", rejected.get());
+        metrics.put("ingestion.records.written", written.get());
+        metrics.put("ingestion.records.failed", failed.get());
+        metrics.put("ingestion.records.retried", retried.get());
+        metrics.put("ingestion.batches", batchCount);
+        metrics.put("ingestion.batch.size.last", lastBatchSize.get());
+        metrics.put("ingestion.batch.size.avg", batchCount == 0 ? 0 : batchedRecords.get() / batchCount);
+        metrics.put("ingestion.flush.latency.last.ms", lastFlushMillis.get());
+        metrics.put("ingestion.flush.latency.avg.ms", batchCount == 0 ? 0 : flushMillis.get() / batchCount);
+        metrics.put("ingestion.flush.latency.max.ms", maxFlushMillis.get());
+        metrics.put("ingestion.latency.max.ms", maxLatencyMillis.get());
+        return metrics;
+    }
+
+    private boolean isWritten(final Project project, final String idempotencyKey, final String queuedKey) {
+        try {
+            if (taskIngestionService.isIngested(project, idempotencyKey)) {
+                forget(queuedKey);
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            forget(queuedKey);
+            throw e;
+        }
+    }
+
+    private void forget(final String queuedKey) {
+        if (Objects.nonNull(queuedKey)) {
+            queuedKeys.remove(queuedKey);
+        }
+    }
+
+    private static String queuedKey(final Project project, final String idempotencyKey) {
+        return project.getId() + ":" + idempotencyKey;
+    }
+
+    private int depth() {
+        return capacity - permits.availablePermits();
+    }
+
+    private void enqueue(final IngestionEntry entry) {
+        final Set<Long> taskIds = entry.getRecords().stream()
+                .map(IngestRecordBody::getTaskId)
+                .collect(Collectors.toSet());
+        final long key = taskIds.size() == 1 && !taskIds.contains(null) ?
+                taskIds.iterator().next() :
+                entry.getProject().getId();
+        partitions.get((int) Math.floorMod(key, (long) partitions.size())).add(entry);
+    }
+
+    private void write(final BlockingQueue<IngestionEntry> partition) {
+        final List<IngestionEntry> batch = new ArrayList<>();
+        long backoffMillis = 0;
+        while (running || !partition.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    final IngestionEntry first = partition.poll(100, TimeUnit.MILLISECONDS);
+                    if (Objects.isNull(first)) {
+                        continue;
+                    }
+                    batch.add(first);
+
+                    int size = first.getRecords().size();
+                    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                    while (size < batchSize) {
+                        final IngestionEntry next = partition.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (Objects.isNull(next)) {
+                            break;
+                        }
+                        batch.add(next);
+                        size += next.getRecords().size();
+                    }
+                } else {
+                    // entries failed by a transient error go before the later entries of the partition
+                    final long retryAt = System.currentTimeMillis() + backoffMillis;
+                    while (running && System.currentTimeMillis() < retryAt) {
+                        TimeUnit.MILLISECONDS.sleep(Math.min(100, retryAt - System.currentTimeMillis()));
+                    }
+                }
+
+                final List<IngestionEntry> failedEntries = flush(batch);
+                batch.clear();
+                batch.addAll(failedEntries);
+                backoffMillis = failedEntries.isEmpty() ? 0 :
+                        Math.min(Math.max(backoffMillis * 2, MIN_RETRY_BACKOFF_MILLIS), MAX_RETRY_BACKOFF_MILLIS);
+                if (!batch.isEmpty() && !running) {
+                    log.warn("Stop retrying {} ingestion entries, journaled entries are written after a restart", batch.size());
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingestion writer failure", e);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the entries, acknowledges the written and the rejected ones.
+     *
+     * @return entries failed by a transient error, to be written again
+     */
+    private List<IngestionEntry> flush(final List<IngestionEntry> batch) {
+        final long start = System.currentTimeMillis();
+        final List<IngestionEntry> failedEntries = new ArrayList<>();
+
+        final Map<Project, List<IngestionEntry>> projectEntries = batch.stream()
+                .collect(Collectors.groupingBy(IngestionEntry::getProject, LinkedHashMap::new, Collectors.toList()));
+        projectEntries.forEach((project, entries) -> {
+            // every entry is its own envelope, the task references of different requests don't mix
+            final List<TaskIngestionService.Envelope> envelopes = entries.stream()
+                    .map(entry -> TaskIngestionService.Envelope.of(entry.getIdempotencyKey(), entry.getRecords()))
+                    .collect(Collectors.toList());
+            final int records = entries.stream().mapToInt(entry -> entry.getRecords().size()).sum();
+            try {
+                taskIngestionService.ingestAll(project, envelopes);
+                written.addAndGet(records);
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.warn("Batch of {} records of project {} failed, it's written again later", records, project.getId(), e);
+                    failedEntries.addAll(entries);
+                    return;
+                }
+                log.warn("Batch of {} records of project {} failed, writing its entries one by one", records, project.getId(), e);
+                boolean retry = false;
+                for (final IngestionEntry entry : entries) {
+                    // the entries after a transient failure are written again later as well, in their order
+                    if (retry) {
+                        failedEntries.add(entry);
+                        continue;
+                    }
+                    try {
+                        taskIngestionService.ingest(project, entry.getIdempotencyKey(), entry.getRecords());
+                        written.addAndGet(entry.getRecords().size());
+                    } catch (RuntimeException ex) {
+                        if (isTransient(ex)) {
+                            log.warn("{} records of project {} failed, they're written again later", entry.getRecords().size(), project.getId(), ex);
+                            failedEntries.add(entry);
+                            retry = true;
+                            continue;
+                        }
+                        failed.addAndGet(entry.getRecords().size());
+                        log.error("Drop {} records of project {}: {}", entry.getRecords().size(), project.getId(), entry.getRecords(), ex);
+                    }
+                }
+            }
+        });
+
+        final Set<IngestionEntry> retriedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+        retriedEntries.addAll(failedEntries);
+        final List<IngestionEntry> done = batch.stream()
+                .filter(entry -> !retriedEntries.contains(entry))
+                .collect(Collectors.toList());
+        final int size = done.stream().mapToInt(entry -> entry.getRecords().size()).sum();
+        retried.addAndGet(failedEntries.stream().mapToInt(entry -> entry.getRecords().size()).sum());
+
+        final long end = System.currentTimeMillis();
+        try {
+            if (Objects.nonNull(journal)) {
+                journal.ack(done.stream().map(IngestionEntry::getSeq).collect(Collectors.toList()));
+            }
+        } catch (IOException e) {
+            log.error("Could not acknowledge journal entries, they will be written again after a restart", e);
+        } finally {
+            // written keys are found in the database from now on, dropped ones may be sent again
+            done.stream()
+                    .filter(entry -> Objects.nonNull(entry.getIdempotencyKey()))
+                    .forEach(entry -> forget(queuedKey(entry.getProject(), entry.getIdempotencyKey())));
+            permits.release(size);
+        }
+
+        batches.incrementAndGet();
+        batchedRecords.addAndGet(size);
+        lastBatchSize.set(size);
+        flushMillis.addAndGet(end - start);
+        lastFlushMillis.set(end - start);
+        maxFlushMillis.accumulateAndGet(end - start, Math::max);
+        done.forEach(entry -> maxLatencyMillis.accumulateAndGet(end - entry.getAcceptedAt(), Math::max));
+
+        return failedEntries;
+    }
+
+    /**
+     * Whether the error may pass when the write is tried again: the database is unreachable, a lock or
+     * query timed out, or the transaction couldn't be started. Other errors reject the records for good.
+     */
+    static boolean isTransient(final Throwable e) {
+        for (Throwable cause = e; Objects.nonNull(cause); cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            // SQL state class 08 is a connection exception
+            if (cause instanceof SQLException && Objects.nonNull(((SQLException) cause).getSQLState())
+                    && ((SQLException) cause).getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package tasktracker.backend.ingestion;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tasktracker.backend.controller.body.IngestRecordBody;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class JournalEntry {
+    @JsonProperty("seq")
+    private long seq;
+    @JsonProperty("project_id")
+    private long projectId;
+    @JsonProperty("idempotency_key")
+    private String idempotencyKey;
+    @JsonProperty("records")
+    private List<IngestRecordBody> records;
+}
@@ -0,0 +1,14 @@
+package tasktracker.backend.metrics;
+
+import java.util.Map;
+
+/**
+ * Component publishing its metrics on {@code GET /api/metrics}.
+ */
+public interface MetricsSource {
+
+    /**
+     * Current values by metric name, names are expected to be prefixed with the component name.
+     */
+    Map<String, Number> metrics();
+}
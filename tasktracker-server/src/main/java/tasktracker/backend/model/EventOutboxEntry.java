@@ -0,0 +1,39 @@
+package tasktracker.backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Event posted to the event bus and not consumed yet. The event object is kept as a reference:
+ * {@code type} is the event type and {@code payload} the id of the entity the event was taken from.
+ * {@code nodeId} is the node that posted the event.
+ */
+@Data
+@NoArgsConstructor
+@Entity(name = "EventOutboxEntry")
+@Table(name = "event_outbox")
+public class EventOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_outbox_id_seq")
+    @SequenceGenerator(name = "event_outbox_id_seq", sequenceName = "event_outbox_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "type", nullable = false)
+    private String type;
+    @Column(name = "payload", nullable = false)
+    private String payload;
+    @Column(name = "node_id")
+    private String nodeId;
+    @Column(name = "created_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt = new Date();
+
+    public EventOutboxEntry(final String type, final String payload, final String nodeId) {
+        this.type = type;
+        this.payload = payload;
+        this.nodeId = nodeId;
+    }
+}
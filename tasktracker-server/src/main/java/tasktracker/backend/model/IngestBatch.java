@@ -0,0 +1,48 @@
+package tasktracker.backend.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Idempotency key of an ingested batch, written in the transaction of the batch. A batch sent again
+ * with a key that is already here is not written.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = {"id"})
+@Entity(name = "IngestBatch")
+@Table(name = "ingest_batch",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"project_id", "idempotency_key"}, name = "ingest_batch_unique_projectid_idempotencykey")
+        },
+        indexes = {
+                @Index(columnList = "created_at", name = "ingest_batch_index_on_createdat")
+        })
+public class IngestBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+    @Column(name = "created_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt = new Date();
+
+    public static IngestBatch of(final Project project, final String idempotencyKey) {
+        final IngestBatch batch = new IngestBatch();
+        batch.setProject(project);
+        batch.setIdempotencyKey(idempotencyKey);
+        return batch;
+    }
+}
@@ -0,0 +1,48 @@
+package tasktracker.backend.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Rollup of project tasks started at the same day.
+ * Maintained by {@link tasktracker.backend.service.ProjectDailyStatsService}.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = {"id"})
+@Entity(name = "ProjectDailyStats")
+@Table(name = "project_daily_stats",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"project_id", "date"}, name = "project_daily_stats_unique_project_id_date")
+        })
+public class ProjectDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @ManyToOne
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+    @Temporal(TemporalType.DATE)
+    @Column(name = "date", nullable = false)
+    private Date date;
+    @Column(name = "total_tasks", nullable = false)
+    private int totalTasks;
+    @Column(name = "total_completed_tasks", nullable = false)
+    private int totalCompletedTasks;
+    @Column(name = "total_failed_tasks", nullable = false)
+    private int totalFailedTasks;
+    @Column(name = "total_running_tasks", nullable = false)
+    private int totalRunningTasks;
+    @Column(name = "total_distinct_tasks", nullable = false)
+    private int totalDistinctTasks;
+    @Column(name = "updated_time", nullable = false)
+    private Date updatedTime = new Date();
+}
@@ -30,4 +30,9 @@ public class ProjectSettings {
     private Boolean taskSynchronizationAllowed = false;
     @Column(name = "task_data_quality_allowed", nullable = false, columnDefinition = "boolean default false")
     private Boolean taskDataQualityAllowed = false;
+    /**
+     * Months of tasks to keep before the current one, older months are archived. Null keeps all tasks.
+     */
+    @Column(name = "retention_months")
+    private Integer retentionMonths;
 }
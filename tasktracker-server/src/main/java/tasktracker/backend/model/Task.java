@@ -8,6 +8,7 @@ import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
 import java.util.Date;
+import java.util.Objects;
 
 @Data
 @NoArgsConstructor
@@ -16,13 +17,16 @@ import java.util.Date;
 @Table(
         name = "task_state",
         indexes = {
-                @Index(columnList = "project_id,name", name = "task_state_index_on_projectid_name"),
+                @Index(columnList = "project_id,name_id,status,nominal_date", name = "task_state_index_on_projectid_nameid_status_nominaldate"),
                 @Index(columnList = "project_id,nominal_date", name = "task_state_index_on_projectid_nominaldate"),
-                @Index(columnList = "project_id, start_date,end_date", name = "task_state_index_on_projectid_startdate_enddate")
+                @Index(columnList = "project_id, start_date,end_date", name = "task_state_index_on_projectid_startdate_enddate"),
+                @Index(columnList = "oozie_workflow_id", name = "task_state_index_on_oozieworkflowid"),
+                @Index(columnList = "project_id,status,end_date", name = "task_state_index_on_projectid_status_enddate")
         })
 public class Task {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_state_id_seq")
+    @SequenceGenerator(name = "task_state_id_seq", sequenceName = "task_state_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @Column(name = "application_id")
@@ -34,8 +38,9 @@ public class Task {
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private State state;
-    @Column(name = "name")
-    private String name;
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "name_id")
+    private TaskName taskName;
     @Column(name = "start_date")
     private Date startDate = new Date();
     @Column(name = "end_date")
@@ -75,6 +80,17 @@ public class Task {
     @Column(name = "analyzed")
     private Boolean analyzed = false;
 
+    public String getName() {
+        return Objects.isNull(taskName) ? null : taskName.getName();
+    }
+
+    /**
+     * Sets a name that is looked up in the dictionary when the task is saved.
+     */
+    public void setName(final String name) {
+        this.taskName = Objects.isNull(name) ? null : TaskName.of(name);
+    }
+
     @Transient
     public boolean isRunning() {
         return state == State.RUNNING;
@@ -97,7 +113,7 @@ public class Task {
                 ", applicationId='" + applicationId + '\'' +
                 ", project=" + project +
                 ", state=" + state +
-                ", name='" + name + '\'' +
+                ", name='" + getName() + '\'' +
                 ", startDate=" + startDate +
                 ", endDate=" + endDate +
                 ", user='" + user + '\'' +
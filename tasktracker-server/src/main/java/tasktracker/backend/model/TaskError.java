@@ -4,25 +4,27 @@ package tasktracker.backend.model;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
-import org.hibernate.annotations.OnDelete;
-import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
+import java.util.Date;
 
 @Data
 @NoArgsConstructor
 @ToString(of = {"id", "reason", "type", "timestamp"})
 @Entity(name = "TaskError")
 @Table(name = "task_error", indexes = {@Index(columnList = "task_state_id", name = "errors_task_state_id")})
-public class TaskError {
+@EntityListeners(TaskPartitionListener.class)
+public class TaskError implements TaskPartitioned {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_error_id_seq")
+    @SequenceGenerator(name = "task_error_id_seq", sequenceName = "task_error_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @ManyToOne
-    @JoinColumn(name = "task_state_id")
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "task_state_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Task task;
+    @Column(name = "task_start_date")
+    private Date taskStartDate;
     @Column(name = "reason")
     private String reason;
     @Enumerated(EnumType.STRING)
@@ -2,24 +2,26 @@ package tasktracker.backend.model;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.OnDelete;
-import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
+import java.util.Date;
 
 @Data
 @NoArgsConstructor
 @Entity(name = "TaskMetric")
 @Table(name = "task_metric", indexes = {@Index(columnList = "task_state_id", name = "metrics_task_state_id")})
-public class TaskMetric {
+@EntityListeners(TaskPartitionListener.class)
+public class TaskMetric implements TaskPartitioned {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_metric_id_seq")
+    @SequenceGenerator(name = "task_metric_id_seq", sequenceName = "task_metric_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @ManyToOne
-    @JoinColumn(name = "task_state_id")
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "task_state_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Task task;
+    @Column(name = "task_start_date")
+    private Date taskStartDate;
     @Column(name = "name")
     private String name;
     @Column(name = "value")
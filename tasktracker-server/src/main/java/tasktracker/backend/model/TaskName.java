@@ -0,0 +1,64 @@
+package tasktracker.backend.model;
+
+import com.google.common.base.Preconditions;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+
+/**
+ * Dictionary entry of a task name. Tasks refer to their name by {@code task_name.id}, names that differ only in
+ * case or surrounding whitespace share one entry per project, {@code name} keeps the spelling seen first.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = {"id"})
+@Entity(name = "TaskName")
+@Table(
+        name = "task_name",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"project_id", "normalized_name"}, name = "task_name_unique_projectid_normalizedname")
+        })
+@BatchSize(size = 100)
+public class TaskName {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_name_id_seq")
+    @SequenceGenerator(name = "task_name_id_seq", sequenceName = "task_name_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Integer id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+    @Column(name = "name", nullable = false)
+    private String name;
+    @Column(name = "normalized_name", nullable = false)
+    private String normalizedName;
+
+    /**
+     * Name not looked up in the dictionary yet.
+     */
+    public static TaskName of(final String name) {
+        final TaskName taskName = new TaskName();
+        taskName.setName(name);
+        taskName.setNormalizedName(normalize(name));
+        return taskName;
+    }
+
+    public static String normalize(final String name) {
+        Preconditions.checkNotNull(name);
+        return name.trim().toLowerCase();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskName{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
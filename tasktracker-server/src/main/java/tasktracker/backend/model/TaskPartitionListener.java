@@ -0,0 +1,18 @@
+package tasktracker.backend.model;
+
+import javax.persistence.PrePersist;
+import java.util.Objects;
+
+/**
+ * Copies the start date of the task to the partition key of a new row, so the row lands in the month
+ * of its task and is archived together with it.
+ */
+public class TaskPartitionListener {
+
+    @PrePersist
+    public void setTaskStartDate(final TaskPartitioned row) {
+        if (Objects.isNull(row.getTaskStartDate()) && Objects.nonNull(row.getTask())) {
+            row.setTaskStartDate(row.getTask().getStartDate());
+        }
+    }
+}
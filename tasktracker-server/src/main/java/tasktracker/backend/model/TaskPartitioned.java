@@ -0,0 +1,15 @@
+package tasktracker.backend.model;
+
+import java.util.Date;
+
+/**
+ * Row of a table partitioned by the start month of its task, like {@code task_state} is by {@code start_date}.
+ * The start date of the task is copied to the row when it's inserted, see {@link TaskPartitionListener}.
+ */
+public interface TaskPartitioned {
+    Task getTask();
+
+    Date getTaskStartDate();
+
+    void setTaskStartDate(Date taskStartDate);
+}
@@ -0,0 +1,83 @@
+package tasktracker.backend.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * Run time statistics of the last succeeded runs of a task name, for the runs started in an hour of the week
+ * ({@code bucket} 0 is Monday 00:00-01:00, 167 is Sunday 23:00-24:00) or for all runs ({@link #ALL_HOURS}).
+ * Durations are in milliseconds. Maintained by {@link tasktracker.backend.service.TaskRuntimeBaselineService}.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(of = {"id"})
+@Entity(name = "TaskRuntimeBaseline")
+@Table(name = "task_runtime_baseline",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"project_id", "name_id", "bucket"}, name = "task_runtime_baseline_unique_projectid_nameid_bucket")
+        },
+        indexes = {
+                @Index(columnList = "project_id,bucket,median", name = "task_runtime_baseline_index_on_projectid_bucket_median")
+        })
+public class TaskRuntimeBaseline {
+    public static final int ALL_HOURS = -1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+    @ManyToOne
+    @JoinColumn(name = "name_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private TaskName taskName;
+    @Column(name = "bucket", nullable = false)
+    private int bucket;
+    @Column(name = "runs", nullable = false)
+    private int runs;
+    @Column(name = "mean", nullable = false)
+    private double mean;
+    @Column(name = "std_dev", nullable = false)
+    private double stdDev;
+    @Column(name = "median", nullable = false)
+    private double median;
+    @Column(name = "p90", nullable = false)
+    private double p90;
+    /**
+     * The runs the statistics are computed from as {@code taskId:duration}, oldest first.
+     */
+    @Column(name = "recent_runs", nullable = false, length = 2048)
+    private String recentRuns = "";
+    /**
+     * Start date of the latest run added.
+     */
+    @Column(name = "last_run_date")
+    private Date lastRunDate;
+    @Column(name = "updated_time", nullable = false)
+    private Date updatedTime = new Date();
+    /**
+     * Optimistic lock, the baselines are updated by every node.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Hour of the week the date falls in, in the default time zone.
+     */
+    public static int bucket(final Date date) {
+        final ZonedDateTime time = date.toInstant().atZone(ZoneId.systemDefault());
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
+import java.util.Date;
 import java.util.Objects;
 
 @Data
@@ -14,15 +15,19 @@ import java.util.Objects;
 @Table(name = "task_statistics", indexes = {
         @Index(name = "idx_statistics_task_id", columnList = "task_state_id")
 }, uniqueConstraints = {
-        @UniqueConstraint(name = "unq_tid_column_name", columnNames = {"task_state_id", "column_name"})
+        @UniqueConstraint(name = "unq_tid_column_name", columnNames = {"task_state_id", "column_name", "task_start_date"})
 })
-public class TaskStats {
+@EntityListeners(TaskPartitionListener.class)
+public class TaskStats implements TaskPartitioned {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_statistics_id_seq")
+    @SequenceGenerator(name = "task_statistics_id_seq", sequenceName = "task_statistics_id_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
-    @JoinColumn(name = "task_state_id")
+    @JoinColumn(name = "task_state_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Task task;
+    @Column(name = "task_start_date")
+    private Date taskStartDate;
     @Column(name = "column_name", nullable = false)
     private String column;
     @Enumerated(EnumType.STRING)
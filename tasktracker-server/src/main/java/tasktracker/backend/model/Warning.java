@@ -3,8 +3,6 @@ package tasktracker.backend.model;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.OnDelete;
-import org.hibernate.annotations.OnDeleteAction;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -15,16 +13,21 @@ import java.util.Date;
 @Entity(name = "Warning")
 @Table(name = "warning",
         indexes = {
-                @Index(columnList = "task_id", name = "warning_task_id_index")
+                @Index(columnList = "task_id", name = "warning_task_id_index"),
+                @Index(columnList = "created_time", name = "warning_created_time_index")
         }
 )
-public class Warning {
+@EntityListeners(TaskPartitionListener.class)
+public class Warning implements TaskPartitioned {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warning_id_seq")
+    @SequenceGenerator(name = "warning_id_seq", sequenceName = "warning_id_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
-    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "task_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Task task;
+    @Column(name = "task_start_date")
+    private Date taskStartDate;
     @Column(name = "message", nullable = false, columnDefinition = "TEXT")
     private String message;
     @Column(name = "created_time", nullable = false)
@@ -1,5 +1,9 @@
 package tasktracker.backend.oozie;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OozieService {
@@ -8,4 +12,27 @@ public interface OozieService {
 
     Optional<OozieCoordinatorJob> findCoordinatorJob(OozieWorkflowJob job) throws OozieServiceException;
 
+    /**
+     * Workflow jobs by id, with only the columns the task synchronization needs
+     * (id, parent id, status, start, end and last modified time). Missing jobs are absent from the result.
+     */
+    Map<String, OozieWorkflowJob> findWorkflowJobs(Collection<String> ids) throws OozieServiceException;
+
+    /**
+     * Coordinator jobs of the workflow jobs, by workflow job id. Jobs without a coordinator are absent from the result.
+     */
+    Map<String, OozieCoordinatorJob> findCoordinatorJobs(Collection<OozieWorkflowJob> jobs) throws OozieServiceException;
+
+    /**
+     * Page of the workflow jobs modified after the given position of the change feed, ordered by
+     * last modified time and id, with the columns of {@link #findWorkflowJobs(Collection)}.
+     * A position is the last modified time and the id of the last job of the previous page.
+     */
+    List<OozieWorkflowJob> findWorkflowJobsModifiedAfter(Date lastModifiedTime, String afterId, int limit) throws OozieServiceException;
+
+    /**
+     * Latest last modified time of the workflow jobs, by the clock of the Oozie database.
+     */
+    Optional<Date> findLastModifiedTime() throws OozieServiceException;
+
 }
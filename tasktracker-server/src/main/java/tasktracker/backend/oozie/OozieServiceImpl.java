@@ -6,14 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class OozieServiceImpl implements OozieService {
+    /**
+     * Keeps IN lists well below the limits of the databases and their query plan caches.
+     */
+    private static final int IN_CHUNK_SIZE = 500;
+
     private final RowMapper<OozieWorkflowJob> oozieWorkflowJobMapper = (resultSet, i) -> {
         final String id = resultSet.getString("id");
         final String appName = resultSet.getString("app_name");
@@ -52,7 +59,19 @@ public class OozieServiceImpl implements OozieService {
 
         return job;
     };
+    private final RowMapper<OozieWorkflowJob> oozieWorkflowJobStateMapper = (resultSet, i) -> {
+        final OozieWorkflowJob job = new OozieWorkflowJob();
+        job.setId(resultSet.getString("id"));
+        job.setParentId(resultSet.getString("parent_id"));
+        job.setStatus(resultSet.getString("status"));
+        job.setStartTime(resultSet.getTimestamp("start_time"));
+        job.setEndTime(resultSet.getTimestamp("end_time"));
+        job.setLastModifiedTime(resultSet.getTimestamp("last_modified_time"));
+
+        return job;
+    };
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private RowMapper<OozieCoordinatorAction> oozieCoordinatorActionMapper = (resultSet, i) -> {
         final String id = resultSet.getString("id");
         final String jobId = resultSet.getString("job_id");
@@ -82,6 +101,20 @@ public class OozieServiceImpl implements OozieService {
             @Value("${oozie.datasource.password:test}") final String password,
             @Value("${oozie.datasource.url:jdbc:mysql://test/oozie}") final String jdbcUrl,
             @Value("${oozie.datasource.driver-class-name:com.mysql.jdbc.Driver}") final String driverClassName
+    ) {
+        this(dataSource(userName, password, jdbcUrl, driverClassName));
+    }
+
+    OozieServiceImpl(final DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    private static DataSource dataSource(
+            final String userName,
+            final String password,
+            final String jdbcUrl,
+            final String driverClassName
     ) {
         final HikariConfig config = new HikariConfig();
         config.setDriverClassName(driverClassName);
@@ -90,7 +123,7 @@ public class OozieServiceImpl implements OozieService {
         config.setPassword(password);
         config.addDataSourceProperty("serverTimezone", "UTC");
 
-        this.jdbcTemplate = new JdbcTemplate(new HikariDataSource(config));
+        return new HikariDataSource(config);
     }
 
     @Override
@@ -120,4 +153,95 @@ public class OozieServiceImpl implements OozieService {
             throw new OozieServiceException("Workflow job ='" + job + '"', e);
         }
     }
+
+    @Override
+    public Map<String, OozieWorkflowJob> findWorkflowJobs(final Collection<String> ids) throws OozieServiceException {
+        final Map<String, OozieWorkflowJob> jobs = new HashMap<>();
+        try {
+            for (final List<String> chunk : chunks(ids)) {
+                namedParameterJdbcTemplate.query(
+                        "SELECT id, parent_id, status, start_time, end_time, last_modified_time FROM WF_JOBS WHERE id IN (:ids)",
+                        Collections.singletonMap("ids", chunk),
+                        oozieWorkflowJobStateMapper
+                ).forEach(job -> jobs.put(job.getId(), job));
+            }
+        } catch (Exception e) {
+            throw new OozieServiceException("Workflow jobs of " + ids.size() + " ids", e);
+        }
+        return jobs;
+    }
+
+    @Override
+    public Map<String, OozieCoordinatorJob> findCoordinatorJobs(final Collection<OozieWorkflowJob> jobs) throws OozieServiceException {
+        final Map<String, OozieCoordinatorJob> coordinatorJobsByAction = new HashMap<>();
+        final Set<String> actionIds = jobs.stream()
+                .map(OozieWorkflowJob::getParentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        try {
+            for (final List<String> chunk : chunks(actionIds)) {
+                namedParameterJdbcTemplate.query(
+                        "SELECT T1.id AS action_id, T2.id, T2.app_name, T2.next_matd_time " +
+                                "FROM COORD_ACTIONS T1 JOIN COORD_JOBS T2 ON T1.job_id=T2.id WHERE T1.id IN (:ids)",
+                        Collections.singletonMap("ids", chunk),
+                        resultSet -> {
+                            coordinatorJobsByAction.put(
+                                    resultSet.getString("action_id"),
+                                    oozieCoordinatorJobMapper.mapRow(resultSet, resultSet.getRow())
+                            );
+                        }
+                );
+            }
+        } catch (Exception e) {
+            throw new OozieServiceException("Coordinator jobs of " + actionIds.size() + " actions", e);
+        }
+
+        final Map<String, OozieCoordinatorJob> coordinatorJobs = new HashMap<>();
+        jobs.forEach(job -> {
+            final OozieCoordinatorJob coordinatorJob = Objects.isNull(job.getParentId()) ? null : coordinatorJobsByAction.get(job.getParentId());
+            if (Objects.nonNull(coordinatorJob)) {
+                coordinatorJobs.put(job.getId(), coordinatorJob);
+            }
+        });
+        return coordinatorJobs;
+    }
+
+    @Override
+    public List<OozieWorkflowJob> findWorkflowJobsModifiedAfter(
+            final Date lastModifiedTime,
+            final String afterId,
+            final int limit
+    ) throws OozieServiceException {
+        final Timestamp timestamp = new Timestamp(lastModifiedTime.getTime());
+        try {
+            // the range on last_modified_time is what the index is used for, the id only breaks ties
+            return jdbcTemplate.query(
+                    "SELECT id, parent_id, status, start_time, end_time, last_modified_time FROM WF_JOBS " +
+                            "WHERE last_modified_time >= ? AND (last_modified_time > ? OR id > ?) " +
+                            "ORDER BY last_modified_time, id LIMIT ?",
+                    oozieWorkflowJobStateMapper,
+                    timestamp, timestamp, afterId, limit
+            );
+        } catch (Exception e) {
+            throw new OozieServiceException("Workflow jobs modified after " + lastModifiedTime + " '" + afterId + "'", e);
+        }
+    }
+
+    @Override
+    public Optional<Date> findLastModifiedTime() throws OozieServiceException {
+        try {
+            return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT MAX(last_modified_time) FROM WF_JOBS", Timestamp.class));
+        } catch (Exception e) {
+            throw new OozieServiceException("Last modified time of workflow jobs", e);
+        }
+    }
+
+    private static List<List<String>> chunks(final Collection<String> ids) {
+        final List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        final List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
 }
@@ -1,67 +1,316 @@
 package tasktracker.backend.oozie;
 
 import com.google.common.base.Preconditions;
-import lombok.RequiredArgsConstructor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import tasktracker.backend.metrics.MetricsSource;
 import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.Task.State;
 import tasktracker.backend.service.TaskTrackerService;
 
-import java.util.List;
-import java.util.Objects;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+/**
+ * Synchronizes states of the tasks with their Oozie workflow jobs.
+ * <p>
+ * Every {@code oozie.sync.incremental.period-ms} the workflow jobs modified since the previous cycle are read
+ * from the {@code WF_JOBS.last_modified_time} change feed and matched to the tasks by workflow id, so the cost
+ * follows the Oozie churn rather than the number of open tasks. The high-water mark is kept in memory, it starts
+ * at the latest modification in Oozie and every cycle re-reads {@code oozie.sync.incremental.overlap-ms} before it
+ * to catch transactions committed late.
+ * <p>
+ * Every {@code oozie.sync.full.period-ms}, and once at the start, the whole backlog of unsynchronized tasks is
+ * reconciled as a safety net. It is processed in pages, each page costs one query for its workflow jobs and one
+ * for the coordinator jobs of the finished ones.
+ * <p>
+ * Projects are reconciled in parallel by a pool of {@code oozie.sync.workers}, each project for at most
+ * {@code oozie.sync.project-budget-ms} per run, so one large backlog doesn't hold the other projects back.
+ * A project out of budget resumes from the same position on the next run. Synchronized tasks of a page are
+ * written with one JDBC batch.
+ */
 @Slf4j
-@RequiredArgsConstructor
 @Service
-public class OozieTaskStateSynchronizerScheduler {
-    private static final long SYNCHRONIZATION_TASKS_PERIOD_IN_MINUTES = 2;
-
+public class OozieTaskStateSynchronizerScheduler implements MetricsSource {
     private final TaskTrackerService taskTrackerService;
     private final OozieService oozieService;
+    private final int pageSize;
+    private final long projectBudgetMillis;
+    private final boolean incremental;
+    private final long overlapMillis;
+    private final ExecutorService executor;
+
+    private Date highWaterMark;
+    private String highWaterMarkId = "";
+
+    private final Map<Long, Long> resumeAfterIds = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reconciledAt = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> synchronizedCounts = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public OozieTaskStateSynchronizerScheduler(
+            final TaskTrackerService taskTrackerService,
+            final OozieService oozieService,
+            @Value("${oozie.sync.page-size:500}") final int pageSize,
+            @Value("${oozie.sync.workers:4}") final int workers,
+            @Value("${oozie.sync.project-budget-ms:60000}") final long projectBudgetMillis,
+            @Value("${oozie.sync.incremental.enabled:true}") final boolean incremental,
+            @Value("${oozie.sync.incremental.overlap-ms:60000}") final long overlapMillis
+    ) {
+        this.taskTrackerService = taskTrackerService;
+        this.oozieService = oozieService;
+        this.pageSize = pageSize;
+        this.projectBudgetMillis = projectBudgetMillis;
+        this.incremental = incremental;
+        this.overlapMillis = overlapMillis;
+        this.executor = Executors.newFixedThreadPool(
+                workers,
+                new ThreadFactoryBuilder().setNameFormat("tt-oozie-sync-%d").build()
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
 
-    @Scheduled(fixedRate = 1000 * 60 * SYNCHRONIZATION_TASKS_PERIOD_IN_MINUTES)
-    public void sync() {
+    /**
+     * Full reconcile of the unsynchronized tasks, one worker task per project.
+     */
+    @Scheduled(fixedRateString = "${oozie.sync.full.period-ms:3600000}")
+    public void sync() throws InterruptedException {
         log.info("Tasks synchronization process started");
 
-        final List<Project> projects = taskTrackerService.findProjects()
-                .stream()
-                .filter(project -> project.getSettings()
-                        .getTaskSynchronizationAllowed())
-                .collect(Collectors.toList());
+        final List<Project> projects = synchronizedProjects();
 
         if (projects.isEmpty()) {
             log.info("Nothing to sync");
         }
 
+        final Map<Project, Future<Long>> futures = new LinkedHashMap<>();
         for (final Project project : projects) {
+            futures.put(project, executor.submit(() -> sync(project)));
+        }
+
+        long synchronizedTasksCount = 0;
+        for (final Map.Entry<Project, Future<Long>> entry : futures.entrySet()) {
+            try {
+                synchronizedTasksCount += entry.getValue().get();
+            } catch (ExecutionException e) {
+                log.error("Synchronization of {} failed", entry.getKey(), e.getCause());
+            }
+        }
+
+        log.info("Tasks synchronization process completed, {} tasks were synchronized", synchronizedTasksCount);
+    }
 
-            final List<Task> unsynchronizedTasks = taskTrackerService.findUnsynchronizedTasks(project);
+    @Override
+    public Map<String, Number> metrics() {
+        final long now = System.currentTimeMillis();
+        final Map<String, Number> metrics = new LinkedHashMap<>();
+        if (Objects.nonNull(highWaterMark)) {
+            metrics.put("oozie.sync.feed.lag.ms", Math.max(0, now - highWaterMark.getTime()));
+        }
+        for (final Project project : synchronizedProjects()) {
+            final String prefix = "oozie.sync.project." + project.getId() + ".";
+            // time since the backlog of the project was last reconciled to the end
+            metrics.put(prefix + "lag.ms", now - reconciledAt.getOrDefault(project.getId(), startedAt));
+            metrics.put(prefix + "backlog.resumed", resumeAfterIds.containsKey(project.getId()) ? 1 : 0);
+            metrics.put(prefix + "synchronized", synchronizedCounts.getOrDefault(project.getId(), new AtomicLong()).get());
+        }
+        return metrics;
+    }
 
-            log.info("{} has total non-synchronized tasks {}", project, unsynchronizedTasks.size());
+    /**
+     * Incremental cycle over the workflow jobs modified since the previous one.
+     */
+    @Scheduled(
+            initialDelayString = "${oozie.sync.incremental.period-ms:30000}",
+            fixedDelayString = "${oozie.sync.incremental.period-ms:30000}"
+    )
+    public void syncChanges() {
+        if (!incremental) {
+            return;
+        }
 
-            if (unsynchronizedTasks.isEmpty()) {
-                log.info("Nothing to sync");
-                continue;
+        final Map<Long, Project> projects = synchronizedProjects()
+                .stream()
+                .collect(Collectors.toMap(Project::getId, project -> project));
+        if (projects.isEmpty()) {
+            return;
+        }
+
+        try {
+            syncChanges(projects);
+        } catch (OozieServiceException e) {
+            log.warn("Error while incremental task synchronization", e);
+        }
+    }
+
+    /**
+     * Synchronizes the tasks of the projects whose workflow jobs changed after the high-water mark.
+     *
+     * @return number of synchronized tasks
+     */
+    synchronized long syncChanges(final Map<Long, Project> projects) throws OozieServiceException {
+        if (Objects.isNull(highWaterMark)) {
+            highWaterMark = oozieService.findLastModifiedTime().orElse(new Date(0));
+            highWaterMarkId = "";
+            log.info("Oozie change feed starts at {}", highWaterMark);
+            return 0;
+        }
+
+        Date lastModifiedTime = new Date(highWaterMark.getTime() - overlapMillis);
+        String afterId = "";
+        long changed = 0;
+        long synchronizedTasksCount = 0;
+
+        while (true) {
+            final List<OozieWorkflowJob> jobs = oozieService.findWorkflowJobsModifiedAfter(lastModifiedTime, afterId, pageSize);
+            if (jobs.isEmpty()) {
+                break;
             }
+            changed += jobs.size();
 
-            final long synchronizedTasksCount = unsynchronizedTasks
+            final Map<String, OozieWorkflowJob> jobsById = jobs.stream()
+                    .collect(Collectors.toMap(OozieWorkflowJob::getId, job -> job, (a, b) -> b));
+            final Map<Project, List<Task>> projectTasks = taskTrackerService.findUnsynchronizedTasks(jobsById.keySet())
                     .stream()
-                    .map(task -> synchronizeTaskState(project, task))
-                    .filter(isSync -> isSync)
-                    .count();
+                    .filter(task -> projects.containsKey(task.getProject().getId()))
+                    .collect(Collectors.groupingBy(task -> projects.get(task.getProject().getId())));
+            for (final Map.Entry<Project, List<Task>> entry : projectTasks.entrySet()) {
+                synchronizedTasksCount += synchronizeTaskStates(entry.getKey(), entry.getValue(), jobsById);
+            }
 
-            log.info("{} tasks was synchronized", synchronizedTasksCount);
+            final OozieWorkflowJob last = jobs.get(jobs.size() - 1);
+            lastModifiedTime = last.getLastModifiedTime();
+            afterId = last.getId();
+            if (lastModifiedTime.after(highWaterMark)
+                    || lastModifiedTime.equals(highWaterMark) && afterId.compareTo(highWaterMarkId) > 0) {
+                highWaterMark = lastModifiedTime;
+                highWaterMarkId = afterId;
+            }
+
+            if (jobs.size() < pageSize) {
+                break;
+            }
         }
 
-        log.info(
-                "Tasks synchronization process completed. Next start in {} minutes",
-                SYNCHRONIZATION_TASKS_PERIOD_IN_MINUTES
-        );
+        log.info("{} tasks of {} changed workflow jobs was synchronized", synchronizedTasksCount, changed);
+
+        return synchronizedTasksCount;
+    }
+
+    private List<Project> synchronizedProjects() {
+        return taskTrackerService.findProjects()
+                .stream()
+                .filter(project -> Objects.nonNull(project.getSettings())
+                        && project.getSettings().getTaskSynchronizationAllowed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Synchronizes the unsynchronized tasks of the project, from where the previous run stopped,
+     * until the end of the backlog or the time budget.
+     *
+     * @return number of synchronized tasks
+     */
+    public long sync(final Project project) {
+        final long deadline = System.currentTimeMillis() + projectBudgetMillis;
+        long checked = 0;
+        long synchronizedTasksCount = 0;
+        Long afterId = resumeAfterIds.getOrDefault(project.getId(), 0L);
+        boolean reconciled = false;
+
+        while (true) {
+            final List<Task> tasks = taskTrackerService.findUnsynchronizedTasks(project, afterId, pageSize);
+            if (tasks.isEmpty()) {
+                reconciled = true;
+                break;
+            }
+            checked += tasks.size();
+
+            try {
+                synchronizedTasksCount += synchronizeTaskStates(project, tasks);
+            } catch (OozieServiceException e) {
+                log.warn("Error while task synchronization", e);
+                break;
+            }
+            afterId = tasks.get(tasks.size() - 1).getId();
+
+            if (tasks.size() < pageSize) {
+                reconciled = true;
+                break;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.info("{} is out of its synchronization budget, it continues after task {} on the next run", project, afterId);
+                break;
+            }
+        }
+
+        if (reconciled) {
+            resumeAfterIds.remove(project.getId());
+            reconciledAt.put(project.getId(), System.currentTimeMillis());
+        } else {
+            resumeAfterIds.put(project.getId(), afterId);
+        }
+
+        log.info("{} tasks of {} non-synchronized tasks of {} was synchronized", synchronizedTasksCount, checked, project);
+
+        return synchronizedTasksCount;
+    }
+
+    /**
+     * Synchronizes the tasks with their workflow jobs loaded in one batch.
+     *
+     * @return number of synchronized tasks
+     */
+    public long synchronizeTaskStates(final Project project, final List<Task> tasks) throws OozieServiceException {
+        final Set<String> workflowIds = tasks.stream()
+                .map(Task::getOozieWorkflowId)
+                .filter(id -> Objects.nonNull(id) && !id.isEmpty())
+                .collect(Collectors.toSet());
+        final Map<String, OozieWorkflowJob> jobs = workflowIds.isEmpty() ?
+                Collections.emptyMap() :
+                oozieService.findWorkflowJobs(workflowIds);
+
+        return synchronizeTaskStates(project, tasks, jobs);
+    }
+
+    private long synchronizeTaskStates(
+            final Project project,
+            final List<Task> tasks,
+            final Map<String, OozieWorkflowJob> jobs
+    ) throws OozieServiceException {
+
+        // coordinator jobs are needed only for the tasks which become synchronized
+        final List<OozieWorkflowJob> finishedJobs = tasks.stream()
+                .filter(task -> jobs.containsKey(task.getOozieWorkflowId()))
+                .filter(task -> taskTrackerService.isTerminalState(oozieWfJobStatusToTaskState(jobs.get(task.getOozieWorkflowId()), task)))
+                .map(task -> jobs.get(task.getOozieWorkflowId()))
+                .collect(Collectors.toList());
+        final Map<String, OozieCoordinatorJob> coordinatorJobs = finishedJobs.isEmpty() ?
+                Collections.emptyMap() :
+                oozieService.findCoordinatorJobs(finishedJobs);
+
+        final List<Task> synchronizedTasks = tasks.stream()
+                .filter(task -> {
+                    final OozieWorkflowJob job = jobs.get(task.getOozieWorkflowId());
+                    final OozieCoordinatorJob coordinatorJob = Objects.isNull(job) ? null : coordinatorJobs.get(job.getId());
+                    return applyTaskState(task, job, coordinatorJob);
+                })
+                .collect(Collectors.toList());
+        taskTrackerService.updateSynchronizedTasks(synchronizedTasks);
+        synchronizedCounts.computeIfAbsent(project.getId(), id -> new AtomicLong()).addAndGet(synchronizedTasks.size());
+
+        return synchronizedTasks.size();
     }
 
     public State oozieWfJobStatusToTaskState(final OozieWorkflowJob job, final Task task) {
@@ -127,34 +376,52 @@ public class OozieTaskStateSynchronizerScheduler {
 
         try {
             final OozieWorkflowJob job = oozieService.findWorkflowJob(oozieWorkflowId).orElse(null);
-            if (Objects.isNull(job)) {
-                task.setSynch(true);
+            final OozieCoordinatorJob coordinatorJob = Objects.isNull(job) ?
+                    null :
+                    oozieService.findCoordinatorJob(job).orElse(null);
+
+            if (applyTaskState(task, job, coordinatorJob)) {
                 taskTrackerService.update(project, task);
-                log.debug("New task {} state is {}", task.getId(), task.getState());
                 return true;
             }
+        } catch (OozieServiceException e) {
+            log.warn("Error while task synchronization", e);
+        }
 
-            log.debug("{}", job);
+        return false;
+    }
 
-            final OozieCoordinatorJob coordinatorJob = oozieService.findCoordinatorJob(job).orElse(null);
-            log.debug("{}", coordinatorJob);
+    /**
+     * Applies the state of the workflow job to the task.
+     *
+     * @return true if the task became synchronized and has to be saved
+     */
+    private boolean applyTaskState(
+            final Task task,
+            final OozieWorkflowJob job,
+            final OozieCoordinatorJob coordinatorJob
+    ) {
+        if (Objects.isNull(job)) {
+            task.setSynch(true);
+            log.debug("New task {} state is {}", task.getId(), task.getState());
+            return true;
+        }
 
-            final State state = oozieWfJobStatusToTaskState(job, task);
-            if (taskTrackerService.isTerminalState(state)) {
-                task.setSynch(true);
-                task.setState(state);
+        log.debug("{}", job);
+        log.debug("{}", coordinatorJob);
 
-                if (Objects.nonNull(coordinatorJob)) {
-                    task.setOozieCoordinatorId(coordinatorJob.getId());
-                    task.setNextDate(coordinatorJob.getNextMatdTime());
-                }
+        final State state = oozieWfJobStatusToTaskState(job, task);
+        if (taskTrackerService.isTerminalState(state)) {
+            task.setSynch(true);
+            task.setState(state);
 
-                taskTrackerService.update(project, task);
-                log.debug("New task {} state is {}", task.getId(), task.getState());
-                return true;
+            if (Objects.nonNull(coordinatorJob)) {
+                task.setOozieCoordinatorId(coordinatorJob.getId());
+                task.setNextDate(coordinatorJob.getNextMatdTime());
             }
-        } catch (OozieServiceException e) {
-            log.warn("Error while task synchronization", e);
+
+            log.debug("New task {} state is {}", task.getId(), task.getState());
+            return true;
         }
 
         return false;
@@ -0,0 +1,45 @@
+package tasktracker.backend.repository;
+
+import org.apache.commons.lang3.time.DateUtils;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Bounds of half-open date ranges, {@code from <= column < to}, so range queries compare the raw column
+ * and can use its index. A day or hour is the same as the database truncates it to, the JVM and the database
+ * share the time zone. Null dates are kept null, a comparison with null matches no rows as before.
+ */
+final class DateRanges {
+    private DateRanges() {
+    }
+
+    /**
+     * Start of the day of the date, the inclusive lower bound of {@code cast(column as date) >= cast(date as date)}.
+     */
+    static Date dayStart(final Date date) {
+        return Objects.isNull(date) ? null : DateUtils.truncate(date, Calendar.DAY_OF_MONTH);
+    }
+
+    /**
+     * Start of the next day, the exclusive upper bound of {@code cast(column as date) <= cast(date as date)}.
+     */
+    static Date nextDayStart(final Date date) {
+        return Objects.isNull(date) ? null : DateUtils.addDays(dayStart(date), 1);
+    }
+
+    /**
+     * Start of the hour of the date, the inclusive lower bound of {@code date_trunc('hour', column) >= date_trunc('hour', date)}.
+     */
+    static Date hourStart(final Date date) {
+        return Objects.isNull(date) ? null : DateUtils.truncate(date, Calendar.HOUR_OF_DAY);
+    }
+
+    /**
+     * Start of the next hour, the exclusive upper bound of {@code date_trunc('hour', column) <= date_trunc('hour', date)}.
+     */
+    static Date nextHourStart(final Date date) {
+        return Objects.isNull(date) ? null : DateUtils.addHours(hourStart(date), 1);
+    }
+}
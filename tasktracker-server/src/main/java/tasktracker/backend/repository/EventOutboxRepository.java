@@ -0,0 +1,26 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.model.EventOutboxEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventOutboxRepository extends JpaRepository<EventOutboxEntry, Long> {
+
+    @Query("SELECT e FROM EventOutboxEntry e WHERE (e.nodeId = :nodeId OR e.nodeId IS NULL) AND e.id > :id ORDER BY e.id")
+    List<EventOutboxEntry> findPending(@Param("nodeId") String nodeId, @Param("id") Long id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventOutboxEntry e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+}
@@ -0,0 +1,33 @@
+package tasktracker.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fallback for the embedded database used in development and tests.
+ */
+public class H2TaskAggregationRepository extends JdbcTaskAggregationRepository {
+
+    public H2TaskAggregationRepository(final JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    protected String median(final String expression) {
+        return "MEDIAN(CAST(" + expression + " AS DOUBLE))";
+    }
+
+    @Override
+    protected String executionTimeSeconds() {
+        return "DATEDIFF('SECOND', start_date, end_date)";
+    }
+
+    @Override
+    protected String startHour() {
+        return "DATEADD('HOUR', HOUR(start_date), CAST(CAST(start_date AS DATE) AS TIMESTAMP))";
+    }
+
+    @Override
+    protected String startDay() {
+        return "CAST(CAST(start_date AS DATE) AS TIMESTAMP)";
+    }
+}
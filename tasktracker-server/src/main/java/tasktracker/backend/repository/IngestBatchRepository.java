@@ -0,0 +1,23 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.model.IngestBatch;
+
+import java.util.Date;
+
+@Repository
+public interface IngestBatchRepository extends JpaRepository<IngestBatch, Long> {
+
+    boolean existsByProjectIdAndIdempotencyKey(Long projectId, String idempotencyKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IngestBatch b WHERE b.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Date before);
+
+}
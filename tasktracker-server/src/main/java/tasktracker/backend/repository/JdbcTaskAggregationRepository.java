@@ -0,0 +1,162 @@
+package tasktracker.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import tasktracker.backend.controller.model.dashboard.TopChart;
+import tasktracker.backend.model.ProjectDailyStats;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain SQL part of {@link TaskAggregationRepository}. Dialects only supply
+ * the median, the execution time and the date bucketing expressions.
+ * <p>
+ * Ranges are passed as half-open [start, end) timestamps so that
+ * the (project_id, start_date, end_date) index can be used. Tasks are grouped
+ * by their name id, names are joined to the groups only.
+ */
+public abstract class JdbcTaskAggregationRepository implements TaskAggregationRepository {
+    private static final RowMapper<TopChart.TopElement> TOP_ELEMENT_MAPPER = (resultSet, i) ->
+            new TopChart.TopElement(resultSet.getString("name"), (int) resultSet.getDouble("counter"));
+    private static final RowMapper<TopChart.TopWarningElement> TOP_WARNING_ELEMENT_MAPPER = (resultSet, i) ->
+            new TopChart.TopWarningElement(resultSet.getString("name"), resultSet.getInt("counter"), resultSet.getString("task_name"));
+    private static final RowMapper<ProjectDailyStats> DAILY_STATS_MAPPER = (resultSet, i) -> {
+        final ProjectDailyStats stats = new ProjectDailyStats();
+        stats.setDate(new Date(resultSet.getTimestamp("bucket").getTime()));
+        stats.setTotalTasks(resultSet.getInt("total_tasks"));
+        stats.setTotalCompletedTasks(resultSet.getInt("total_completed_tasks"));
+        stats.setTotalFailedTasks(resultSet.getInt("total_failed_tasks"));
+        stats.setTotalRunningTasks(resultSet.getInt("total_running_tasks"));
+        stats.setTotalDistinctTasks(resultSet.getInt("total_distinct_tasks"));
+        return stats;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    protected JdbcTaskAggregationRepository(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Median aggregate of the given numeric expression.
+     */
+    protected abstract String median(String expression);
+
+    /**
+     * Number of seconds between task_state.start_date and task_state.end_date.
+     */
+    protected abstract String executionTimeSeconds();
+
+    /**
+     * task_state.start_date truncated to the hour.
+     */
+    protected abstract String startHour();
+
+    /**
+     * task_state.start_date truncated to the day.
+     */
+    protected abstract String startDay();
+
+    @Override
+    public List<TopChart.TopElement> countFailedTasksByName(final Long projectId, final Date start, final Date end, final int top) {
+        final String sql = "SELECT n.name, c.counter " +
+                "FROM (SELECT name_id, COUNT(*) AS counter " +
+                "FROM task_state " +
+                "WHERE project_id = ? AND start_date >= ? AND start_date < ? AND status = 'FAILED' " +
+                "GROUP BY name_id) c JOIN task_name n ON n.id = c.name_id " +
+                "ORDER BY counter DESC, name " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, TOP_ELEMENT_MAPPER, projectId, dayStart(start), nextDayStart(end), top);
+    }
+
+    @Override
+    public List<TopChart.TopElement> medianExecutionTimeByName(final Long projectId, final Date start, final Date end, final int top) {
+        final String sql = "SELECT n.name, c.counter " +
+                "FROM (SELECT name_id, " + median(executionTimeSeconds()) + " AS counter " +
+                "FROM task_state " +
+                "WHERE project_id = ? AND start_date >= ? AND start_date < ? AND status = 'SUCCEEDED' AND end_date IS NOT NULL " +
+                "GROUP BY name_id) c JOIN task_name n ON n.id = c.name_id " +
+                "ORDER BY counter DESC, name " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, TOP_ELEMENT_MAPPER, projectId, dayStart(start), nextDayStart(end), top);
+    }
+
+    @Override
+    public List<TopChart.TopElement> countErrorsByType(final Long projectId, final Date start, final Date end, final int top) {
+        final String sql = "SELECT e.type AS name, COUNT(*) AS counter " +
+                "FROM task_state t JOIN task_error e ON e.task_state_id = t.id " +
+                "WHERE t.project_id = ? AND t.start_date >= ? AND t.start_date < ? AND t.status = 'FAILED' AND e.type IS NOT NULL " +
+                "GROUP BY e.type " +
+                "ORDER BY counter DESC, name " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, TOP_ELEMENT_MAPPER, projectId, dayStart(start), nextDayStart(end), top);
+    }
+
+    @Override
+    public List<TopChart.TopWarningElement> countWarningsByMessage(final Long projectId, final Date start, final Date end, final int top) {
+        final String sql = "SELECT w.message AS name, COUNT(*) AS counter, MIN(n.name) AS task_name " +
+                "FROM task_state t JOIN warning w ON w.task_id = t.id JOIN task_name n ON n.id = t.name_id " +
+                "WHERE t.project_id = ? AND t.start_date >= ? AND t.start_date < ? " +
+                "GROUP BY w.message " +
+                "ORDER BY counter DESC, name " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, TOP_WARNING_ELEMENT_MAPPER, projectId, dayStart(start), nextDayStart(end), top);
+    }
+
+    @Override
+    public Map<Date, Integer> countTasksByStartHour(final Long projectId, final Date from, final Date to) {
+        return countTasksByBucket(startHour(), projectId, new Timestamp(from.getTime()), new Timestamp(to.getTime()));
+    }
+
+    @Override
+    public Map<Date, Integer> countTasksByStartDay(final Long projectId, final Date from, final Date to) {
+        return countTasksByBucket(startDay(), projectId, new Timestamp(from.getTime()), new Timestamp(to.getTime()));
+    }
+
+    @Override
+    public List<ProjectDailyStats> countDailyStats(final Long projectId, final Date from, final Date to) {
+        final String sql = "SELECT " + startDay() + " AS bucket, " +
+                "COUNT(*) AS total_tasks, " +
+                "SUM(CASE WHEN status = 'SUCCEEDED' THEN 1 ELSE 0 END) AS total_completed_tasks, " +
+                "SUM(CASE WHEN status = 'FAILED' THEN 1 ELSE 0 END) AS total_failed_tasks, " +
+                "SUM(CASE WHEN status = 'RUNNING' THEN 1 ELSE 0 END) AS total_running_tasks, " +
+                "COUNT(DISTINCT name_id) AS total_distinct_tasks " +
+                "FROM task_state " +
+                "WHERE project_id = ? AND start_date >= ? AND start_date < ? " +
+                "GROUP BY " + startDay() + " " +
+                "ORDER BY bucket";
+        return jdbcTemplate.query(sql, DAILY_STATS_MAPPER, projectId, new Timestamp(from.getTime()), new Timestamp(to.getTime()));
+    }
+
+    private Map<Date, Integer> countTasksByBucket(
+            final String bucket,
+            final Long projectId,
+            final Timestamp from,
+            final Timestamp to
+    ) {
+        final String sql = "SELECT " + bucket + " AS bucket, COUNT(*) AS counter " +
+                "FROM task_state " +
+                "WHERE project_id = ? AND start_date >= ? AND start_date < ? " +
+                "GROUP BY " + bucket + " " +
+                "ORDER BY bucket";
+
+        final Map<Date, Integer> result = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, resultSet -> {
+            result.put(new Date(resultSet.getTimestamp("bucket").getTime()), resultSet.getInt("counter"));
+        }, projectId, from, to);
+
+        return result;
+    }
+
+    private static Timestamp dayStart(final Date date) {
+        return new Timestamp(DateRanges.dayStart(date).getTime());
+    }
+
+    private static Timestamp nextDayStart(final Date date) {
+        return new Timestamp(DateRanges.nextDayStart(date).getTime());
+    }
+}
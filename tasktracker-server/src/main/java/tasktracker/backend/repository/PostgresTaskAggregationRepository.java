@@ -0,0 +1,30 @@
+package tasktracker.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class PostgresTaskAggregationRepository extends JdbcTaskAggregationRepository {
+
+    public PostgresTaskAggregationRepository(final JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    protected String median(final String expression) {
+        return "percentile_cont(0.5) WITHIN GROUP (ORDER BY " + expression + ")";
+    }
+
+    @Override
+    protected String executionTimeSeconds() {
+        return "EXTRACT(EPOCH FROM (end_date - start_date))";
+    }
+
+    @Override
+    protected String startHour() {
+        return "date_trunc('hour', start_date)";
+    }
+
+    @Override
+    protected String startDay() {
+        return "date_trunc('day', start_date)";
+    }
+}
@@ -0,0 +1,27 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tasktracker.backend.model.ProjectDailyStats;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProjectDailyStatsRepository extends JpaRepository<ProjectDailyStats, Long> {
+
+    @Query("SELECT s FROM ProjectDailyStats s " +
+            "WHERE s.project.id = :projectId AND s.date >= :from AND s.date < :to " +
+            "ORDER BY s.date")
+    List<ProjectDailyStats> findStats(
+            @Param("projectId") Long projectId,
+            @Param("from") Date from,
+            @Param("to") Date to
+    );
+
+    @Query("SELECT MIN(s.date) FROM ProjectDailyStats s WHERE s.project.id = :projectId")
+    Optional<Date> findFirstDate(@Param("projectId") Long projectId);
+}
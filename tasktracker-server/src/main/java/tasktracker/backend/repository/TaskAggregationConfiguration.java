@@ -0,0 +1,30 @@
+package tasktracker.backend.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+public class TaskAggregationConfiguration {
+
+    @Bean
+    public TaskAggregationRepository taskAggregationRepository(
+            final DataSource dataSource,
+            final JdbcTemplate jdbcTemplate
+    ) throws MetaDataAccessException {
+        final String databaseProductName = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+
+        if ("PostgreSQL".equalsIgnoreCase(databaseProductName)) {
+            return new PostgresTaskAggregationRepository(jdbcTemplate);
+        }
+
+        log.info("Using H2 dashboard aggregations for database '{}'", databaseProductName);
+        return new H2TaskAggregationRepository(jdbcTemplate);
+    }
+}
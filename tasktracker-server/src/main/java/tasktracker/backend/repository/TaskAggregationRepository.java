@@ -0,0 +1,50 @@
+package tasktracker.backend.repository;
+
+import tasktracker.backend.controller.model.dashboard.TopChart;
+import tasktracker.backend.model.ProjectDailyStats;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard aggregations computed by the database.
+ * Top charts select tasks by start date and include both the start and the end day.
+ */
+public interface TaskAggregationRepository {
+
+    /**
+     * Number of FAILED tasks per task name, most failed first.
+     */
+    List<TopChart.TopElement> countFailedTasksByName(Long projectId, Date start, Date end, int top);
+
+    /**
+     * Median execution time in seconds of SUCCEEDED tasks per task name, longest first.
+     */
+    List<TopChart.TopElement> medianExecutionTimeByName(Long projectId, Date start, Date end, int top);
+
+    /**
+     * Number of typed errors of FAILED tasks per error type, most frequent first.
+     */
+    List<TopChart.TopElement> countErrorsByType(Long projectId, Date start, Date end, int top);
+
+    /**
+     * Number of warnings per message, most frequent first.
+     */
+    List<TopChart.TopWarningElement> countWarningsByMessage(Long projectId, Date start, Date end, int top);
+
+    /**
+     * Number of tasks per start hour for tasks started in [from, to).
+     */
+    Map<Date, Integer> countTasksByStartHour(Long projectId, Date from, Date to);
+
+    /**
+     * Number of tasks per start day for tasks started in [from, to).
+     */
+    Map<Date, Integer> countTasksByStartDay(Long projectId, Date from, Date to);
+
+    /**
+     * Daily rollups (without project) for tasks started in [from, to). Days without tasks are absent.
+     */
+    List<ProjectDailyStats> countDailyStats(Long projectId, Date from, Date to);
+}
@@ -1,13 +1,19 @@
 package tasktracker.backend.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.TaskError;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskErrorRepository extends CrudRepository<TaskError, Long> {
 
     List<TaskError> findByTask(Task task);
 
+    @Query("SELECT e FROM TaskError e WHERE e.task.id IN :taskIds")
+    List<TaskError> findByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
 }
@@ -1,14 +1,20 @@
 package tasktracker.backend.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.TaskMetric;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TaskMetricRepository extends CrudRepository<TaskMetric, Long> {
 
     List<TaskMetric> findByTask(Task task);
+
+    @Query("SELECT m FROM TaskMetric m WHERE m.task.id IN :taskIds")
+    List<TaskMetric> findByTaskIds(@Param("taskIds") Collection<Long> taskIds);
 }
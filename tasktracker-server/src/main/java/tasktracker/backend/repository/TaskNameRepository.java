@@ -0,0 +1,31 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.model.TaskName;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Transactional
+@Repository
+public interface TaskNameRepository extends CrudRepository<TaskName, Integer> {
+
+    Optional<TaskName> findByProjectIdAndNormalizedName(Long projectId, String normalizedName);
+
+    List<TaskName> findByProjectIdAndNormalizedNameIn(Long projectId, Collection<String> normalizedNames);
+
+    List<TaskName> findByProjectId(Long projectId);
+
+    @Query("SELECT n.name FROM TaskName n WHERE n.project.id = :projectId")
+    List<String> findNames(@Param("projectId") Long projectId);
+
+    @Modifying
+    @Query("UPDATE TaskName n SET n.name = :name, n.normalizedName = :normalizedName WHERE n.id = :id")
+    int rename(@Param("id") Integer id, @Param("name") String name, @Param("normalizedName") String normalizedName);
+}
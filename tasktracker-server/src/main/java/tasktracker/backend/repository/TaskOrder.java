@@ -0,0 +1,174 @@
+package tasktracker.backend.repository;
+
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sort orders of task listings. Every order is made total by the task id,
+ * so a page can be continued from its last task (keyset pagination).
+ */
+public enum TaskOrder {
+    ID(null, false) {
+        @Override
+        Predicate after(final Root<Task> root, final CriteriaBuilder cb, final Task last) {
+            return cb.greaterThan(root.<Long>get("id"), last.getId());
+        }
+
+        @Override
+        Expression<?> key(final Root<Task> root, final CriteriaBuilder cb) {
+            return root.get("id");
+        }
+    },
+    /**
+     * Tasks without a name go first.
+     */
+    NAME("name", false) {
+        @Override
+        Predicate after(final Root<Task> root, final CriteriaBuilder cb, final Task last) {
+            final String lastName = Objects.isNull(last.getTaskName()) ? NO_NAME : last.getTaskName().getNormalizedName();
+            return seek(cb, normalizedName(root, cb), lastName, root.<Long>get("id"), last.getId(), false);
+        }
+
+        @Override
+        Expression<?> key(final Root<Task> root, final CriteriaBuilder cb) {
+            return normalizedName(root, cb);
+        }
+    },
+    STATUS("status", false) {
+        @Override
+        Predicate after(final Root<Task> root, final CriteriaBuilder cb, final Task last) {
+            return seek(cb, root.<Task.State>get("state"), last.getState(), root.<Long>get("id"), last.getId(), false);
+        }
+
+        @Override
+        Expression<?> key(final Root<Task> root, final CriteriaBuilder cb) {
+            return root.get("state");
+        }
+    },
+    /**
+     * Tasks without a start date go last.
+     */
+    START_DATE("startDate", true) {
+        @Override
+        Predicate after(final Root<Task> root, final CriteriaBuilder cb, final Task last) {
+            return seek(cb, date(root, cb, "startDate"), orNoDate(last.getStartDate()), root.<Long>get("id"), last.getId(), true);
+        }
+
+        @Override
+        Expression<?> key(final Root<Task> root, final CriteriaBuilder cb) {
+            return date(root, cb, "startDate");
+        }
+    },
+    /**
+     * Running tasks have no end date, they go last.
+     */
+    END_DATE("endDate", true) {
+        @Override
+        Predicate after(final Root<Task> root, final CriteriaBuilder cb, final Task last) {
+            return seek(cb, date(root, cb, "endDate"), orNoDate(last.getEndDate()), root.<Long>get("id"), last.getId(), true);
+        }
+
+        @Override
+        Expression<?> key(final Root<Task> root, final CriteriaBuilder cb) {
+            return date(root, cb, "endDate");
+        }
+    };
+
+    private static final Date NO_DATE = new Date(0);
+    private static final String NO_NAME = "";
+
+    private final String parameter;
+    private final boolean descending;
+
+    TaskOrder(final String parameter, final boolean descending) {
+        this.parameter = parameter;
+        this.descending = descending;
+    }
+
+    /**
+     * @param orderBy - "name", "status", "startDate" or "endDate" as accepted by the task listings
+     * @return the order, {@link #ID} if nothing matches
+     */
+    public static TaskOrder of(final String orderBy) {
+        return Arrays.stream(values())
+                .filter(order -> Objects.nonNull(order.parameter) && order.parameter.equals(orderBy))
+                .findFirst()
+                .orElse(ID);
+    }
+
+    /**
+     * Tasks that come after the given one in this order.
+     */
+    abstract Predicate after(Root<Task> root, CriteriaBuilder cb, Task last);
+
+    abstract Expression<?> key(Root<Task> root, CriteriaBuilder cb);
+
+    List<Order> orders(final Root<Task> root, final CriteriaBuilder cb) {
+        if (this == ID) {
+            return Arrays.asList(cb.asc(root.get("id")));
+        }
+        if (descending) {
+            return Arrays.asList(cb.desc(key(root, cb)), cb.desc(root.get("id")));
+        }
+        return Arrays.asList(cb.asc(key(root, cb)), cb.asc(root.get("id")));
+    }
+
+    /**
+     * The date, or the earliest date when there is none, so the tasks without the date sort last in the
+     * descending orders of every database and the seek predicates compare no nulls.
+     */
+    private static Expression<Date> date(final Root<Task> root, final CriteriaBuilder cb, final String attribute) {
+        return cb.coalesce(root.<Date>get(attribute), cb.literal(NO_DATE));
+    }
+
+    /**
+     * The name of the task, left joined so the tasks without a name aren't dropped. The join is shared by
+     * the order and the seek predicate of a query.
+     */
+    @SuppressWarnings("unchecked")
+    static Join<Task, TaskName> taskName(final Root<Task> root) {
+        return root.getJoins().stream()
+                .filter(join -> "taskName".equals(join.getAttribute().getName()) && join.getJoinType() == JoinType.LEFT)
+                .map(join -> (Join<Task, TaskName>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("taskName", JoinType.LEFT));
+    }
+
+    /**
+     * The normalized name, or an empty one when there is none, so the seek predicates compare no nulls.
+     */
+    private static Expression<String> normalizedName(final Root<Task> root, final CriteriaBuilder cb) {
+        return cb.coalesce(taskName(root).<String>get("normalizedName"), cb.literal(NO_NAME));
+    }
+
+    private static Date orNoDate(final Date date) {
+        return Objects.isNull(date) ? NO_DATE : date;
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate seek(
+            final CriteriaBuilder cb,
+            final Expression<Y> key,
+            final Y value,
+            final Path<Long> id,
+            final Long lastId,
+            final boolean descending
+    ) {
+        if (descending) {
+            return cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, lastId)));
+        }
+        return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, lastId)));
+    }
+}
@@ -0,0 +1,138 @@
+package tasktracker.backend.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of the task tables on PostgreSQL, see the V1_9 migration. The task tables are partitioned
+ * by the start month of the task, a partition of a month is named {@code <table>_pYYYYMM}.
+ * Other databases keep the tables unpartitioned.
+ */
+@Slf4j
+@Repository
+public class TaskPartitionRepository {
+    /**
+     * Partitioned tables, the tables referring to task_state first.
+     */
+    public static final List<String> TABLES = Collections.unmodifiableList(Arrays.asList(
+            "warning", "task_statistics", "task_error", "task_metric", "task_state"
+    ));
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyyMM");
+    private static final Pattern PARTITION = Pattern.compile("^(" + String.join("|", TABLES) + ")_p\\d{6}$");
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public TaskPartitionRepository(final DataSource dataSource, final JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = "PostgreSQL".equalsIgnoreCase(
+                (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName"));
+    }
+
+    public boolean isPartitioned() {
+        return postgres && jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('task_state')", Integer.class) > 0;
+    }
+
+    public static String partition(final String table, final YearMonth month) {
+        return table + month.format(SUFFIX);
+    }
+
+    public static YearMonth month(final String partition) {
+        return YearMonth.parse(partition.substring(partition.length() - 6), DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+
+    /**
+     * Adds the partitions of the months from one to another inclusive that are missing, the rows of these months
+     * are moved from the default partitions to them.
+     *
+     * @return number of partitions added
+     */
+    public int createPartitions(final YearMonth from, final YearMonth to) {
+        return jdbcTemplate.queryForObject("SELECT create_task_partitions(?, ?)", Integer.class,
+                Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1)));
+    }
+
+    /**
+     * Start month of the first task in the default partition, empty if it only has tasks without a start date.
+     */
+    public Optional<YearMonth> findFirstDefaultMonth() {
+        final Date first = jdbcTemplate.queryForObject("SELECT MIN(start_date)::DATE FROM task_state_default", Date.class);
+        return Optional.ofNullable(first).map(date -> YearMonth.from(date.toLocalDate()));
+    }
+
+    /**
+     * Monthly partitions attached to the table, the default partition is left out.
+     */
+    public List<String> findPartitions(final String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?) AND c.relname ~ '_p[0-9]{6}$' ORDER BY c.relname",
+                String.class, table);
+    }
+
+    /**
+     * Monthly partitions detached from their table and not archived yet.
+     */
+    public List<String> findDetachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT relname FROM pg_class WHERE relkind = 'r' AND NOT relispartition AND relname ~ ? ORDER BY relname",
+                String.class, PARTITION.pattern());
+    }
+
+    /**
+     * Detaches the partition, its rows are no longer seen by the queries on the table.
+     */
+    public void detach(final String partition) {
+        final String table = table(partition);
+        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+        log.info("Detached partition {} of {}", partition, table);
+    }
+
+    /**
+     * Reads all rows of a detached partition with a cursor, so the rows aren't held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void stream(final String partition, final RowCallbackHandler handler) {
+        table(partition);
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + partition);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+
+    public void drop(final String partition) {
+        table(partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Dropped partition {}", partition);
+    }
+
+    /**
+     * Table of the partition. Partition names are checked before they are put into statements.
+     */
+    private static String table(final String partition) {
+        if (!PARTITION.matcher(partition).matches()) {
+            throw new IllegalArgumentException("Not a task partition: " + partition);
+        }
+        return partition.substring(0, partition.length() - SUFFIX.format(YearMonth.of(2000, 1)).length());
+    }
+}
@@ -1,55 +1,52 @@
 package tasktracker.backend.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Transactional
 @Repository
-public interface TaskRepository extends CrudRepository<Task, Long> {
+public interface TaskRepository extends CrudRepository<Task, Long>, TaskRepositoryCustom {
 
     List<Task> findByProjectId(Long projectId);
 
     List<Task> findByProject(Project project);
 
-    Optional<Task> findTopByProjectIdAndNameAndStateOrderByIdDesc(Long projectId, String taskName, Task.State state);
+    Optional<Task> findTopByProjectIdAndTaskNameIdAndStateOrderByIdDesc(Long projectId, Integer nameId, Task.State state);
 
-    Optional<Task> findTopByProjectIdAndNameOrderByIdDesc(Long projectId, String taskName);
+    Optional<Task> findTopByProjectIdAndTaskNameIdOrderByIdDesc(Long projectId, Integer nameId);
 
-    @Query(value = "SELECT \n" +
-            "NAME \n" +
-            "FROM TASK_STATE\n" +
-            "WHERE \n" +
-            "    PROJECT_ID = :PROJECT_ID \n" +
-            "GROUP BY \n" +
-            "    NAME",
-            nativeQuery = true)
-    List<String> getTaskNames(@Param("PROJECT_ID") Long projectId);
+    List<Task> findByProjectIdAndTaskNameIdAndStateOrderByIdDesc(Long projectId, Integer nameId, Task.State state, Pageable pageable);
+
+    List<Task> findByProjectIdAndStateAndEndDateIsNull(Long projectId, Task.State state);
 
     List<Task> findByProjectIdAndStartDateGreaterThanEqualAndStartDateLessThan(Long projectId, Date startDateFrom, Date startDateTo);
 
     List<Task> findByProjectIdAndNominalDateGreaterThanEqualAndNominalDateLessThan(Long projectId, Date nominalDateFrom, Date nominalDateTo);
 
-    @Query(
-            "FROM TaskState t WHERE t.project.id = :projectId AND " +
-                    "cast(nominalDate as date) >= cast(:start as date) AND " +
-                    "cast(nominalDate as date) <= cast(:end as date)"
-    )
-    List<Task> findTasks(
-            @Param("projectId") Long projectId,
-            @Param("start") Date nominalDateFrom,
-            @Param("end") Date nominalDateTo
-    );
+    /**
+     * Tasks of the nominal days from the day of nominalDateFrom to the day of nominalDateTo inclusive.
+     */
+    default List<Task> findTasks(Long projectId, Date nominalDateFrom, Date nominalDateTo) {
+        return findByProjectIdAndNominalDateGreaterThanEqualAndNominalDateLessThan(
+                projectId, DateRanges.dayStart(nominalDateFrom), DateRanges.nextDayStart(nominalDateTo));
+    }
 
     List<Task> findByProjectIdAndEndDateGreaterThanEqualAndEndDateLessThan(Long projectId, Date endDateFrom, Date endDateTo);
 
@@ -71,44 +68,72 @@ public interface TaskRepository extends CrudRepository<Task, Long> {
 
     List<Task> findByProjectIdAndEndDateLessThanEqual(Long projectId, Date endDate);
 
-    @Query(value = "from TaskState t where cast(startDate as date) = cast(:date as date) and state = :state")
-    List<Task> findByDateAndState(@Param("date") Date date, @Param("state") Task.State state);
-
-    @Query("from TaskState t where " +
-            "t.project = :project and " +
-            "cast(t.startDate as date) >= cast(:start as date) and " +
-            "cast(t.startDate as date) <= cast(:end as date)"
-    )
-    List<Task> findTasksInRage(
+    /**
+     * Tasks of all projects started on the day of the date.
+     */
+    default List<Task> findByDateAndState(Date date, Task.State state) {
+        return findByStartDateRangeAndState(DateRanges.dayStart(date), DateRanges.nextDayStart(date), state);
+    }
+
+    @Query("from TaskState t where t.startDate >= :from and t.startDate < :to and t.state = :state")
+    List<Task> findByStartDateRangeAndState(@Param("from") Date from, @Param("to") Date to, @Param("state") Task.State state);
+
+    /**
+     * Tasks started from the day of start to the day of end inclusive.
+     */
+    default List<Task> findTasksInRage(Project project, Date start, Date end) {
+        return findByStartDateRange(project, DateRanges.dayStart(start), DateRanges.nextDayStart(end));
+    }
+
+    /**
+     * Tasks started from the hour of start to the hour of end inclusive.
+     */
+    default List<Task> findTasksInRageTruncHour(Project project, Date start, Date end) {
+        return findByStartDateRange(project, DateRanges.hourStart(start), DateRanges.nextHourStart(end));
+    }
+
+    @Query("from TaskState t where t.project = :project and t.startDate >= :from and t.startDate < :to")
+    List<Task> findByStartDateRange(@Param("project") Project project, @Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT MIN(t.startDate) FROM TaskState t WHERE t.project.id = :projectId")
+    Optional<Date> findFirstStartDate(@Param("projectId") Long projectId);
+
+    long countByTaskName(TaskName taskName);
+
+    /**
+     * Moves the tasks of one dictionary name to another, used when a rename merges two names.
+     */
+    @Modifying
+    @Query("UPDATE TaskState t SET t.taskName = :target WHERE t.taskName = :source")
+    int moveTasks(@Param("source") TaskName source, @Param("target") TaskName target);
+
+    /**
+     * Unsynchronized tasks of the given Oozie workflows, in one query instead of one per workflow.
+     */
+    @Query("FROM TaskState t WHERE t.synch = false AND t.oozieWorkflowId IN :workflowIds")
+    List<Task> findUnsynchronizedTasksByOozieWorkflowIds(@Param("workflowIds") Collection<String> workflowIds);
+
+    /**
+     * Page of unsynchronized tasks after the given id, pages are chained by the last id of the previous one.
+     */
+    @Query("FROM TaskState t WHERE t.project = :project AND t.synch = false AND t.id > :afterId ORDER BY t.id")
+    List<Task> findUnsynchronizedProjectTasks(
             @Param("project") Project project,
-            @Param("start") Date start,
-            @Param("end") Date end
-    );
-
-    @Query("from TaskState t where " +
-            "t.project = :project and " +
-            "date_trunc('hour', t.startDate) >= date_trunc('hour', cast(:start as timestamp)) and " +
-            "date_trunc('hour', t.startDate) <= date_trunc('hour', cast(:end as timestamp))"
-    )
-    List<Task> findTasksInRageTruncHour(
-                    @Param("project") Project project,
-                    @Param("start") Date start,
-                    @Param("end") Date end
+            @Param("afterId") Long afterId,
+            Pageable pageable
     );
 
-    @Modifying
-    @Query("UPDATE TaskState t SET t.name = :newName WHERE t.name = :originalName")
-    int renameTasks(@Param("originalName") String originalName, @Param("newName") String newName);
-
-
-    @Query("FROM TaskState t WHERE t.project = :project AND t.synch = false")
-    List<Task> findUnsynchronizedProjectTasks(@Param("project") Project project, Pageable pageable);
-
-    @Query("FROM TaskState t WHERE t.project = :project AND t.analyzed = false AND t.state in (:states)")
-    List<Task> findUnanalyzedTasksProjectTasks(@Param("project") Project project, @Param("states") List<Task.State> states, Pageable of);
-
-    @Query(value = "SELECT id , application_id , end_date , name , start_date , status , timestamp , username , project_id  , auto_updated , task_type  , nominal_date , next_date , oozie_workflow_id , oozie_workflow_name , synchronized , analyzed , oozie_coordinator_id " +
-            "FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY name ORDER BY id DESC) as rn FROM task_state WHERE project_id = :PROJECT_ID AND status = 'SUCCEEDED') t " +
+    /**
+     * Locks unanalyzed tasks with {@code FOR UPDATE SKIP LOCKED} (lock timeout -2 is Hibernate's skip locked),
+     * so concurrent workers get disjoint batches. Dialects without skip locked fall back to {@code FOR UPDATE}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("FROM TaskState t WHERE t.project = :project AND t.analyzed = false AND t.state in (:states) ORDER BY t.nominalDate, t.id")
+    List<Task> claimUnanalyzedTasks(@Param("project") Project project, @Param("states") List<Task.State> states, Pageable pageable);
+
+    @Query(value = "SELECT id , application_id , end_date , name_id , start_date , status , timestamp , username , project_id  , auto_updated , task_type  , nominal_date , next_date , oozie_workflow_id , oozie_workflow_name , synchronized , analyzed , oozie_coordinator_id " +
+            "FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY name_id ORDER BY id DESC) as rn FROM task_state WHERE project_id = :PROJECT_ID AND status = 'SUCCEEDED') t " +
             "WHERE rn = 1;",
     nativeQuery = true)
     List<Task> findDistinctLatestSucceededTasksByProject(@Param("PROJECT_ID") Long projectId);
@@ -121,20 +146,40 @@ public interface TaskRepository extends CrudRepository<Task, Long> {
 //                    "cast(nominalDate as date) < cast(:end as date) " +
 //                    "ORDER BY nominalDate ASC "
 //    )
+    /**
+     * Last n tasks of the days before nominalDateTo, which is the start of a day.
+     */
     @Query(nativeQuery = true,
             value = "SELECT * FROM task_state t " +
                     "WHERE project_id = :projectId AND " +
-                    "name = :taskName AND " +
+                    "name_id = :nameId AND " +
                     "status = :state AND " +
-                    "cast(nominal_date as date) < cast(:end as date) " +
+                    "nominal_date < :end " +
                     "ORDER BY nominal_date DESC " +
                     "LIMIT :n"
     )
     List<Task> findLastNTasksByProjectAndNominalDateAndState(
             @Param("projectId") Long projectId,
-            @Param("taskName") String taskName,
+            @Param("nameId") Integer nameId,
             @Param("state") String state,
             @Param("end") Date nominalDateTo,
             @Param("n") Integer n
     );
+
+    /**
+     * Tasks from the day nominalDateFrom on, which is the start of a day.
+     */
+    @Query(nativeQuery = true,
+            value = "SELECT * FROM task_state t " +
+                    "WHERE project_id = :projectId AND " +
+                    "name_id = :nameId AND " +
+                    "status = :state AND " +
+                    "nominal_date >= :from"
+    )
+    List<Task> findTasksByProjectAndNameAndStateFromNominalDate(
+            @Param("projectId") Long projectId,
+            @Param("nameId") Integer nameId,
+            @Param("state") String state,
+            @Param("from") Date nominalDateFrom
+    );
 }
@@ -0,0 +1,30 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import tasktracker.backend.model.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * Keyset page of tasks.
+     *
+     * @param after - last task of the previous page or null for the first page
+     */
+    List<Task> findTasks(Specification<Task> specification, TaskOrder order, Task after, int limit);
+
+    /**
+     * Tasks ordered by name, read through a database cursor fetching {@code fetchSize} rows at a time.
+     * Must be consumed and closed within a transaction.
+     */
+    Stream<Task> streamTasksByName(Specification<Task> specification, int fetchSize);
+
+    /**
+     * Writes state, synchronization flag, end date and coordinator fields of the tasks with one JDBC batch,
+     * without loading the tasks into the persistence context.
+     */
+    void updateSynchronizedTasks(Collection<Task> tasks);
+}
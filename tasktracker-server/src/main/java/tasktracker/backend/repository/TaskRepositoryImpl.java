@@ -0,0 +1,96 @@
+package tasktracker.backend.repository;
+
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.model.Task;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Task> findTasks(final Specification<Task> specification, final TaskOrder order, final Task after, final int limit) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Task> query = cb.createQuery(Task.class);
+        final Root<Task> root = query.from(Task.class);
+
+        Predicate predicate = Objects.isNull(specification) ? null : specification.toPredicate(root, query, cb);
+        if (Objects.nonNull(after)) {
+            final Predicate afterPredicate = order.after(root, cb, after);
+            predicate = Objects.isNull(predicate) ? afterPredicate : cb.and(predicate, afterPredicate);
+        }
+        if (Objects.nonNull(predicate)) {
+            query.where(predicate);
+        }
+        query.orderBy(order.orders(root, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<Task> streamTasksByName(final Specification<Task> specification, final int fetchSize) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Task> query = cb.createQuery(Task.class);
+        final Root<Task> root = query.from(Task.class);
+
+        final Predicate predicate = Objects.isNull(specification) ? null : specification.toPredicate(root, query, cb);
+        if (Objects.nonNull(predicate)) {
+            query.where(predicate);
+        }
+        // tasks without a name are streamed too, as one group
+        query.orderBy(cb.asc(TaskOrder.taskName(root).get("name")), cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    @Transactional
+    public void updateSynchronizedTasks(final Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE task_state SET status = ?, synchronized = ?, end_date = ?, oozie_coordinator_id = ?, next_date = ? " +
+                            "WHERE id = ?")) {
+                for (final Task task : tasks) {
+                    statement.setString(1, task.getState().name());
+                    statement.setBoolean(2, task.getSynch());
+                    statement.setTimestamp(3, timestamp(task.getEndDate()));
+                    statement.setString(4, task.getOozieCoordinatorId());
+                    statement.setTimestamp(5, timestamp(task.getNextDate()));
+                    statement.setLong(6, task.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private static Timestamp timestamp(final Date date) {
+        return Objects.isNull(date) ? null : new Timestamp(date.getTime());
+    }
+}
@@ -0,0 +1,44 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+public interface TaskRuntimeBaselineRepository extends JpaRepository<TaskRuntimeBaseline, Long> {
+
+    List<TaskRuntimeBaseline> findByProjectIdAndTaskNameId(Long projectId, Integer nameId);
+
+    List<TaskRuntimeBaseline> findByProjectIdAndTaskNameIdAndBucketIn(Long projectId, Integer nameId, Collection<Integer> buckets);
+
+    /**
+     * Baselines of the bucket of the names with a succeeded run started from the day of start on, longest median first.
+     */
+    default List<TaskRuntimeBaseline> findLongestRunSince(Long projectId, int bucket, Date start, Pageable pageable) {
+        return findLongestRunAfter(projectId, bucket, DateRanges.dayStart(start), pageable);
+    }
+
+    @Query("FROM TaskRuntimeBaseline b WHERE b.project.id = :projectId AND b.bucket = :bucket AND b.lastRunDate >= :from " +
+            "ORDER BY b.median DESC")
+    List<TaskRuntimeBaseline> findLongestRunAfter(
+            @Param("projectId") Long projectId,
+            @Param("bucket") int bucket,
+            @Param("from") Date from,
+            Pageable pageable
+    );
+
+    @Query("SELECT MAX(b.updatedTime) FROM TaskRuntimeBaseline b WHERE b.project.id = :projectId")
+    Optional<Date> findLastUpdatedTime(@Param("projectId") Long projectId);
+
+    @Query("SELECT DISTINCT b.taskName.id FROM TaskRuntimeBaseline b WHERE b.project.id = :projectId")
+    Set<Integer> findNameIds(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,80 @@
+package tasktracker.backend.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Filters of task listings. Filters given null or empty values match every task.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Task> projectId(final Long projectId) {
+        return (root, query, cb) -> cb.equal(root.get("project").get("id"), projectId);
+    }
+
+    /**
+     * Case-insensitive name match. An empty name matches every task.
+     */
+    public static Specification<Task> names(final Collection<String> names) {
+        if (Objects.isNull(names) || names.isEmpty() || names.stream().anyMatch(name -> Objects.isNull(name) || name.trim().isEmpty())) {
+            return null;
+        }
+        final Set<String> normalizedNames = names.stream().map(TaskName::normalize).collect(Collectors.toSet());
+        return (root, query, cb) -> root.get("taskName").get("normalizedName").in(normalizedNames);
+    }
+
+    /**
+     * Case-insensitive status match. An empty status matches every task, unknown statuses match none.
+     */
+    public static Specification<Task> statuses(final Collection<String> statuses) {
+        if (Objects.isNull(statuses) || statuses.isEmpty() || statuses.stream().anyMatch(status -> Objects.isNull(status) || status.trim().isEmpty())) {
+            return null;
+        }
+        final Set<Task.State> states = statuses.stream()
+                .map(status -> status.trim().toUpperCase())
+                .filter(status -> Arrays.stream(Task.State.values()).anyMatch(state -> state.name().equals(status)))
+                .map(Task.State::valueOf)
+                .collect(Collectors.toSet());
+        if (states.isEmpty()) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return (root, query, cb) -> root.get("state").in(states);
+    }
+
+    /**
+     * Half-open [from, to) range of a date attribute, either bound may be null.
+     */
+    public static Specification<Task> between(final String attribute, final Date from, final Date to) {
+        return (root, query, cb) -> {
+            if (Objects.nonNull(from) && Objects.nonNull(to)) {
+                return cb.and(cb.greaterThanOrEqualTo(root.get(attribute), from), cb.lessThan(root.get(attribute), to));
+            }
+            if (Objects.nonNull(from)) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            if (Objects.nonNull(to)) {
+                return cb.lessThan(root.get(attribute), to);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Task> after(final String attribute, final Date date) {
+        return (root, query, cb) -> cb.greaterThan(root.get(attribute), date);
+    }
+
+    public static Specification<Task> notAfter(final String attribute, final Date date) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(attribute), date);
+    }
+}
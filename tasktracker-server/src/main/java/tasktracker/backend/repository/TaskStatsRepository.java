@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.TaskStats;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +17,8 @@ public interface TaskStatsRepository extends JpaRepository<TaskStats, Long> {
     @Query("SELECT s FROM TaskStats s WHERE task = :task")
     List<TaskStats> findByTask(@Param("task") Task task);
 
+    @Query("SELECT s FROM TaskStats s WHERE s.task.id IN :taskIds")
+    List<TaskStats> findByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
     Optional<TaskStats> findTopByColumnOrderByIdDesc(String column);
 }
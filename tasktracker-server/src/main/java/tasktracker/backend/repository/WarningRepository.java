@@ -8,6 +8,7 @@ import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.model.Warning;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -17,12 +18,17 @@ public interface WarningRepository extends JpaRepository<Warning, Long> {
     @Query("SELECT w FROM Warning w WHERE w.task = :task")
     List<Warning> findByTask(@Param("task") Task task);
 
-    @Query("from Warning w where w.task.project = :project and " +
-            "cast(w.createdTime as date) >= cast(:start as date) and " +
-            "cast(w.createdTime as date) <= cast(:end as date)")
-    List<Warning> findWarningsInRange(
-            @Param("project") Project project,
-            @Param("start") Date start,
-            @Param("end") Date end);
+    @Query("SELECT w FROM Warning w WHERE w.task.id IN :taskIds")
+    List<Warning> findByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * Warnings created from the day of start to the day of end inclusive.
+     */
+    default List<Warning> findWarningsInRange(Project project, Date start, Date end) {
+        return findByCreatedTimeRange(project, DateRanges.dayStart(start), DateRanges.nextDayStart(end));
+    }
+
+    @Query("from Warning w where w.task.project = :project and w.createdTime >= :from and w.createdTime < :to")
+    List<Warning> findByCreatedTimeRange(@Param("project") Project project, @Param("from") Date from, @Param("to") Date to);
 
 }
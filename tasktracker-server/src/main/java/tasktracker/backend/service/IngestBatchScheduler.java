@@ -0,0 +1,37 @@
+package tasktracker.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+@Slf4j
+@Component
+public class IngestBatchScheduler {
+    private static final long PURGE_PERIOD_IN_HOURS = 1;
+
+    private final TaskIngestionService taskIngestionService;
+    private final int retentionDays;
+
+    public IngestBatchScheduler(
+            final TaskIngestionService taskIngestionService,
+            @Value("${ingestion.idempotency.retention-days:7}") final int retentionDays
+    ) {
+        this.taskIngestionService = taskIngestionService;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Deletes the idempotency keys past the retention. Clients send a batch again for less time than that.
+     */
+    @Scheduled(fixedDelay = 1000 * 60 * 60 * PURGE_PERIOD_IN_HOURS, initialDelay = 1000 * 60)
+    public void purge() {
+        final int purged = taskIngestionService.purgeIdempotencyKeys(DateUtils.addDays(new Date(), -retentionDays));
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys of ingested batches", purged);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package tasktracker.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tasktracker.backend.model.Project;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ProjectDailyStatsScheduler {
+    private static final long FLUSH_PERIOD_IN_SECONDS = 30;
+    private static final long RECHECK_PERIOD_IN_MINUTES = 60;
+    private static final int RECHECK_DAYS = 3;
+    private static final long BACKFILL_PERIOD_IN_HOURS = 24;
+    private static final int BACKFILL_CHUNK_IN_DAYS = 31;
+
+    private final TaskTrackerService taskTrackerService;
+    private final ProjectDailyStatsService projectDailyStatsService;
+
+    /**
+     * Recounts the days touched by task events.
+     */
+    @Scheduled(fixedDelay = 1000 * FLUSH_PERIOD_IN_SECONDS)
+    public void flush() {
+        final Map<Long, Set<Date>> dirtyDays = projectDailyStatsService.pollDirtyDays();
+
+        dirtyDays.forEach((projectId, days) -> taskTrackerService.findProjectById(projectId).ifPresent(project ->
+                days.forEach(day -> {
+                    try {
+                        projectDailyStatsService.refresh(project, day, DateUtils.addDays(day, 1));
+                    } catch (Exception e) {
+                        log.error("Failed to refresh daily stats of " + project + " for " + day, e);
+                    }
+                })));
+    }
+
+    /**
+     * Late updates may move a task to another day or change it without an event,
+     * so the last days are recounted as a whole from time to time.
+     */
+    @Scheduled(fixedDelay = 1000 * 60 * RECHECK_PERIOD_IN_MINUTES, initialDelay = 1000 * 60 * RECHECK_PERIOD_IN_MINUTES)
+    public void recheck() {
+        final Date today = DateUtils.truncate(new Date(), Calendar.DAY_OF_MONTH);
+        final Date from = DateUtils.addDays(today, -RECHECK_DAYS);
+        final Date to = DateUtils.addDays(today, 1);
+
+        for (final Project project : taskTrackerService.findProjects()) {
+            try {
+                projectDailyStatsService.refresh(project, from, to);
+            } catch (Exception e) {
+                log.error("Failed to recheck daily stats of " + project, e);
+            }
+        }
+    }
+
+    /**
+     * Fills the whole history of projects whose daily stats don't reach back to their first task, a month per
+     * transaction. The rows flushed from the task events since the start don't count as coverage, they only hold
+     * the days touched since then.
+     */
+    @Scheduled(fixedDelay = 1000 * 60 * 60 * BACKFILL_PERIOD_IN_HOURS, initialDelay = 1000 * 60)
+    public void backfill() {
+        final Date to = DateUtils.addDays(DateUtils.truncate(new Date(), Calendar.DAY_OF_MONTH), 1);
+
+        for (final Project project : taskTrackerService.findProjects()) {
+            final Date firstDate = projectDailyStatsService.findFirstTaskDate(project).orElse(null);
+            if (firstDate == null) {
+                continue;
+            }
+            final Date firstStatsDate = projectDailyStatsService.findFirstDailyStatsDate(project).orElse(null);
+            if (firstStatsDate != null && !firstDate.before(firstStatsDate)) {
+                continue;
+            }
+
+            log.info("{}: daily stats backfill started from {}", project, firstDate);
+            for (Date from = firstDate; from.before(to); from = DateUtils.addDays(from, BACKFILL_CHUNK_IN_DAYS)) {
+                final Date chunkEnd = DateUtils.addDays(from, BACKFILL_CHUNK_IN_DAYS);
+                projectDailyStatsService.refresh(project, from, chunkEnd.before(to) ? chunkEnd : to);
+            }
+            log.info("{}: daily stats backfill completed", project);
+        }
+    }
+}
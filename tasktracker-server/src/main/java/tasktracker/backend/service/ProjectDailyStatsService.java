@@ -0,0 +1,128 @@
+package tasktracker.backend.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.eventbus.*;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.ProjectDailyStats;
+import tasktracker.backend.repository.ProjectDailyStatsRepository;
+import tasktracker.backend.repository.TaskAggregationRepository;
+import tasktracker.backend.repository.TaskRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the project_daily_stats rollup.
+ * <p>
+ * Saved and updated tasks only mark their (project, start day) as dirty, the days are
+ * recounted later by {@link ProjectDailyStatsScheduler} with one grouped query per day.
+ * Changes that bypass the event bus (bulk renames, moved start dates) are caught by
+ * the periodic recheck of the last days.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ProjectDailyStatsService implements TaskTrackerEventConsumer {
+    private final ProjectDailyStatsRepository projectDailyStatsRepository;
+    private final TaskAggregationRepository taskAggregationRepository;
+    private final TaskRepository taskRepository;
+
+    private final Set<ProjectDay> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void onEvent(final TaskTrackerEvent event) {
+        if (!(event.getObject() instanceof TaskCreated) && !(event.getObject() instanceof TaskStateChanged)) {
+            return;
+        }
+
+        final TaskSnapshot task = ((TaskEvent) event.getObject()).getTask();
+        if (Objects.isNull(task.getProjectId()) || Objects.isNull(task.getStartDate())) {
+            return;
+        }
+
+        dirtyDays.add(new ProjectDay(task.getProjectId(), truncate(Date.from(task.getStartDate()))));
+    }
+
+    /**
+     * Removes and returns the days changed since the previous call, by project id.
+     */
+    public Map<Long, Set<Date>> pollDirtyDays() {
+        final Map<Long, Set<Date>> result = Maps.newHashMap();
+
+        final Iterator<ProjectDay> iterator = dirtyDays.iterator();
+        while (iterator.hasNext()) {
+            final ProjectDay day = iterator.next();
+            iterator.remove();
+            result.computeIfAbsent(day.getProjectId(), key -> Sets.newTreeSet()).add(day.getDate());
+        }
+
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProjectDailyStats> findDailyStats(final Project project, final Date start, final Date end) {
+        return projectDailyStatsRepository.findStats(project.getId(), truncate(start), DateUtils.addDays(truncate(end), 1));
+    }
+
+    public Optional<Date> findFirstDailyStatsDate(final Project project) {
+        return projectDailyStatsRepository.findFirstDate(project.getId()).map(ProjectDailyStatsService::truncate);
+    }
+
+    public Optional<Date> findFirstTaskDate(final Project project) {
+        return taskRepository.findFirstStartDate(project.getId()).map(ProjectDailyStatsService::truncate);
+    }
+
+    /**
+     * Recounts the rollup rows of the days in [from, to). Rows of days that no longer have tasks are removed.
+     */
+    @Transactional
+    public void refresh(final Project project, final Date from, final Date to) {
+        final Date start = truncate(from);
+        final Date end = truncate(to);
+
+        final Map<Date, ProjectDailyStats> current = projectDailyStatsRepository.findStats(project.getId(), start, end)
+                .stream()
+                .collect(Collectors.toMap(stats -> truncate(stats.getDate()), Function.identity(), (s1, s2) -> s1));
+
+        final List<ProjectDailyStats> updated = new ArrayList<>();
+        for (final ProjectDailyStats counted : taskAggregationRepository.countDailyStats(project.getId(), start, end)) {
+            final ProjectDailyStats stats = current.remove(truncate(counted.getDate()));
+            if (Objects.isNull(stats)) {
+                counted.setProject(project);
+                updated.add(counted);
+                continue;
+            }
+            stats.setTotalTasks(counted.getTotalTasks());
+            stats.setTotalCompletedTasks(counted.getTotalCompletedTasks());
+            stats.setTotalFailedTasks(counted.getTotalFailedTasks());
+            stats.setTotalRunningTasks(counted.getTotalRunningTasks());
+            stats.setTotalDistinctTasks(counted.getTotalDistinctTasks());
+            stats.setUpdatedTime(new Date());
+            updated.add(stats);
+        }
+
+        projectDailyStatsRepository.saveAll(updated);
+        projectDailyStatsRepository.deleteAll(current.values());
+
+        log.debug("{}: {} daily stats refreshed, {} removed in [{}, {})", project, updated.size(), current.size(), start, end);
+    }
+
+    private static Date truncate(final Date date) {
+        return DateUtils.truncate(date, Calendar.DAY_OF_MONTH);
+    }
+
+    @Value
+    private static class ProjectDay {
+        Long projectId;
+        Date date;
+    }
+}
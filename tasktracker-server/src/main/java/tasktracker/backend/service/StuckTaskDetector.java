@@ -0,0 +1,87 @@
+package tasktracker.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.repository.TaskRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fails running tasks of the projects with auto status update that run far longer than usual:
+ * longer than the median plus three standard deviations of the recent succeeded runs of the task name.
+ * <p>
+ * The statistics are read from the runtime baseline of the task, see {@link TaskRuntimeBaselineService},
+ * so a run only queries the running tasks. Every project is checked in its own transaction.
+ */
+@Slf4j
+@Component
+public class StuckTaskDetector implements TaskStateUpdater {
+    private static final int SIGMAS = 3;
+
+    private final TaskRepository taskRepository;
+    private final TaskRuntimeBaselineService taskRuntimeBaselineService;
+    private final TransactionTemplate transactionTemplate;
+
+    public StuckTaskDetector(
+            final TaskRepository taskRepository,
+            final TaskRuntimeBaselineService taskRuntimeBaselineService,
+            final PlatformTransactionManager transactionManager
+    ) {
+        this.taskRepository = taskRepository;
+        this.taskRuntimeBaselineService = taskRuntimeBaselineService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public List<Task> update(final TaskTrackerService service) {
+        final List<Task> failed = new ArrayList<>();
+        for (final Project project : service.findProjects()) {
+            if (!Boolean.TRUE.equals(service.getOrCreateSettings(project).getAutoStatusUpdate())) {
+                continue;
+            }
+            try {
+                failed.addAll(transactionTemplate.execute(status -> update(service, project, new Date())));
+            } catch (RuntimeException e) {
+                log.error("Failed to update running tasks of project " + project, e);
+            }
+        }
+        return failed;
+    }
+
+    List<Task> update(final TaskTrackerService service, final Project project, final Date now) {
+        final List<Task> running = taskRepository.findByProjectIdAndStateAndEndDateIsNull(project.getId(), Task.State.RUNNING);
+        log.info("Project '{}': {} running tasks", project, running.size());
+
+        final List<Task> failed = new ArrayList<>();
+        for (final Task task : running) {
+            if (Objects.isNull(task.getStartDate()) || !task.getStartDate().before(now)) {
+                continue;
+            }
+            final TaskRuntimeBaseline baseline = taskRuntimeBaselineService.find(task).orElse(null);
+            if (Objects.isNull(baseline)) {
+                continue;
+            }
+
+            final double upperBound = baseline.getMedian() + SIGMAS * baseline.getStdDev();
+            final long executionTime = service.getExecutionTime(task, now);
+            if (upperBound <= 0 || executionTime < upperBound) {
+                continue;
+            }
+
+            log.info("Task '{}' runs for {} ms, upper bound of '{}' is {} ms", task, executionTime, task.getName(), upperBound);
+            task.setState(Task.State.FAILED);
+            task.setEndDate(now);
+            task.setAutoUpdated(true);
+            failed.add(service.update(project, task));
+        }
+        return failed;
+    }
+}
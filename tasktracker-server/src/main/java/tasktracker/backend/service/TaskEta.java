@@ -0,0 +1,25 @@
+package tasktracker.backend.service;
+
+import lombok.Value;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+
+import java.util.Date;
+
+/**
+ * Predicted end of a running task. Dates are null when the task has no baseline yet
+ * or runs longer than all runs of its baseline.
+ */
+@Value
+public class TaskEta {
+    Task task;
+    TaskRuntimeBaseline baseline;
+    /**
+     * Median end of the recent runs that took longer than the task runs so far.
+     */
+    Date expectedEndDate;
+    /**
+     * 90th percentile end of the same runs.
+     */
+    Date latestEndDate;
+}
@@ -0,0 +1,308 @@
+package tasktracker.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.controller.body.IngestRecordBody;
+import tasktracker.backend.controller.mappers.TaskStatsMapper;
+import tasktracker.backend.controller.model.IngestResultModel;
+import tasktracker.backend.eventbus.*;
+import tasktracker.backend.model.*;
+import tasktracker.backend.repository.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static tasktracker.backend.controller.exception.ApiException.InvalidInputData;
+import static tasktracker.backend.controller.exception.ApiException.TaskStateNotFound;
+
+/**
+ * Saves an envelope of tasks and their metrics, errors, warnings and statistics in one transaction.
+ * Entities are saved with {@code saveAll} and flushed together on commit, so Hibernate writes them
+ * as JDBC batches ({@code hibernate.jdbc.batch_size}, {@code hibernate.order_inserts}).
+ * <p>
+ * An envelope with an idempotency key is written once, its key is saved in the same transaction and
+ * the envelope is skipped when it is sent again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskIngestionService {
+    private final TaskRepository taskRepository;
+    private final TaskMetricRepository taskMetricRepository;
+    private final TaskErrorRepository taskErrorRepository;
+    private final WarningRepository warningRepository;
+    private final TaskStatsRepository statsRepository;
+    private final IngestBatchRepository ingestBatchRepository;
+    private final TaskTrackerService taskTrackerService;
+    private final TaskTrackerEventBus eventBus;
+
+    @Transactional
+    public IngestResultModel ingest(final Project project, final List<IngestRecordBody> records) {
+        return ingest(project, null, records);
+    }
+
+    /**
+     * @param idempotencyKey key of the envelope, may be null
+     */
+    @Transactional
+    public IngestResultModel ingest(final Project project, final String idempotencyKey, final List<IngestRecordBody> records) {
+        return ingestAll(project, Collections.singletonList(Envelope.of(idempotencyKey, records))).get(0);
+    }
+
+    /**
+     * Saves several envelopes in one transaction. Each envelope keeps its own {@code task_ref} scope,
+     * so the same reference in two envelopes points to two different tasks.
+     */
+    @Transactional
+    public List<IngestResultModel> ingestAll(final Project project, final List<Envelope> envelopes) {
+        final long start = System.currentTimeMillis();
+
+        final Map<Long, Task> existingTasks = findTasks(project, envelopes.stream()
+                .flatMap(envelope -> envelope.getRecords().stream())
+                .collect(Collectors.toList()));
+        final Batch batch = new Batch();
+        final Set<String> idempotencyKeys = new HashSet<>();
+        final List<Map<String, Task>> references = new ArrayList<>();
+        final List<IngestResultModel> results = new ArrayList<>();
+
+        for (final Envelope envelope : envelopes) {
+            final String idempotencyKey = envelope.getIdempotencyKey();
+            if (Objects.nonNull(idempotencyKey)) {
+                if (!idempotencyKeys.add(idempotencyKey) || isIngested(project, idempotencyKey)) {
+                    log.info("Skip envelope {} of project {}, it was ingested before", idempotencyKey, project.getId());
+                    references.add(Collections.emptyMap());
+                    results.add(IngestResultModel.duplicate());
+                    continue;
+                }
+                batch.ingestBatches.add(IngestBatch.of(project, idempotencyKey));
+            }
+
+            final int tasks = batch.tasks.size();
+            final int metrics = batch.metrics.size();
+            final int errors = batch.errors.size();
+            final int warnings = batch.warnings.size();
+            final int statistics = batch.statistics.size();
+
+            references.add(add(project, envelope.getRecords(), existingTasks, batch));
+
+            final IngestResultModel result = new IngestResultModel();
+            result.setTaskCount(batch.tasks.size() - tasks);
+            result.setMetricCount(batch.metrics.size() - metrics);
+            result.setErrorCount(batch.errors.size() - errors);
+            result.setWarningCount(batch.warnings.size() - warnings);
+            result.setStatisticsCount(batch.statistics.size() - statistics);
+            results.add(result);
+        }
+
+        ingestBatchRepository.saveAll(batch.ingestBatches);
+        taskRepository.saveAll(batch.tasks);
+        taskMetricRepository.saveAll(batch.metrics);
+        taskErrorRepository.saveAll(batch.errors);
+        warningRepository.saveAll(batch.warnings);
+        statsRepository.saveAll(batch.statistics);
+
+        post(batch);
+
+        for (int i = 0; i < results.size(); i++) {
+            final Map<String, Long> taskIds = new HashMap<>();
+            references.get(i).forEach((ref, task) -> taskIds.put(ref, task.getId()));
+            results.get(i).setTasks(taskIds);
+        }
+
+        log.info("Ingested {} records of project {} in {} ms",
+                envelopes.stream().mapToInt(envelope -> envelope.getRecords().size()).sum(), project.getId(), System.currentTimeMillis() - start);
+
+        return results;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isIngested(final Project project, final String idempotencyKey) {
+        return ingestBatchRepository.existsByProjectIdAndIdempotencyKey(project.getId(), idempotencyKey);
+    }
+
+    /**
+     * Deletes the idempotency keys saved before the date, envelopes sent again with them are written again.
+     */
+    public int purgeIdempotencyKeys(final Date before) {
+        return ingestBatchRepository.deleteCreatedBefore(before);
+    }
+
+    /**
+     * Adds the entities of one envelope to the batch.
+     *
+     * @return the tasks of the envelope by their references
+     */
+    private Map<String, Task> add(
+            final Project project,
+            final List<IngestRecordBody> records,
+            final Map<Long, Task> existingTasks,
+            final Batch batch
+    ) {
+        final Map<String, Task> referencedTasks = new HashMap<>();
+
+        for (final IngestRecordBody record : records) {
+            if (record.getType() != IngestRecordBody.Type.TASK) {
+                continue;
+            }
+            if (Objects.isNull(record.getTask())) {
+                throw new InvalidInputData("task record without task");
+            }
+
+            final Task task;
+            if (Objects.isNull(record.getTaskId())) {
+                task = newTask(project, record);
+                batch.createdTasks.add(task);
+            } else {
+                task = updatedTask(existingTasks.get(record.getTaskId()), record);
+            }
+            if (Objects.nonNull(record.getTaskRef())) {
+                referencedTasks.put(record.getTaskRef(), task);
+            }
+            batch.tasks.add(task);
+        }
+
+        final Function<IngestRecordBody, Task> taskResolver = record -> {
+            if (Objects.nonNull(record.getTaskId())) {
+                return existingTasks.get(record.getTaskId());
+            }
+            final Task task = Objects.isNull(record.getTaskRef()) ? null : referencedTasks.get(record.getTaskRef());
+            if (Objects.isNull(task)) {
+                throw new InvalidInputData("unknown task_ref '" + record.getTaskRef() + "'");
+            }
+            return task;
+        };
+
+        final TaskStatsMapper taskStatsMapper = new TaskStatsMapper();
+
+        for (final IngestRecordBody record : records) {
+            if (Objects.isNull(record.getType())) {
+                throw new InvalidInputData("record without type");
+            }
+            switch (record.getType()) {
+                case METRIC:
+                    final TaskMetric metric = payload(record.getMetric(), record).toTaskMetric();
+                    metric.setId(null);
+                    metric.setTask(taskResolver.apply(record));
+                    batch.metrics.add(metric);
+                    break;
+                case ERROR:
+                    final TaskError error = payload(record.getError(), record).toTaskError();
+                    error.setId(null);
+                    error.setTask(taskResolver.apply(record));
+                    batch.errors.add(error);
+                    break;
+                case WARNING:
+                    final Warning warning = payload(record.getWarning(), record).toWarning();
+                    warning.setTask(taskResolver.apply(record));
+                    batch.warnings.add(warning);
+                    break;
+                case STATISTICS:
+                    final Task task = taskResolver.apply(record);
+                    payload(record.getStatistics(), record).forEach(body -> {
+                        final TaskStats stats = taskStatsMapper.to(body);
+                        stats.setTask(task);
+                        batch.statistics.add(stats);
+                    });
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return referencedTasks;
+    }
+
+    /**
+     * Existing tasks of the records loaded with a single query.
+     */
+    private Map<Long, Task> findTasks(final Project project, final List<IngestRecordBody> records) {
+        final Set<Long> taskIds = records.stream()
+                .map(IngestRecordBody::getTaskId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (taskIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<Long, Task> tasks = new HashMap<>();
+        taskRepository.findAllById(taskIds).forEach(task -> {
+            if (project.equals(task.getProject())) {
+                tasks.put(task.getId(), task);
+            }
+        });
+        taskIds.stream()
+                .filter(taskId -> !tasks.containsKey(taskId))
+                .findFirst()
+                .ifPresent(taskId -> {
+                    throw new TaskStateNotFound(taskId);
+                });
+
+        return tasks;
+    }
+
+    private Task newTask(final Project project, final IngestRecordBody record) {
+        final Task task = record.getTask().toTaskState();
+        task.setId(null);
+        task.setProject(project);
+        taskTrackerService.resolveName(task);
+        return task;
+    }
+
+    /**
+     * Same changes as a single task update.
+     */
+    private Task updatedTask(final Task task, final IngestRecordBody record) {
+        final Task newTaskState = record.getTask().toTaskState();
+
+        task.setEndDate(newTaskState.getEndDate());
+        task.setState(newTaskState.getState());
+        task.setTimestamp(newTaskState.getTimestamp());
+        if (taskTrackerService.isTerminalState(task.getState()) && Objects.isNull(task.getEndDate())) {
+            task.setEndDate(new Date());
+        }
+        return task;
+    }
+
+    private static <T> T payload(final T payload, final IngestRecordBody record) {
+        if (Objects.isNull(payload)) {
+            throw new InvalidInputData(record.getType().name().toLowerCase() + " record without " + record.getType().name().toLowerCase());
+        }
+        return payload;
+    }
+
+    private void post(final Batch batch) {
+        batch.tasks.forEach(task -> eventBus.post(TaskTrackerEvent.of(
+                batch.createdTasks.contains(task) ? TaskCreated.of(task) : TaskStateChanged.of(task))));
+        batch.warnings.forEach(warning -> eventBus.post(TaskTrackerEvent.of(WarningRaised.of(warning))));
+        batch.statistics.forEach(stats -> eventBus.post(TaskTrackerEvent.of(StatsIngested.of(stats))));
+    }
+
+    /**
+     * Records of one request.
+     */
+    @Value(staticConstructor = "of")
+    public static class Envelope {
+        /**
+         * Null if the records may be written more than once.
+         */
+        String idempotencyKey;
+        List<IngestRecordBody> records;
+    }
+
+    /**
+     * Entities of the envelopes saved in one transaction.
+     */
+    private static class Batch {
+        private final List<IngestBatch> ingestBatches = new ArrayList<>();
+        private final List<Task> tasks = new ArrayList<>();
+        private final Set<Task> createdTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<TaskMetric> metrics = new ArrayList<>();
+        private final List<TaskError> errors = new ArrayList<>();
+        private final List<Warning> warnings = new ArrayList<>();
+        private final List<TaskStats> statistics = new ArrayList<>();
+    }
+}
@@ -0,0 +1,196 @@
+package tasktracker.backend.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+import tasktracker.backend.repository.TaskNameRepository;
+import tasktracker.backend.repository.TaskRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Task names of the projects, see {@link TaskName}.
+ * <p>
+ * Names are normalized once, when a task is saved, so lookups compare name ids and filters compare
+ * the normalized names of the entries.
+ * Entries are cached, renames drop the cached entries of the project on this node. Entries are never deleted,
+ * so the entries other nodes still have cached stay valid.
+ */
+@Slf4j
+@Service
+public class TaskNameDictionary {
+    private final TaskNameRepository taskNameRepository;
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate newTransaction;
+
+    private final Map<Key, TaskName> names = new ConcurrentHashMap<>();
+
+    public TaskNameDictionary(
+            final TaskNameRepository taskNameRepository,
+            final TaskRepository taskRepository,
+            final PlatformTransactionManager transactionManager
+    ) {
+        this.taskNameRepository = taskNameRepository;
+        this.taskRepository = taskRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Replaces a name of the task that isn't looked up yet with its dictionary entry, adding the entry if needed.
+     */
+    @Transactional
+    public Task resolve(final Task task) {
+        final TaskName taskName = task.getTaskName();
+        if (Objects.nonNull(taskName) && Objects.isNull(taskName.getId())) {
+            task.setTaskName(resolve(task.getProject(), taskName.getName()));
+        }
+        return task;
+    }
+
+    @Transactional
+    public TaskName resolve(final Project project, final String name) {
+        final Key key = new Key(project.getId(), TaskName.normalize(name));
+        final TaskName cached = names.get(key);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+
+        final TaskName taskName = taskNameRepository.findByProjectIdAndNormalizedName(key.getProjectId(), key.getNormalizedName())
+                .orElseGet(() -> create(project, name, key));
+        names.put(key, taskName);
+        return taskName;
+    }
+
+    /**
+     * Entry of the name, empty if the project has no such name.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TaskName> find(final Long projectId, final String name) {
+        final Key key = new Key(projectId, TaskName.normalize(name));
+        final TaskName cached = names.get(key);
+        if (Objects.nonNull(cached)) {
+            return Optional.of(cached);
+        }
+
+        final Optional<TaskName> taskName = taskNameRepository.findByProjectIdAndNormalizedName(projectId, key.getNormalizedName());
+        taskName.ifPresent(found -> names.put(key, found));
+        return taskName;
+    }
+
+    /**
+     * Entries of the names, names the project doesn't have are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskName> findAll(final Long projectId, final Collection<String> names) {
+        final Set<String> normalizedNames = names.stream()
+                .filter(Objects::nonNull)
+                .map(TaskName::normalize)
+                .collect(Collectors.toSet());
+        if (normalizedNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return taskNameRepository.findByProjectIdAndNormalizedNameIn(projectId, normalizedNames);
+    }
+
+    /**
+     * Ids of the names the project has, names the project doesn't have are skipped.
+     */
+    @Transactional(readOnly = true)
+    public Set<Integer> findIds(final Long projectId, final Collection<String> names) {
+        return findAll(projectId, names)
+                .stream()
+                .map(TaskName::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskName> findAll(final Long projectId) {
+        return taskNameRepository.findByProjectId(projectId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findNames(final Long projectId) {
+        return taskNameRepository.findNames(projectId);
+    }
+
+    /**
+     * Renames the tasks of the project with the one update of their dictionary entry. If the new name is
+     * taken by other tasks already, the tasks are moved to its entry instead. The original entry is kept then,
+     * other nodes may have it cached and still add tasks of the original name to it.
+     *
+     * @return number of tasks renamed
+     */
+    @Transactional
+    public long rename(final Project project, final String originalName, final String newName) {
+        final Optional<TaskName> original = find(project.getId(), originalName);
+        if (!original.isPresent()) {
+            return 0;
+        }
+
+        final String normalizedName = TaskName.normalize(newName);
+        final Optional<TaskName> existing = taskNameRepository.findByProjectIdAndNormalizedName(project.getId(), normalizedName)
+                .filter(taskName -> !taskName.getId().equals(original.get().getId()));
+
+        final long affected;
+        if (existing.isPresent()) {
+            affected = taskRepository.moveTasks(original.get(), existing.get());
+        } else {
+            affected = taskRepository.countByTaskName(original.get());
+            taskNameRepository.rename(original.get().getId(), newName.trim(), normalizedName);
+        }
+        evict(project.getId());
+
+        return affected;
+    }
+
+    /**
+     * Adds the entry in its own transaction, so the entry is visible to concurrent transactions at once
+     * and a concurrent insert of the same name doesn't fail the task's transaction.
+     */
+    private TaskName create(final Project project, final String name, final Key key) {
+        try {
+            return newTransaction.execute(status -> {
+                final TaskName created = TaskName.of(name.trim());
+                created.setProject(project);
+                return taskNameRepository.save(created);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Task name '{}' of project {} is added concurrently", name, project.getId());
+            return taskNameRepository.findByProjectIdAndNormalizedName(key.getProjectId(), key.getNormalizedName())
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private void evict(final Long projectId) {
+        final Runnable eviction = () -> names.keySet().removeIf(key -> key.getProjectId().equals(projectId));
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // entries read by concurrent transactions before the commit are dropped too
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    @Value
+    private static class Key {
+        private final Long projectId;
+        private final String normalizedName;
+    }
+}
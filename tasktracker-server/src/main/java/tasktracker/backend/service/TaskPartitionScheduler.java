@@ -0,0 +1,189 @@
+package tasktracker.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.ProjectSettings;
+import tasktracker.backend.repository.TaskPartitionRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of the task tables ahead of time and archives the months past retention.
+ * <p>
+ * Partitions are created whenever the tables are partitioned, also for the months of tasks that went to the
+ * default partitions meanwhile, so they can be archived. Archiving is enabled with {@code partitions.archive-enabled}.
+ * <p>
+ * Partitions hold the tasks of all projects, so a month is archived once it's past the retention of every
+ * project: a project without {@link ProjectSettings#getRetentionMonths()} keeps all months. An archived month is
+ * detached, written to {@code <table>_pYYYYMM.csv.gz} files in the archive directory and dropped, tasks are never
+ * deleted row by row.
+ */
+@Slf4j
+@Component
+public class TaskPartitionScheduler {
+    private static final long PERIOD_IN_HOURS = 6;
+
+    private final TaskPartitionRepository taskPartitionRepository;
+    private final TaskTrackerService taskTrackerService;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final Path archiveDirectory;
+
+    public TaskPartitionScheduler(
+            final TaskPartitionRepository taskPartitionRepository,
+            final TaskTrackerService taskTrackerService,
+            @Value("${partitions.months-ahead:3}") final int monthsAhead,
+            @Value("${partitions.archive-enabled:false}") final boolean archiveEnabled,
+            @Value("${partitions.archive-directory:archive}") final String archiveDirectory
+    ) {
+        this.taskPartitionRepository = taskPartitionRepository;
+        this.taskTrackerService = taskTrackerService;
+        this.monthsAhead = monthsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveDirectory = Paths.get(archiveDirectory);
+    }
+
+    @Scheduled(fixedDelay = 1000 * 60 * 60 * PERIOD_IN_HOURS, initialDelay = 1000 * 60)
+    public void maintain() {
+        if (!taskPartitionRepository.isPartitioned()) {
+            return;
+        }
+        maintain(YearMonth.now());
+    }
+
+    void maintain(final YearMonth currentMonth) {
+        // a failure to create partitions doesn't hold back the archiving, the rows stay in the default partitions
+        try {
+            createPartitions(currentMonth);
+        } catch (RuntimeException e) {
+            log.error("Failed to create task partitions", e);
+        }
+        if (!archiveEnabled) {
+            return;
+        }
+
+        // partitions left detached by a failed run are archived first
+        taskPartitionRepository.findDetachedPartitions().forEach(this::archive);
+
+        final Optional<YearMonth> keptFrom = keptFrom(taskTrackerService.findProjects(), currentMonth);
+        if (!keptFrom.isPresent()) {
+            return;
+        }
+        for (final String table : TaskPartitionRepository.TABLES) {
+            for (final String partition : taskPartitionRepository.findPartitions(table)) {
+                if (TaskPartitionRepository.month(partition).isBefore(keptFrom.get())) {
+                    taskPartitionRepository.detach(partition);
+                    archive(partition);
+                }
+            }
+        }
+    }
+
+    private void createPartitions(final YearMonth currentMonth) {
+        final YearMonth from = taskPartitionRepository.findFirstDefaultMonth()
+                .filter(month -> month.isBefore(currentMonth))
+                .orElse(currentMonth);
+        final YearMonth to = currentMonth.plusMonths(monthsAhead);
+        final int created = taskPartitionRepository.createPartitions(from, to);
+        if (created > 0) {
+            log.info("Created {} task partitions from {} to {}", created, from, to);
+        }
+    }
+
+    /**
+     * First month kept by the retention of all projects, empty if a project keeps all months.
+     */
+    static Optional<YearMonth> keptFrom(final Collection<Project> projects, final YearMonth currentMonth) {
+        int retentionMonths = 0;
+        for (final Project project : projects) {
+            final ProjectSettings settings = project.getSettings();
+            if (Objects.isNull(settings) || Objects.isNull(settings.getRetentionMonths())) {
+                return Optional.empty();
+            }
+            retentionMonths = Math.max(retentionMonths, settings.getRetentionMonths());
+        }
+        return projects.isEmpty() ? Optional.empty() : Optional.of(currentMonth.minusMonths(retentionMonths));
+    }
+
+    private void archive(final String partition) {
+        final Path file = archiveDirectory.resolve(partition + ".csv.gz");
+        final Path tmp = archiveDirectory.resolve(partition + ".csv.gz.tmp");
+        try {
+            Files.createDirectories(archiveDirectory);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+                export(partition, writer);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to archive partition " + partition + ", it's kept detached", e);
+            return;
+        }
+        taskPartitionRepository.drop(partition);
+        log.info("Archived partition {} to {}", partition, file);
+    }
+
+    /**
+     * Writes the rows as CSV with a header line.
+     */
+    private void export(final String partition, final Writer writer) {
+        final int[] columns = {0};
+        taskPartitionRepository.stream(partition, resultSet -> {
+            try {
+                if (columns[0] == 0) {
+                    final ResultSetMetaData metaData = resultSet.getMetaData();
+                    columns[0] = metaData.getColumnCount();
+                    final List<String> header = new ArrayList<>();
+                    for (int i = 1; i <= columns[0]; i++) {
+                        header.add(metaData.getColumnName(i));
+                    }
+                    writeLine(writer, header);
+                }
+                final List<String> values = new ArrayList<>(columns[0]);
+                for (int i = 1; i <= columns[0]; i++) {
+                    values.add(resultSet.getString(i));
+                }
+                writeLine(writer, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeLine(final Writer writer, final List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csv(values.get(i)));
+        }
+        writer.write('\n');
+    }
+
+    static String csv(final String value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
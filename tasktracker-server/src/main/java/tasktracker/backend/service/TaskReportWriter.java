@@ -0,0 +1,148 @@
+package tasktracker.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.controller.DateTimePatterns;
+import tasktracker.backend.controller.groupers.NameDateTaskGrouper;
+import tasktracker.backend.controller.model.TaskModel;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.Task.State;
+import tasktracker.backend.repository.TaskRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the tasks report ({@code {"tasks": [{"name", "dates": [{"date", "tasks"}]}]}}) straight to a
+ * {@link JsonGenerator}. Tasks are read through a cursor ordered by name and only the tasks of one name
+ * are held in memory at a time, so the heap use doesn't depend on the size of the report.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskReportWriter {
+    private static final int FETCH_SIZE = 500;
+
+    private final TaskRepository taskRepository;
+    private final TaskTrackerService taskTrackerService;
+    private final EntityManager entityManager;
+
+    /**
+     * Same report as {@link TaskTrackerService#groupTasksByNameAndDate(Project, TaskFilter, Set, Boolean)}.
+     */
+    @Transactional(readOnly = true)
+    public void write(
+            final Project project,
+            final TaskFilter filter,
+            final Set<State> taskStatuses,
+            final Boolean lastTaskOnly,
+            final JsonGenerator generator
+    ) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Set<String> remainingNames = new TreeSet<>(filter.getNames());
+
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("tasks");
+
+        try (Stream<Task> tasks = taskRepository.streamTasksByName(taskTrackerService.taskSpecification(project, filter), FETCH_SIZE)) {
+            final Iterator<Task> iterator = tasks.iterator();
+            final List<Task> nameTasks = new ArrayList<>();
+
+            while (iterator.hasNext()) {
+                final Task task = iterator.next();
+                if (!nameTasks.isEmpty() && !Objects.equals(nameTasks.get(0).getName(), task.getName())) {
+                    writeName(nameTasks, filter, taskStatuses, lastTaskOnly, generator, remainingNames);
+                    nameTasks.clear();
+                }
+                nameTasks.add(task);
+            }
+            if (!nameTasks.isEmpty()) {
+                writeName(nameTasks, filter, taskStatuses, lastTaskOnly, generator, remainingNames);
+            }
+        }
+
+        for (final String name : remainingNames) {
+            writeName(name, Collections.emptyList(), filter, taskStatuses, lastTaskOnly, generator);
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+
+        log.debug("Tasks report of project {} written in {} ms", project.getId(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Writes the tasks of one name, tasks without a name are written under a null name.
+     */
+    private void writeName(
+            final List<Task> tasks,
+            final TaskFilter filter,
+            final Set<State> taskStatuses,
+            final Boolean lastTaskOnly,
+            final JsonGenerator generator,
+            final Set<String> remainingNames
+    ) throws IOException {
+        final String name = tasks.get(0).getName();
+        writeName(name, tasks, filter, taskStatuses, lastTaskOnly, generator);
+        if (Objects.nonNull(name)) {
+            remainingNames.remove(name);
+        }
+    }
+
+    private void writeName(
+            final String name,
+            final List<Task> tasks,
+            final TaskFilter filter,
+            final Set<State> taskStatuses,
+            final Boolean lastTaskOnly,
+            final JsonGenerator generator
+    ) throws IOException {
+        final Map<Date, List<Task>> dates = NameDateTaskGrouper
+                .builder()
+                .start(filter.getFrom())
+                .end(filter.getTo())
+                .dateType(filter.getDateType())
+                .taskNames(Collections.singleton(name))
+                .statuses(taskStatuses)
+                .lastTaskOnly(lastTaskOnly)
+                .build()
+                .group(tasks)
+                .get(name);
+        if (Objects.isNull(dates)) {
+            entityManager.clear();
+            return;
+        }
+
+        final List<Task> reportTasks = dates.values().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+        final Map<Task, TaskModel> models = taskTrackerService.toTaskModels(reportTasks, filter);
+
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeArrayFieldStart("dates");
+        for (final Map.Entry<Date, List<Task>> date : dates.entrySet()) {
+            generator.writeStartObject();
+            generator.writeStringField("date", DateTimePatterns.toYyyyMmDd(date.getKey()));
+            generator.writeArrayFieldStart("tasks");
+            for (final Task task : date.getValue()) {
+                generator.writeObject(models.get(task));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+
+        // tasks of the written name and their children are not needed anymore
+        entityManager.clear();
+    }
+}
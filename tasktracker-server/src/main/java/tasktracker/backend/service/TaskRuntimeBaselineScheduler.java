@@ -0,0 +1,106 @@
+package tasktracker.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.TaskName;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TaskRuntimeBaselineScheduler {
+    private static final long FLUSH_PERIOD_IN_SECONDS = 30;
+    private static final long BACKFILL_PERIOD_IN_HOURS = 24;
+    private static final int UPDATE_ATTEMPTS = 3;
+
+    private final TaskTrackerService taskTrackerService;
+    private final TaskRuntimeBaselineService taskRuntimeBaselineService;
+
+    private boolean recovered;
+
+    /**
+     * Adds the runs succeeded since the previous flush to the baselines. The runs of a failed update are
+     * added again on the next flush. The first flush also adds the runs not flushed before the last stop.
+     */
+    @Scheduled(fixedDelay = 1000 * FLUSH_PERIOD_IN_SECONDS)
+    public void flush() {
+        if (!recovered) {
+            recovered = recover();
+        }
+
+        final Map<Long, List<TaskRuntimeBaselineService.SucceededRun>> runs = taskRuntimeBaselineService.pollSucceededRuns();
+
+        runs.forEach((projectId, projectRuns) -> {
+            try {
+                taskTrackerService.findProjectById(projectId)
+                        .ifPresent(project -> update(project, projectRuns));
+            } catch (Exception e) {
+                log.error("Failed to update runtime baselines of project " + projectId + ", its runs are added on the next flush", e);
+                taskRuntimeBaselineService.requeue(projectRuns);
+            }
+        });
+    }
+
+    /**
+     * Updates the baselines, again with the saved baselines if another node changed or added them meanwhile.
+     */
+    private void update(final Project project, final List<TaskRuntimeBaselineService.SucceededRun> runs) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                taskRuntimeBaselineService.update(project, runs);
+                return;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("{}: runtime baselines changed by another node, update attempt {} of {}", project, attempt + 1, UPDATE_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * @return false if the runs of a project couldn't be found, they're looked for again on the next flush
+     */
+    private boolean recover() {
+        try {
+            for (final Project project : taskTrackerService.findProjects()) {
+                final List<TaskRuntimeBaselineService.SucceededRun> runs = taskRuntimeBaselineService.findRunsSinceLastUpdate(project);
+                if (!runs.isEmpty()) {
+                    log.info("{}: {} succeeded runs since the last runtime baselines update are added", project, runs.size());
+                    taskRuntimeBaselineService.requeue(runs);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to find the runs since the last runtime baselines update", e);
+            return false;
+        }
+    }
+
+    /**
+     * Loads the baselines of the names that have none, a name per transaction.
+     */
+    @Scheduled(fixedDelay = 1000 * 60 * 60 * BACKFILL_PERIOD_IN_HOURS, initialDelay = 1000 * 60)
+    public void backfill() {
+        for (final Project project : taskTrackerService.findProjects()) {
+            try {
+                final List<TaskName> names = taskRuntimeBaselineService.findNamesWithoutBaselines(project);
+                if (names.isEmpty()) {
+                    continue;
+                }
+                log.info("{}: runtime baselines backfill of {} names started", project, names.size());
+                names.forEach(taskName -> taskRuntimeBaselineService.backfill(project, taskName));
+                log.info("{}: runtime baselines backfill completed", project);
+            } catch (Exception e) {
+                log.error("Failed to backfill runtime baselines of " + project, e);
+            }
+        }
+    }
+}
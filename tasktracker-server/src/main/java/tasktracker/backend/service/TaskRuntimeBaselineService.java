@@ -0,0 +1,314 @@
+package tasktracker.backend.service;
+
+import com.google.common.collect.Maps;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tasktracker.backend.eventbus.*;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.repository.TaskRepository;
+import tasktracker.backend.repository.TaskRuntimeBaselineRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static tasktracker.backend.model.TaskRuntimeBaseline.ALL_HOURS;
+
+/**
+ * Maintains the task_runtime_baseline store: statistics of the last {@value #WINDOW_RUNS} succeeded runs of a task name
+ * in every hour of the week and overall.
+ * <p>
+ * Succeeded tasks are collected from the task events and added to the baselines of their names later by
+ * {@link TaskRuntimeBaselineScheduler}, one transaction per project. The baselines of a name are loaded from its
+ * last {@value #BOOTSTRAP_RUNS} succeeded runs the first time the name is updated, so readers get the statistics
+ * with one indexed lookup instead of aggregating the tasks.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class TaskRuntimeBaselineService implements TaskTrackerEventConsumer {
+    static final int WINDOW_RUNS = 50;
+    static final int MIN_RUNS = 5;
+    private static final int BOOTSTRAP_RUNS = 1000;
+    private static final long RECOVERY_OVERLAP_MILLIS = 1000 * 60 * 10;
+
+    private final TaskRuntimeBaselineRepository baselineRepository;
+    private final TaskRepository taskRepository;
+    private final TaskNameDictionary taskNameDictionary;
+
+    private final Map<Long, SucceededRun> succeededRuns = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(final TaskTrackerEvent event) {
+        if (!(event.getObject() instanceof TaskCreated) && !(event.getObject() instanceof TaskStateChanged)) {
+            return;
+        }
+
+        final TaskSnapshot task = ((TaskEvent) event.getObject()).getTask();
+        if (task.getState() != Task.State.SUCCEEDED || Objects.isNull(task.getId()) || Objects.isNull(task.getProjectId())
+                || Objects.isNull(task.getName()) || Objects.isNull(task.getStartDate()) || Objects.isNull(task.getEndDate())) {
+            return;
+        }
+
+        succeededRuns.put(task.getId(), new SucceededRun(
+                task.getId(),
+                task.getProjectId(),
+                task.getName(),
+                Date.from(task.getStartDate()),
+                task.getEndDate().toEpochMilli() - task.getStartDate().toEpochMilli()
+        ));
+    }
+
+    /**
+     * Removes and returns the runs succeeded since the previous call, by project id.
+     */
+    public Map<Long, List<SucceededRun>> pollSucceededRuns() {
+        final Map<Long, List<SucceededRun>> result = Maps.newHashMap();
+
+        final Iterator<SucceededRun> iterator = succeededRuns.values().iterator();
+        while (iterator.hasNext()) {
+            final SucceededRun run = iterator.next();
+            iterator.remove();
+            result.computeIfAbsent(run.getProjectId(), key -> new ArrayList<>()).add(run);
+        }
+
+        return result;
+    }
+
+    /**
+     * Puts back runs whose update failed, so they are added on the next poll. A run collected for the same
+     * task meanwhile is newer and kept.
+     */
+    public void requeue(final Collection<SucceededRun> runs) {
+        runs.forEach(run -> succeededRuns.putIfAbsent(run.getTaskId(), run));
+    }
+
+    /**
+     * Runs of the project succeeded since its baselines were last updated, with some overlap for the clocks.
+     * Runs are collected in memory, so the ones not flushed before a restart are found here again;
+     * adding a run twice only replaces its duration.
+     */
+    @Transactional(readOnly = true)
+    public List<SucceededRun> findRunsSinceLastUpdate(final Project project) {
+        final Date lastUpdate = baselineRepository.findLastUpdatedTime(project.getId()).orElse(null);
+        if (Objects.isNull(lastUpdate)) {
+            // names without baselines are loaded by the backfill
+            return Collections.emptyList();
+        }
+
+        return taskRepository.findByProjectIdAndEndDateGreaterThanEqual(project.getId(), new Date(lastUpdate.getTime() - RECOVERY_OVERLAP_MILLIS))
+                .stream()
+                .filter(task -> task.getState() == Task.State.SUCCEEDED
+                        && Objects.nonNull(task.getName()) && Objects.nonNull(task.getStartDate()))
+                .map(task -> new SucceededRun(task.getId(), project.getId(), task.getName(), task.getStartDate(),
+                        task.getEndDate().getTime() - task.getStartDate().getTime()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds the runs to the baselines of their names, runs of names the project doesn't have are skipped.
+     */
+    @Transactional
+    public void update(final Project project, final Collection<SucceededRun> runs) {
+        final Map<String, List<SucceededRun>> runsByName = runs.stream()
+                .collect(Collectors.groupingBy(run -> TaskName.normalize(run.getName())));
+
+        runsByName.forEach((name, nameRuns) -> taskNameDictionary.find(project.getId(), name).ifPresent(taskName -> {
+            final Map<Integer, TaskRuntimeBaseline> baselines = load(project, taskName);
+            nameRuns.stream()
+                    .sorted(Comparator.comparing(SucceededRun::getTaskId))
+                    .forEach(run -> add(baselines, project, taskName, run));
+            baselineRepository.saveAll(baselines.values());
+        }));
+    }
+
+    /**
+     * Names of the project without baselines, such as the names of the tasks added before the baselines.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskName> findNamesWithoutBaselines(final Project project) {
+        final Set<Integer> loaded = baselineRepository.findNameIds(project.getId());
+        return taskNameDictionary.findAll(project.getId())
+                .stream()
+                .filter(taskName -> !loaded.contains(taskName.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the baselines of the name from its last runs if it has none yet.
+     */
+    @Transactional
+    public void backfill(final Project project, final TaskName taskName) {
+        baselineRepository.saveAll(load(project, taskName).values());
+    }
+
+    /**
+     * Baseline of the hour of the week the task started in, or of all hours if the hour has too few runs.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TaskRuntimeBaseline> find(final Task task) {
+        if (Objects.isNull(task.getTaskName()) || Objects.isNull(task.getTaskName().getId())
+                || Objects.isNull(task.getStartDate())) {
+            return Optional.empty();
+        }
+
+        final int bucket = TaskRuntimeBaseline.bucket(task.getStartDate());
+        final Map<Integer, TaskRuntimeBaseline> baselines = baselineRepository
+                .findByProjectIdAndTaskNameIdAndBucketIn(task.getProject().getId(), task.getTaskName().getId(), Arrays.asList(bucket, ALL_HOURS))
+                .stream()
+                .filter(baseline -> baseline.getRuns() >= MIN_RUNS)
+                .collect(Collectors.toMap(TaskRuntimeBaseline::getBucket, baseline -> baseline));
+
+        return Optional.ofNullable(baselines.getOrDefault(bucket, baselines.get(ALL_HOURS)));
+    }
+
+    /**
+     * Names with the longest median run time over all hours, of the names with a succeeded run started
+     * from the day of start on.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskRuntimeBaseline> findLongest(final Project project, final Date start, final int top) {
+        return baselineRepository.findLongestRunSince(project.getId(), ALL_HOURS, start, PageRequest.of(0, top));
+    }
+
+    /**
+     * Predicts the end of running tasks from the recent runs of their baselines that took longer than the tasks so far.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskEta> predict(final Collection<Task> tasks, final Date now) {
+        final List<TaskEta> result = new ArrayList<>();
+        for (final Task task : tasks) {
+            final TaskRuntimeBaseline baseline = find(task).orElse(null);
+            if (Objects.isNull(baseline)) {
+                result.add(new TaskEta(task, null, null, null));
+                continue;
+            }
+
+            final long elapsed = now.getTime() - task.getStartDate().getTime();
+            final DescriptiveStatistics longer = new DescriptiveStatistics();
+            durations(baseline).values().stream().filter(duration -> duration > elapsed).forEach(longer::addValue);
+            if (longer.getN() == 0) {
+                result.add(new TaskEta(task, baseline, null, null));
+                continue;
+            }
+
+            final long start = task.getStartDate().getTime();
+            result.add(new TaskEta(
+                    task,
+                    baseline,
+                    new Date(start + Math.round(longer.getPercentile(50))),
+                    new Date(start + Math.round(longer.getPercentile(90)))
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * Baselines of the name by bucket, loaded from the last succeeded runs if the name has none yet.
+     */
+    private Map<Integer, TaskRuntimeBaseline> load(final Project project, final TaskName taskName) {
+        final Map<Integer, TaskRuntimeBaseline> baselines = baselineRepository.findByProjectIdAndTaskNameId(project.getId(), taskName.getId())
+                .stream()
+                .collect(Collectors.toMap(TaskRuntimeBaseline::getBucket, baseline -> baseline));
+        if (!baselines.isEmpty()) {
+            return baselines;
+        }
+
+        final List<Task> tasks = taskRepository.findByProjectIdAndTaskNameIdAndStateOrderByIdDesc(
+                project.getId(), taskName.getId(), Task.State.SUCCEEDED, PageRequest.of(0, BOOTSTRAP_RUNS));
+        // oldest first, like the events would have come
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            final Task task = tasks.get(i);
+            if (Objects.nonNull(task.getStartDate()) && Objects.nonNull(task.getEndDate())) {
+                add(baselines, project, taskName, new SucceededRun(task.getId(), project.getId(), taskName.getName(),
+                        task.getStartDate(), task.getEndDate().getTime() - task.getStartDate().getTime()));
+            }
+        }
+        log.debug("{}: loaded runtime baselines of '{}' from {} runs", project, taskName.getName(), tasks.size());
+
+        return baselines;
+    }
+
+    private static void add(
+            final Map<Integer, TaskRuntimeBaseline> baselines,
+            final Project project,
+            final TaskName taskName,
+            final SucceededRun run
+    ) {
+        if (run.getDuration() < 0) {
+            return;
+        }
+        for (final int bucket : new int[]{TaskRuntimeBaseline.bucket(run.getStartDate()), ALL_HOURS}) {
+            final TaskRuntimeBaseline baseline = baselines.computeIfAbsent(bucket, key -> {
+                final TaskRuntimeBaseline created = new TaskRuntimeBaseline();
+                created.setProject(project);
+                created.setTaskName(taskName);
+                created.setBucket(key);
+                return created;
+            });
+            add(baseline, run.getTaskId(), run.getDuration());
+            if (Objects.isNull(baseline.getLastRunDate()) || baseline.getLastRunDate().before(run.getStartDate())) {
+                baseline.setLastRunDate(run.getStartDate());
+            }
+        }
+    }
+
+    /**
+     * Adds the run to the window of the baseline, a run already in the window replaces its duration.
+     */
+    static void add(final TaskRuntimeBaseline baseline, final long taskId, final long duration) {
+        final LinkedHashMap<Long, Long> durations = durations(baseline);
+        durations.remove(taskId);
+        durations.put(taskId, duration);
+        final Iterator<Long> oldest = durations.keySet().iterator();
+        while (durations.size() > WINDOW_RUNS) {
+            oldest.next();
+            oldest.remove();
+        }
+
+        final DescriptiveStatistics stats = new DescriptiveStatistics();
+        durations.values().forEach(stats::addValue);
+        baseline.setRuns(durations.size());
+        baseline.setMean(stats.getMean());
+        baseline.setStdDev(durations.size() > 1 ? stats.getStandardDeviation() : 0);
+        baseline.setMedian(stats.getPercentile(50));
+        baseline.setP90(stats.getPercentile(90));
+        baseline.setRecentRuns(durations.entrySet()
+                .stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(",")));
+        baseline.setUpdatedTime(new Date());
+    }
+
+    /**
+     * Durations of the recent runs by task id, oldest first.
+     */
+    static LinkedHashMap<Long, Long> durations(final TaskRuntimeBaseline baseline) {
+        final LinkedHashMap<Long, Long> durations = new LinkedHashMap<>();
+        if (Objects.isNull(baseline.getRecentRuns()) || baseline.getRecentRuns().isEmpty()) {
+            return durations;
+        }
+        for (final String run : baseline.getRecentRuns().split(",")) {
+            final int separator = run.indexOf(':');
+            durations.put(Long.parseLong(run.substring(0, separator)), Long.parseLong(run.substring(separator + 1)));
+        }
+        return durations;
+    }
+
+    @Value
+    public static class SucceededRun {
+        Long taskId;
+        Long projectId;
+        String name;
+        Date startDate;
+        long duration;
+    }
+}
@@ -4,14 +4,14 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.math.Quantiles;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tasktracker.backend.controller.DateTimePatterns;
 import tasktracker.backend.controller.groupers.DateTaskGrouper;
@@ -21,8 +21,7 @@ import tasktracker.backend.controller.mappers.TaskStatsMapper;
 import tasktracker.backend.controller.model.*;
 import tasktracker.backend.controller.model.dashboard.KeyValueModel;
 import tasktracker.backend.controller.model.dashboard.TopChart;
-import tasktracker.backend.eventbus.TaskTrackerEvent;
-import tasktracker.backend.eventbus.TaskTrackerEventBus;
+import tasktracker.backend.eventbus.*;
 import tasktracker.backend.model.*;
 import tasktracker.backend.repository.*;
 
@@ -31,12 +30,13 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static java.util.Map.Entry.comparingByValue;
 import static tasktracker.backend.controller.DateTimePatterns.*;
 import static tasktracker.backend.model.Task.DateType;
 import static tasktracker.backend.model.Task.State;
@@ -45,6 +45,9 @@ import static tasktracker.backend.model.Task.State;
 @RequiredArgsConstructor
 @Service
 public class TaskTrackerService {
+    private static final int TASK_IDS_CHUNK_SIZE = 1000;
+    private static final int TASK_PAGE_SIZE = 500;
+
     private final ProjectRepository projectRepository;
     private final ProjectSettingsRepository projectSettingsRepository;
     private final TaskRepository taskRepository;
@@ -55,10 +58,21 @@ public class TaskTrackerService {
     private final TaskTrackerEventBus eventBus;
     private final WarningRepository warningRepository;
     private final DataQualityRuleRepository ruleRepository;
+    private final TaskAggregationRepository taskAggregationRepository;
+    private final TaskNameDictionary taskNameDictionary;
+    private final TaskRuntimeBaselineService taskRuntimeBaselineService;
 
     public static String normalizeTaskName(final String name) {
-        Preconditions.checkNotNull(name);
-        return name.trim().toLowerCase();
+        return TaskName.normalize(name);
+    }
+
+    /**
+     * Tasks of the given name. Names are compared as normalized when the tasks were saved,
+     * so the name of a task isn't normalized again.
+     */
+    private static Predicate<Task> hasName(final String name) {
+        final String normalizedName = TaskName.normalize(name);
+        return task -> Objects.nonNull(task.getTaskName()) && normalizedName.equals(task.getTaskName().getNormalizedName());
     }
 
     public static <T> T measureTotalTime(final Supplier<T> supplier, final String label) {
@@ -105,12 +119,7 @@ public class TaskTrackerService {
     public List<TaskStats> findDistinctTaskStatsByProject(final Project project, final String taskName) {
         return taskRepository.findDistinctLatestSucceededTasksByProject(project.getId())
                 .stream()
-                .filter(task -> {
-                    if (Objects.nonNull(taskName)) {
-                        return task.getName().equalsIgnoreCase(StringUtils.trim(taskName));
-                    }
-                    return true;
-                })
+                .filter(Objects.nonNull(taskName) ? hasName(taskName) : task -> true)
                 .flatMap(task -> findStatistics(task).stream())
                 .collect(Collectors.toList());
     }
@@ -149,57 +158,60 @@ public class TaskTrackerService {
 
     @Transactional(readOnly = true)
     public List<String> findAllTaskNames(final Long projectId) {
-        return taskRepository.getTaskNames(projectId);
+        return taskNameDictionary.findNames(projectId);
     }
 
+    @Transactional(readOnly = true)
     public Set<String> findTaskNamesByFilter(final Project project, final Set<String> filter) {
-        final Set<String> taskNames;
-
-        final List<String> projectTaskNames = findAllTaskNames(project.getId());
         if (filter.isEmpty()) {
-            taskNames = Sets.newHashSet(projectTaskNames);
-        } else {
-            final Set<String> normalizedFilter = filter
-                    .stream()
-                    .map(TaskTrackerService::normalizeTaskName)
-                    .collect(Collectors.toSet());
-            taskNames = projectTaskNames
-                    .stream()
-                    .filter(name -> normalizedFilter.contains(normalizeTaskName(name)))
-                    .collect(Collectors.toSet());
+            return Sets.newHashSet(findAllTaskNames(project.getId()));
         }
-
-        return taskNames;
+        return taskNameDictionary.findAll(project.getId(), filter)
+                .stream()
+                .map(TaskName::getName)
+                .collect(Collectors.toSet());
     }
 
     public Optional<Task> findTask(Project project, String taskName) {
-        return taskRepository.findTopByProjectIdAndNameOrderByIdDesc(project.getId(), taskName);
+        return taskNameDictionary.find(project.getId(), taskName)
+                .flatMap(name -> taskRepository.findTopByProjectIdAndTaskNameIdOrderByIdDesc(project.getId(), name.getId()));
+    }
+
+    /**
+     * Looks the name of a new task up in the dictionary, adding it if the project doesn't have it yet.
+     */
+    public void resolveName(final Task task) {
+        taskNameDictionary.resolve(task);
     }
 
     @Transactional(readOnly = true)
     public Map<String, List<String>> getAllTasksMetrics(final Long projectId) {
         Map<String, List<String>> taskStateMetrics = new HashMap<>();
 
-        List<String> allTaskStateNames = taskRepository.getTaskNames(projectId);
-        for (String taskName : allTaskStateNames) {
-            Task task = taskRepository
-                    .findTopByProjectIdAndNameAndStateOrderByIdDesc(projectId, taskName, Task.State.SUCCEEDED)
-                    .orElseGet(() -> taskRepository.findTopByProjectIdAndNameOrderByIdDesc(projectId, taskName).get());
-            List<String> metrics = findMetrics(task)
+        for (TaskName taskName : taskNameDictionary.findAll(projectId)) {
+            Optional<Task> task = taskRepository
+                    .findTopByProjectIdAndTaskNameIdAndStateOrderByIdDesc(projectId, taskName.getId(), Task.State.SUCCEEDED)
+                    .map(Optional::of)
+                    .orElseGet(() -> taskRepository.findTopByProjectIdAndTaskNameIdOrderByIdDesc(projectId, taskName.getId()));
+            if (!task.isPresent()) {
+                continue;
+            }
+            List<String> metrics = findMetrics(task.get())
                     .stream()
                     .map(TaskMetric::getName)
                     .collect(Collectors.toList());
 
-            taskStateMetrics.put(taskName, metrics);
+            taskStateMetrics.put(taskName.getName(), metrics);
         }
         return taskStateMetrics;
     }
 
     public Task save(final Project project, final Task task) {
         task.setProject(project);
+        resolveName(task);
         final Task result = taskRepository.save(task);
 
-        eventBus.post(TaskTrackerEvent.of(task));
+        eventBus.post(TaskTrackerEvent.of(TaskCreated.of(result)));
 
         return result;
     }
@@ -213,7 +225,11 @@ public class TaskTrackerService {
     public Warning save(final Task task, final Warning warning) {
         warning.setTask(task);
 
-        return warningRepository.save(warning);
+        final Warning result = warningRepository.save(warning);
+
+        eventBus.post(TaskTrackerEvent.of(WarningRaised.of(result)));
+
+        return result;
     }
 
     public TaskError save(final Task task, final TaskError taskError) {
@@ -222,6 +238,21 @@ public class TaskTrackerService {
         return taskErrorRepository.save(taskError);
     }
 
+    /**
+     * Saves the results of the Oozie synchronization of the tasks with one batch update.
+     */
+    public void updateSynchronizedTasks(final Collection<Task> tasks) {
+        tasks.forEach(task -> {
+            if (isTerminalState(task.getState()) && Objects.isNull(task.getEndDate())) {
+                task.setEndDate(new Date());
+            }
+        });
+
+        taskRepository.updateSynchronizedTasks(tasks);
+
+        tasks.forEach(task -> eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task))));
+    }
+
     public Task update(final Project project, final Task task) {
         if (isTerminalState(task.getState()) && Objects.isNull(task.getEndDate())) {
             task.setEndDate(new Date());
@@ -229,7 +260,7 @@ public class TaskTrackerService {
 
         final Task result = taskRepository.save(task);
 
-        eventBus.post(TaskTrackerEvent.of(task));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(result)));
 
         return result;
     }
@@ -310,45 +341,102 @@ public class TaskTrackerService {
     }
 
 
-    @Transactional(readOnly = true)
-    public List<Task> filterTasks(Long projectId,
-                                  String name,
-                                  String status,
-                                  Date startDate,
-                                  Date nominalDate,
-                                  Date endDate,
-                                  String sortBy,
-                                  Integer limit) {
-
-        Stream<Task> projectTasks;
+    /**
+     * Filter of the v1 task listing: tasks started, nominal or ended on the given day
+     * (the first given date wins), with the given name and status.
+     */
+    public Specification<Task> taskSpecification(Long projectId,
+                                                 String name,
+                                                 String status,
+                                                 Date startDate,
+                                                 Date nominalDate,
+                                                 Date endDate) {
+        Specification<Task> specification = Specification.where(TaskSpecifications.projectId(projectId));
 
         if (!Objects.isNull(startDate)) {
-            Date nextDayAfterStartDate = addDays(startDate, 1);
-            projectTasks = taskRepository.findByProjectIdAndStartDateGreaterThanEqualAndStartDateLessThan(projectId, startDate, nextDayAfterStartDate).stream();
+            specification = specification.and(TaskSpecifications.between("startDate", startDate, addDays(startDate, 1)));
         } else if (!Objects.isNull(nominalDate)) {
-            Date nextDayAfterNominalDate = addDays(nominalDate, 1);
-            projectTasks = taskRepository.findByProjectIdAndNominalDateGreaterThanEqualAndNominalDateLessThan(projectId, nominalDate, nextDayAfterNominalDate).stream();
+            specification = specification.and(TaskSpecifications.between("nominalDate", nominalDate, addDays(nominalDate, 1)));
         } else if (!Objects.isNull(endDate)) {
-            Date nextDayAfterEndDate = addDays(endDate, 1);
-            projectTasks = taskRepository.findByProjectIdAndEndDateGreaterThanEqualAndEndDateLessThan(projectId, endDate, nextDayAfterEndDate).stream();
-        } else {
-            projectTasks = findTasksByProjectId(projectId).stream();
+            specification = specification.and(TaskSpecifications.between("endDate", endDate, addDays(endDate, 1)));
         }
 
         if (!Objects.isNull(name)) {
-            projectTasks = projectTasks.filter(task -> task.getName().equalsIgnoreCase(name.trim()));
+            specification = specification.and(TaskSpecifications.names(Collections.singleton(name)));
         }
         if (!Objects.isNull(status)) {
-            projectTasks = projectTasks.filter(task -> task.getState().name().equalsIgnoreCase(status.trim()));
+            specification = specification.and(TaskSpecifications.statuses(Collections.singleton(status)));
         }
-        if (!Objects.isNull(sortBy)) {
-            projectTasks = sortList(projectTasks, sortBy);
-        }
-        if (!Objects.isNull(limit)) {
-            return projectTasks.limit(limit).collect(Collectors.toList());
+
+        return specification;
+    }
+
+    /**
+     * Filter of the v2 task listing, same as {@link #findTasks(Project, TaskFilter)}.
+     */
+    public Specification<Task> taskSpecification(final Project project, final TaskFilter filter) {
+        final Date from = filter.getFrom();
+        final Date to = filter.getTo();
+
+        Specification<Task> specification = Specification.where(TaskSpecifications.projectId(project.getId()));
+
+        switch (filter.getDateType()) {
+            case NOMINAL_DATE:
+                specification = specification.and(TaskSpecifications.between(
+                        "nominalDate",
+                        Objects.isNull(from) ? null : DateUtils.truncate(from, Calendar.DAY_OF_MONTH),
+                        Objects.isNull(to) ? null : addDays(DateUtils.truncate(to, Calendar.DAY_OF_MONTH), 1)));
+                break;
+            case START_DATE:
+                if (!Objects.isNull(from)) {
+                    specification = specification.and(TaskSpecifications.after("startDate", from));
+                }
+                break;
+            case END_DATE:
+                if (!Objects.isNull(to)) {
+                    specification = specification.and(TaskSpecifications.notAfter("endDate", to));
+                }
+                break;
+            case PERIOD:
+                specification = specification.and(TaskSpecifications.between("startDate", from, to));
+                break;
         }
 
-        return projectTasks.collect(Collectors.toList());
+        return specification
+                .and(TaskSpecifications.names(filter.getNames()))
+                .and(TaskSpecifications.statuses(filter.getStatuses()));
+    }
+
+    /**
+     * Passes tasks matching the specification to the consumer page by page.
+     * Every page is a separate keyset query continuing after the last task of the previous one,
+     * so neither the database nor the JVM ever handles more than a page.
+     *
+     * @param after - task to continue after, null to start from the beginning
+     * @param limit - maximum number of tasks, 0 for all
+     */
+    public void forEachTaskPage(final Specification<Task> specification,
+                                final TaskOrder order,
+                                final Task after,
+                                final int limit,
+                                final Consumer<List<Task>> consumer) {
+        Task last = after;
+        int remaining = limit > 0 ? limit : Integer.MAX_VALUE;
+
+        while (remaining > 0) {
+            final int pageSize = Math.min(TASK_PAGE_SIZE, remaining);
+            final List<Task> page = taskRepository.findTasks(specification, order, last, pageSize);
+
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+
+            remaining -= page.size();
+            last = page.get(page.size() - 1);
+        }
     }
 
 
@@ -422,7 +510,7 @@ public class TaskTrackerService {
 
 
         if (!Objects.isNull(name)) {
-            projectTasks = projectTasks.filter(task -> task.getName().equalsIgnoreCase(name.trim()));
+            projectTasks = projectTasks.filter(hasName(name));
         }
         if (!Objects.isNull(status)) {
             projectTasks = projectTasks.filter(task -> task.getState().name().equalsIgnoreCase(status.trim()));
@@ -524,6 +612,7 @@ public class TaskTrackerService {
             currentSettings.setIncidentGenerationAllowed(settings.getIncidentGenerationAllowed());
             currentSettings.setTaskDataQualityAllowed(settings.getTaskDataQualityAllowed());
             currentSettings.setTaskSynchronizationAllowed(settings.getTaskSynchronizationAllowed());
+            currentSettings.setRetentionMonths(settings.getRetentionMonths());
         }
 
         projectRepository.save(project);
@@ -591,7 +680,11 @@ public class TaskTrackerService {
     public List<TaskStats> saveTaskStats(final Task task, final List<TaskStats> stats) {
         stats.forEach(item -> item.setTask(task));
 
-        return statsRepository.saveAll(stats);
+        final List<TaskStats> result = statsRepository.saveAll(stats);
+
+        result.forEach(item -> eventBus.post(TaskTrackerEvent.of(StatsIngested.of(item))));
+
+        return result;
     }
 
     @Transactional(readOnly = true)
@@ -614,11 +707,12 @@ public class TaskTrackerService {
         return statsRepository.findByTask(task);
     }
 
-    private boolean taskNameFilter(final TaskFilter filter, final Task task) {
-        if (filter.getNames().isEmpty()) {
-            return true;
+    private Predicate<Task> taskNameFilter(final TaskFilter filter) {
+        if (filter.getNames().isEmpty() || filter.getNames().stream().anyMatch(String::isEmpty)) {
+            return task -> true;
         }
-        return filter.getNames().stream().anyMatch(name -> name.isEmpty() || name.equalsIgnoreCase(task.getName()));
+        final Set<String> normalizedNames = filter.getNames().stream().map(TaskName::normalize).collect(Collectors.toSet());
+        return task -> Objects.nonNull(task.getTaskName()) && normalizedNames.contains(task.getTaskName().getNormalizedName());
     }
 
     private boolean taskStatusFilter(final TaskFilter filter, final Task task) {
@@ -632,15 +726,16 @@ public class TaskTrackerService {
     @SuppressWarnings({"ResultOfMethodCallIgnored"})
     public List<Task> findTasks(final Project project, final TaskFilter filter) {
         final List<Task> tasks = findTasks(project, filter.getDateType(), filter.getFrom(), filter.getTo());
+        final Predicate<Task> nameFilter = taskNameFilter(filter);
         return tasks.stream()
-                .filter(task -> taskNameFilter(filter, task) && taskStatusFilter(filter, task))
+                .filter(task -> nameFilter.test(task) && taskStatusFilter(filter, task))
                 .collect(Collectors.toList());
     }
 
-    public long renameTasks(final String originalName, final String newName) {
-        log.info("Rename tasks: original name '{}', new name '{}'", originalName, newName);
+    public long renameTasks(final Project project, final String originalName, final String newName) {
+        log.info("Rename tasks of project {}: original name '{}', new name '{}'", project.getId(), originalName, newName);
 
-        final long affected = taskRepository.renameTasks(originalName, newName);
+        final long affected = taskNameDictionary.rename(project, originalName, newName);
 
         log.info("{} tasks renamed", affected);
 
@@ -648,14 +743,24 @@ public class TaskTrackerService {
     }
 
     @Transactional(readOnly = true)
-    public List<Task> findUnsynchronizedTasks(final Project project) {
-        return taskRepository.findUnsynchronizedProjectTasks(project, PageRequest.of(0, 25));
+    public List<Task> findUnsynchronizedTasks(final Collection<String> oozieWorkflowIds) {
+        return oozieWorkflowIds.isEmpty() ?
+                Collections.emptyList() :
+                taskRepository.findUnsynchronizedTasksByOozieWorkflowIds(oozieWorkflowIds);
     }
 
     @Transactional(readOnly = true)
-    public List<Task> findUnanalyzedTasks(final Project project) {
+    public List<Task> findUnsynchronizedTasks(final Project project, final Long afterId, final int pageSize) {
+        return taskRepository.findUnsynchronizedProjectTasks(project, afterId, PageRequest.of(0, pageSize));
+    }
+
+    /**
+     * Unanalyzed tasks locked until the end of the current transaction, tasks locked by other transactions are skipped.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Task> claimUnanalyzedTasks(final Project project, final int batchSize) {
         List<State> states = Arrays.asList(State.SUCCEEDED, State.FAILED, State.CANCELED);
-        return taskRepository.findUnanalyzedTasksProjectTasks(project, states, PageRequest.of(0, 20, Sort.by("nominalDate").ascending()));
+        return taskRepository.claimUnanalyzedTasks(project, states, PageRequest.of(0, batchSize));
     }
 
     public boolean isTerminalState(final State state) {
@@ -700,48 +805,94 @@ public class TaskTrackerService {
         return taskErrorRepository.findByTask(task);
     }
 
+    @Transactional(readOnly = true)
+    public Map<Long, List<Warning>> findWarningsByTasks(final Collection<Task> tasks) {
+        return findByTaskIds(tasks, warningRepository::findByTaskIds, Warning::getTask);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, List<TaskMetric>> findMetricsByTasks(final Collection<Task> tasks) {
+        return findByTaskIds(tasks, taskMetricRepository::findByTaskIds, TaskMetric::getTask);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, List<TaskStats>> findStatisticsByTasks(final Collection<Task> tasks) {
+        return findByTaskIds(tasks, statsRepository::findByTaskIds, TaskStats::getTask);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, List<TaskError>> findErrorsByTasks(final Collection<Task> tasks) {
+        return findByTaskIds(tasks, taskErrorRepository::findByTaskIds, TaskError::getTask);
+    }
+
+    /**
+     * Loads children of all given tasks with one IN query per chunk of task ids
+     * and groups them by task id. Tasks without children are absent from the result.
+     */
+    private static <T> Map<Long, List<T>> findByTaskIds(
+            final Collection<Task> tasks,
+            final Function<Collection<Long>, List<T>> finder,
+            final Function<T, Task> taskGetter
+    ) {
+        final List<Long> taskIds = tasks.stream()
+                .map(Task::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        final Map<Long, List<T>> result = Maps.newHashMap();
+        for (List<Long> chunk : Lists.partition(taskIds, TASK_IDS_CHUNK_SIZE)) {
+            finder.apply(chunk).forEach(child ->
+                    result.computeIfAbsent(taskGetter.apply(child).getId(), id -> Lists.newArrayList()).add(child));
+        }
+
+        return result;
+    }
+
     public LinkedHashMap<String, Integer> findTopFailedTasksStats(
             final Project project,
             final Date startDate,
             final Date endDate,
             final int top
     ) {
-        List<Task> tasks = taskRepository.findTasksInRage(project, startDate, endDate);
-
-        LinkedHashMap<String, Integer> topFailedTasks = tasks.stream()
-                .filter(task -> task.getState().equals(State.FAILED))
-                .collect(Collectors.groupingBy(Task::getName, Collectors.summingInt(t -> 1)))
-                .entrySet().stream()
-                .sorted(comparingByValue(Comparator.reverseOrder()))
-                .limit(top)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-
-        return topFailedTasks;
+        return taskAggregationRepository.countFailedTasksByName(project.getId(), startDate, endDate, top)
+                .stream()
+                .collect(Collectors.toMap(TopChart.TopElement::getName, TopChart.TopElement::getCounter, (e1, e2) -> e1, LinkedHashMap::new));
     }
 
+    /**
+     * Names with the longest median run time in seconds, truncated. Periods up to today are read from the runtime
+     * baselines in constant time: the medians are of the last runs of the names that ran in the period, runs before
+     * the period included. Earlier periods are aggregated from the runs in the period.
+     */
     public LinkedHashMap<String, Integer> findTopLongTasksStats(
             final Project project,
             final Date startDate,
             final Date endDate,
             final int top
     ) {
-        List<Task> tasks = taskRepository.findTasksInRage(project, startDate, endDate);
-
-        Function<Task, Long> getExecutionTime = (task) -> getExecutionTime(task);
-
-        return tasks.stream()
-                .filter(task -> task.getState().equals(State.SUCCEEDED))
-                .collect(Collectors.groupingBy(Task::getName, Collectors.mapping(getExecutionTime, Collectors.toList())))
-                .entrySet().stream()
-                .flatMap((entry) -> {
-                    Map<String, Integer> m = Maps.newHashMap();
-                    m.put(entry.getKey(), (int) Quantiles.median().compute(entry.getValue().stream().mapToLong(i -> i).toArray()));
-                    return m.entrySet().stream();
-                })
-                .sorted(comparingByValue(Comparator.reverseOrder()))
-                .limit(top)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+        if (!endDate.before(DateUtils.truncate(new Date(), Calendar.DAY_OF_MONTH))) {
+            return taskRuntimeBaselineService.findLongest(project, startDate, top)
+                    .stream()
+                    .collect(Collectors.toMap(
+                            baseline -> baseline.getTaskName().getName(),
+                            baseline -> (int) (baseline.getMedian() / 1000),
+                            (e1, e2) -> e1,
+                            LinkedHashMap::new
+                    ));
+        }
+        return taskAggregationRepository.medianExecutionTimeByName(project.getId(), startDate, endDate, top)
+                .stream()
+                .collect(Collectors.toMap(TopChart.TopElement::getName, TopChart.TopElement::getCounter, (e1, e2) -> e1, LinkedHashMap::new));
+    }
 
+    /**
+     * Predicted ends of the running tasks of the project.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskEta> predictRunningTasks(final Project project) {
+        final List<Task> running = taskRepository.findByProjectIdAndStateAndEndDateIsNull(project.getId(), State.RUNNING);
+        return taskRuntimeBaselineService.predict(running, new Date());
     }
 
     public LinkedHashMap<Date, Integer> getTasksDistribution(
@@ -750,11 +901,21 @@ public class TaskTrackerService {
             final Date endDate,
             final Frequency frequency
     ) {
-        List<Task> tasks;
+        final Date hourStart = DateUtils.truncate(startDate, Calendar.HOUR);
+        final Date dayStart = DateUtils.truncate(startDate, Calendar.DAY_OF_MONTH);
+
+        // Buckets of the grouper start at the start date hour, so days are only
+        // fine enough when the start date is at midnight.
+        Map<Date, Integer> counts;
         if (frequency == Frequency.HOUR) {
-            tasks = taskRepository.findTasksInRageTruncHour(project, startDate, endDate);
+            counts = taskAggregationRepository.countTasksByStartHour(
+                    project.getId(), hourStart, DateUtils.addHours(DateUtils.truncate(endDate, Calendar.HOUR), 1));
+        } else if (hourStart.equals(dayStart)) {
+            counts = taskAggregationRepository.countTasksByStartDay(
+                    project.getId(), dayStart, DateUtils.addDays(DateUtils.truncate(endDate, Calendar.DAY_OF_MONTH), 1));
         } else {
-            tasks = taskRepository.findTasksInRage(project, startDate, endDate);
+            counts = taskAggregationRepository.countTasksByStartHour(
+                    project.getId(), dayStart, DateUtils.addDays(DateUtils.truncate(endDate, Calendar.DAY_OF_MONTH), 1));
         }
 
         DateTaskGrouper taskGrouper = new DateTaskGrouper.DateTaskGrouperBuilder()
@@ -764,7 +925,7 @@ public class TaskTrackerService {
                 .dateType(DateType.START_DATE)
                 .build();
 
-        return taskGrouper.group(tasks).entrySet()
+        return taskGrouper.groupCounts(counts).entrySet()
                 .stream()
                 .sorted(Map.Entry.comparingByKey())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
@@ -789,29 +950,19 @@ public class TaskTrackerService {
                 .build()
                 .group(tasks);
 
+        final List<Task> reportTasks = groupedTasks.values().stream()
+                .flatMap(dates -> dates.values().stream())
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+        final Map<Task, TaskModel> models = toTaskModels(reportTasks, filter);
+
         final List<TasksReportModel> result = groupedTasks.entrySet().stream().map(entry -> {
             final TasksReportModel periodTasksModel = new TasksReportModel();
             periodTasksModel.setName(entry.getKey());
             periodTasksModel.setDates(entry.getValue().entrySet().stream().map(dateWithTasks -> {
                 final DateTasks dateTask = new DateTasks();
                 dateTask.setDate(DateTimePatterns.toYyyyMmDd(dateWithTasks.getKey()));
-                dateTask.setTasks(dateWithTasks.getValue().stream().map(task -> {
-                    final TaskModel model = new TaskModel(task);
-                    if (filter.isWithMetrics()) {
-                        model.setMetrics(findMetrics(task).stream().map(TaskMetricModel::new).collect(Collectors.toList()));
-                    }
-                    if (filter.isWithStatistics()) {
-                        TaskStatsMapper taskStatsMapper = new TaskStatsMapper();
-                        model.setStatistics(findStatistics(task).stream().map(taskStatsMapper::to).collect(Collectors.toList()));
-                    }
-                    if (filter.isWithErrors()) {
-                        model.setErrors(findErrors(task).stream().map(TaskErrorModel::new).collect(Collectors.toList()));
-                    }
-                    if (filter.isWithWarnings()) {
-                        model.setWarnings(findWarnings(task).stream().map(WarningModel::new).collect(Collectors.toList()));
-                    }
-                    return model;
-                }).collect(Collectors.toList()));
+                dateTask.setTasks(dateWithTasks.getValue().stream().map(models::get).collect(Collectors.toList()));
                 return dateTask;
             }).collect(Collectors.toList()));
             return periodTasksModel;
@@ -820,29 +971,44 @@ public class TaskTrackerService {
         return result;
     }
 
+    /**
+     * Maps tasks to models, loading the children requested by the filter in bulk.
+     */
+    public Map<Task, TaskModel> toTaskModels(final Collection<Task> tasks, final TaskFilter filter) {
+        final Map<Long, List<TaskMetric>> metrics = filter.isWithMetrics() ? findMetricsByTasks(tasks) : Collections.emptyMap();
+        final Map<Long, List<TaskStats>> statistics = filter.isWithStatistics() ? findStatisticsByTasks(tasks) : Collections.emptyMap();
+        final Map<Long, List<TaskError>> errors = filter.isWithErrors() ? findErrorsByTasks(tasks) : Collections.emptyMap();
+        final Map<Long, List<Warning>> warnings = filter.isWithWarnings() ? findWarningsByTasks(tasks) : Collections.emptyMap();
+        final TaskStatsMapper taskStatsMapper = new TaskStatsMapper();
+        final SimpleDateFormat dateTimeFormat = DateTimePatterns.getDateTimeFormat();
+
+        final Map<Task, TaskModel> models = new IdentityHashMap<>();
+        for (final Task task : tasks) {
+            final TaskModel model = new TaskModel(dateTimeFormat, task);
+            if (filter.isWithMetrics()) {
+                model.setMetrics(metrics.getOrDefault(task.getId(), Collections.emptyList()).stream().map(TaskMetricModel::new).collect(Collectors.toList()));
+            }
+            if (filter.isWithStatistics()) {
+                model.setStatistics(statistics.getOrDefault(task.getId(), Collections.emptyList()).stream().map(taskStatsMapper::to).collect(Collectors.toList()));
+            }
+            if (filter.isWithErrors()) {
+                model.setErrors(errors.getOrDefault(task.getId(), Collections.emptyList()).stream().map(TaskErrorModel::new).collect(Collectors.toList()));
+            }
+            if (filter.isWithWarnings()) {
+                model.setWarnings(warnings.getOrDefault(task.getId(), Collections.emptyList()).stream().map(WarningModel::new).collect(Collectors.toList()));
+            }
+            models.put(task, model);
+        }
+        return models;
+    }
+
     public List<TopChart.TopElement> findTopErrors(
             final Project project,
             final Date startDate,
             final Date endDate,
             final int top
     ) {
-        List<Task> tasks = taskRepository.findTasksInRage(project, startDate, endDate);
-
-        return tasks.stream()
-                .filter(task -> task.getState().equals(State.FAILED))
-                .flatMap(task -> findErrors(task).stream().filter(taskError -> Objects.nonNull(taskError.getType())))
-                .collect(Collectors.groupingBy(TaskError::getType, Collectors.summingInt(t -> 1)))
-                .entrySet().stream()
-                .map(entry -> {
-                    TopChart.TopElement errorElement = new TopChart.TopElement();
-                    errorElement.setName(entry.getKey().name());
-                    errorElement.setCounter(entry.getValue());
-
-                    return errorElement;
-                })
-                .sorted(Comparator.comparing(TopChart.TopElement::getCounter).reversed())
-                .limit(top)
-                .collect(Collectors.toList());
+        return taskAggregationRepository.countErrorsByType(project.getId(), startDate, endDate, top);
     }
 
     public List<TopChart.TopWarningElement> findTopWarnings(
@@ -851,23 +1017,7 @@ public class TaskTrackerService {
             final Date endDate,
             final int top
     ) {
-        List<Task> tasks = taskRepository.findTasksInRage(project, startDate, endDate);
-
-        return tasks.stream()
-                .flatMap(task -> findWarnings(task).stream())
-                .collect(Collectors.groupingBy(Warning::getMessage))
-                .entrySet().stream()
-                .map(entry -> {
-                    TopChart.TopWarningElement warningElement = new TopChart.TopWarningElement();
-                    warningElement.setName(entry.getKey());
-                    warningElement.setCounter(entry.getValue().size());
-                    warningElement.setTaskName(entry.getValue().get(0).getTask().getName());
-
-                    return warningElement;
-                })
-                .sorted(Comparator.comparing(TopChart.TopWarningElement::getCounter).reversed())
-                .limit(top)
-                .collect(Collectors.toList());
+        return taskAggregationRepository.countWarningsByMessage(project.getId(), startDate, endDate, top);
     }
 
     public List<Warning> findWarnings(
@@ -878,38 +1028,15 @@ public class TaskTrackerService {
     ) {
         List<Warning> warnings = warningRepository.findWarningsInRange(project, from, to);
         if (Objects.nonNull(taskName) && !taskName.trim().isEmpty()) {
+            final Predicate<Task> nameFilter = hasName(taskName);
             return warnings
                     .stream()
-                    .filter(warning -> warning.getTask().getName().equalsIgnoreCase(taskName))
+                    .filter(warning -> nameFilter.test(warning.getTask()))
                     .collect(Collectors.toList());
         }
         return warnings;
     }
 
-    public List<TaskStats> findLastNSucceededTasksStats(
-            final Project project,
-            final Task task,
-            final String statsColumnName,
-            final Integer statsNumber
-    ) {
-        DateFormat df = getDefault();
-        Function<Task, String> taskToNominalDate = t -> df.format(DateUtils.truncate(t.getNominalDate(), Calendar.DAY_OF_MONTH));
-
-        return taskRepository.findLastNTasksByProjectAndNominalDateAndState(project.getId(), task.getName(), State.SUCCEEDED.name(), task.getNominalDate(), 2 * statsNumber)
-                .stream()
-                .collect(Collectors.groupingBy(taskToNominalDate,
-                        Collectors.reducing(BinaryOperator.maxBy(Comparator.comparing(Task::getStartDate)))))
-                .entrySet()
-                .stream()
-                .map(entry -> entry.getValue().get())
-                .filter(tsk -> findWarnings(tsk).isEmpty())
-                .sorted(Comparator.comparing(Task::getNominalDate).reversed())
-                .limit(statsNumber)
-                .flatMap(t -> findStatistics(t).stream())
-                .filter(taskStats -> taskStats.getColumn().equalsIgnoreCase(statsColumnName))
-                .collect(Collectors.toList());
-    }
-
     public List<KeyValueModel> getTaskStats(
             final Project project,
             final String taskName,
@@ -923,7 +1050,7 @@ public class TaskTrackerService {
         Function<Task, String> taskToNominalDate = t -> df.format(DateUtils.truncate(t.getNominalDate(), Calendar.DAY_OF_MONTH));
 
         return taskRepository.findTasks(project.getId(), startDate, endDate).stream()
-                .filter(task -> task.getName().equalsIgnoreCase(taskName) && task.getState() == State.SUCCEEDED)
+                .filter(hasName(taskName).and(task -> task.getState() == State.SUCCEEDED))
                 .collect(Collectors.groupingBy(taskToNominalDate,
                         Collectors.reducing(BinaryOperator.maxBy(Comparator.comparing(Task::getStartDate)))))
                 .entrySet()
@@ -950,6 +1077,8 @@ public class TaskTrackerService {
             }
         });
 
+        eventBus.post(TaskTrackerEvent.of(WarningsDeleted.of(task)));
+
         if (Objects.nonNull(resetAnalyzedFlag) && resetAnalyzedFlag) {
             task.setAnalyzed(false);
             taskRepository.save(task);
@@ -965,12 +1094,7 @@ public class TaskTrackerService {
     ) {
         List<Task> tasks = findTasks(project, DateType.NOMINAL_DATE, from, to)
                 .stream()
-                .filter(task -> {
-                    if (StringUtils.isNotBlank(taskName)) {
-                        return task.getName().equalsIgnoreCase(taskName);
-                    }
-                    return true;
-                })
+                .filter(StringUtils.isNotBlank(taskName) ? hasName(taskName) : task -> true)
                 .collect(Collectors.toList());
 
         tasks.forEach(task -> deleteWarningsAndSetUnanalyzed(task, resetAnalyzedFlag));
@@ -0,0 +1,2 @@
+-- The stuck task detector reads the running tasks of a project.
+CREATE INDEX IF NOT EXISTS task_state_index_on_projectid_status_enddate ON task_state (project_id, status, end_date);
@@ -0,0 +1,18 @@
+-- Run time statistics of the recent succeeded runs by task name and hour of the week (bucket -1 for all hours),
+-- maintained by TaskRuntimeBaselineService. Names without baselines are loaded from their tasks after the start.
+CREATE TABLE IF NOT EXISTS task_runtime_baseline (
+    id           BIGSERIAL        PRIMARY KEY,
+    project_id   BIGINT           NOT NULL REFERENCES project (id) ON DELETE CASCADE,
+    name_id      INTEGER          NOT NULL REFERENCES task_name (id) ON DELETE CASCADE,
+    bucket       INTEGER          NOT NULL,
+    runs         INTEGER          NOT NULL,
+    mean         DOUBLE PRECISION NOT NULL,
+    std_dev      DOUBLE PRECISION NOT NULL,
+    median       DOUBLE PRECISION NOT NULL,
+    p90          DOUBLE PRECISION NOT NULL,
+    recent_runs  VARCHAR(2048)    NOT NULL,
+    updated_time TIMESTAMP        NOT NULL,
+    CONSTRAINT task_runtime_baseline_unique_projectid_nameid_bucket UNIQUE (project_id, name_id, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS task_runtime_baseline_index_on_projectid_bucket_median ON task_runtime_baseline (project_id, bucket, median);
@@ -0,0 +1,5 @@
+-- Node that posted the event. A node replays only its own events, the events of other live nodes are still
+-- buffered in their memory. Events posted before the column existed are replayed by the next node that starts.
+ALTER TABLE event_outbox ADD COLUMN IF NOT EXISTS node_id VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS event_outbox_index_on_nodeid_id ON event_outbox (node_id, id);
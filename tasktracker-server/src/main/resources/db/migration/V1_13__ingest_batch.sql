@@ -0,0 +1,11 @@
+-- Idempotency keys of the ingested batches, a batch sent again with the same key isn't written twice.
+-- Keys older than ingestion.idempotency.retention-days are deleted.
+CREATE TABLE IF NOT EXISTS ingest_batch (
+    id              BIGSERIAL    PRIMARY KEY,
+    project_id      BIGINT       NOT NULL REFERENCES project (id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP    NOT NULL,
+    CONSTRAINT ingest_batch_unique_projectid_idempotencykey UNIQUE (project_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS ingest_batch_index_on_createdat ON ingest_batch (created_at);
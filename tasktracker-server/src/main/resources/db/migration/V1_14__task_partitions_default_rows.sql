@@ -0,0 +1,45 @@
+-- Rows of a month without a partition are kept in the default partitions: tasks further ahead than
+-- partitions.months-ahead, or every task while the partitions weren't maintained. PostgreSQL refuses to create a
+-- partition whose rows are in the default partition, so create_task_partitions moves them into the new partition:
+-- it's created detached, gets the rows of its month from the default partition and is attached afterwards.
+CREATE OR REPLACE FUNCTION create_task_partitions(from_month DATE, to_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    part_month DATE := date_trunc('month', from_month);
+    part_end DATE;
+    parent TEXT;
+    part_key TEXT;
+    part_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE part_month <= to_month LOOP
+        part_end := (part_month + INTERVAL '1 month')::DATE;
+        FOREACH parent IN ARRAY ARRAY['task_state', 'task_metric', 'task_error', 'task_statistics', 'warning'] LOOP
+            part_name := parent || to_char(part_month, '"_p"YYYYMM');
+            IF to_regclass(part_name) IS NULL THEN
+                part_key := CASE WHEN parent = 'task_state' THEN 'start_date' ELSE 'task_start_date' END;
+                -- no rows are written to the table until the partition is attached, they would go to the default one
+                EXECUTE format('LOCK TABLE %I IN SHARE ROW EXCLUSIVE MODE', parent);
+                EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', part_name, parent);
+                EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                               parent || '_default', part_key, part_month, part_key, part_end, part_name);
+                EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', part_name);
+                -- the indexes and constraints of the table are added to the partition on attach
+                EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               parent, part_name, part_month, part_end);
+                created := created + 1;
+            END IF;
+        END LOOP;
+        part_month := part_end;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statistics of tasks without a start date are in the default partition with a null task_start_date, where
+-- unq_tid_column_name doesn't apply: nulls are distinct. The partitioned table can't have a key without
+-- task_start_date, so the statistics without it are kept unique by the default partition, the latest one wins.
+DELETE FROM task_statistics_default s USING task_statistics_default d
+    WHERE s.task_start_date IS NULL AND d.task_start_date IS NULL
+        AND s.task_state_id = d.task_state_id AND s.column_name = d.column_name AND s.id < d.id;
+CREATE UNIQUE INDEX unq_tid_column_name_without_start_date
+    ON task_statistics_default (task_state_id, column_name) WHERE task_start_date IS NULL;
@@ -0,0 +1,3 @@
+-- Optimistic lock of the baselines: nodes adding runs to the same baseline at once don't overwrite each other's runs,
+-- the update that comes second fails and is tried again with the saved baseline.
+ALTER TABLE task_runtime_baseline ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Start date of the latest run of a baseline, so the names that ran in a period are found without their tasks.
+ALTER TABLE task_runtime_baseline ADD COLUMN IF NOT EXISTS last_run_date TIMESTAMP;
+
+UPDATE task_runtime_baseline b SET last_run_date = (
+    SELECT MAX(t.start_date) FROM task_state t
+    WHERE t.project_id = b.project_id AND t.name_id = b.name_id AND t.status = 'SUCCEEDED'
+) WHERE b.bucket = -1 AND b.last_run_date IS NULL;
@@ -0,0 +1,7 @@
+-- Ids of the bulk ingested tables are allocated by Hibernate in blocks of 50 (pooled optimizer),
+-- so the sequences behind the former serial columns have to step by the same size.
+ALTER SEQUENCE IF EXISTS task_state_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS task_metric_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS task_error_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS warning_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS task_statistics_id_seq INCREMENT BY 50;
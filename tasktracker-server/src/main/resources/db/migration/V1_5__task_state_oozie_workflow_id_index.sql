@@ -0,0 +1,2 @@
+-- Incremental Oozie sync matches changed workflow jobs to tasks by workflow id.
+CREATE INDEX IF NOT EXISTS task_state_index_on_oozieworkflowid ON task_state (oozie_workflow_id);
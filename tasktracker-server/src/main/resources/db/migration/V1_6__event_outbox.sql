@@ -0,0 +1,9 @@
+-- Events of the event bus not consumed yet, replayed after a restart when eventbus.outbox.enabled is set.
+CREATE SEQUENCE IF NOT EXISTS event_outbox_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id         BIGINT PRIMARY KEY,
+    type       VARCHAR(255) NOT NULL,
+    payload    VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP    NOT NULL
+);
@@ -0,0 +1,34 @@
+-- Task names are kept once per project in task_name, task_state references them by name_id.
+-- Names differing only in case or surrounding whitespace share one entry, the spelling of the oldest task is kept.
+-- Tasks without a name are left without name_id.
+CREATE SEQUENCE IF NOT EXISTS task_name_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS task_name (
+    id              INTEGER      PRIMARY KEY,
+    project_id      BIGINT       NOT NULL REFERENCES project (id) ON DELETE CASCADE,
+    name            VARCHAR(255) NOT NULL,
+    normalized_name VARCHAR(255) NOT NULL,
+    CONSTRAINT task_name_unique_projectid_normalizedname UNIQUE (project_id, normalized_name)
+);
+
+INSERT INTO task_name (id, project_id, name, normalized_name)
+SELECT nextval('task_name_id_seq'), project_id, trim(name), normalized_name
+FROM (
+    SELECT DISTINCT ON (project_id, lower(trim(name))) project_id, name, lower(trim(name)) AS normalized_name
+    FROM task_state
+    WHERE name IS NOT NULL
+    ORDER BY project_id, lower(trim(name)), id
+) first_names;
+
+ALTER TABLE task_state ADD COLUMN IF NOT EXISTS name_id INTEGER;
+
+UPDATE task_state t
+SET name_id = n.id
+FROM task_name n
+WHERE n.project_id = t.project_id AND n.normalized_name = lower(trim(t.name));
+
+ALTER TABLE task_state ADD CONSTRAINT task_state_fk_nameid FOREIGN KEY (name_id) REFERENCES task_name (id);
+
+CREATE INDEX IF NOT EXISTS task_state_index_on_projectid_nameid ON task_state (project_id, name_id);
+DROP INDEX IF EXISTS task_state_index_on_projectid_name;
+ALTER TABLE task_state DROP COLUMN name;
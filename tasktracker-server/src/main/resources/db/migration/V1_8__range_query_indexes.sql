@@ -0,0 +1,7 @@
+-- Range queries compare the raw date columns, so they can use these indexes.
+-- The statistics window reads the succeeded tasks of one name by nominal date; the index replaces the (project_id, name_id) one.
+CREATE INDEX IF NOT EXISTS task_state_index_on_projectid_nameid_status_nominaldate ON task_state (project_id, name_id, status, nominal_date);
+DROP INDEX IF EXISTS task_state_index_on_projectid_nameid;
+
+-- Warnings of a period.
+CREATE INDEX IF NOT EXISTS warning_created_time_index ON warning (created_time);
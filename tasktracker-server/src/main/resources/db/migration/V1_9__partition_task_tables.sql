@@ -0,0 +1,103 @@
+-- Monthly range partitions of the task tables by the start month of the task (PostgreSQL 11 or later).
+-- task_state is partitioned by start_date; task_metric, task_error, task_statistics and warning get task_start_date,
+-- a copy of the start date of their task, and are partitioned the same way, so a month can be detached and
+-- archived as a whole (see TaskPartitionScheduler). Tasks without a start date are kept in the default partitions.
+--
+-- A partitioned table can't have a key without its partition key, so the rows keep their primary key per partition
+-- and the foreign keys to task_state are dropped; the application deletes the rows of a task itself.
+
+-- Partitions of the months from from_month to to_month inclusive that are missing, returns the number added.
+CREATE OR REPLACE FUNCTION create_task_partitions(from_month DATE, to_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    part_month DATE := date_trunc('month', from_month);
+    parent TEXT;
+    part_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE part_month <= to_month LOOP
+        FOREACH parent IN ARRAY ARRAY['task_state', 'task_metric', 'task_error', 'task_statistics', 'warning'] LOOP
+            part_name := parent || to_char(part_month, '"_p"YYYYMM');
+            IF to_regclass(part_name) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               part_name, parent, part_month, (part_month + INTERVAL '1 month')::DATE);
+                EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', part_name);
+                created := created + 1;
+            END IF;
+        END LOOP;
+        part_month := (part_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- the id sequences stay when the old tables are dropped
+ALTER SEQUENCE IF EXISTS task_state_id_seq OWNED BY NONE;
+ALTER SEQUENCE IF EXISTS task_metric_id_seq OWNED BY NONE;
+ALTER SEQUENCE IF EXISTS task_error_id_seq OWNED BY NONE;
+ALTER SEQUENCE IF EXISTS task_statistics_id_seq OWNED BY NONE;
+ALTER SEQUENCE IF EXISTS warning_id_seq OWNED BY NONE;
+
+ALTER TABLE task_state RENAME TO task_state_unpartitioned;
+ALTER TABLE task_metric RENAME TO task_metric_unpartitioned;
+ALTER TABLE task_error RENAME TO task_error_unpartitioned;
+ALTER TABLE task_statistics RENAME TO task_statistics_unpartitioned;
+ALTER TABLE warning RENAME TO warning_unpartitioned;
+
+CREATE TABLE task_state (LIKE task_state_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (start_date);
+
+CREATE TABLE task_metric (LIKE task_metric_unpartitioned INCLUDING DEFAULTS, task_start_date TIMESTAMP)
+    PARTITION BY RANGE (task_start_date);
+CREATE TABLE task_error (LIKE task_error_unpartitioned INCLUDING DEFAULTS, task_start_date TIMESTAMP)
+    PARTITION BY RANGE (task_start_date);
+CREATE TABLE task_statistics (LIKE task_statistics_unpartitioned INCLUDING DEFAULTS, task_start_date TIMESTAMP)
+    PARTITION BY RANGE (task_start_date);
+CREATE TABLE warning (LIKE warning_unpartitioned INCLUDING DEFAULTS, task_start_date TIMESTAMP)
+    PARTITION BY RANGE (task_start_date);
+
+CREATE TABLE task_state_default PARTITION OF task_state DEFAULT;
+CREATE TABLE task_metric_default PARTITION OF task_metric DEFAULT;
+CREATE TABLE task_error_default PARTITION OF task_error DEFAULT;
+CREATE TABLE task_statistics_default PARTITION OF task_statistics DEFAULT;
+CREATE TABLE warning_default PARTITION OF warning DEFAULT;
+ALTER TABLE task_state_default ADD PRIMARY KEY (id);
+ALTER TABLE task_metric_default ADD PRIMARY KEY (id);
+ALTER TABLE task_error_default ADD PRIMARY KEY (id);
+ALTER TABLE task_statistics_default ADD PRIMARY KEY (id);
+ALTER TABLE warning_default ADD PRIMARY KEY (id);
+
+-- every month with tasks and a few months ahead, so only tasks without a start date go to the default partitions
+SELECT create_task_partitions(
+    COALESCE((SELECT MIN(start_date) FROM task_state_unpartitioned), now())::DATE,
+    GREATEST((SELECT MAX(start_date) FROM task_state_unpartitioned), now() + INTERVAL '3 months')::DATE
+);
+
+INSERT INTO task_state SELECT * FROM task_state_unpartitioned;
+INSERT INTO task_metric
+    SELECT m.*, t.start_date FROM task_metric_unpartitioned m LEFT JOIN task_state_unpartitioned t ON t.id = m.task_state_id;
+INSERT INTO task_error
+    SELECT e.*, t.start_date FROM task_error_unpartitioned e LEFT JOIN task_state_unpartitioned t ON t.id = e.task_state_id;
+INSERT INTO task_statistics
+    SELECT s.*, t.start_date FROM task_statistics_unpartitioned s LEFT JOIN task_state_unpartitioned t ON t.id = s.task_state_id;
+INSERT INTO warning
+    SELECT w.*, t.start_date FROM warning_unpartitioned w LEFT JOIN task_state_unpartitioned t ON t.id = w.task_id;
+
+-- drops the foreign keys to the old tables as well, incident included
+DROP TABLE warning_unpartitioned, task_statistics_unpartitioned, task_error_unpartitioned, task_metric_unpartitioned CASCADE;
+DROP TABLE task_state_unpartitioned CASCADE;
+
+-- indexes of the partitioned tables are created on every partition
+CREATE INDEX task_state_index_on_projectid_nameid_status_nominaldate ON task_state (project_id, name_id, status, nominal_date);
+CREATE INDEX task_state_index_on_projectid_nominaldate ON task_state (project_id, nominal_date);
+CREATE INDEX task_state_index_on_projectid_startdate_enddate ON task_state (project_id, start_date, end_date);
+CREATE INDEX task_state_index_on_oozieworkflowid ON task_state (oozie_workflow_id);
+ALTER TABLE task_state ADD CONSTRAINT task_state_fk_projectid FOREIGN KEY (project_id) REFERENCES project (id) ON DELETE CASCADE;
+ALTER TABLE task_state ADD CONSTRAINT task_state_fk_nameid FOREIGN KEY (name_id) REFERENCES task_name (id);
+
+CREATE INDEX metrics_task_state_id ON task_metric (task_state_id);
+CREATE INDEX errors_task_state_id ON task_error (task_state_id);
+CREATE INDEX idx_statistics_task_id ON task_statistics (task_state_id);
+ALTER TABLE task_statistics ADD CONSTRAINT unq_tid_column_name UNIQUE (task_state_id, column_name, task_start_date);
+CREATE INDEX warning_task_id_index ON warning (task_id);
+CREATE INDEX warning_created_time_index ON warning (created_time);
+
+ALTER TABLE project_settings ADD COLUMN IF NOT EXISTS retention_months INTEGER;
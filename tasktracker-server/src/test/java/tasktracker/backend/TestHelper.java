@@ -1,6 +1,7 @@
 package tasktracker.backend;
 
 import tasktracker.backend.model.*;
+import tasktracker.backend.repository.TaskNameRepository;
 
 import java.util.List;
 
@@ -49,6 +50,23 @@ public class TestHelper {
         }
     }
 
+    /**
+     * Looks the name of the task up in the dictionary within the current transaction, for tests that save
+     * tasks with the repository.
+     */
+    public static Task resolveName(final TaskNameRepository taskNameRepository, final Task task) {
+        final TaskName taskName = task.getTaskName();
+        if (taskName != null && taskName.getId() == null) {
+            task.setTaskName(taskNameRepository
+                    .findByProjectIdAndNormalizedName(task.getProject().getId(), taskName.getNormalizedName())
+                    .orElseGet(() -> {
+                        taskName.setProject(task.getProject());
+                        return taskNameRepository.save(taskName);
+                    }));
+        }
+        return task;
+    }
+
     public static TaskError error(
             final Task task,
             final String reason
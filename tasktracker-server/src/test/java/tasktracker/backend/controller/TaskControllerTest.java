@@ -1,32 +1,53 @@
 package tasktracker.backend.controller;
 
+import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MvcResult;
 import tasktracker.backend.MyTestConfiguration;
 import tasktracker.backend.controller.mappers.TaskStatsMapper;
 import tasktracker.backend.controller.model.TasksReportResponse;
 import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.repository.TaskRepository;
+import tasktracker.backend.service.TaskEta;
+import tasktracker.backend.service.TaskReportWriter;
 import tasktracker.backend.service.TaskTrackerService;
 
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
+import static tasktracker.backend.controller.DateTimePatterns.getDateTimeFormat;
+import static tasktracker.backend.controller.DateTimePatterns.getDateTimeFromFormattedString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = TaskController.class, secure = false)
-@Import({MyTestConfiguration.class, TaskStatsMapper.class, WarningMapper.class})
+@Import({MyTestConfiguration.class, TaskStatsMapper.class, WarningMapper.class, TaskReportWriter.class})
 public class TaskControllerTest extends AbstractMvcTest {
 
     private static Project project;
     @MockBean
     private TaskTrackerService service;
+    @MockBean
+    private TaskRepository taskRepository;
+    @MockBean
+    private EntityManager entityManager;
 
     @BeforeClass
     public static void setUp() {
@@ -35,6 +56,11 @@ public class TaskControllerTest extends AbstractMvcTest {
         project.setName("test");
     }
 
+    @Before
+    public void setUpRepository() {
+        when(taskRepository.streamTasksByName(any(), anyInt())).thenReturn(Stream.empty());
+    }
+
     @Test
     public void tasksReportOk() throws Exception {
         when(service.findProjectById(any())).thenReturn(Optional.of(project));
@@ -58,12 +84,15 @@ public class TaskControllerTest extends AbstractMvcTest {
     @Test
     public void tasksReportEmptyResult() throws Exception {
         when(service.findProjectById(any())).thenReturn(Optional.of(project));
-        final String json = mvc().perform(get("/api/v2/projects/" + project.getId() + "/tasks/report")
+        final MvcResult result = mvc().perform(get("/api/v2/projects/" + project.getId() + "/tasks/report")
                 .param("dateType", "NOMINAL_DATE")
                 .param("startDate", "2020-01-01")
                 .param("endDate", "2020-01-05")
                 .param("lastTaskOnly", "true")
                 .param("fields", "statistics,errors,metrics"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final String json = mvc().perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
 
@@ -74,4 +103,28 @@ public class TaskControllerTest extends AbstractMvcTest {
         assertNotNull(response.getTasks());
         assertEquals(0, response.getTasks().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void runningTasksEta() throws Exception {
+        final Task task = new Task();
+        task.setId(5L);
+        task.setProject(project);
+        task.setName("load");
+        task.setState(Task.State.RUNNING);
+        task.setStartDate(getDateTimeFromFormattedString("2020-01-01T10:00:00.000+0000"));
+        final TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+        baseline.setBucket(TaskRuntimeBaseline.ALL_HOURS);
+        baseline.setRuns(20);
+        baseline.setMedian(600_000);
+        when(service.findProjectById(any())).thenReturn(Optional.of(project));
+        final Date expectedEndDate = getDateTimeFromFormattedString("2020-01-01T10:10:00.000+0000");
+        when(service.predictRunningTasks(project)).thenReturn(Collections.singletonList(new TaskEta(task, baseline, expectedEndDate, null)));
+
+        mvc().perform(get("/api/v2/projects/" + project.getId() + "/tasks/eta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].task_id").value(5))
+                .andExpect(jsonPath("$[0].expected_end_date").value(getDateTimeFormat().format(expectedEndDate)))
+                .andExpect(jsonPath("$[0].median_duration").value(600))
+                .andExpect(jsonPath("$[0].baseline_hour_of_week").doesNotExist());
+    }
+}
@@ -0,0 +1,112 @@
+package tasktracker.backend.controller.groupers;
+
+import org.junit.Test;
+import tasktracker.backend.model.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+public class TaskGrouperTest {
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    public void countsHourlyBucketsOfDaylightSavingDay() {
+        final DateTaskGrouper grouper = new DateTaskGrouper.DateTaskGrouperBuilder()
+                .hourly()
+                .start(date("2020-03-29T00:00"))
+                .end(date("2020-03-29T23:59"))
+                .dateType(Task.DateType.START_DATE)
+                .zone(BERLIN)
+                .build();
+
+        final Map<Date, Integer> counts = grouper.group(Arrays.asList(
+                task("A", "2020-03-29T01:10", Task.State.SUCCEEDED),
+                task("A", "2020-03-29T03:30", Task.State.SUCCEEDED),
+                task("A", "2020-03-29T03:50", Task.State.SUCCEEDED),
+                task("A", "2020-03-30T00:10", Task.State.SUCCEEDED)
+        ));
+
+        assertThat(counts.size(), equalTo(23));
+        assertThat(counts.get(date("2020-03-29T01:00")), equalTo(1));
+        assertThat(counts.get(date("2020-03-29T03:00")), equalTo(2));
+        assertThat(counts.values().stream().mapToInt(Integer::intValue).sum(), equalTo(3));
+    }
+
+    @Test
+    public void countsTasksInTheLastBucketStartingBeforeThem() {
+        final DateTaskGrouper grouper = new DateTaskGrouper.DateTaskGrouperBuilder()
+                .weekly()
+                .start(date("2020-05-01T00:00"))
+                .end(date("2020-05-20T00:00"))
+                .dateType(Task.DateType.START_DATE)
+                .zone(BERLIN)
+                .build();
+
+        final Map<Date, Integer> counts = grouper.group(Arrays.asList(
+                task("A", "2020-04-30T23:00", Task.State.SUCCEEDED),
+                task("A", "2020-05-07T12:00", Task.State.SUCCEEDED),
+                task("A", "2020-05-20T23:00", Task.State.SUCCEEDED),
+                task("A", "2020-05-21T00:00", Task.State.SUCCEEDED)
+        ));
+
+        assertThat(grouper.datesRange(), contains(date("2020-05-01T00:00"), date("2020-05-08T00:00"), date("2020-05-15T00:00")));
+        assertThat(counts.get(date("2020-05-01T00:00")), equalTo(1));
+        assertThat(counts.get(date("2020-05-08T00:00")), equalTo(0));
+        assertThat(counts.get(date("2020-05-15T00:00")), equalTo(1));
+    }
+
+    @Test
+    public void keepsLastTaskOfTheDayByStartDate() {
+        final Task first = task("A", "2020-05-01T01:00", Task.State.FAILED);
+        final Task last = task("A", "2020-05-01T05:00", Task.State.SUCCEEDED);
+        final Task other = task("B", "2020-05-02T01:00", Task.State.FAILED);
+        final List<Task> tasks = Arrays.asList(last, first, other);
+
+        final NameDateTaskGrouper.NameDateTaskGrouperBuilder builder = NameDateTaskGrouper.builder()
+                .daily()
+                .start(date("2020-05-01T00:00"))
+                .end(date("2020-05-02T00:00"))
+                .dateType(Task.DateType.START_DATE)
+                .zone(BERLIN);
+
+        final Map<String, Map<Date, List<Task>>> all = builder.build().group(tasks);
+        assertThat(all.get("A").get(date("2020-05-01T00:00")), contains(first, last));
+        assertThat(all.get("A").get(date("2020-05-02T00:00")), empty());
+
+        final Map<String, Map<Date, List<Task>>> lastOnly = builder.lastTaskOnly(true).build().group(tasks);
+        assertThat(lastOnly.get("A").get(date("2020-05-01T00:00")), contains(last));
+        assertThat(lastOnly.get("B").get(date("2020-05-02T00:00")), contains(other));
+
+        final Map<String, Map<Date, List<Task>>> succeeded = builder
+                .statuses(Collections.singleton(Task.State.SUCCEEDED))
+                .taskNames(Collections.singleton("C"))
+                .build()
+                .group(tasks);
+        assertThat(succeeded.keySet(), contains("A"));
+        assertThat(succeeded.get("A").entrySet(), hasSize(2));
+    }
+
+    private static Task task(final String name, final String start, final Task.State state) {
+        final Task task = new Task();
+        task.setName(name);
+        task.setStartDate(date(start));
+        task.setState(state);
+        return task;
+    }
+
+    private static Date date(final String dateTime) {
+        return Date.from(ZonedDateTime.of(LocalDateTime.parse(dateTime), BERLIN).toInstant());
+    }
+}
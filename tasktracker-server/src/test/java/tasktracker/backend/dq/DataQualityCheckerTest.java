@@ -11,6 +11,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import tasktracker.backend.MyTestConfiguration;
 import tasktracker.backend.model.*;
 import tasktracker.backend.repository.*;
+import tasktracker.backend.service.TaskNameDictionary;
 
 import java.util.Arrays;
 import java.util.List;
@@ -32,6 +33,8 @@ public class DataQualityCheckerTest {
     @Autowired
     private TaskRepository taskRepository;
     @Autowired
+    private TaskNameDictionary taskNameDictionary;
+    @Autowired
     private WarningRepository warningRepository;
     @Autowired
     private TaskStatsRepository statsRepository;
@@ -47,7 +50,7 @@ public class DataQualityCheckerTest {
         Task task = new Task();
         task.setName("TestTask");
         task.setProject(project);
-        task = taskRepository.save(task);
+        task = taskRepository.save(taskNameDictionary.resolve(task));
 
         List<TaskStats> stats = Lists.newArrayList();
         TaskStats stat = new TaskStats();
@@ -106,7 +109,7 @@ public class DataQualityCheckerTest {
         task1.setProject(project);
         task1.setNominalDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
         task1.setStartDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
-        task1 = taskRepository.save(task1);
+        task1 = taskRepository.save(taskNameDictionary.resolve(task1));
 
         TaskStats taskStats1 = new TaskStats();
         taskStats1.setTask(task1);
@@ -121,7 +124,7 @@ public class DataQualityCheckerTest {
         task2.setProject(project);
         task2.setNominalDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
         task2.setStartDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
-        task2 = taskRepository.save(task2);
+        task2 = taskRepository.save(taskNameDictionary.resolve(task2));
 
         TaskStats taskStats2 = new TaskStats();
         taskStats2.setTask(task2);
@@ -135,7 +138,7 @@ public class DataQualityCheckerTest {
         task3.setProject(project);
         task3.setNominalDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
         task3.setStartDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
-        task3 = taskRepository.save(task3);
+        task3 = taskRepository.save(taskNameDictionary.resolve(task3));
 
         TaskStats taskStats3 = new TaskStats();
         taskStats3.setTask(task3);
@@ -149,7 +152,7 @@ public class DataQualityCheckerTest {
         task4.setProject(project);
         task4.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task4.setStartDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
-        task4 = taskRepository.save(task4);
+        task4 = taskRepository.save(taskNameDictionary.resolve(task4));
 
         TaskStats taskStats4 = new TaskStats();
         taskStats4.setTask(task4);
@@ -163,7 +166,7 @@ public class DataQualityCheckerTest {
         task42.setProject(project);
         task42.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task42.setStartDate(getDateFromFormattedDateString("2020-07-04T12:00:00.000+0000"));
-        task42 = taskRepository.save(task42);
+        task42 = taskRepository.save(taskNameDictionary.resolve(task42));
 
         TaskStats taskStats42 = new TaskStats();
         taskStats42.setTask(task42);
@@ -177,7 +180,7 @@ public class DataQualityCheckerTest {
         task5.setProject(project);
         task5.setNominalDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
         task5.setStartDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
-        task5 = taskRepository.save(task5);
+        task5 = taskRepository.save(taskNameDictionary.resolve(task5));
 
         TaskStats taskStats5 = new TaskStats();
         taskStats5.setTask(task5);
@@ -223,7 +226,7 @@ public class DataQualityCheckerTest {
         task1.setProject(project);
         task1.setNominalDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
         task1.setStartDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
-        task1 = taskRepository.save(task1);
+        task1 = taskRepository.save(taskNameDictionary.resolve(task1));
 
         TaskStats taskStats1 = new TaskStats();
         taskStats1.setTask(task1);
@@ -238,7 +241,7 @@ public class DataQualityCheckerTest {
         task2.setProject(project);
         task2.setNominalDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
         task2.setStartDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
-        task2 = taskRepository.save(task2);
+        task2 = taskRepository.save(taskNameDictionary.resolve(task2));
 
         TaskStats taskStats2 = new TaskStats();
         taskStats2.setTask(task2);
@@ -252,7 +255,7 @@ public class DataQualityCheckerTest {
         task3.setProject(project);
         task3.setNominalDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
         task3.setStartDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
-        task3 = taskRepository.save(task3);
+        task3 = taskRepository.save(taskNameDictionary.resolve(task3));
 
         TaskStats taskStats3 = new TaskStats();
         taskStats3.setTask(task3);
@@ -266,7 +269,7 @@ public class DataQualityCheckerTest {
         task4.setProject(project);
         task4.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task4.setStartDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
-        task4 = taskRepository.save(task4);
+        task4 = taskRepository.save(taskNameDictionary.resolve(task4));
 
         TaskStats taskStats4 = new TaskStats();
         taskStats4.setTask(task4);
@@ -280,7 +283,7 @@ public class DataQualityCheckerTest {
         task42.setProject(project);
         task42.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task42.setStartDate(getDateFromFormattedDateString("2020-07-04T12:00:00.000+0000"));
-        task42 = taskRepository.save(task42);
+        task42 = taskRepository.save(taskNameDictionary.resolve(task42));
 
         TaskStats taskStats42 = new TaskStats();
         taskStats42.setTask(task42);
@@ -294,7 +297,7 @@ public class DataQualityCheckerTest {
         task5.setProject(project);
         task5.setNominalDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
         task5.setStartDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
-        task5 = taskRepository.save(task5);
+        task5 = taskRepository.save(taskNameDictionary.resolve(task5));
 
         TaskStats taskStats5 = new TaskStats();
         taskStats5.setTask(task5);
@@ -364,7 +367,7 @@ public class DataQualityCheckerTest {
         task1.setProject(project);
         task1.setNominalDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
         task1.setStartDate(getDateFromFormattedDateString("2020-07-01T08:00:00.000+0000"));
-        task1 = taskRepository.save(task1);
+        task1 = taskRepository.save(taskNameDictionary.resolve(task1));
 
         TaskStats taskStats1 = new TaskStats();
         taskStats1.setTask(task1);
@@ -379,7 +382,7 @@ public class DataQualityCheckerTest {
         task2.setProject(project);
         task2.setNominalDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
         task2.setStartDate(getDateFromFormattedDateString("2020-07-02T08:00:00.000+0000"));
-        task2 = taskRepository.save(task2);
+        task2 = taskRepository.save(taskNameDictionary.resolve(task2));
 
         TaskStats taskStats2 = new TaskStats();
         taskStats2.setTask(task2);
@@ -393,7 +396,7 @@ public class DataQualityCheckerTest {
         task3.setProject(project);
         task3.setNominalDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
         task3.setStartDate(getDateFromFormattedDateString("2020-07-03T08:00:00.000+0000"));
-        task3 = taskRepository.save(task3);
+        task3 = taskRepository.save(taskNameDictionary.resolve(task3));
 
         TaskStats taskStats3 = new TaskStats();
         taskStats3.setTask(task3);
@@ -407,7 +410,7 @@ public class DataQualityCheckerTest {
         task4.setProject(project);
         task4.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task4.setStartDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
-        task4 = taskRepository.save(task4);
+        task4 = taskRepository.save(taskNameDictionary.resolve(task4));
 
         TaskStats taskStats4 = new TaskStats();
         taskStats4.setTask(task4);
@@ -421,7 +424,7 @@ public class DataQualityCheckerTest {
         task42.setProject(project);
         task42.setNominalDate(getDateFromFormattedDateString("2020-07-04T08:00:00.000+0000"));
         task42.setStartDate(getDateFromFormattedDateString("2020-07-04T12:00:00.000+0000"));
-        task42 = taskRepository.save(task42);
+        task42 = taskRepository.save(taskNameDictionary.resolve(task42));
 
         TaskStats taskStats42 = new TaskStats();
         taskStats42.setTask(task42);
@@ -435,7 +438,7 @@ public class DataQualityCheckerTest {
         task5.setProject(project);
         task5.setNominalDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
         task5.setStartDate(getDateFromFormattedDateString("2020-07-05T08:00:00.000+0000"));
-        task5 = taskRepository.save(task5);
+        task5 = taskRepository.save(taskNameDictionary.resolve(task5));
 
         TaskStats taskStats5 = new TaskStats();
         taskStats5.setTask(task5);
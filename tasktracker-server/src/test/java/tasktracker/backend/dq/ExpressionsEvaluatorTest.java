@@ -0,0 +1,60 @@
+package tasktracker.backend.dq;
+
+import org.junit.Test;
+import tasktracker.backend.model.DataQualityCondition;
+import tasktracker.backend.model.TaskStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ExpressionsEvaluatorTest {
+    private final ExpressionsEvaluator expressionsEvaluator = new ExpressionsEvaluator(null, null);
+
+    @Test
+    public void evaluatesConditionsConcurrently() throws Exception {
+        DataQualityCondition condition = condition(1L, "is_within_range(10, 20.5)");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            // enough runs for the expression to get compiled in between
+            for (int i = 0; i < 1000; i++) {
+                double max = i % 30;
+                results.add(executor.submit(() -> expressionsEvaluator.isFullfilled(null, null, stats(max), condition).isFullfilled()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                double max = i % 30;
+                assertThat("max = " + max, results.get(i).get(), equalTo(10 <= max && max <= 20.5));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void evaluatesChangedExpressionOfCondition() {
+        assertThat(expressionsEvaluator.isFullfilled(null, null, stats(5), condition(1L, "is_above(3)")).isFullfilled(), equalTo(true));
+        assertThat(expressionsEvaluator.isFullfilled(null, null, stats(5), condition(1L, "is_above(7)")).isFullfilled(), equalTo(false));
+    }
+
+    private static DataQualityCondition condition(Long id, String expression) {
+        DataQualityCondition condition = new DataQualityCondition();
+        condition.setId(id);
+        condition.setExpression(expression);
+        condition.setMetric(DataQualityCondition.Metric.max);
+        return condition;
+    }
+
+    private static TaskStats stats(double max) {
+        TaskStats stats = new TaskStats();
+        stats.setId(1L);
+        stats.setMax(max);
+        return stats;
+    }
+}
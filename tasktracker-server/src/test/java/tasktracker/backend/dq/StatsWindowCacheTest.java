@@ -0,0 +1,160 @@
+package tasktracker.backend.dq;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import tasktracker.backend.eventbus.*;
+import tasktracker.backend.model.*;
+import tasktracker.backend.repository.TaskRepository;
+import tasktracker.backend.repository.TaskStatsRepository;
+import tasktracker.backend.repository.WarningRepository;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static tasktracker.backend.TestHelper.task;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StatsWindowCacheTest {
+    private static final DataQualityCondition.Metric METRIC = DataQualityCondition.Metric.max;
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private WarningRepository warningRepository;
+    @Mock
+    private TaskStatsRepository statsRepository;
+
+    private StatsWindowCache statsWindowCache;
+    private Project project;
+    private long nextId = 1;
+
+    @Before
+    public void setUp() {
+        statsWindowCache = new StatsWindowCache(taskRepository, warningRepository, statsRepository, 120, 60_000);
+        project = new Project();
+        project.setId(1L);
+    }
+
+    @Test
+    public void servesHistoryFromTheWindowOnceLoaded() {
+        final Task task1 = succeeded("2020-07-01", "2020-07-01T08:00:00.000+0000");
+        final Task task2 = succeeded("2020-07-02", "2020-07-02T08:00:00.000+0000");
+        final Task task3 = succeeded("2020-07-03", "2020-07-03T08:00:00.000+0000");
+        when(taskRepository.findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt()))
+                .thenReturn(Arrays.asList(task3, task2, task1));
+        when(statsRepository.findByTaskIds(any()))
+                .thenReturn(Arrays.asList(stats(task1, 10.0), stats(task2, 20.0), stats(task3, 30.0)));
+
+        final Task task4 = succeeded("2020-07-04", "2020-07-04T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task4, "a.b.c", METRIC, 2), contains(30.0, 20.0));
+
+        statsWindowCache.onEvent(TaskTrackerEvent.of(TaskCreated.of(task4)));
+        statsWindowCache.onEvent(TaskTrackerEvent.of(StatsIngested.of(stats(task4, 40.0))));
+        final Task task5 = succeeded("2020-07-05", "2020-07-05T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task5, "A.B.C", METRIC, 3), contains(40.0, 30.0, 20.0));
+
+        verify(taskRepository, times(1)).findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void takesLatestRunOfADayAndSkipsWarnedDays() {
+        final Task task1 = succeeded("2020-07-01", "2020-07-01T08:00:00.000+0000");
+        final Task task2 = succeeded("2020-07-02", "2020-07-02T08:00:00.000+0000");
+        final Task task22 = succeeded("2020-07-02", "2020-07-02T10:00:00.000+0000");
+        final Task task3 = succeeded("2020-07-03", "2020-07-03T08:00:00.000+0000");
+        when(taskRepository.findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt()))
+                .thenReturn(Arrays.asList(task3, task22, task2, task1));
+        when(statsRepository.findByTaskIds(any())).thenReturn(Arrays.asList(
+                stats(task1, 10.0), stats(task2, 20.0), stats(task22, 22.0), stats(task3, 30.0)));
+
+        final Task task4 = succeeded("2020-07-04", "2020-07-04T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task4, "a.b.c", METRIC, 3), contains(30.0, 22.0, 10.0));
+
+        final Warning warning = new Warning();
+        warning.setTask(task3);
+        statsWindowCache.onEvent(TaskTrackerEvent.of(WarningRaised.of(warning)));
+        assertThat(statsWindowCache.lastValues(project, task4, "a.b.c", METRIC, 2), contains(22.0, 10.0));
+    }
+
+    @Test
+    public void reloadsTheWindowWhenWarningsAreDeleted() {
+        final Task task1 = succeeded("2020-07-01", "2020-07-01T08:00:00.000+0000");
+        when(taskRepository.findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt()))
+                .thenReturn(Collections.singletonList(task1));
+        final Warning warning = new Warning();
+        warning.setTask(task1);
+        when(statsRepository.findByTaskIds(any())).thenReturn(Collections.singletonList(stats(task1, 10.0)));
+        when(warningRepository.findByTaskIds(any()))
+                .thenReturn(Collections.singletonList(warning))
+                .thenReturn(Collections.emptyList());
+
+        final Task task2 = succeeded("2020-07-02", "2020-07-02T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task2, "a.b.c", METRIC, 1), empty());
+
+        statsWindowCache.onEvent(TaskTrackerEvent.of(WarningsDeleted.of(task1)));
+        assertThat(statsWindowCache.lastValues(project, task2, "a.b.c", METRIC, 1), contains(10.0));
+    }
+
+    @Test
+    public void replaysEventsConsumedWhileLoading() {
+        final Task task1 = succeeded("2020-07-01", "2020-07-01T08:00:00.000+0000");
+        final Task task2 = succeeded("2020-07-02", "2020-07-02T08:00:00.000+0000");
+        final Task task3 = succeeded("2020-07-03", "2020-07-03T08:00:00.000+0000");
+        when(statsRepository.findByTaskIds(any()))
+                .thenReturn(Arrays.asList(stats(task1, 10.0), stats(task2, 20.0), stats(task3, 30.0)));
+
+        // task 4 succeeds after the tasks were read, before the window is installed
+        final Task task4 = succeeded("2020-07-04", "2020-07-04T08:00:00.000+0000");
+        when(taskRepository.findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    statsWindowCache.onEvent(TaskTrackerEvent.of(TaskCreated.of(task4)));
+                    statsWindowCache.onEvent(TaskTrackerEvent.of(StatsIngested.of(stats(task4, 40.0))));
+                    return Arrays.asList(task3, task2, task1);
+                });
+
+        final Task task5 = succeeded("2020-07-05", "2020-07-05T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task5, "a.b.c", METRIC, 3), contains(40.0, 30.0, 20.0));
+        assertThat(statsWindowCache.lastValues(project, task5, "a.b.c", METRIC, 3), contains(40.0, 30.0, 20.0));
+
+        verify(taskRepository, times(1)).findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void loadsTheWindowAgainOnceExpired() {
+        statsWindowCache = new StatsWindowCache(taskRepository, warningRepository, statsRepository, 120, 0);
+        final Task task1 = succeeded("2020-07-01", "2020-07-01T08:00:00.000+0000");
+        final Task task2 = succeeded("2020-07-02", "2020-07-02T08:00:00.000+0000");
+        when(taskRepository.findLastNTasksByProjectAndNominalDateAndState(anyLong(), any(), anyString(), any(), anyInt()))
+                .thenReturn(Collections.singletonList(task1))
+                .thenReturn(Arrays.asList(task2, task1));
+        // statistics of task 2 were ingested on another node
+        when(statsRepository.findByTaskIds(any()))
+                .thenReturn(Collections.singletonList(stats(task1, 10.0)))
+                .thenReturn(Arrays.asList(stats(task1, 10.0), stats(task2, 20.0)));
+
+        final Task task3 = succeeded("2020-07-03", "2020-07-03T08:00:00.000+0000");
+        assertThat(statsWindowCache.lastValues(project, task3, "a.b.c", METRIC, 1), contains(10.0));
+        assertThat(statsWindowCache.lastValues(project, task3, "a.b.c", METRIC, 1), contains(20.0));
+    }
+
+    private Task succeeded(final String nominalDate, final String startDate) {
+        final Task task = task(project, "TestTask", "SUCCEEDED", nominalDate, startDate);
+        task.setId(nextId++);
+        return task;
+    }
+
+    private static TaskStats stats(final Task task, final Double max) {
+        final TaskStats stats = new TaskStats();
+        stats.setTask(task);
+        stats.setColumn("a.b.c");
+        stats.setMax(max);
+        return stats;
+    }
+}
@@ -0,0 +1,261 @@
+package tasktracker.backend.eventbus;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import tasktracker.backend.model.DataQualityCondition;
+import tasktracker.backend.model.EventOutboxEntry;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskStats;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedEventBusTest {
+    private PartitionedEventBus eventBus;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (Objects.nonNull(eventBus)) {
+            eventBus.stop();
+        }
+    }
+
+    @Test
+    public void keepsOrderOfEventsOfATask() throws InterruptedException {
+        final Map<Long, List<Double>> consumed = new ConcurrentHashMap<>();
+        eventBus = bus(Collections.singletonList(event -> {
+            final StatsIngested stats = (StatsIngested) event.getObject();
+            consumed.computeIfAbsent(stats.getTask().getId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(stats.getValues().get(DataQualityCondition.Metric.max));
+        }), 4, 8, PartitionedEventBus.OverflowPolicy.BLOCK, 0);
+
+        for (int i = 0; i < 200; i++) {
+            for (long taskId = 1; taskId <= 10; taskId++) {
+                eventBus.post(TaskTrackerEvent.of(StatsIngested.of(stats(taskId, i))));
+            }
+        }
+        eventBus.stop();
+
+        assertThat(consumed.keySet(), hasSize(10));
+        consumed.values().forEach(values -> {
+            assertThat(values, hasSize(200));
+            for (int i = 0; i < values.size(); i++) {
+                assertThat(values.get(i), equalTo((double) i));
+            }
+        });
+    }
+
+    @Test
+    public void dropsEventsWhenPartitionIsFull() throws InterruptedException {
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        eventBus = bus(Collections.singletonList(event -> {
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 1, 1, PartitionedEventBus.OverflowPolicy.DROP, 0);
+
+        eventBus.post(TaskTrackerEvent.of(TaskCreated.of(task(1L, "RUNNING"))));
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task(1L, "RUNNING"))));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task(1L, "SUCCEEDED"))));
+
+        assertThat(eventBus.metrics().get("eventbus.partition.0.depth"), equalTo(1));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.dropped"), equalTo(1L));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.lag.ms").longValue(), greaterThanOrEqualTo(0L));
+
+        release.countDown();
+        eventBus.stop();
+        assertThat(eventBus.metrics().get("eventbus.partition.0.processed"), equalTo(2L));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.depth"), equalTo(0));
+    }
+
+    @Test
+    public void replaysDroppedEventsFromOutbox() throws InterruptedException {
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Object> consumed = Collections.synchronizedList(new ArrayList<>());
+        final FakeOutbox outbox = new FakeOutbox();
+        eventBus = new PartitionedEventBus(Collections.singletonList(event -> {
+            consumed.add(event.getObject());
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), outbox, 1, 1, PartitionedEventBus.OverflowPolicy.DROP, 0, true);
+        eventBus.start();
+
+        final TaskCreated first = TaskCreated.of(task(1L, "RUNNING"));
+        final TaskCreated second = TaskCreated.of(task(2L, "RUNNING"));
+        final TaskCreated dropped = TaskCreated.of(task(3L, "RUNNING"));
+        eventBus.post(TaskTrackerEvent.of(first));
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        eventBus.post(TaskTrackerEvent.of(second));
+        eventBus.post(TaskTrackerEvent.of(dropped));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.dropped"), equalTo(1L));
+
+        release.countDown();
+        while (eventBus.metrics().get("eventbus.partition.0.processed").longValue() < 2) {
+            Thread.sleep(10);
+        }
+        eventBus.replayDropped();
+        eventBus.stop();
+
+        assertThat(consumed, contains(first, second, dropped));
+        assertThat(outbox.entries.keySet(), empty());
+    }
+
+    @Test
+    public void postsEventsOfATransactionOnCommit() throws InterruptedException {
+        final List<Object> consumed = Collections.synchronizedList(new ArrayList<>());
+        eventBus = bus(Collections.singletonList(event -> consumed.add(event.getObject())), 2, 8,
+                PartitionedEventBus.OverflowPolicy.BLOCK, 0);
+
+        final TaskCreated committed = TaskCreated.of(task(1L, "RUNNING"));
+        final TaskCreated rolledBack = TaskCreated.of(task(2L, "RUNNING"));
+        inTransaction(() -> eventBus.post(TaskTrackerEvent.of(committed)), true);
+        inTransaction(() -> eventBus.post(TaskTrackerEvent.of(rolledBack)), false);
+        eventBus.stop();
+
+        assertThat(consumed, contains(committed));
+    }
+
+    @Test
+    public void coalescesPendingUpdatesOfATask() throws InterruptedException {
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Object> consumed = Collections.synchronizedList(new ArrayList<>());
+        eventBus = bus(Collections.singletonList(event -> {
+            consumed.add(event.getObject());
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 1, 16, PartitionedEventBus.OverflowPolicy.BLOCK, 0);
+
+        eventBus.post(TaskTrackerEvent.of(TaskCreated.of(task(1L, "RUNNING"))));
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        eventBus.post(TaskTrackerEvent.of(TaskCreated.of(task(2L, "RUNNING"))));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task(1L, "RUNNING"))));
+        final StatsIngested stats = StatsIngested.of(stats(1L, 1.0));
+        eventBus.post(TaskTrackerEvent.of(stats));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task(2L, "FAILED"))));
+        eventBus.post(TaskTrackerEvent.of(TaskStateChanged.of(task(1L, "SUCCEEDED"))));
+        release.countDown();
+        eventBus.stop();
+
+        assertThat(consumed, contains(
+                TaskCreated.of(task(1L, "RUNNING")),
+                stats,
+                new TaskCreated(TaskSnapshot.of(task(2L, "FAILED"))),
+                TaskStateChanged.of(task(1L, "SUCCEEDED"))
+        ));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.coalesced"), equalTo(2L));
+        assertThat(eventBus.metrics().get("eventbus.partition.0.processed"), equalTo(4L));
+    }
+
+    private static PartitionedEventBus bus(
+            final List<TaskTrackerEventConsumer> consumers,
+            final int partitions,
+            final int bufferSize,
+            final PartitionedEventBus.OverflowPolicy overflowPolicy,
+            final long coalesceWindowMillis
+    ) {
+        final PartitionedEventBus eventBus = new PartitionedEventBus(
+                consumers, null, partitions, bufferSize, overflowPolicy, coalesceWindowMillis, false);
+        eventBus.start();
+        return eventBus;
+    }
+
+    private static void inTransaction(final Runnable runnable, final boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            runnable.run();
+            if (commit) {
+                TransactionSynchronizationUtils.triggerAfterCommit();
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK
+            );
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    /**
+     * Outbox kept in memory, the entries are the posted objects.
+     */
+    private static class FakeOutbox extends EventOutbox {
+        private final Map<Long, Object> entries = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+
+        FakeOutbox() {
+            super(null, "test");
+        }
+
+        @Override
+        public Optional<Long> append(final Object object) {
+            final long id = ids.incrementAndGet();
+            entries.put(id, object);
+            return Optional.of(id);
+        }
+
+        @Override
+        public List<EventOutboxEntry> pending(final long afterId, final int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<EventOutboxEntry> findAll(final Collection<Long> ids) {
+            return ids.stream().filter(entries::containsKey).sorted().map(id -> {
+                final EventOutboxEntry entry = new EventOutboxEntry("", id.toString(), "test");
+                entry.setId(id);
+                return entry;
+            }).collect(Collectors.toList());
+        }
+
+        @Override
+        public Optional<Object> decode(final EventOutboxEntry entry) {
+            return Optional.ofNullable(entries.get(entry.getId()));
+        }
+
+        @Override
+        public void ack(final Collection<Long> ids) {
+            ids.forEach(entries::remove);
+        }
+    }
+
+    private static Task task(final Long id, final String state) {
+        final Task task = new Task();
+        task.setId(id);
+        task.setState(Task.State.valueOf(state));
+        return task;
+    }
+
+    private static TaskStats stats(final Long taskId, final double max) {
+        final TaskStats stats = new TaskStats();
+        stats.setTask(task(taskId, "SUCCEEDED"));
+        stats.setMax(max);
+        return stats;
+    }
+}
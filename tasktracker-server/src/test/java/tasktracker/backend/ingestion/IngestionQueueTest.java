@@ -0,0 +1,236 @@
+package tasktracker.backend.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import tasktracker.backend.controller.body.IngestRecordBody;
+import tasktracker.backend.controller.exception.ApiException;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.service.TaskIngestionService;
+import tasktracker.backend.service.TaskTrackerService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IngestionQueueTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    @Mock
+    private TaskIngestionService taskIngestionService;
+    @Mock
+    private TaskTrackerService taskTrackerService;
+
+    @Test
+    public void writesAcceptedRecordsInOneBatchPerProject() throws Exception {
+        IngestionQueue queue = queue(100, "");
+        queue.start();
+        queue.submit(project(1L), Arrays.asList(record(10L), record(10L)));
+        queue.submit(project(2L), Collections.singletonList(record(20L)));
+        queue.submit(project(1L), Collections.singletonList(record(11L)));
+        queue.stop();
+
+        ArgumentCaptor<List<TaskIngestionService.Envelope>> envelopes = envelopesCaptor();
+        verify(taskIngestionService).ingestAll(eq(project(1L)), envelopes.capture());
+        assertThat(envelopes.getValue(), hasSize(2));
+        assertThat(envelopes.getValue().get(0).getRecords(), hasSize(2));
+        verify(taskIngestionService).ingestAll(eq(project(2L)), any());
+        assertThat(queue.metrics().get("ingestion.records.written"), equalTo(4L));
+        assertThat(queue.metrics().get("ingestion.queue.depth"), equalTo(0));
+    }
+
+    @Test
+    public void writesEntriesOfFailedBatchOneByOne() throws Exception {
+        doThrow(new ApiException.TaskStateNotFound(11L))
+                .when(taskIngestionService).ingestAll(any(), any());
+        doThrow(new ApiException.TaskStateNotFound(11L))
+                .when(taskIngestionService).ingest(any(), any(), argThat(records -> records.get(0).getTaskId() == 11L));
+
+        IngestionQueue queue = queue(100, "");
+        queue.start();
+        queue.submit(project(1L), Collections.singletonList(record(10L)));
+        queue.submit(project(1L), Collections.singletonList(record(11L)));
+        queue.stop();
+
+        assertThat(queue.metrics().get("ingestion.records.written"), equalTo(1L));
+        assertThat(queue.metrics().get("ingestion.records.failed"), equalTo(1L));
+    }
+
+    @Test
+    public void writesEntriesAgainAfterTransientFailure() throws Exception {
+        when(taskIngestionService.ingestAll(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"))
+                .thenReturn(Collections.emptyList());
+
+        IngestionQueue queue = queue(100, "");
+        queue.start();
+        queue.submit(project(1L), Collections.singletonList(record(10L)));
+        awaitWritten(queue, 1);
+        queue.stop();
+
+        verify(taskIngestionService, times(2)).ingestAll(eq(project(1L)), any());
+        verify(taskIngestionService, never()).ingest(any(), any(), any());
+        assertThat(queue.metrics().get("ingestion.records.failed"), equalTo(0L));
+        assertThat(queue.metrics().get("ingestion.records.retried"), equalTo(1L));
+        assertThat(queue.metrics().get("ingestion.queue.depth"), equalTo(0));
+    }
+
+    @Test
+    public void keepsEntriesOfTransientFailureJournaled() throws Exception {
+        when(taskIngestionService.ingestAll(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+
+        IngestionQueue queue = queue(100, folder.getRoot().getPath());
+        queue.start();
+        queue.submit(project(1L), Collections.singletonList(record(10L)));
+        Thread.sleep(200);
+        queue.stop();
+
+        assertThat(queue.metrics().get("ingestion.records.failed"), equalTo(0L));
+        try (IngestionJournal journal = new IngestionJournal(folder.getRoot().toPath(), objectMapper)) {
+            assertThat(journal.recover(), hasSize(1));
+        }
+    }
+
+    @Test
+    public void tellsTransientFromPermanentErrors() {
+        assertThat(IngestionQueue.isTransient(new DataAccessResourceFailureException("down")), is(true));
+        assertThat(IngestionQueue.isTransient(new RuntimeException(new SQLException("refused", "08001"))), is(true));
+        assertThat(IngestionQueue.isTransient(new DataIntegrityViolationException("duplicate")), is(false));
+        assertThat(IngestionQueue.isTransient(new ApiException.TaskStateNotFound(11L)), is(false));
+    }
+
+    @Test
+    public void writesEntriesSharingTaskRefAsSeparateEnvelopes() throws Exception {
+        IngestionQueue queue = queue(100, "");
+        queue.start();
+        queue.submit(project(1L), Arrays.asList(task("t1"), metric("t1")));
+        queue.submit(project(1L), Arrays.asList(task("t1"), metric("t1")));
+        queue.stop();
+
+        ArgumentCaptor<List<TaskIngestionService.Envelope>> envelopes = envelopesCaptor();
+        verify(taskIngestionService).ingestAll(eq(project(1L)), envelopes.capture());
+        assertThat(envelopes.getValue(), hasSize(2));
+        assertThat(envelopes.getValue().get(0).getRecords(), hasSize(2));
+        assertThat(envelopes.getValue().get(1).getRecords(), hasSize(2));
+        verify(taskIngestionService, never()).ingest(any(), any(), any());
+    }
+
+    @Test
+    public void acceptsRecordsOfAnIdempotencyKeyOnce() throws Exception {
+        when(taskIngestionService.isIngested(eq(project(1L)), anyString()))
+                .thenAnswer(invocation -> "written".equals(invocation.getArgument(1)));
+
+        IngestionQueue queue = queue(100, "");
+        queue.start();
+        assertThat(queue.submit(project(1L), "queued", Collections.singletonList(record(10L))), is(true));
+        assertThat(queue.submit(project(1L), "queued", Collections.singletonList(record(10L))), is(false));
+        assertThat(queue.submit(project(1L), "written", Collections.singletonList(record(10L))), is(false));
+        queue.stop();
+
+        ArgumentCaptor<List<TaskIngestionService.Envelope>> envelopes = envelopesCaptor();
+        verify(taskIngestionService).ingestAll(eq(project(1L)), envelopes.capture());
+        assertThat(envelopes.getValue(), hasSize(1));
+        assertThat(envelopes.getValue().get(0).getIdempotencyKey(), equalTo("queued"));
+    }
+
+    @Test
+    public void rejectsRecordsWhenFull() {
+        IngestionQueue queue = queue(2, "");
+        queue.submit(project(1L), Arrays.asList(record(10L), record(10L)));
+        try {
+            queue.submit(project(1L), Collections.singletonList(record(10L)));
+            fail();
+        } catch (ApiException.IngestionQueueFull e) {
+            assertThat(e.getRetryAfterSeconds(), equalTo(5));
+        }
+        assertThat(queue.metrics().get("ingestion.records.rejected"), equalTo(1L));
+    }
+
+    @Test
+    public void recoversUnwrittenEntriesFromJournal() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (IngestionJournal journal = new IngestionJournal(directory, objectMapper)) {
+            journal.recover();
+            long written = journal.append(1L, null, Collections.singletonList(record(10L)));
+            journal.append(2L, "key", Arrays.asList(record(20L), record(21L)));
+            journal.ack(Collections.singleton(written));
+        }
+
+        try (IngestionJournal journal = new IngestionJournal(directory, objectMapper)) {
+            List<JournalEntry> entries = journal.recover();
+            assertThat(entries, hasSize(1));
+            assertThat(entries.get(0).getProjectId(), equalTo(2L));
+            assertThat(entries.get(0).getIdempotencyKey(), equalTo("key"));
+            assertThat(entries.get(0).getRecords(), hasSize(2));
+            journal.ack(Collections.singleton(entries.get(0).getSeq()));
+        }
+
+        try (IngestionJournal journal = new IngestionJournal(directory, objectMapper)) {
+            assertThat(journal.recover(), empty());
+        }
+    }
+
+    private static void awaitWritten(IngestionQueue queue, long records) throws InterruptedException {
+        for (int i = 0; i < 100 && queue.metrics().get("ingestion.records.written").longValue() < records; i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private IngestionQueue queue(int capacity, String journalPath) {
+        return new IngestionQueue(taskIngestionService, taskTrackerService, objectMapper,
+                true, capacity, 1, 500, 200, 5, journalPath);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<TaskIngestionService.Envelope>> envelopesCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        return project;
+    }
+
+    private static IngestRecordBody record(Long taskId) {
+        IngestRecordBody record = new IngestRecordBody();
+        record.setType(IngestRecordBody.Type.WARNING);
+        record.setTaskId(taskId);
+        return record;
+    }
+
+    private static IngestRecordBody task(String taskRef) {
+        IngestRecordBody record = new IngestRecordBody();
+        record.setType(IngestRecordBody.Type.TASK);
+        record.setTaskRef(taskRef);
+        return record;
+    }
+
+    private static IngestRecordBody metric(String taskRef) {
+        IngestRecordBody record = new IngestRecordBody();
+        record.setType(IngestRecordBody.Type.METRIC);
+        record.setTaskRef(taskRef);
+        return record;
+    }
+}
@@ -0,0 +1,84 @@
+package tasktracker.backend.oozie;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Batch lookups against an H2 stand-in of the Oozie database.
+ */
+public class OozieServiceImplTest {
+    private OozieServiceImpl oozieService;
+
+    @Before
+    public void setUp() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:oozie;DB_CLOSE_DELAY=-1", "sa", "");
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE WF_JOBS (id VARCHAR(255) PRIMARY KEY, app_name VARCHAR(255), parent_id VARCHAR(255), " +
+                "status VARCHAR(255), conf CLOB, proto_action_conf CLOB, start_time TIMESTAMP, end_time TIMESTAMP, last_modified_time TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE COORD_JOBS (id VARCHAR(255) PRIMARY KEY, app_name VARCHAR(255), next_matd_time TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE COORD_ACTIONS (id VARCHAR(255) PRIMARY KEY, job_id VARCHAR(255))");
+
+        jdbcTemplate.update("INSERT INTO WF_JOBS (id, app_name, parent_id, status, last_modified_time) " +
+                "VALUES ('wf-1', 'app', 'coord-1@1', 'SUCCEEDED', TIMESTAMP '2020-07-01 10:00:00')");
+        jdbcTemplate.update("INSERT INTO WF_JOBS (id, app_name, parent_id, status, last_modified_time) " +
+                "VALUES ('wf-2', 'app', 'coord-1@2', 'RUNNING', TIMESTAMP '2020-07-01 11:00:00')");
+        jdbcTemplate.update("INSERT INTO WF_JOBS (id, app_name, parent_id, status, last_modified_time) " +
+                "VALUES ('wf-3', 'app', NULL, 'KILLED', TIMESTAMP '2020-07-01 11:00:00')");
+        jdbcTemplate.update("INSERT INTO COORD_JOBS (id, app_name, next_matd_time) VALUES ('coord-1', 'coord', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO COORD_ACTIONS (id, job_id) VALUES ('coord-1@1', 'coord-1')");
+        jdbcTemplate.update("INSERT INTO COORD_ACTIONS (id, job_id) VALUES ('coord-1@2', 'coord-1')");
+
+        oozieService = new OozieServiceImpl(dataSource);
+    }
+
+    @Test
+    public void findsWorkflowJobsWithOneQuery() throws OozieServiceException {
+        final Map<String, OozieWorkflowJob> jobs = oozieService.findWorkflowJobs(Arrays.asList("wf-1", "wf-3", "missing", "wf-1"));
+
+        assertThat(jobs.keySet(), containsInAnyOrder("wf-1", "wf-3"));
+        assertThat(jobs.get("wf-1").getStatus(), equalTo("SUCCEEDED"));
+        assertThat(jobs.get("wf-1").getParentId(), equalTo("coord-1@1"));
+        assertThat(jobs.get("wf-1").getConf(), nullValue());
+    }
+
+    @Test
+    public void findsCoordinatorJobsOfWorkflowJobs() throws OozieServiceException {
+        final Map<String, OozieWorkflowJob> jobs = oozieService.findWorkflowJobs(Arrays.asList("wf-1", "wf-2", "wf-3"));
+
+        final Map<String, OozieCoordinatorJob> coordinatorJobs = oozieService.findCoordinatorJobs(jobs.values());
+
+        assertThat(coordinatorJobs.keySet(), containsInAnyOrder("wf-1", "wf-2"));
+        assertThat(coordinatorJobs.get("wf-1").getId(), equalTo("coord-1"));
+        assertThat(coordinatorJobs.get("wf-2").getNextMatdTime(), notNullValue());
+    }
+
+    @Test
+    public void readsChangeFeedInPages() throws OozieServiceException {
+        final Timestamp start = Timestamp.valueOf("2020-07-01 10:00:00");
+
+        final List<OozieWorkflowJob> first = oozieService.findWorkflowJobsModifiedAfter(start, "", 2);
+        assertThat(ids(first), contains("wf-1", "wf-2"));
+
+        final OozieWorkflowJob last = first.get(first.size() - 1);
+        final List<OozieWorkflowJob> second = oozieService.findWorkflowJobsModifiedAfter(last.getLastModifiedTime(), last.getId(), 2);
+        assertThat(ids(second), contains("wf-3"));
+
+        assertThat(oozieService.findLastModifiedTime().get(), equalTo(Timestamp.valueOf("2020-07-01 11:00:00")));
+    }
+
+    private static List<String> ids(final List<OozieWorkflowJob> jobs) {
+        return jobs.stream().map(OozieWorkflowJob::getId).collect(Collectors.toList());
+    }
+}
@@ -14,8 +14,9 @@ import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
 import tasktracker.backend.service.TaskTrackerService;
 
-import java.util.Optional;
+import java.util.*;
 
+import static org.mockito.ArgumentMatchers.any;
 import static tasktracker.backend.model.Task.State;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -299,4 +300,118 @@ public class OozieTaskStateSynchronizerSchedulerTest {
         Assert.assertFalse(task.getSynch());
         Assert.assertNotNull(task.getOozieWorkflowId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSyncProcessesBacklogInPages() throws OozieServiceException {
+        final Project project = new Project();
+        project.setName("Project");
+        taskTrackerService.save(project);
+
+        final Map<String, OozieWorkflowJob> jobs = new HashMap<>();
+        final Task[] tasks = new Task[3];
+        final String[] statuses = {"SUCCEEDED", "RUNNING", "KILLED"};
+        for (int i = 0; i < tasks.length; i++) {
+            final OozieWorkflowJob job = new OozieWorkflowJob();
+            job.setId("wf-" + i);
+            job.setStatus(statuses[i]);
+            jobs.put(job.getId(), job);
+
+            tasks[i] = new Task();
+            tasks[i].setProject(project);
+            tasks[i].setState(State.RUNNING);
+            tasks[i].setSynch(false);
+            tasks[i].setOozieWorkflowId(job.getId());
+            taskTrackerService.save(project, tasks[i]);
+        }
+
+        Mockito.when(oozieService.findWorkflowJobs(any())).thenReturn(jobs);
+        Mockito.when(oozieService.findCoordinatorJobs(any())).thenReturn(new HashMap<>());
+
+        final OozieTaskStateSynchronizerScheduler pagedSynchronizer =
+                new OozieTaskStateSynchronizerScheduler(taskTrackerService, oozieService, 2, 1, 60_000, false, 0);
+
+        Assert.assertEquals(2, pagedSynchronizer.sync(project));
+        Assert.assertEquals(State.SUCCEEDED, taskTrackerService.findTaskById(tasks[0].getId()).get().getState());
+        Assert.assertEquals(State.FAILED, taskTrackerService.findTaskById(tasks[2].getId()).get().getState());
+        Assert.assertEquals("wf-1", taskTrackerService.findUnsynchronizedTasks(project, 0L, 10).get(0).getOozieWorkflowId());
+        Mockito.verify(oozieService, Mockito.times(2)).findWorkflowJobs(any());
+        Mockito.verify(oozieService, Mockito.never()).findWorkflowJob(any());
+    }
+
+    @Test
+    public void testSyncChangesFollowsOozieChangeFeed() throws OozieServiceException {
+        final Project project = new Project();
+        project.setName("Project");
+        taskTrackerService.save(project);
+
+        final Task task = new Task();
+        task.setProject(project);
+        task.setState(State.RUNNING);
+        task.setSynch(false);
+        task.setOozieWorkflowId("wf-changed");
+        taskTrackerService.save(project, task);
+
+        final Date mark = new Date(1_000_000L);
+        final OozieWorkflowJob job = new OozieWorkflowJob();
+        job.setId("wf-changed");
+        job.setStatus("SUCCEEDED");
+        job.setLastModifiedTime(new Date(2_000_000L));
+
+        Mockito.when(oozieService.findLastModifiedTime()).thenReturn(Optional.of(mark));
+        Mockito.when(oozieService.findWorkflowJobsModifiedAfter(any(), any(), Mockito.anyInt()))
+                .thenReturn(Collections.singletonList(job))
+                .thenReturn(Collections.emptyList());
+        Mockito.when(oozieService.findCoordinatorJobs(any())).thenReturn(new HashMap<>());
+
+        final OozieTaskStateSynchronizerScheduler incrementalSynchronizer =
+                new OozieTaskStateSynchronizerScheduler(taskTrackerService, oozieService, 10, 1, 60_000, true, 60_000);
+        final Map<Long, Project> projects = Collections.singletonMap(project.getId(), project);
+
+        // the first cycle only sets the high-water mark
+        Assert.assertEquals(0, incrementalSynchronizer.syncChanges(projects));
+        Assert.assertEquals(1, incrementalSynchronizer.syncChanges(projects));
+        Assert.assertEquals(0, incrementalSynchronizer.syncChanges(projects));
+
+        Assert.assertEquals(State.SUCCEEDED, taskTrackerService.findTaskById(task.getId()).get().getState());
+        Mockito.verify(oozieService).findWorkflowJobsModifiedAfter(new Date(1_000_000L - 60_000), "", 10);
+        Mockito.verify(oozieService).findWorkflowJobsModifiedAfter(new Date(2_000_000L - 60_000), "", 10);
+        Mockito.verify(oozieService, Mockito.never()).findWorkflowJobs(any());
+    }
+
+    @Test
+    public void testSyncResumesProjectOutOfBudget() throws OozieServiceException {
+        final Project project = new Project();
+        project.setName("Project");
+        taskTrackerService.save(project);
+
+        final Map<String, OozieWorkflowJob> jobs = new HashMap<>();
+        for (final String id : Arrays.asList("wf-a", "wf-b", "wf-c")) {
+            final OozieWorkflowJob job = new OozieWorkflowJob();
+            job.setId(id);
+            job.setStatus("RUNNING");
+            jobs.put(id, job);
+
+            final Task task = new Task();
+            task.setProject(project);
+            task.setState(State.RUNNING);
+            task.setSynch(false);
+            task.setOozieWorkflowId(id);
+            taskTrackerService.save(project, task);
+        }
+
+        Mockito.when(oozieService.findWorkflowJobs(any())).thenReturn(jobs);
+
+        final OozieTaskStateSynchronizerScheduler budgetedSynchronizer =
+                new OozieTaskStateSynchronizerScheduler(taskTrackerService, oozieService, 2, 1, 0, false, 0);
+
+        budgetedSynchronizer.sync(project);
+        Mockito.verify(oozieService).findWorkflowJobs(new HashSet<>(Arrays.asList("wf-a", "wf-b")));
+
+        budgetedSynchronizer.sync(project);
+        Mockito.verify(oozieService).findWorkflowJobs(Collections.singleton("wf-c"));
+
+        // the backlog was reconciled to the end, the next run starts over
+        budgetedSynchronizer.sync(project);
+        Mockito.verify(oozieService, Mockito.times(2)).findWorkflowJobs(new HashSet<>(Arrays.asList("wf-a", "wf-b")));
+    }
+}
@@ -0,0 +1,179 @@
+package tasktracker.backend.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import tasktracker.backend.MyTestConfiguration;
+import tasktracker.backend.controller.model.dashboard.TopChart;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskError;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static tasktracker.backend.TestHelper.error;
+import static tasktracker.backend.TestHelper.resolveName;
+import static tasktracker.backend.TestHelper.task;
+import static tasktracker.backend.TestHelper.warning;
+import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Import({MyTestConfiguration.class})
+public class TaskAggregationRepositoryTest {
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private TaskNameRepository taskNameRepository;
+    @Autowired
+    private TaskErrorRepository taskErrorRepository;
+    @Autowired
+    private WarningRepository warningRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TaskAggregationRepository taskAggregationRepository;
+    private Project project;
+
+    @Before
+    public void setUp() {
+        taskAggregationRepository = new H2TaskAggregationRepository(jdbcTemplate);
+
+        project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+    }
+
+    @Test
+    public void countFailedTasksByName() {
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01", "2020-01-01"));
+        save(task(project, "TestTask1", "FAILED", "2020-01-02", "2020-01-02"));
+        save(task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-01"));
+        save(task(project, "TestTask2", "FAILED", "2020-01-02", "2020-01-02"));
+        save(task(project, "TestTask2", "FAILED", "2020-01-04", "2020-01-04"));
+        save(task(project, "TestTask2", "FAILED", "2020-01-05", "2020-01-05"));
+        save(task(project, "TestTask2", "FAILED", "2020-01-05", "2020-01-05T23:59:59.000+0000"));
+//        Out of range
+        save(task(project, "TestTask3", "FAILED", "2020-01-06", "2020-01-06"));
+        entityManager.flush();
+
+        List<TopChart.TopElement> top = taskAggregationRepository.countFailedTasksByName(
+                project.getId(), date("2020-01-01"), date("2020-01-05"), 10);
+
+        assertThat(top, hasSize(2));
+        assertThat(top.get(0), equalTo(new TopChart.TopElement("TestTask2", 4)));
+        assertThat(top.get(1), equalTo(new TopChart.TopElement("TestTask1", 2)));
+    }
+
+    @Test
+    public void medianExecutionTimeByName() {
+//        Execution time: 4h, 1h => median = 9 000s
+        save(task(project, "TestTask1", "SUCCEEDED",
+                "2020-01-01T08:00:00.000+0000", "2020-01-01T08:00:00.000+0000", "2020-01-01T12:00:00.000+0000"));
+        save(task(project, "TestTask1", "SUCCEEDED",
+                "2020-01-02T08:00:00.000+0000", "2020-01-02T08:00:00.000+0000", "2020-01-02T09:00:00.000+0000"));
+        save(task(project, "TestTask1", "FAILED",
+                "2020-01-03T08:00:00.000+0000", "2020-01-03T08:00:00.000+0000", "2020-01-03T19:00:00.000+0000"));
+//        Execution time: 20m, 30m, 60m => median = 1 800s
+        save(task(project, "TestTask2", "SUCCEEDED",
+                "2020-01-15T12:00:00.000+0000", "2020-01-15T12:00:00.000+0000", "2020-01-15T12:20:00.000+0000"));
+        save(task(project, "TestTask2", "SUCCEEDED",
+                "2020-01-16T12:00:00.000+0000", "2020-01-16T12:00:00.000+0000", "2020-01-16T12:30:00.000+0000"));
+        save(task(project, "TestTask2", "SUCCEEDED",
+                "2020-01-17T12:00:00.000+0000", "2020-01-17T12:00:00.000+0000", "2020-01-17T13:00:00.000+0000"));
+        save(task(project, "TestTask2", "RUNNING",
+                "2020-01-18T12:00:00.000+0000", "2020-01-18T12:00:00.000+0000"));
+        entityManager.flush();
+
+        List<TopChart.TopElement> top = taskAggregationRepository.medianExecutionTimeByName(
+                project.getId(), date("2020-01-01"), date("2020-01-31"), 10);
+
+        assertThat(top, hasSize(2));
+        assertThat(top.get(0), equalTo(new TopChart.TopElement("TestTask1", 9000)));
+        assertThat(top.get(1), equalTo(new TopChart.TopElement("TestTask2", 1800)));
+    }
+
+    @Test
+    public void countErrorsByType() {
+        Task task1 = save(task(project, "TestTask3", "FAILED", "2020-01-01", "2020-01-05"));
+        Task task2 = save(task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-05"));
+        Task task3 = save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01", "2020-01-05"));
+        taskErrorRepository.save(error(task1, "Dataset main is empty", TaskError.Type.NO_DATA_ERROR));
+        taskErrorRepository.save(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
+        taskErrorRepository.save(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
+        taskErrorRepository.save(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
+        taskErrorRepository.save(error(task2, "Untyped error"));
+        taskErrorRepository.save(error(task3, "Not failed", TaskError.Type.RUNTIME_ERROR));
+        entityManager.flush();
+
+        List<TopChart.TopElement> top = taskAggregationRepository.countErrorsByType(
+                project.getId(), date("2020-01-05"), date("2020-01-05"), 5);
+
+        assertThat(top, hasSize(2));
+        assertThat(top.get(0), equalTo(new TopChart.TopElement("DATA_LOAD_ERROR", 3)));
+        assertThat(top.get(1), equalTo(new TopChart.TopElement("NO_DATA_ERROR", 1)));
+    }
+
+    @Test
+    public void countWarningsByMessage() {
+        Task task1 = save(task(project, "TestTask5", "SUCCEEDED", "2020-01-01", "2020-01-05"));
+        Task task2 = save(task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-05"));
+        warningRepository.save(warning(task1, "TestTask5.cnt is NULL"));
+        warningRepository.save(warning(task2, "stg.cnt is NULL"));
+        warningRepository.save(warning(task2, "stg.cnt is NULL"));
+        entityManager.flush();
+
+        List<TopChart.TopWarningElement> top = taskAggregationRepository.countWarningsByMessage(
+                project.getId(), date("2020-01-05"), date("2020-01-05"), 5);
+
+        assertThat(top, hasSize(2));
+        assertThat(top.get(0), equalTo(new TopChart.TopWarningElement("stg.cnt is NULL", 2, "TestTask1")));
+        assertThat(top.get(1), equalTo(new TopChart.TopWarningElement("TestTask5.cnt is NULL", 1, "TestTask5")));
+    }
+
+    @Test
+    public void countTasksByStartBucket() {
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-05-01", "2020-05-01T08:10:00.000+0000"));
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-05-01", "2020-05-01T08:50:00.000+0000"));
+        save(task(project, "TestTask2", "FAILED", "2020-05-02", "2020-05-02T00:30:00.000+0000"));
+//        Out of range
+        save(task(project, "TestTask2", "FAILED", "2020-05-03", "2020-05-03T00:00:00.000+0000"));
+        entityManager.flush();
+
+        Map<Date, Integer> hours = taskAggregationRepository.countTasksByStartHour(
+                project.getId(), date("2020-05-01"), date("2020-05-03"));
+        assertThat(hours.size(), equalTo(2));
+        assertThat(hours, hasEntry(date("2020-05-01T08:00:00.000+0000"), 2));
+        assertThat(hours, hasEntry(date("2020-05-02T00:00:00.000+0000"), 1));
+
+        Map<Date, Integer> days = taskAggregationRepository.countTasksByStartDay(
+                project.getId(), date("2020-05-01"), date("2020-05-03"));
+        assertThat(days.size(), equalTo(2));
+        assertThat(days, hasEntry(date("2020-05-01"), 2));
+        assertThat(days, hasEntry(date("2020-05-02"), 1));
+    }
+
+    private Task save(final Task task) {
+        return taskRepository.save(resolveName(taskNameRepository, task));
+    }
+
+    private static Date date(final String date) {
+        return getDateFromFormattedDateString(date);
+    }
+}
@@ -6,17 +6,28 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import tasktracker.backend.MyTestConfiguration;
 import tasktracker.backend.model.Project;
 import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.model.Warning;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.apache.commons.lang3.time.DateUtils.*;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static tasktracker.backend.TestHelper.resolveName;
 import static tasktracker.backend.TestHelper.task;
+import static tasktracker.backend.TestHelper.warning;
 import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -27,6 +38,12 @@ public class TaskRepositoryTest {
     private TaskRepository taskRepository;
     @Autowired
     private ProjectRepository projectRepository;
+    @Autowired
+    private TaskNameRepository taskNameRepository;
+    @Autowired
+    private WarningRepository warningRepository;
+    @Autowired
+    private TaskRuntimeBaselineRepository taskRuntimeBaselineRepository;
 
     @Test
     public void findTasks() {
@@ -34,8 +51,8 @@ public class TaskRepositoryTest {
         project.setName("TestProject");
         project = projectRepository.save(project);
 
-        taskRepository.save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+00:00", "2020-01-05T12:00:00.000+00:00"));
-        taskRepository.save(task(project, "TestTask2", "SUCCEEDED", "2020-05-05T07:01:00.000+00:00", "2020-02-05T11:00:00.000+00:00"));
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+00:00", "2020-01-05T12:00:00.000+00:00"));
+        save(task(project, "TestTask2", "SUCCEEDED", "2020-05-05T07:01:00.000+00:00", "2020-02-05T11:00:00.000+00:00"));
 
         Date from = getDateFromFormattedDateString("2020-01-01T07:00:00.000+00:00");
         Date to = getDateFromFormattedDateString("2020-02-05T07:00:00.000+00:00");
@@ -45,4 +62,199 @@ public class TaskRepositoryTest {
         Assert.assertThat(tasks.get(0).getName(), equalTo("TestTask1"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void findTasksContinuesAfterLastTaskOfPreviousPage() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+00:00", "2020-01-01T09:00:00.000+00:00"));
+        save(task(project, "TestTask2", "SUCCEEDED", "2020-01-03T08:00:00.000+00:00", "2020-01-03T09:00:00.000+00:00"));
+        save(task(project, "TestTask3", "SUCCEEDED", "2020-01-03T08:00:00.000+00:00", "2020-01-03T09:00:00.000+00:00"));
+        save(task(project, "TestTask4", "SUCCEEDED", "2020-01-02T08:00:00.000+00:00", "2020-01-02T09:00:00.000+00:00"));
+
+        Specification<Task> specification = Specification.where(TaskSpecifications.projectId(project.getId()));
+
+        List<Task> firstPage = taskRepository.findTasks(specification, TaskOrder.START_DATE, null, 2);
+        Assert.assertThat(names(firstPage), equalTo(Arrays.asList("TestTask3", "TestTask2")));
+
+        List<Task> secondPage = taskRepository.findTasks(specification, TaskOrder.START_DATE, firstPage.get(1), 2);
+        Assert.assertThat(names(secondPage), equalTo(Arrays.asList("TestTask4", "TestTask1")));
+
+        Assert.assertThat(taskRepository.findTasks(specification, TaskOrder.START_DATE, secondPage.get(1), 2), hasSize(0));
+    }
+
+    @Test
+    public void findTasksPagesThroughTasksWithoutStartDateLast() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+00:00", "2020-01-01T09:00:00.000+00:00"));
+        Task noStart1 = task(project, "TestTask2", "SCHEDULED", "2020-01-02T08:00:00.000+00:00", "2020-01-02T09:00:00.000+00:00");
+        noStart1.setStartDate(null);
+        save(noStart1);
+        save(task(project, "TestTask3", "SUCCEEDED", "2020-01-02T08:00:00.000+00:00", "2020-01-02T09:00:00.000+00:00"));
+        Task noStart2 = task(project, "TestTask4", "SCHEDULED", "2020-01-03T08:00:00.000+00:00", "2020-01-03T09:00:00.000+00:00");
+        noStart2.setStartDate(null);
+        save(noStart2);
+
+        Specification<Task> specification = Specification.where(TaskSpecifications.projectId(project.getId()));
+
+        List<Task> firstPage = taskRepository.findTasks(specification, TaskOrder.START_DATE, null, 3);
+        Assert.assertThat(names(firstPage), equalTo(Arrays.asList("TestTask3", "TestTask1", "TestTask4")));
+
+        // the page boundary is on a task without a start date
+        List<Task> secondPage = taskRepository.findTasks(specification, TaskOrder.START_DATE, firstPage.get(2), 3);
+        Assert.assertThat(names(secondPage), equalTo(Arrays.asList("TestTask2")));
+
+        Assert.assertThat(taskRepository.findTasks(specification, TaskOrder.START_DATE, secondPage.get(0), 3), hasSize(0));
+    }
+
+    @Test
+    public void findTasksByNameContinuesAfterTaskWithoutName() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        save(task(project, "TestTask2", "SUCCEEDED", "2020-01-01T08:00:00.000+00:00", "2020-01-01T09:00:00.000+00:00"));
+        Task unnamed = save(task(project, null, "SUCCEEDED", "2020-01-02T08:00:00.000+00:00", "2020-01-02T09:00:00.000+00:00"));
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-03T08:00:00.000+00:00", "2020-01-03T09:00:00.000+00:00"));
+
+        Specification<Task> specification = Specification.where(TaskSpecifications.projectId(project.getId()));
+
+        List<Task> firstPage = taskRepository.findTasks(specification, TaskOrder.NAME, null, 1);
+        Assert.assertThat(firstPage, hasSize(1));
+        Assert.assertThat(firstPage.get(0).getId(), equalTo(unnamed.getId()));
+
+        // the page boundary is on a task without a name
+        List<Task> secondPage = taskRepository.findTasks(specification, TaskOrder.NAME, firstPage.get(0), 2);
+        Assert.assertThat(names(secondPage), equalTo(Arrays.asList("TestTask1", "TestTask2")));
+
+        Assert.assertThat(taskRepository.streamTasksByName(specification, 10).count(), equalTo(3L));
+    }
+
+    @Test
+    public void claimUnanalyzedTasksTakesOldestFinishedTasks() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        save(task(project, "TestTask1", "SUCCEEDED", "2020-01-03", "2020-01-03T08:00:00.000+00:00"));
+        save(task(project, "TestTask2", "FAILED", "2020-01-01", "2020-01-01T08:00:00.000+00:00"));
+        save(task(project, "TestTask3", "RUNNING", "2020-01-01", "2020-01-01T08:00:00.000+00:00"));
+        Task analyzed = task(project, "TestTask4", "SUCCEEDED", "2020-01-01", "2020-01-01T08:00:00.000+00:00");
+        analyzed.setAnalyzed(true);
+        save(analyzed);
+        save(task(project, "TestTask5", "CANCELED", "2020-01-02", "2020-01-02T08:00:00.000+00:00"));
+
+        List<Task> tasks = taskRepository.claimUnanalyzedTasks(project,
+                Arrays.asList(Task.State.SUCCEEDED, Task.State.FAILED, Task.State.CANCELED), PageRequest.of(0, 2));
+
+        Assert.assertThat(names(tasks), equalTo(Arrays.asList("TestTask2", "TestTask5")));
+    }
+
+    @Test
+    public void tasksShareDictionaryNameRegardlessOfCase() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        Task first = save(task(project, "TestTask1", "SUCCEEDED", "2020-01-01", "2020-01-01T08:00:00.000+00:00"));
+        Task second = save(task(project, " testtask1 ", "FAILED", "2020-01-02", "2020-01-02T08:00:00.000+00:00"));
+        Task other = save(task(project, "TestTask2", "SUCCEEDED", "2020-01-02", "2020-01-02T08:00:00.000+00:00"));
+
+        Assert.assertThat(second.getTaskName().getId(), equalTo(first.getTaskName().getId()));
+        Assert.assertThat(second.getName(), equalTo("TestTask1"));
+        Assert.assertThat(taskNameRepository.findNames(project.getId()), hasSize(2));
+
+        Specification<Task> specification = Specification
+                .where(TaskSpecifications.projectId(project.getId()))
+                .and(TaskSpecifications.names(Arrays.asList("TESTTASK1")));
+        List<Task> tasks = taskRepository.findTasks(specification, TaskOrder.START_DATE, null, 10);
+        Assert.assertThat(tasks, hasSize(2));
+
+        TaskName target = other.getTaskName();
+        Assert.assertThat(taskRepository.moveTasks(first.getTaskName(), target), equalTo(2));
+        Assert.assertThat(taskRepository.countByTaskName(target), equalTo(3L));
+    }
+
+    @Test
+    public void rangeQueriesIncludeWholeBoundaryDaysAndHours() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        Date day = getDateFromFormattedDateString("2020-01-02");
+        Task before = save(taskAt(project, "BeforeRange", addMilliseconds(day, -1)));
+        Task first = save(taskAt(project, "FirstDayStart", day));
+        Task last = save(taskAt(project, "LastDayEnd", addMilliseconds(addDays(day, 2), -1)));
+        Task after = save(taskAt(project, "AfterRange", addDays(day, 2)));
+        for (Task task : Arrays.asList(before, first, last, after)) {
+            Warning warning = warning(task, task.getName());
+            warning.setCreatedTime(task.getStartDate());
+            warningRepository.save(warning);
+        }
+
+        // the boundaries are inside the first and the last day of the range
+        Date from = addHours(day, 10);
+        Date to = addHours(addDays(day, 1), 3);
+        Assert.assertThat(names(taskRepository.findTasks(project.getId(), from, to)), containsInAnyOrder("FirstDayStart", "LastDayEnd"));
+        Assert.assertThat(names(taskRepository.findTasksInRage(project, from, to)), containsInAnyOrder("FirstDayStart", "LastDayEnd"));
+        Assert.assertThat(names(taskRepository.findByDateAndState(from, Task.State.SUCCEEDED)), containsInAnyOrder("FirstDayStart"));
+        Assert.assertThat(warningRepository.findWarningsInRange(project, from, to).stream().map(Warning::getMessage).collect(Collectors.toList()),
+                containsInAnyOrder("FirstDayStart", "LastDayEnd"));
+
+        // the boundaries are inside the first and the last hour of the range
+        Assert.assertThat(names(taskRepository.findTasksInRageTruncHour(project, addMinutes(day, 30), addMinutes(addHours(addDays(day, 1), 23), 30))),
+                containsInAnyOrder("FirstDayStart", "LastDayEnd"));
+        Assert.assertThat(names(taskRepository.findTasksInRageTruncHour(project, addMinutes(day, 30), addMinutes(addHours(addDays(day, 1), 22), 30))),
+                containsInAnyOrder("FirstDayStart"));
+    }
+
+    @Test
+    public void findLongestBaselinesOfNamesRunSinceStart() {
+        Project project = new Project();
+        project.setName("TestProject");
+        project = projectRepository.save(project);
+
+        Task shorter = save(task(project, "Shorter", "SUCCEEDED", "2020-01-02", "2020-01-02T08:00:00.000+00:00"));
+        Task longer = save(task(project, "Longer", "SUCCEEDED", "2020-01-01", "2020-01-01T00:00:00.000+00:00"));
+        Task before = save(task(project, "Before", "SUCCEEDED", "2019-12-31", "2019-12-31T23:00:00.000+00:00"));
+        for (Task task : Arrays.asList(shorter, longer, before)) {
+            TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+            baseline.setProject(project);
+            baseline.setTaskName(task.getTaskName());
+            baseline.setBucket(TaskRuntimeBaseline.ALL_HOURS);
+            baseline.setMedian(task == shorter ? 1000 : 2000);
+            baseline.setLastRunDate(task.getStartDate());
+            taskRuntimeBaselineRepository.save(baseline);
+        }
+
+        // the start is inside the first day
+        List<TaskRuntimeBaseline> baselines = taskRuntimeBaselineRepository.findLongestRunSince(project.getId(), TaskRuntimeBaseline.ALL_HOURS,
+                getDateFromFormattedDateString("2020-01-01T10:00:00.000+00:00"), PageRequest.of(0, 10));
+
+        Assert.assertThat(baselines.stream().map(baseline -> baseline.getTaskName().getName()).collect(Collectors.toList()),
+                equalTo(Arrays.asList("Longer", "Shorter")));
+    }
+
+    private static Task taskAt(Project project, String name, Date date) {
+        Task task = new Task();
+        task.setProject(project);
+        task.setName(name);
+        task.setState(Task.State.SUCCEEDED);
+        task.setNominalDate(date);
+        task.setStartDate(date);
+        return task;
+    }
+
+    private Task save(Task task) {
+        return taskRepository.save(resolveName(taskNameRepository, task));
+    }
+
+    private static List<String> names(List<Task> tasks) {
+        return tasks.stream().map(Task::getName).collect(Collectors.toList());
+    }
+
+}
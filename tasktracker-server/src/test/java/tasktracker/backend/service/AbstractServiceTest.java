@@ -30,4 +30,12 @@ public abstract class AbstractServiceTest {
     protected DataQualityRuleRepository ruleRepository;
     @Mock
     protected DataQualityConditionRepository conditionRepository;
+    @Mock
+    protected TaskAggregationRepository taskAggregationRepository;
+    @Mock
+    protected ProjectDailyStatsRepository projectDailyStatsRepository;
+    @Mock
+    protected TaskNameDictionary taskNameDictionary;
+    @Mock
+    protected TaskRuntimeBaselineService taskRuntimeBaselineService;
 }
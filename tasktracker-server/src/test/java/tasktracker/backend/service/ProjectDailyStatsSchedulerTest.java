@@ -0,0 +1,69 @@
+package tasktracker.backend.service;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import tasktracker.backend.model.Project;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
+
+public class ProjectDailyStatsSchedulerTest extends AbstractServiceTest {
+    @Mock
+    private TaskTrackerService taskTrackerService;
+    @Mock
+    private ProjectDailyStatsService projectDailyStatsService;
+
+    private ProjectDailyStatsScheduler scheduler;
+    private Project project;
+
+    @Before
+    public void setUp() {
+        scheduler = new ProjectDailyStatsScheduler(taskTrackerService, projectDailyStatsService);
+        project = new Project();
+        project.setId(1L);
+        when(taskTrackerService.findProjects()).thenReturn(Lists.newArrayList(project));
+    }
+
+    @Test
+    public void backfillsHistoryBeforeDaysFlushedFromEvents() {
+        // today's row was flushed from the task events before the first backfill run
+        when(projectDailyStatsService.findFirstTaskDate(project)).thenReturn(Optional.of(date("2020-01-01")));
+        when(projectDailyStatsService.findFirstDailyStatsDate(project)).thenReturn(Optional.of(new Date()));
+
+        scheduler.backfill();
+
+        verify(projectDailyStatsService).refresh(project, date("2020-01-01"), date("2020-02-01"));
+    }
+
+    @Test
+    public void backfillsProjectWithoutDailyStats() {
+        when(projectDailyStatsService.findFirstTaskDate(project)).thenReturn(Optional.of(date("2020-01-01")));
+        when(projectDailyStatsService.findFirstDailyStatsDate(project)).thenReturn(Optional.empty());
+
+        scheduler.backfill();
+
+        verify(projectDailyStatsService).refresh(project, date("2020-01-01"), date("2020-02-01"));
+    }
+
+    @Test
+    public void skipsProjectCoveredFromItsFirstTask() {
+        when(projectDailyStatsService.findFirstTaskDate(project)).thenReturn(Optional.of(date("2020-01-01")));
+        when(projectDailyStatsService.findFirstDailyStatsDate(project)).thenReturn(Optional.of(date("2020-01-01")));
+
+        scheduler.backfill();
+
+        verify(projectDailyStatsService, never()).refresh(any(), any(), any());
+    }
+
+    private static Date date(final String date) {
+        return getDateFromFormattedDateString(date);
+    }
+}
@@ -0,0 +1,99 @@
+package tasktracker.backend.service;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import tasktracker.backend.eventbus.TaskCreated;
+import tasktracker.backend.eventbus.TaskStateChanged;
+import tasktracker.backend.eventbus.TaskTrackerEvent;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.ProjectDailyStats;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static tasktracker.backend.TestHelper.task;
+import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
+
+public class ProjectDailyStatsServiceTest extends AbstractServiceTest {
+    @InjectMocks
+    private ProjectDailyStatsService projectDailyStatsService;
+
+    private Project project;
+
+    @Before
+    public void setUp() {
+        project = new Project();
+        project.setId(1L);
+        project.setName("test");
+    }
+
+    @Test
+    public void taskEventsMarkStartDaysDirty() {
+        projectDailyStatsService.onEvent(TaskTrackerEvent.of(TaskCreated.of(task(project, "TestTask1", "RUNNING", "2020-01-01", "2020-01-01T08:00:00.000+0000"))));
+        projectDailyStatsService.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task(project, "TestTask1", "SUCCEEDED", "2020-01-01", "2020-01-01T10:00:00.000+0000"))));
+        projectDailyStatsService.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task(project, "TestTask2", "FAILED", "2020-01-02", "2020-01-02T10:00:00.000+0000"))));
+        projectDailyStatsService.onEvent(TaskTrackerEvent.of("not a task"));
+
+        Map<Long, Set<Date>> dirtyDays = projectDailyStatsService.pollDirtyDays();
+
+        assertThat(dirtyDays.size(), equalTo(1));
+        assertThat(dirtyDays.get(project.getId()), contains(date("2020-01-01"), date("2020-01-02")));
+        assertTrue(projectDailyStatsService.pollDirtyDays().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void refreshUpdatesInsertsAndRemovesRows() {
+        ProjectDailyStats existing = stats(date("2020-01-01"), 1, 0);
+        existing.setId(10L);
+        ProjectDailyStats stale = stats(date("2020-01-02"), 3, 1);
+        stale.setId(11L);
+
+        when(projectDailyStatsRepository.findStats(eq(1L), any(), any())).thenReturn(Lists.newArrayList(existing, stale));
+        when(taskAggregationRepository.countDailyStats(eq(1L), any(), any())).thenReturn(Lists.newArrayList(
+                stats(date("2020-01-01"), 5, 2),
+                stats(date("2020-01-03"), 1, 1)
+        ));
+
+        projectDailyStatsService.refresh(project, date("2020-01-01"), date("2020-01-04"));
+
+        ArgumentCaptor<Iterable<ProjectDailyStats>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(projectDailyStatsRepository).saveAll(saved.capture());
+        List<ProjectDailyStats> savedStats = Lists.newArrayList(saved.getValue());
+        assertThat(savedStats, hasSize(2));
+        assertThat(savedStats.get(0).getId(), equalTo(10L));
+        assertThat(savedStats.get(0).getTotalTasks(), equalTo(5));
+        assertThat(savedStats.get(0).getTotalFailedTasks(), equalTo(2));
+        assertThat(savedStats.get(1).getProject(), equalTo(project));
+
+        ArgumentCaptor<Iterable<ProjectDailyStats>> removed = ArgumentCaptor.forClass(Iterable.class);
+        verify(projectDailyStatsRepository).deleteAll(removed.capture());
+        assertThat(Lists.newArrayList(removed.getValue()), contains(stale));
+    }
+
+    private static ProjectDailyStats stats(final Date date, final int total, final int failed) {
+        ProjectDailyStats stats = new ProjectDailyStats();
+        stats.setDate(date);
+        stats.setTotalTasks(total);
+        stats.setTotalFailedTasks(failed);
+        return stats;
+    }
+
+    private static Date date(final String date) {
+        return getDateFromFormattedDateString(date);
+    }
+}
@@ -0,0 +1,93 @@
+package tasktracker.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StuckTaskDetectorTest extends AbstractServiceTest {
+    private static final long MINUTE = 60 * 1000;
+    private static final Date NOW = new Date(1_600_000_000_000L);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TaskTrackerService service;
+
+    private StuckTaskDetector detector;
+    private Project project;
+    private long nextId = 1;
+
+    @Before
+    public void setUp() {
+        detector = new StuckTaskDetector(taskRepository, taskRuntimeBaselineService, transactionManager);
+        project = new Project();
+        project.setId(1L);
+    }
+
+    @Test
+    public void failsTasksRunningFarLongerThanUsual() {
+        when(service.getExecutionTime(any(), any())).thenAnswer(invocation -> {
+            final Task task = invocation.getArgument(0);
+            return ((Date) invocation.getArgument(1)).getTime() - task.getStartDate().getTime();
+        });
+        when(service.update(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(taskRuntimeBaselineService.find(any())).thenReturn(Optional.of(baseline(10, 1)));
+        final Task stuck = running(60);
+        final Task slow = running(12);
+        when(taskRepository.findByProjectIdAndStateAndEndDateIsNull(1L, Task.State.RUNNING)).thenReturn(Arrays.asList(stuck, slow));
+
+        final List<Task> failed = detector.update(service, project, NOW);
+
+        assertThat(failed, contains(stuck));
+        assertThat(stuck.getState(), equalTo(Task.State.FAILED));
+        assertThat(stuck.getEndDate(), equalTo(NOW));
+        assertThat(stuck.getAutoUpdated(), equalTo(true));
+        assertThat(slow.getState(), equalTo(Task.State.RUNNING));
+    }
+
+    @Test
+    public void keepsTasksWithoutBaseline() {
+        when(taskRuntimeBaselineService.find(any())).thenReturn(Optional.empty());
+        when(taskRepository.findByProjectIdAndStateAndEndDateIsNull(1L, Task.State.RUNNING))
+                .thenReturn(Collections.singletonList(running(600)));
+
+        assertThat(detector.update(service, project, NOW), empty());
+        verify(service, never()).update(any(), any());
+    }
+
+    private Task running(final long minutes) {
+        final Task task = new Task();
+        task.setId(nextId++);
+        task.setProject(project);
+        task.setName("load");
+        task.setState(Task.State.RUNNING);
+        task.setStartDate(new Date(NOW.getTime() - minutes * MINUTE));
+        return task;
+    }
+
+    private static TaskRuntimeBaseline baseline(final long medianMinutes, final long stdDevMinutes) {
+        final TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+        baseline.setMedian(medianMinutes * MINUTE);
+        baseline.setStdDev(stdDevMinutes * MINUTE);
+        return baseline;
+    }
+}
@@ -0,0 +1,170 @@
+package tasktracker.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import tasktracker.backend.controller.body.IngestRecordBody;
+import tasktracker.backend.controller.exception.ApiException;
+import tasktracker.backend.controller.model.IngestResultModel;
+import tasktracker.backend.model.*;
+import tasktracker.backend.repository.IngestBatchRepository;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static tasktracker.backend.TestHelper.task;
+
+public class TaskIngestionServiceTest extends AbstractServiceTest {
+    private static Project project;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private TaskTrackerService taskTrackerService;
+    @Mock
+    private IngestBatchRepository ingestBatchRepository;
+    private TaskIngestionService taskIngestionService;
+
+    @BeforeClass
+    public static void setUp() {
+        project = new Project();
+        project.setId(1L);
+        project.setName("test");
+    }
+
+    @Before
+    public void setUpService() {
+        taskIngestionService = new TaskIngestionService(taskRepository, taskMetricRepository, taskErrorRepository,
+                warningRepository, statsRepository, ingestBatchRepository, taskTrackerService, eventBus);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void savesRecordsOfNewAndExistingTasks() throws IOException {
+        Task existing = task(project, "TestTask1", "RUNNING", "2020-01-01", "2020-01-01T08:00:00.000+0000");
+        existing.setId(10L);
+        when(taskRepository.findAllById(any())).thenReturn(Collections.singletonList(existing));
+
+        IngestResultModel result = taskIngestionService.ingest(project, records(
+                "{\"type\": \"TASK\", \"task_ref\": \"new\", \"task\": {\"name\": \"TestTask2\", \"status\": \"RUNNING\"}}",
+                "{\"type\": \"METRIC\", \"task_ref\": \"new\", \"metric\": {\"name\": \"rows\", \"value\": \"1\"}}",
+                "{\"type\": \"ERROR\", \"task_ref\": \"new\", \"error\": {\"reason\": \"oops\", \"type\": \"RUNTIME_ERROR\"}}",
+                "{\"type\": \"WARNING\", \"task_id\": 10, \"warning\": {\"message\": \"late\"}}",
+                "{\"type\": \"STATISTICS\", \"task_id\": 10, \"statistics\": [{\"column\": \"a.b.c\"}, {\"column\": \"a.b.d\"}]}",
+                "{\"type\": \"TASK\", \"task_id\": 10, \"task\": {\"status\": \"SUCCEEDED\"}}"
+        ));
+
+        assertThat(result.getTaskCount(), equalTo(2));
+        assertThat(result.getMetricCount(), equalTo(1));
+        assertThat(result.getErrorCount(), equalTo(1));
+        assertThat(result.getWarningCount(), equalTo(1));
+        assertThat(result.getStatisticsCount(), equalTo(2));
+        assertThat(result.getTasks().keySet(), contains("new"));
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(tasks.capture());
+        assertThat(tasks.getValue(), hasSize(2));
+        assertThat(tasks.getValue().get(0).getProject(), equalTo(project));
+        assertThat(existing.getState(), equalTo(Task.State.SUCCEEDED));
+        assertThat(existing.getEndDate(), notNullValue());
+
+        ArgumentCaptor<List<TaskMetric>> metrics = ArgumentCaptor.forClass(List.class);
+        verify(taskMetricRepository).saveAll(metrics.capture());
+        assertThat(metrics.getValue().get(0).getTask(), sameInstance(tasks.getValue().get(0)));
+
+        ArgumentCaptor<List<TaskStats>> statistics = ArgumentCaptor.forClass(List.class);
+        verify(statsRepository).saveAll(statistics.capture());
+        assertThat(statistics.getValue().get(1).getTask(), sameInstance(existing));
+
+        verify(taskRepository, times(1)).findAllById(any());
+        verify(eventBus, times(5)).post(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void keepsTaskReferencesOfEnvelopesApart() throws IOException {
+        List<IngestResultModel> results = taskIngestionService.ingestAll(project, Arrays.asList(
+                envelope(null,
+                        "{\"type\": \"TASK\", \"task_ref\": \"t1\", \"task\": {\"name\": \"TestTask1\", \"status\": \"RUNNING\"}}",
+                        "{\"type\": \"METRIC\", \"task_ref\": \"t1\", \"metric\": {\"name\": \"rows\", \"value\": \"1\"}}"
+                ),
+                envelope(null,
+                        "{\"type\": \"TASK\", \"task_ref\": \"t1\", \"task\": {\"name\": \"TestTask2\", \"status\": \"RUNNING\"}}",
+                        "{\"type\": \"METRIC\", \"task_ref\": \"t1\", \"metric\": {\"name\": \"rows\", \"value\": \"2\"}}"
+                )
+        ));
+
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).getTaskCount(), equalTo(1));
+        assertThat(results.get(1).getMetricCount(), equalTo(1));
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(tasks.capture());
+        assertThat(tasks.getValue(), hasSize(2));
+
+        ArgumentCaptor<List<TaskMetric>> metrics = ArgumentCaptor.forClass(List.class);
+        verify(taskMetricRepository).saveAll(metrics.capture());
+        assertThat(metrics.getValue().get(0).getTask().getName(), equalTo("TestTask1"));
+        assertThat(metrics.getValue().get(1).getTask().getName(), equalTo("TestTask2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void skipsEnvelopesOfKnownIdempotencyKeys() throws IOException {
+        when(ingestBatchRepository.existsByProjectIdAndIdempotencyKey(eq(1L), anyString()))
+                .thenAnswer(invocation -> "sent".equals(invocation.getArgument(1)));
+
+        List<IngestResultModel> results = taskIngestionService.ingestAll(project, Arrays.asList(
+                envelope("sent", "{\"type\": \"TASK\", \"task\": {\"name\": \"TestTask1\", \"status\": \"RUNNING\"}}"),
+                envelope("new", "{\"type\": \"TASK\", \"task\": {\"name\": \"TestTask2\", \"status\": \"RUNNING\"}}"),
+                envelope("new", "{\"type\": \"TASK\", \"task\": {\"name\": \"TestTask2\", \"status\": \"RUNNING\"}}"),
+                envelope(null, "{\"type\": \"TASK\", \"task\": {\"name\": \"TestTask3\", \"status\": \"RUNNING\"}}")
+        ));
+
+        assertThat(results.stream().map(IngestResultModel::isDuplicate).collect(Collectors.toList()), contains(true, false, true, false));
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(tasks.capture());
+        assertThat(tasks.getValue().stream().map(Task::getName).collect(Collectors.toList()), contains("TestTask2", "TestTask3"));
+
+        ArgumentCaptor<List<IngestBatch>> batches = ArgumentCaptor.forClass(List.class);
+        verify(ingestBatchRepository).saveAll(batches.capture());
+        assertThat(batches.getValue(), hasSize(1));
+        assertThat(batches.getValue().get(0).getIdempotencyKey(), equalTo("new"));
+    }
+
+    @Test(expected = ApiException.TaskStateNotFound.class)
+    public void rejectsTasksOfOtherProjects() throws IOException {
+        Project other = new Project();
+        other.setId(2L);
+        Task task = task(other, "TestTask1", "RUNNING", "2020-01-01", "2020-01-01T08:00:00.000+0000");
+        task.setId(10L);
+        when(taskRepository.findAllById(any())).thenReturn(Collections.singletonList(task));
+
+        taskIngestionService.ingest(project, records("{\"type\": \"WARNING\", \"task_id\": 10, \"warning\": {\"message\": \"late\"}}"));
+    }
+
+    @Test(expected = ApiException.InvalidInputData.class)
+    public void rejectsUnknownTaskReferences() throws IOException {
+        taskIngestionService.ingest(project, records("{\"type\": \"METRIC\", \"task_ref\": \"missing\", \"metric\": {\"name\": \"rows\"}}"));
+    }
+
+    private TaskIngestionService.Envelope envelope(String idempotencyKey, String... json) throws IOException {
+        return TaskIngestionService.Envelope.of(idempotencyKey, records(json));
+    }
+
+    private List<IngestRecordBody> records(String... json) throws IOException {
+        return objectMapper.readerFor(IngestRecordBody.class).<IngestRecordBody>readValues(String.join("\n", json)).readAll();
+    }
+}
@@ -0,0 +1,61 @@
+package tasktracker.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.TaskName;
+import tasktracker.backend.repository.TaskNameRepository;
+import tasktracker.backend.repository.TaskRepository;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TaskNameDictionaryTest {
+    @Mock
+    private TaskNameRepository taskNameRepository;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private TaskNameDictionary taskNameDictionary;
+    private Project project;
+
+    @Before
+    public void setUp() {
+        taskNameDictionary = new TaskNameDictionary(taskNameRepository, taskRepository, transactionManager);
+        project = new Project();
+        project.setId(1L);
+    }
+
+    @Test
+    public void renameOntoTakenNameKeepsTheOriginalEntry() {
+        TaskName original = taskName(10, "TestTask1");
+        TaskName existing = taskName(11, "TestTask2");
+        when(taskNameRepository.findByProjectIdAndNormalizedName(1L, "testtask1")).thenReturn(Optional.of(original));
+        when(taskNameRepository.findByProjectIdAndNormalizedName(1L, "testtask2")).thenReturn(Optional.of(existing));
+        when(taskRepository.moveTasks(original, existing)).thenReturn(3);
+
+        assertThat(taskNameDictionary.rename(project, "TestTask1", "TestTask2"), equalTo(3L));
+
+        // other nodes may still add tasks to the cached original entry
+        verify(taskNameRepository, never()).deleteById(any());
+        verify(taskNameRepository, never()).delete(any());
+        assertThat(taskNameDictionary.resolve(project, "TestTask1"), equalTo(original));
+    }
+
+    private TaskName taskName(Integer id, String name) {
+        TaskName taskName = TaskName.of(name);
+        taskName.setId(id);
+        taskName.setProject(project);
+        return taskName;
+    }
+}
@@ -0,0 +1,134 @@
+package tasktracker.backend.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.ProjectSettings;
+import tasktracker.backend.repository.TaskPartitionRepository;
+
+import java.io.File;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskPartitionSchedulerTest extends AbstractServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private TaskPartitionRepository taskPartitionRepository;
+    @Mock
+    private TaskTrackerService taskTrackerService;
+
+    private TaskPartitionScheduler scheduler;
+    private File archive;
+
+    @Before
+    public void setUp() throws Exception {
+        archive = folder.newFolder("archive");
+        scheduler = new TaskPartitionScheduler(taskPartitionRepository, taskTrackerService, 3, true, archive.getPath());
+    }
+
+    @Test
+    public void archivesMonthsPastTheLongestRetention() {
+        when(taskTrackerService.findProjects()).thenReturn(Arrays.asList(project(12), project(6)));
+        when(taskPartitionRepository.findPartitions(anyString())).thenReturn(Collections.emptyList());
+        when(taskPartitionRepository.findPartitions("task_state"))
+                .thenReturn(Arrays.asList("task_state_p201904", "task_state_p201905", "task_state_p201906"));
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository).createPartitions(YearMonth.of(2020, 6), YearMonth.of(2020, 9));
+        verify(taskPartitionRepository).detach("task_state_p201904");
+        verify(taskPartitionRepository).detach("task_state_p201905");
+        verify(taskPartitionRepository, never()).detach("task_state_p201906");
+        verify(taskPartitionRepository).drop("task_state_p201904");
+        verify(taskPartitionRepository).drop("task_state_p201905");
+        assertTrue(new File(archive, "task_state_p201904.csv.gz").exists());
+        assertTrue(new File(archive, "task_state_p201905.csv.gz").exists());
+        assertFalse(new File(archive, "task_state_p201906.csv.gz").exists());
+    }
+
+    @Test
+    public void keepsAllMonthsWhenAProjectHasNoRetention() {
+        when(taskTrackerService.findProjects()).thenReturn(Arrays.asList(project(1), project(null)));
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository, never()).detach(anyString());
+        verify(taskPartitionRepository, never()).drop(anyString());
+    }
+
+    @Test
+    public void archivesPartitionsLeftDetached() {
+        when(taskPartitionRepository.findDetachedPartitions()).thenReturn(Arrays.asList("warning_p201901"));
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository).stream(any(), any());
+        verify(taskPartitionRepository).drop("warning_p201901");
+        assertTrue(new File(archive, "warning_p201901.csv.gz").exists());
+    }
+
+    @Test
+    public void createsPartitionsOfTasksInDefaultPartition() {
+        when(taskPartitionRepository.findFirstDefaultMonth()).thenReturn(Optional.of(YearMonth.of(2019, 11)));
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository).createPartitions(YearMonth.of(2019, 11), YearMonth.of(2020, 9));
+    }
+
+    @Test
+    public void createsPartitionsWithoutArchiving() {
+        scheduler = new TaskPartitionScheduler(taskPartitionRepository, taskTrackerService, 3, false, archive.getPath());
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository).createPartitions(YearMonth.of(2020, 6), YearMonth.of(2020, 9));
+        verify(taskPartitionRepository, never()).findDetachedPartitions();
+        verify(taskPartitionRepository, never()).detach(anyString());
+    }
+
+    @Test
+    public void archivesWhenPartitionsCantBeCreated() {
+        doThrow(new IllegalStateException("partition would be violated by some row"))
+                .when(taskPartitionRepository).createPartitions(any(), any());
+        when(taskPartitionRepository.findDetachedPartitions()).thenReturn(Arrays.asList("warning_p201901"));
+
+        scheduler.maintain(YearMonth.of(2020, 6));
+
+        verify(taskPartitionRepository).drop("warning_p201901");
+    }
+
+    @Test
+    public void quotesCsvValues() {
+        assertThat(TaskPartitionScheduler.csv(null), equalTo(""));
+        assertThat(TaskPartitionScheduler.csv(""), equalTo("\"\""));
+        assertThat(TaskPartitionScheduler.csv("plain"), equalTo("plain"));
+        assertThat(TaskPartitionScheduler.csv("a,\"b\"\nc"), equalTo("\"a,\"\"b\"\"\nc\""));
+    }
+
+    private static Project project(final Integer retentionMonths) {
+        final ProjectSettings settings = new ProjectSettings();
+        settings.setRetentionMonths(retentionMonths);
+        final Project project = new Project();
+        project.setSettings(settings);
+        return project;
+    }
+}
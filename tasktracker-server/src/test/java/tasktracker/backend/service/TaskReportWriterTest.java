@@ -0,0 +1,137 @@
+package tasktracker.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import tasktracker.backend.controller.model.DateTasks;
+import tasktracker.backend.controller.model.TasksReportModel;
+import tasktracker.backend.controller.model.TasksReportResponse;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.Task.State;
+
+import javax.persistence.EntityManager;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+import static tasktracker.backend.TestHelper.task;
+import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
+
+public class TaskReportWriterTest extends AbstractServiceTest {
+    private static Project project;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private TaskTrackerService taskTrackerService;
+    @Mock
+    private EntityManager entityManager;
+    private TaskReportWriter taskReportWriter;
+
+    @BeforeClass
+    public static void setUp() {
+        System.setProperty("user.timezone", "UTC");
+        project = new Project();
+        project.setId(1L);
+        project.setName("test");
+    }
+
+    @Before
+    public void setUpWriter() {
+        taskReportWriter = new TaskReportWriter(taskRepository, taskTrackerService, entityManager);
+    }
+
+    @Test
+    public void writesTasksGroupedByNameAndDate() throws Exception {
+        when(taskRepository.streamTasksByName(any(), anyInt())).thenReturn(Stream.of(
+                task(project, "TestTask1", "FAILED", "2020-01-01T08:00:00.000+0000", "2020-01-05T08:00:00.000+0000"),
+                task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+0000", "2020-01-05T12:00:00.000+0000"),
+                task(project, "TestTask2", "SUCCEEDED", "2020-01-02T07:01:00.000+0000", "2020-02-05T11:00:00.000+0000"),
+                task(project, "TestTask3", "FAILED", "2020-01-03T15:00:00.000+0000", "2020-01-05T12:00:00.000+0000")
+        ));
+
+        TaskFilter filter = TaskFilter
+                .of()
+                .setNames(Sets.newHashSet("TestTask1", "TestTask2", "TestTask3", "TestTask4"))
+                .setFrom(getDateFromFormattedDateString("2020-01-01"))
+                .setTo(getDateFromFormattedDateString("2020-01-03"))
+                .setDateType(Task.DateType.NOMINAL_DATE);
+
+        TasksReportResponse report = write(filter, Collections.emptySet(), false);
+
+        assertThat(report.getTasks().stream().map(TasksReportModel::getName).collect(Collectors.toList()),
+                contains("TestTask1", "TestTask2", "TestTask3", "TestTask4"));
+        assertThat(taskCounts(report.getTasks().get(0)), contains(2, 0, 0));
+        assertThat(taskCounts(report.getTasks().get(1)), contains(0, 1, 0));
+        assertThat(taskCounts(report.getTasks().get(2)), contains(0, 0, 1));
+        assertThat(taskCounts(report.getTasks().get(3)), contains(0, 0, 0));
+    }
+
+    @Test
+    public void skipsNamesWithoutTasksInStatuses() throws Exception {
+        when(taskRepository.streamTasksByName(any(), anyInt())).thenReturn(Stream.of(
+                task(project, "TestTask1", "FAILED", "2020-01-01T08:00:00.000+0000", "2020-01-05T08:00:00.000+0000"),
+                task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+0000", "2020-01-05T12:00:00.000+0000"),
+                task(project, "TestTask2", "FAILED", "2020-01-02T07:01:00.000+0000", "2020-02-05T11:00:00.000+0000")
+        ));
+
+        TaskFilter filter = TaskFilter
+                .of()
+                .setNames(Sets.newHashSet("TestTask1", "TestTask2", "TestTask3"))
+                .setFrom(getDateFromFormattedDateString("2020-01-01"))
+                .setTo(getDateFromFormattedDateString("2020-01-02"))
+                .setDateType(Task.DateType.NOMINAL_DATE);
+
+        TasksReportResponse report = write(filter, Sets.newHashSet(State.SUCCEEDED), true);
+
+        assertThat(report.getTasks(), hasSize(1));
+        assertThat(report.getTasks().get(0).getName(), equalTo("TestTask1"));
+        assertThat(taskCounts(report.getTasks().get(0)), contains(1, 0));
+    }
+
+    @Test
+    public void writesTasksWithoutName() throws Exception {
+        when(taskRepository.streamTasksByName(any(), anyInt())).thenReturn(Stream.of(
+                task(project, null, "SUCCEEDED", "2020-01-01T08:00:00.000+0000", "2020-01-01T08:00:00.000+0000"),
+                task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+0000", "2020-01-01T08:00:00.000+0000")
+        ));
+
+        TaskFilter filter = TaskFilter
+                .of()
+                .setFrom(getDateFromFormattedDateString("2020-01-01"))
+                .setTo(getDateFromFormattedDateString("2020-01-01"))
+                .setDateType(Task.DateType.NOMINAL_DATE);
+
+        TasksReportResponse report = write(filter, Collections.emptySet(), false);
+
+        assertThat(report.getTasks().stream().map(TasksReportModel::getName).collect(Collectors.toList()),
+                contains(null, "TestTask1"));
+        assertThat(taskCounts(report.getTasks().get(0)), contains(1));
+    }
+
+    private TasksReportResponse write(TaskFilter filter, Set<State> statuses, boolean lastTaskOnly) throws Exception {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+            taskReportWriter.write(project, filter, statuses, lastTaskOnly, generator);
+        }
+        return objectMapper.readValue(json.toString(), TasksReportResponse.class);
+    }
+
+    private static List<Integer> taskCounts(TasksReportModel model) {
+        return model.getDates().stream().map(DateTasks::getTasks).map(List::size).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,83 @@
+package tasktracker.backend.service;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import tasktracker.backend.model.Project;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskRuntimeBaselineSchedulerTest extends AbstractServiceTest {
+    @Mock
+    private TaskTrackerService taskTrackerService;
+
+    private TaskRuntimeBaselineScheduler scheduler;
+    private Project project;
+
+    @Before
+    public void setUp() {
+        scheduler = new TaskRuntimeBaselineScheduler(taskTrackerService, taskRuntimeBaselineService);
+        project = new Project();
+        project.setId(1L);
+        when(taskTrackerService.findProjects()).thenReturn(Lists.newArrayList(project));
+    }
+
+    @Test
+    public void requeuesRunsOfFailedUpdate() {
+        final List<TaskRuntimeBaselineService.SucceededRun> runs = Collections.singletonList(run(5L));
+        when(taskRuntimeBaselineService.pollSucceededRuns()).thenReturn(Collections.singletonMap(1L, runs));
+        when(taskTrackerService.findProjectById(1L)).thenReturn(Optional.of(project));
+        doThrow(new DataAccessResourceFailureException("database is down"))
+                .when(taskRuntimeBaselineService).update(project, runs);
+
+        scheduler.flush();
+
+        verify(taskRuntimeBaselineService).requeue(runs);
+    }
+
+    @Test
+    public void retriesUpdateOfBaselinesChangedByAnotherNode() {
+        final List<TaskRuntimeBaselineService.SucceededRun> runs = Collections.singletonList(run(5L));
+        when(taskRuntimeBaselineService.pollSucceededRuns()).thenReturn(Collections.singletonMap(1L, runs));
+        when(taskTrackerService.findProjectById(1L)).thenReturn(Optional.of(project));
+        doThrow(new OptimisticLockingFailureException("baseline updated by another node"))
+                .doNothing()
+                .when(taskRuntimeBaselineService).update(project, runs);
+
+        scheduler.flush();
+
+        verify(taskRuntimeBaselineService, times(2)).update(project, runs);
+        verify(taskRuntimeBaselineService, never()).requeue(any());
+    }
+
+    @Test
+    public void requeuesRunsNotFlushedBeforeRestartOnce() {
+        final List<TaskRuntimeBaselineService.SucceededRun> runs = Collections.singletonList(run(5L));
+        when(taskRuntimeBaselineService.findRunsSinceLastUpdate(project)).thenReturn(runs);
+        when(taskRuntimeBaselineService.pollSucceededRuns()).thenReturn(Collections.emptyMap());
+
+        scheduler.flush();
+        scheduler.flush();
+
+        verify(taskRuntimeBaselineService, times(1)).findRunsSinceLastUpdate(project);
+        verify(taskRuntimeBaselineService).requeue(runs);
+        verify(taskRuntimeBaselineService, never()).update(any(), any());
+    }
+
+    private static TaskRuntimeBaselineService.SucceededRun run(final Long taskId) {
+        return new TaskRuntimeBaselineService.SucceededRun(taskId, 1L, "load", new Date(), 1000);
+    }
+}
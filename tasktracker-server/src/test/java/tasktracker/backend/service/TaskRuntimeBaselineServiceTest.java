@@ -0,0 +1,177 @@
+package tasktracker.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import tasktracker.backend.eventbus.TaskStateChanged;
+import tasktracker.backend.eventbus.TaskTrackerEvent;
+import tasktracker.backend.model.Project;
+import tasktracker.backend.model.Task;
+import tasktracker.backend.model.TaskName;
+import tasktracker.backend.model.TaskRuntimeBaseline;
+import tasktracker.backend.repository.TaskRuntimeBaselineRepository;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskRuntimeBaselineServiceTest extends AbstractServiceTest {
+    private static final long MINUTE = 60 * 1000;
+    // Monday 2020-09-14 10:00 in the default time zone
+    private static final Date MONDAY_10 = Date.from(java.time.LocalDateTime.of(2020, 9, 14, 10, 0)
+            .atZone(java.time.ZoneId.systemDefault()).toInstant());
+
+    @Mock
+    private TaskRuntimeBaselineRepository baselineRepository;
+
+    private TaskRuntimeBaselineService service;
+    private Project project;
+    private TaskName taskName;
+    private long nextId = 1;
+
+    @Before
+    public void setUp() {
+        service = new TaskRuntimeBaselineService(baselineRepository, taskRepository, taskNameDictionary);
+        project = new Project();
+        project.setId(1L);
+        taskName = TaskName.of("load");
+        taskName.setId(7);
+    }
+
+    @Test
+    public void bucketsAreHoursOfTheWeek() {
+        assertThat(TaskRuntimeBaseline.bucket(MONDAY_10), equalTo(10));
+        assertThat(TaskRuntimeBaseline.bucket(new Date(MONDAY_10.getTime() + 6 * 24 * 60 * MINUTE)), equalTo(6 * 24 + 10));
+    }
+
+    @Test
+    public void keepsStatisticsOfTheLastRuns() {
+        final TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+        for (long id = 1; id <= TaskRuntimeBaselineService.WINDOW_RUNS + 10; id++) {
+            TaskRuntimeBaselineService.add(baseline, id, id <= 10 ? 1_000_000 : 100);
+        }
+        TaskRuntimeBaselineService.add(baseline, 60, 100);
+
+        assertThat(baseline.getRuns(), equalTo(TaskRuntimeBaselineService.WINDOW_RUNS));
+        assertThat(baseline.getMedian(), equalTo(100.0));
+        assertThat(baseline.getMean(), equalTo(100.0));
+        assertThat(baseline.getStdDev(), equalTo(0.0));
+        assertThat(TaskRuntimeBaselineService.durations(baseline).keySet(), not(hasItem(10L)));
+    }
+
+    @Test
+    public void addsSucceededRunsToTheBaselinesOfTheirHourAndAllHours() {
+        when(taskNameDictionary.find(1L, "load")).thenReturn(Optional.of(taskName));
+        when(taskRepository.findByProjectIdAndTaskNameIdAndStateOrderByIdDesc(anyLong(), any(), any(), any()))
+                .thenReturn(Arrays.asList(succeeded(12), succeeded(10)));
+
+        final Task task = succeeded(20);
+        service.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task)));
+        service.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task)));
+        final Map<Long, List<TaskRuntimeBaselineService.SucceededRun>> runs = service.pollSucceededRuns();
+        assertThat(runs.get(1L), hasSize(1));
+        assertThat(service.pollSucceededRuns().isEmpty(), equalTo(true));
+
+        service.update(project, runs.get(1L));
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Collection<TaskRuntimeBaseline>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(baselineRepository).saveAll(saved.capture());
+        assertThat(saved.getValue(), hasSize(2));
+        for (final TaskRuntimeBaseline baseline : saved.getValue()) {
+            assertThat(baseline.getBucket(), isOneOf(10, TaskRuntimeBaseline.ALL_HOURS));
+            assertThat(baseline.getRuns(), equalTo(3));
+            assertThat(baseline.getMedian(), equalTo(12.0 * MINUTE));
+            assertThat(baseline.getLastRunDate(), equalTo(MONDAY_10));
+        }
+    }
+
+    @Test
+    public void requeuedRunsGiveWayToNewerOnes() {
+        final Task task = succeeded(20);
+        service.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task)));
+        final List<TaskRuntimeBaselineService.SucceededRun> failed = service.pollSucceededRuns().get(1L);
+
+        task.setEndDate(new Date(task.getStartDate().getTime() + 30 * MINUTE));
+        service.onEvent(TaskTrackerEvent.of(TaskStateChanged.of(task)));
+        service.requeue(failed);
+
+        final List<TaskRuntimeBaselineService.SucceededRun> runs = service.pollSucceededRuns().get(1L);
+        assertThat(runs, hasSize(1));
+        assertThat(runs.get(0).getDuration(), equalTo(30 * MINUTE));
+    }
+
+    @Test
+    public void findsSucceededRunsSinceLastUpdate() {
+        when(baselineRepository.findLastUpdatedTime(1L)).thenReturn(Optional.of(MONDAY_10));
+        when(taskRepository.findByProjectIdAndEndDateGreaterThanEqual(any(), any()))
+                .thenReturn(Arrays.asList(succeeded(10), running(5)));
+
+        final List<TaskRuntimeBaselineService.SucceededRun> runs = service.findRunsSinceLastUpdate(project);
+
+        assertThat(runs, hasSize(1));
+        assertThat(runs.get(0).getDuration(), equalTo(10 * MINUTE));
+        verify(taskRepository).findByProjectIdAndEndDateGreaterThanEqual(1L, new Date(MONDAY_10.getTime() - 10 * MINUTE));
+    }
+
+    @Test
+    public void fallsBackToAllHoursWhenTheHourHasFewRuns() {
+        final TaskRuntimeBaseline hour = baseline(10, 3);
+        final TaskRuntimeBaseline allHours = baseline(TaskRuntimeBaseline.ALL_HOURS, 20);
+        when(baselineRepository.findByProjectIdAndTaskNameIdAndBucketIn(anyLong(), anyInt(), anyCollection()))
+                .thenReturn(Arrays.asList(hour, allHours));
+
+        assertThat(service.find(running(5)).orElse(null), sameInstance(allHours));
+    }
+
+    @Test
+    public void predictsEndFromTheRunsLongerThanTheTaskSoFar() {
+        final TaskRuntimeBaseline allHours = baseline(TaskRuntimeBaseline.ALL_HOURS, 0);
+        for (long minutes = 1; minutes <= 20; minutes++) {
+            TaskRuntimeBaselineService.add(allHours, minutes, minutes * MINUTE);
+        }
+        when(baselineRepository.findByProjectIdAndTaskNameIdAndBucketIn(anyLong(), anyInt(), anyCollection()))
+                .thenReturn(Collections.singletonList(allHours));
+
+        final Task task = running(15);
+        final Date now = new Date(task.getStartDate().getTime() + 15 * MINUTE);
+        final TaskEta eta = service.predict(Collections.singletonList(task), now).get(0);
+        assertThat(eta.getExpectedEndDate(), equalTo(new Date(task.getStartDate().getTime() + 18 * MINUTE)));
+
+        final TaskEta late = service.predict(Collections.singletonList(task), new Date(now.getTime() + 10 * MINUTE)).get(0);
+        assertThat(late.getBaseline(), sameInstance(allHours));
+        assertThat(late.getExpectedEndDate(), nullValue());
+    }
+
+    private Task succeeded(final long minutes) {
+        final Task task = running(minutes);
+        task.setState(Task.State.SUCCEEDED);
+        task.setEndDate(new Date(task.getStartDate().getTime() + minutes * MINUTE));
+        return task;
+    }
+
+    private Task running(final long minutes) {
+        final Task task = new Task();
+        task.setId(nextId++);
+        task.setProject(project);
+        task.setTaskName(taskName);
+        task.setState(Task.State.RUNNING);
+        task.setStartDate(MONDAY_10);
+        return task;
+    }
+
+    private static TaskRuntimeBaseline baseline(final int bucket, final int runs) {
+        final TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+        baseline.setBucket(bucket);
+        baseline.setRuns(runs);
+        return baseline;
+    }
+}
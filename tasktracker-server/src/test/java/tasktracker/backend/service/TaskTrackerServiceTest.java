@@ -3,6 +3,7 @@ package tasktracker.backend.service;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import org.apache.commons.lang3.time.DateUtils;
 import org.assertj.core.util.Lists;
 import org.junit.After;
 import org.junit.Assert;
@@ -12,6 +13,7 @@ import org.mockito.InjectMocks;
 import tasktracker.backend.controller.DateTimePatterns;
 import tasktracker.backend.controller.groupers.Frequency;
 import tasktracker.backend.controller.model.TableModel;
+import tasktracker.backend.controller.model.TaskModel;
 import tasktracker.backend.controller.model.TasksReportModel;
 import tasktracker.backend.controller.model.dashboard.TopChart;
 import tasktracker.backend.model.*;
@@ -29,7 +31,12 @@ import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static tasktracker.backend.TestHelper.*;
 import static tasktracker.backend.controller.DateTimePatterns.getDateFromFormattedDateString;
@@ -176,21 +183,52 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
     }
 
     @Test
-    public void getTopFailedTasksStats() {
-        List<Task> tasks = new ArrayList<>();
-
-        tasks.add(task(project, "TestTask1", "SUCCEEDED", "2020-01-01", "2020-01-01"));
-        tasks.add(task(project, "TestTask1", "FAILED", "2020-01-02", "2020-01-02"));
-        tasks.add(task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-01"));
+    public void getTaskGroupingByNameAndDateLoadsChildrenInBulk() {
+        Task task1 = task(project, "TestTask1", "SUCCEEDED", "2020-01-01T08:00:00.000+0000", "2020-01-05T12:00:00.000+0000");
+        task1.setId(1L);
+        Task task2 = task(project, "TestTask2", "SUCCEEDED", "2020-01-02T07:01:00.000+0000", "2020-02-05T11:00:00.000+0000");
+        task2.setId(2L);
 
-        tasks.add(task(project, "TestTask2", "FAILED", "2020-01-02", "2020-01-02"));
-        tasks.add(task(project, "TestTask2", "FAILED", "2020-01-04", "2020-01-04"));
-        tasks.add(task(project, "TestTask2", "FAILED", "2020-01-05", "2020-01-05"));
-        tasks.add(task(project, "TestTask2", "FAILED", "2020-01-02", "2020-01-02"));
+        when(taskRepository.findTasks(any(), any(), any()))
+                .thenReturn(Lists.newArrayList(task1, task2));
+        when(taskErrorRepository.findByTaskIds(any()))
+                .thenReturn(Lists.newArrayList(error(task1, "error1"), error(task1, "error2")));
+        when(warningRepository.findByTaskIds(any()))
+                .thenReturn(Lists.newArrayList(warning(task2, "warning1")));
 
-        tasks.add(task(project, "TestTask3", "SUCCEEDED", "2020-01-03", "2020-01-03"));
+        TaskFilter filter = TaskFilter
+                .of()
+                .setNames(Sets.newHashSet())
+                .setFrom(getDateFromFormattedDateString("2020-01-01"))
+                .setTo(getDateFromFormattedDateString("2020-01-02"))
+                .setDateType(Task.DateType.NOMINAL_DATE)
+                .setWithStatistics(false)
+                .setWithErrors(true)
+                .setWithMetrics(false)
+                .setWithWarnings(true);
+        List<TasksReportModel> report = taskTrackerService.groupTasksByNameAndDate(
+                new Project(), filter, Sets.newHashSet(State.SUCCEEDED), false);
+
+        verify(taskErrorRepository, times(1)).findByTaskIds(any());
+        verify(warningRepository, times(1)).findByTaskIds(any());
+        verify(taskErrorRepository, never()).findByTask(any());
+        verify(warningRepository, never()).findByTask(any());
+        verify(taskMetricRepository, never()).findByTaskIds(any());
+
+        Map<String, TaskModel> models = new HashMap<>();
+        report.forEach(model -> model.getDates().forEach(date -> date.getTasks().forEach(t -> models.put(t.getName(), t))));
+        assertThat(models.get("TestTask1").getErrors(), hasSize(2));
+        assertThat(models.get("TestTask1").getWarnings(), hasSize(0));
+        assertThat(models.get("TestTask2").getErrors(), hasSize(0));
+        assertThat(models.get("TestTask2").getWarnings(), hasSize(1));
+    }
 
-        when(taskRepository.findTasksInRage(any(), any(), any())).thenReturn(tasks);
+    @Test
+    public void getTopFailedTasksStats() {
+        when(taskAggregationRepository.countFailedTasksByName(any(), any(), any(), anyInt())).thenReturn(Lists.newArrayList(
+                new TopChart.TopElement("TestTask2", 4),
+                new TopChart.TopElement("TestTask1", 2)
+        ));
         LinkedHashMap<String, Integer> topFailedTasksStats = taskTrackerService.findTopFailedTasksStats(new Project(), new Date(), new Date(), 10);
 
         assertNotNull(topFailedTasksStats);
@@ -207,29 +245,12 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
 
     @Test
     public void getTopLongTasksStats() {
-        List<Task> tasks = new ArrayList<>();
-//        There are 2 SUCCEEDED TestTask1 tasks with execution time: 4h, 1h => median = (1 + 4) * 0.5 * 60 * 60 = 9 000s
-        tasks.add(task(project, "TestTask1", "SUCCEEDED",
-                "2020-01-01T08:00:00.000+0000", "2020-01-01T08:00:00.000+0000", "2020-01-01T12:00:00.000+0000"));
-        tasks.add(task(project, "TestTask1", "SUCCEEDED",
-                "2020-01-02T08:00:00.000+0000", "2020-01-02T08:00:00.000+0000", "2020-01-02T09:00:00.000+0000"));
-        tasks.add(task(project, "TestTask1", "FAILED",
-                "2020-01-03T08:00:00.000+0000", "2020-01-03T08:00:00.000+0000", "2020-01-03T19:00:00.000+0000"));
-
-//        There are 3 SUCCEEDED TestTask2 tasks with execution time: 20m, 30m, 60m => median = 30 * 60 = 1800s
-        tasks.add(task(project, "TestTask2", "SUCCEEDED",
-                "2020-01-15T12:00:00.000+0000", "2020-01-15T12:00:00.000+0000", "2020-01-15T12:20:00.000+0000"));
-        tasks.add(task(project, "TestTask2", "SUCCEEDED",
-                "2020-01-16T12:00:00.000+0000", "2020-01-16T12:00:00.000+0000", "2020-01-16T12:30:00.000+0000"));
-        tasks.add(task(project, "TestTask2", "SUCCEEDED",
-                "2020-01-17T12:00:00.000+0000", "2020-01-17T12:00:00.000+0000", "2020-01-17T13:00:00.000+0000"));
-        tasks.add(task(project, "TestTask2", "RUNNING",
-                "2020-01-18T12:00:00.000+0000", "2020-01-18T12:00:00.000+0000"));
-        tasks.add(task(project, "TestTask2", "FAILED",
-                "2020-01-20T12:00:00.000+0000", "2020-01-20T12:00:00.000+0000", "2020-01-20T17:00:00.000+0000"));
-
-        when(taskRepository.findTasksInRage(any(), any(), any())).thenReturn(tasks);
-        LinkedHashMap<String, Integer> topFailedTasksStats = taskTrackerService.findTopLongTasksStats(new Project(), new Date(), new Date(), 10);
+        when(taskAggregationRepository.medianExecutionTimeByName(any(), any(), any(), anyInt())).thenReturn(Lists.newArrayList(
+                new TopChart.TopElement("TestTask1", 9000),
+                new TopChart.TopElement("TestTask2", 1800)
+        ));
+        LinkedHashMap<String, Integer> topFailedTasksStats = taskTrackerService.findTopLongTasksStats(new Project(),
+                getDateFromFormattedDateString("2020-05-01"), getDateFromFormattedDateString("2020-05-07"), 10);
 
         assertNotNull(topFailedTasksStats);
         assertThat(topFailedTasksStats.size(), equalTo(2));
@@ -244,27 +265,44 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
     }
 
     @Test
-    public void getTasksDistributionWeek() {
-        List<Task> tasks = new ArrayList<>();
+    public void getTopLongTasksStatsUpToTodayFromBaselines() {
+        Date startDate = DateUtils.addDays(new Date(), -7);
+        Date endDate = new Date();
+        when(taskRuntimeBaselineService.findLongest(any(), eq(startDate), anyInt())).thenReturn(Lists.newArrayList(
+                baseline("TestTask1", 9_000_400),
+                // truncated to whole seconds like the aggregated medians
+                baseline("TestTask2", 1_800_900)
+        ));
+        LinkedHashMap<String, Integer> topLongTasksStats = taskTrackerService.findTopLongTasksStats(new Project(), startDate, endDate, 10);
+
+        assertThat(new ArrayList<>(topLongTasksStats.keySet()), equalTo(Arrays.asList("TestTask1", "TestTask2")));
+        assertThat(topLongTasksStats, hasEntry("TestTask1", 9000));
+        assertThat(topLongTasksStats, hasEntry("TestTask2", 1800));
+        verify(taskAggregationRepository, never()).medianExecutionTimeByName(any(), any(), any(), anyInt());
+    }
 
-//        There are 3 tasks started at first week
-        tasks.add(task(project, "TestTask1", "SUCCEEDED",
-                "2020-01-01T08:00:00.000+0000", "2020-05-05T08:00:00.000+0000", "2020-05-05T12:00:00.000+0000"));
-        tasks.add(task(project, "TestTask1", "SUCCEEDED",
-                "2020-01-02T08:00:00.000+0000", "2020-05-04T08:00:00.000+0000", "2020-05-04T09:00:00.000+0000"));
-        tasks.add(task(project, "TestTask1", "FAILED",
-                "2020-01-03T08:00:00.000+0000", "2020-05-02T08:00:00.000+0000", "2020-05-02T19:00:00.000+0000"));
+    private static TaskRuntimeBaseline baseline(final String name, final double median) {
+        final TaskRuntimeBaseline baseline = new TaskRuntimeBaseline();
+        baseline.setTaskName(TaskName.of(name));
+        baseline.setMedian(median);
+        return baseline;
+    }
 
+    @Test
+    public void getTasksDistributionWeek() {
+        Map<Date, Integer> counts = new HashMap<>();
+//        There are 3 tasks started at first week
+        counts.put(getDateFromFormattedDateString("2020-05-02"), 1);
+        counts.put(getDateFromFormattedDateString("2020-05-04"), 1);
+        counts.put(getDateFromFormattedDateString("2020-05-05"), 1);
 //        There are 2 tasks started at second week
-        tasks.add(task(project, "TestTask2", "SUCCEEDED",
-                "2020-01-15T12:00:00.000+0000", "2020-05-08T12:00:00.000+0000", "2020-05-08T12:20:00.000+0000"));
-        tasks.add(task(project, "TestTask2", "FAILED",
-                "2020-01-20T12:00:00.000+0000", "2020-05-09T12:00:00.000+0000", "2020-05-09T17:00:00.000+0000"));
+        counts.put(getDateFromFormattedDateString("2020-05-08"), 1);
+        counts.put(getDateFromFormattedDateString("2020-05-09"), 1);
 
         Date startDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-01");
         Date endDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-10");
 
-        when(taskRepository.findTasksInRage(any(), any(), any())).thenReturn(tasks);
+        when(taskAggregationRepository.countTasksByStartDay(any(), any(), any())).thenReturn(counts);
         Map<Date, Integer> tasksDistribution = taskTrackerService.getTasksDistribution(new Project(), startDate, endDate, Frequency.WEEK);
 
         Date d1 = DateTimePatterns.getDateFromFormattedDateString("2020-05-01");
@@ -284,20 +322,16 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
 
     @Test
     public void getTasksDistributionHour() {
-        List<Task> tasks = new ArrayList<>();
-
+        Map<Date, Integer> counts = new HashMap<>();
 //        There is 1 task
-        tasks.add(task(project, "TestTask1", "SUCCEEDED",
-                "2020-01-01T08:00:00.000+0000", "2020-05-01T08:00:00.000+0000", "2020-05-05T12:00:00.000+0000"));
-
+        counts.put(getDateFromFormattedDateString("2020-05-01T08:00:00.000+0000"), 1);
 //        There is 1 task started after midnight
-        tasks.add(task(project, "TestTask2", "FAILED",
-                "2020-01-20T12:00:00.000+0000", "2020-05-02T00:30:00.000+0000", "2020-05-09T17:00:00.000+0000"));
+        counts.put(getDateFromFormattedDateString("2020-05-02T00:00:00.000+0000"), 1);
 
         Date startDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-01");
         Date endDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-02");
 
-        when(taskRepository.findTasksInRageTruncHour(any(), any(), any())).thenReturn(tasks);
+        when(taskAggregationRepository.countTasksByStartHour(any(), any(), any())).thenReturn(counts);
         Map<Date, Integer> tasksDistribution = taskTrackerService.getTasksDistribution(new Project(), startDate, endDate, Frequency.HOUR);
 
         Date d1 = DateTimePatterns.getDateFromFormattedDateString("2020-05-01T08:00:00.000+0000");
@@ -316,22 +350,10 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
 
     @Test
     public void findTopErrors() {
-        Task task1 = task(project, "TestTask3", "FAILED", "2020-01-01", "2020-01-05");
-        List<TaskError> errors1 = new ArrayList<>();
-        errors1.add(error(task1, "Dataset main is empty", TaskError.Type.NO_DATA_ERROR));
-
-        Task task2 = task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-05");
-        List<TaskError> errors2 = new ArrayList<>();
-        errors2.add(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
-        errors2.add(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
-        errors2.add(error(task2, "Dataset TestTask1 is empty", TaskError.Type.DATA_LOAD_ERROR));
-
-        List<Task> tasks = new ArrayList<>();
-        tasks.add(task1);
-        tasks.add(task2);
-
-        when(taskRepository.findTasksInRage(any(), any(), any())).thenReturn(tasks);
-        when(taskErrorRepository.findByTask(any())).thenReturn(errors1, errors2);
+        when(taskAggregationRepository.countErrorsByType(any(), any(), any(), anyInt())).thenReturn(Lists.newArrayList(
+                new TopChart.TopElement("DATA_LOAD_ERROR", 3),
+                new TopChart.TopElement("NO_DATA_ERROR", 1)
+        ));
 
         Date startDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-01");
         Date endDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-02");
@@ -346,21 +368,10 @@ public class TaskTrackerServiceTest extends AbstractServiceTest {
 
     @Test
     public void findTopWarnings() {
-        Task task1 = task(project, "TestTask5", "SUCCEEDED", "2020-01-01", "2020-01-05");
-        List<Warning> warnings1 = new ArrayList<>();
-        warnings1.add(warning(task1, "TestTask5.cnt is NULL"));
-
-        Task task2 = task(project, "TestTask1", "FAILED", "2020-01-01", "2020-01-05");
-        List<Warning> warnings2 = new ArrayList<>();
-        warnings2.add(warning(task2, "stg.cnt is NULL"));
-        warnings2.add(warning(task2, "stg.cnt is NULL"));
-
-        List<Task> tasks = new ArrayList<>();
-        tasks.add(task1);
-        tasks.add(task2);
-
-        when(taskRepository.findTasksInRage(any(), any(), any())).thenReturn(tasks);
-        when(warningRepository.findByTask(any())).thenReturn(warnings1, warnings2);
+        when(taskAggregationRepository.countWarningsByMessage(any(), any(), any(), anyInt())).thenReturn(Lists.newArrayList(
+                new TopChart.TopWarningElement("stg.cnt is NULL", 2, "TestTask1"),
+                new TopChart.TopWarningElement("TestTask5.cnt is NULL", 1, "TestTask5")
+        ));
 
         Date startDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-01");
         Date endDate = DateTimePatterns.getDateFromFormattedDateString("2020-05-02");